@@ -21,6 +21,7 @@ import java.util.Map;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.palantir.atlasdb.metrics.Timed;
 import com.palantir.common.annotation.Idempotent;
+import com.palantir.util.paging.TokenBackedBasicResultsPage;
 
 public interface AsyncKeyValueService extends AutoCloseable {
     /**
@@ -37,6 +38,65 @@ public interface AsyncKeyValueService extends AutoCloseable {
     @Timed
     ListenableFuture<Map<Cell, Value>> getAsync(TableReference tableRef, Map<Cell, Long> timestampByCell);
 
+    /**
+     * Asynchronously gets the values of the given rows, as
+     * {@link KeyValueService#getRows(TableReference, Iterable, ColumnSelection, long)} does, when the store allows it.
+     * In other cases it just wraps the result in an immediate future.
+     *
+     * @param tableRef        the name of the table to retrieve values from.
+     * @param rows            set containing the rows to retrieve values for.
+     * @param columnSelection specifies the set of columns to fetch.
+     * @param timestamp       specifies the maximum timestamp (exclusive) at which to retrieve each row's value.
+     * @return listenable future containing map of retrieved values. Values which do not exist (either because they were
+     * deleted or never created in the first place) are simply not returned.
+     */
+    @Idempotent
+    @Timed
+    ListenableFuture<Map<Cell, Value>> getRowsAsync(
+            TableReference tableRef,
+            Iterable<byte[]> rows,
+            ColumnSelection columnSelection,
+            long timestamp);
+
+    /**
+     * Asynchronously gets all values of the given rows within the column range when the store allows it. In other
+     * cases it just wraps the result in an immediate future. Unlike
+     * {@link KeyValueService#getRowsColumnRange(TableReference, Iterable, ColumnRangeSelection, int, long)}, the whole
+     * column range is read, so this should only be used for ranges known to be small.
+     *
+     * @param tableRef             the name of the table to retrieve values from.
+     * @param rows                 set containing the rows to retrieve values for.
+     * @param columnRangeSelection specifies the column range to fetch.
+     * @param timestamp            specifies the maximum timestamp (exclusive) at which to retrieve each row's value.
+     * @return listenable future containing map of retrieved values. Values which do not exist (either because they were
+     * deleted or never created in the first place) are simply not returned.
+     */
+    @Idempotent
+    @Timed
+    ListenableFuture<Map<Cell, Value>> getRowsColumnRangeAsync(
+            TableReference tableRef,
+            Iterable<byte[]> rows,
+            ColumnRangeSelection columnRangeSelection,
+            long timestamp);
+
+    /**
+     * Asynchronously gets the first page of the given range, as
+     * {@link KeyValueService#getFirstBatchForRanges(TableReference, Iterable, long)} does for each range, when the
+     * store allows it. In other cases it just wraps the result in an immediate future. Further pages can be read by
+     * starting the range at {@link TokenBackedBasicResultsPage#getTokenForNextPage()}.
+     *
+     * @param tableRef     the name of the table to retrieve values from.
+     * @param rangeRequest the range to read, whose batch hint is the number of rows in the page.
+     * @param timestamp    specifies the maximum timestamp (exclusive) at which to retrieve each row's value.
+     * @return listenable future containing the first page of the range.
+     */
+    @Idempotent
+    @Timed
+    ListenableFuture<TokenBackedBasicResultsPage<RowResult<Value>, byte[]>> getFirstBatchForRangeAsync(
+            TableReference tableRef,
+            RangeRequest rangeRequest,
+            long timestamp);
+
     @Override
     void close();
 }
@@ -20,7 +20,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.palantir.atlasdb.metrics.Timed;
 import com.palantir.atlasdb.transaction.api.TransactionManager;
 import com.palantir.common.annotation.Idempotent;
@@ -490,6 +494,49 @@ public interface KeyValueService extends AutoCloseable, AsyncKeyValueService {
             Iterable<RangeRequest> rangeRequests,
             long timestamp);
 
+    /**
+     * Reads the rows synchronously and returns the result as an immediate future. Key value services which can read
+     * rows without blocking should override this.
+     */
+    @Override
+    @DoDelegate
+    default ListenableFuture<Map<Cell, Value>> getRowsAsync(
+            TableReference tableRef,
+            Iterable<byte[]> rows,
+            ColumnSelection columnSelection,
+            long timestamp) {
+        return Futures.immediateFuture(getRows(tableRef, rows, columnSelection, timestamp));
+    }
+
+    /**
+     * Reads the column range synchronously and returns the result as an immediate future. Key value services which
+     * can read column ranges without blocking should override this.
+     */
+    @Override
+    @DoDelegate
+    default ListenableFuture<Map<Cell, Value>> getRowsColumnRangeAsync(
+            TableReference tableRef,
+            Iterable<byte[]> rows,
+            ColumnRangeSelection columnRangeSelection,
+            long timestamp) {
+        RowColumnRangeIterator values = getRowsColumnRange(tableRef, rows, columnRangeSelection, 1_000, timestamp);
+        return Futures.immediateFuture(ImmutableMap.copyOf(ImmutableList.copyOf(values)));
+    }
+
+    /**
+     * Reads the first page of the range synchronously and returns the result as an immediate future. Key value
+     * services which can read ranges without blocking should override this.
+     */
+    @Override
+    @DoDelegate
+    default ListenableFuture<TokenBackedBasicResultsPage<RowResult<Value>, byte[]>> getFirstBatchForRangeAsync(
+            TableReference tableRef,
+            RangeRequest rangeRequest,
+            long timestamp) {
+        return Futures.immediateFuture(
+                getFirstBatchForRanges(tableRef, ImmutableList.of(rangeRequest), timestamp).get(rangeRequest));
+    }
+
     ////////////////////////////////////////////////////////////
     // TABLE CREATION AND METADATA
     ////////////////////////////////////////////////////////////
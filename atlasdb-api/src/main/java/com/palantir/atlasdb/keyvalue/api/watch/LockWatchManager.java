@@ -18,6 +18,7 @@ package com.palantir.atlasdb.keyvalue.api.watch;
 
 import java.util.Set;
 
+import com.palantir.atlasdb.transaction.api.TransactionLockWatchingCacheView;
 import com.palantir.common.annotation.Idempotent;
 import com.palantir.lock.watch.IdentifiedVersion;
 import com.palantir.lock.watch.LockWatchReferences;
@@ -37,4 +38,11 @@ public interface LockWatchManager {
      * @param lastKnownVersion exclusive start version to get events from
      */
     TransactionsLockWatchEvents getEventsForTransactions(Set<Long> startTimestamps, IdentifiedVersion lastKnownVersion);
+
+    /**
+     * Returns a view of the lock watch value cache for the transaction with the given start timestamp. Values read
+     * through the view are guaranteed to be equal to what the transaction would have read from the KVS.
+     * @param startTimestamp start timestamp of a transaction started through this client
+     */
+    TransactionLockWatchingCacheView getCacheView(long startTimestamp);
 }
@@ -19,6 +19,8 @@ package com.palantir.atlasdb.keyvalue.api.watch;
 import java.util.Set;
 
 import com.palantir.atlasdb.timelock.api.LockWatchRequest;
+import com.palantir.atlasdb.transaction.api.NoOpTransactionLockWatchingCacheView;
+import com.palantir.atlasdb.transaction.api.TransactionLockWatchingCacheView;
 import com.palantir.lock.client.NamespacedConjureLockWatchingService;
 import com.palantir.lock.watch.IdentifiedVersion;
 import com.palantir.lock.watch.LockWatchEventCache;
@@ -43,4 +45,9 @@ public final class LockWatchManagerImpl implements LockWatchManager {
     public TransactionsLockWatchEvents getEventsForTransactions(Set<Long> startTimestamps, IdentifiedVersion version) {
         return cache.getEventsForTransactions(startTimestamps, version);
     }
+
+    @Override
+    public TransactionLockWatchingCacheView getCacheView(long startTimestamp) {
+        return NoOpTransactionLockWatchingCacheView.INSTANCE;
+    }
 }
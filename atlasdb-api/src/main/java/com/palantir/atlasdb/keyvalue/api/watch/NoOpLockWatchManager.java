@@ -18,6 +18,8 @@ package com.palantir.atlasdb.keyvalue.api.watch;
 
 import java.util.Set;
 
+import com.palantir.atlasdb.transaction.api.NoOpTransactionLockWatchingCacheView;
+import com.palantir.atlasdb.transaction.api.TransactionLockWatchingCacheView;
 import com.palantir.lock.watch.IdentifiedVersion;
 import com.palantir.lock.watch.LockWatchReferences;
 import com.palantir.lock.watch.NoOpLockWatchEventCache;
@@ -40,4 +42,9 @@ public final class NoOpLockWatchManager implements LockWatchManager {
             IdentifiedVersion lastKnownVersion) {
         return NoOpLockWatchEventCache.INSTANCE.getEventsForTransactions(startTimestamps, lastKnownVersion);
     }
+
+    @Override
+    public TransactionLockWatchingCacheView getCacheView(long startTimestamp) {
+        return NoOpTransactionLockWatchingCacheView.INSTANCE;
+    }
 }
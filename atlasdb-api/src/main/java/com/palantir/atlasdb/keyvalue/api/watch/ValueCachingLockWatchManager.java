@@ -0,0 +1,79 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.api.watch;
+
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+import com.palantir.atlasdb.transaction.api.LockWatchingCache;
+import com.palantir.atlasdb.transaction.api.NoOpTransactionLockWatchingCacheView;
+import com.palantir.atlasdb.transaction.api.TransactionLockWatchingCacheView;
+import com.palantir.lock.watch.IdentifiedVersion;
+import com.palantir.lock.watch.LockWatchReferences;
+import com.palantir.lock.watch.LockWatchStateUpdate;
+import com.palantir.lock.watch.TransactionsLockWatchEvents;
+
+/**
+ * Decorates a {@link LockWatchManager} with a {@link LockWatchingCache}. Each time a view is requested, the cache is
+ * first brought up to date with the lock watch events observed by the transaction's start, so that the returned view
+ * only serves values no write lock could have invalidated before the transaction started.
+ */
+public final class ValueCachingLockWatchManager implements LockWatchManager {
+    private final LockWatchManager delegate;
+    private final LockWatchingCache valueCache;
+
+    public ValueCachingLockWatchManager(LockWatchManager delegate, LockWatchingCache valueCache) {
+        this.delegate = delegate;
+        this.valueCache = valueCache;
+    }
+
+    @Override
+    public void registerWatches(Set<LockWatchReferences.LockWatchReference> lockWatchReferences) {
+        delegate.registerWatches(lockWatchReferences);
+    }
+
+    @Override
+    public TransactionsLockWatchEvents getEventsForTransactions(Set<Long> startTimestamps,
+            IdentifiedVersion lastKnownVersion) {
+        return delegate.getEventsForTransactions(startTimestamps, lastKnownVersion);
+    }
+
+    @Override
+    public TransactionLockWatchingCacheView getCacheView(long startTimestamp) {
+        IdentifiedVersion cacheVersion = valueCache.lastKnownVersion();
+        TransactionsLockWatchEvents events = delegate.getEventsForTransactions(
+                ImmutableSet.of(startTimestamp), cacheVersion);
+        return events.accept(new TransactionsLockWatchEvents.Visitor<TransactionLockWatchingCacheView>() {
+            @Override
+            public TransactionLockWatchingCacheView visit(TransactionsLockWatchEvents.Events success) {
+                Long transactionVersion = success.startTsToSequence().get(startTimestamp);
+                if (transactionVersion == null) {
+                    return NoOpTransactionLockWatchingCacheView.INSTANCE;
+                }
+                return valueCache.getView(startTimestamp, LockWatchStateUpdate.success(
+                        cacheVersion.id(), transactionVersion, success.events()));
+            }
+
+            @Override
+            public TransactionLockWatchingCacheView visit(TransactionsLockWatchEvents.ForcedSnapshot failure) {
+                // The snapshot may be more recent than the transaction, so it cannot be used to serve its reads.
+                valueCache.processUpdate(failure.snapshot());
+                return NoOpTransactionLockWatchingCacheView.INSTANCE;
+            }
+        });
+    }
+}
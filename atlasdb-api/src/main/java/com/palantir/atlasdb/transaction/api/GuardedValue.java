@@ -26,6 +26,9 @@ import org.immutables.value.Value;
  * In the context of the AtlasDB transaction protocol, a value with {@link #guardTimestamp()} ts is guaranteed to be
  * fresh, i.e., equal to the corresponding entry in the KVS, for any transaction with a start timestamp greater than ts
  * if there were no write locks taken out between ts and start timestamp that could have modified the stored value.
+ *
+ * Implementations driven by lock watch events may use the lock watch version, rather than a timelock timestamp, as the
+ * guard, in which case the transaction's lock watch version should be compared against it instead.
  */
 public interface GuardedValue {
     @Value.Parameter
@@ -21,9 +21,24 @@ import java.util.Set;
 
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.lock.watch.IdentifiedVersion;
 import com.palantir.lock.watch.LockWatchStateUpdate;
 
 public interface LockWatchingCache {
+    /**
+     * Returns the last lock watch version the cache has processed events up to. Updates passed to the cache should
+     * contain all events after this version, otherwise the cache will not be able to use them.
+     */
+    IdentifiedVersion lastKnownVersion();
+
+    /**
+     * Updates the state of the cache with the given lock watch update. Any cached values that may have been modified
+     * by a write lock contained in the update are invalidated.
+     *
+     * @param update lock watch update, containing either all events since {@link #lastKnownVersion()}, or a snapshot
+     */
+    void processUpdate(LockWatchStateUpdate update);
+
     /**
      * Given a table and a set of cells, the cache returns a map containing the latest cached {@link GuardedValue}s for
      * cells present in the cache.
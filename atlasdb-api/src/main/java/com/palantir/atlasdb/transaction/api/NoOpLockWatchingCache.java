@@ -17,20 +17,35 @@
 package com.palantir.atlasdb.transaction.api;
 
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
 
 import com.google.common.collect.ImmutableMap;
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.lock.watch.IdentifiedVersion;
+import com.palantir.lock.watch.ImmutableIdentifiedVersion;
 import com.palantir.lock.watch.LockWatchStateUpdate;
 
 public final class NoOpLockWatchingCache implements LockWatchingCache {
     public static final NoOpLockWatchingCache INSTANCE = new NoOpLockWatchingCache();
+    private static final IdentifiedVersion FAKE = ImmutableIdentifiedVersion.of(UUID.randomUUID(), Optional.empty());
 
     private NoOpLockWatchingCache() {
         // you wanted to be tricky?
     }
 
+    @Override
+    public IdentifiedVersion lastKnownVersion() {
+        return FAKE;
+    }
+
+    @Override
+    public void processUpdate(LockWatchStateUpdate update) {
+        // noop
+    }
+
     @Override
     public Map<Cell, GuardedValue> getCached(TableReference tableRef, Set<Cell> reads) {
         return ImmutableMap.of();
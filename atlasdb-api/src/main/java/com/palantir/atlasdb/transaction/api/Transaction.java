@@ -22,6 +22,7 @@ import java.util.SortedMap;
 import java.util.function.BiFunction;
 import java.util.stream.Stream;
 
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.palantir.atlasdb.keyvalue.api.BatchColumnRangeSelection;
 import com.palantir.atlasdb.keyvalue.api.Cell;
@@ -47,6 +48,23 @@ public interface Transaction {
             Iterable<byte[]> rows,
             ColumnSelection columnSelection);
 
+    /**
+     * Gets the values of the given rows, as {@link #getRows(TableReference, Iterable, ColumnSelection)} does. It is not
+     * guaranteed that the actual implementations are in fact asynchronous.
+     *
+     * @param tableRef the table from which to get the values
+     * @param rows the rows for which we want to get the values
+     * @param columnSelection the columns to get for each row
+     * @return a sorted {@link Map} from row name to the {@link RowResult} of that row
+     */
+    @Idempotent
+    default ListenableFuture<SortedMap<byte[], RowResult<byte[]>>> getRowsAsync(
+            TableReference tableRef,
+            Iterable<byte[]> rows,
+            ColumnSelection columnSelection) {
+        return Futures.immediateFuture(getRows(tableRef, rows, columnSelection));
+    }
+
     @Idempotent
     Map<byte[], BatchingVisitable<Map.Entry<Cell, byte[]>>> getRowsColumnRange(
             TableReference tableRef,
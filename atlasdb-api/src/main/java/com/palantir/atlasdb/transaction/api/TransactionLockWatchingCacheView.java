@@ -21,7 +21,6 @@ import java.util.Set;
 
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
-import com.palantir.lock.watch.LockWatchStateUpdate;
 
 public interface TransactionLockWatchingCacheView {
     /**
@@ -37,13 +36,13 @@ public interface TransactionLockWatchingCacheView {
 
     /**
      * Try to cache values read from the kvs in this transaction. It is the responsibility of the underlying
-     * {@link LockWatchingCache} to arbitrate which, if any, values should be cached.
+     * {@link LockWatchingCache} to arbitrate which, if any, values should be cached, based on the lock watch state
+     * with which the view was created.
      *
      * @param tableRef table we read from
-     * @param writes entries read from the KVS
-     * @param lwState lock watch state when the view was created
+     * @param values entries read from the KVS
      */
-    void tryCacheNewValuesRead(TableReference tableRef, Map<Cell, byte[]> writes, LockWatchStateUpdate lwState);
+    void tryCacheNewValuesRead(TableReference tableRef, Map<Cell, byte[]> values);
 
     /**
      * Try to cache values written to the kvs in this transaction. This method must be called only after the writing
@@ -0,0 +1,153 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.palantir.atlasdb.AtlasDbConstants;
+import com.palantir.atlasdb.containers.CassandraResource;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.AsyncKeyValueService;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.ColumnRangeSelection;
+import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
+import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.api.RangeRequest;
+import com.palantir.atlasdb.keyvalue.api.RowResult;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.keyvalue.api.Value;
+import com.palantir.atlasdb.keyvalue.cassandra.async.DefaultCassandraAsyncKeyValueServiceFactory;
+import com.palantir.atlasdb.util.MetricsManagers;
+import com.palantir.util.paging.TokenBackedBasicResultsPage;
+
+public class CassandraAsyncKeyValueServiceIntegrationTest {
+    private static final TableReference TEST_TABLE = TableReference.createFromFullyQualifiedName("ns.async_kvs_test");
+    private static final long TIMESTAMP = 20L;
+    private static final byte[] ROW_1 = PtBytes.toBytes("row1");
+    private static final byte[] ROW_2 = PtBytes.toBytes("row2");
+    private static final byte[] COLUMN_A = PtBytes.toBytes("a");
+    private static final byte[] COLUMN_B = PtBytes.toBytes("b");
+    private static final byte[] COLUMN_C = PtBytes.toBytes("c");
+
+    @ClassRule
+    public static final CassandraResource CASSANDRA_RESOURCE = new CassandraResource();
+
+    private KeyValueService keyValueService;
+    private AsyncKeyValueService asyncKeyValueService;
+
+    @Before
+    public void setUp() {
+        keyValueService = CASSANDRA_RESOURCE.getDefaultKvs();
+        keyValueService.createTable(TEST_TABLE, AtlasDbConstants.GENERIC_TABLE_METADATA);
+        asyncKeyValueService = DefaultCassandraAsyncKeyValueServiceFactory.DEFAULT
+                .constructAsyncKeyValueService(
+                        MetricsManagers.createForTests(),
+                        CASSANDRA_RESOURCE.getConfig(),
+                        AtlasDbConstants.DEFAULT_INITIALIZE_ASYNC)
+                .orElseThrow(() -> new IllegalStateException("The test Cassandra should accept CQL connections"));
+    }
+
+    @After
+    public void tearDown() {
+        asyncKeyValueService.close();
+        keyValueService.truncateTables(ImmutableSet.of(TEST_TABLE));
+    }
+
+    @Test
+    public void getRowsReadsFreshestVisibleVersionOfEachColumn() throws Exception {
+        put(ROW_1, COLUMN_A, "old", TIMESTAMP - 10);
+        put(ROW_1, COLUMN_A, "fresh", TIMESTAMP - 5);
+        put(ROW_1, COLUMN_A, "future", TIMESTAMP);
+        put(ROW_1, COLUMN_B, "future", TIMESTAMP + 10);
+        put(ROW_2, COLUMN_A, "other", TIMESTAMP - 10);
+
+        Map<Cell, Value> result = asyncKeyValueService.getRowsAsync(
+                TEST_TABLE, ImmutableList.of(ROW_1, ROW_2), ColumnSelection.all(), TIMESTAMP).get();
+
+        assertThat(result).isEqualTo(ImmutableMap.of(
+                Cell.create(ROW_1, COLUMN_A), value("fresh", TIMESTAMP - 5),
+                Cell.create(ROW_2, COLUMN_A), value("other", TIMESTAMP - 10)));
+    }
+
+    @Test
+    public void getRowsReadsOnlySelectedColumns() throws Exception {
+        put(ROW_1, COLUMN_A, "a", TIMESTAMP - 1);
+        put(ROW_1, COLUMN_B, "b", TIMESTAMP - 1);
+
+        Map<Cell, Value> result = asyncKeyValueService.getRowsAsync(
+                TEST_TABLE,
+                ImmutableList.of(ROW_1, ROW_2),
+                ColumnSelection.create(ImmutableList.of(COLUMN_B)),
+                TIMESTAMP).get();
+
+        assertThat(result).isEqualTo(ImmutableMap.of(Cell.create(ROW_1, COLUMN_B), value("b", TIMESTAMP - 1)));
+    }
+
+    @Test
+    public void getRowsColumnRangeReadsOnlyColumnsInRange() throws Exception {
+        put(ROW_1, COLUMN_A, "a", TIMESTAMP - 1);
+        put(ROW_1, COLUMN_B, "b", TIMESTAMP - 1);
+        put(ROW_1, COLUMN_C, "c", TIMESTAMP - 1);
+
+        Map<Cell, Value> result = asyncKeyValueService.getRowsColumnRangeAsync(
+                TEST_TABLE, ImmutableList.of(ROW_1), new ColumnRangeSelection(COLUMN_B, COLUMN_C), TIMESTAMP).get();
+
+        assertThat(result).isEqualTo(ImmutableMap.of(Cell.create(ROW_1, COLUMN_B), value("b", TIMESTAMP - 1)));
+    }
+
+    @Test
+    public void rangePagesSkipRowsWithNoVisibleColumns() throws Exception {
+        for (int row = 0; row < 5; row++) {
+            put(PtBytes.toBytes("row" + row), COLUMN_A, "value", row == 1 ? TIMESTAMP + 1 : TIMESTAMP - 1);
+        }
+
+        TokenBackedBasicResultsPage<RowResult<Value>, byte[]> firstPage = asyncKeyValueService
+                .getFirstBatchForRangeAsync(TEST_TABLE, RangeRequest.builder().batchHint(2).build(), TIMESTAMP)
+                .get();
+        assertThat(firstPage.getResults()).extracting(RowResult::getRowName)
+                .containsExactly(PtBytes.toBytes("row0"), PtBytes.toBytes("row2"));
+        assertThat(firstPage.moreResultsAvailable()).isTrue();
+
+        TokenBackedBasicResultsPage<RowResult<Value>, byte[]> secondPage = asyncKeyValueService
+                .getFirstBatchForRangeAsync(
+                        TEST_TABLE,
+                        RangeRequest.builder().startRowInclusive(firstPage.getTokenForNextPage()).batchHint(2).build(),
+                        TIMESTAMP)
+                .get();
+        assertThat(secondPage.getResults()).extracting(RowResult::getRowName)
+                .containsExactly(PtBytes.toBytes("row3"), PtBytes.toBytes("row4"));
+        assertThat(secondPage.moreResultsAvailable()).isFalse();
+    }
+
+    private void put(byte[] row, byte[] column, String value, long timestamp) {
+        keyValueService.put(TEST_TABLE, ImmutableMap.of(Cell.create(row, column), PtBytes.toBytes(value)), timestamp);
+    }
+
+    private static Value value(String contents, long timestamp) {
+        return Value.create(PtBytes.toBytes(contents), timestamp);
+    }
+}
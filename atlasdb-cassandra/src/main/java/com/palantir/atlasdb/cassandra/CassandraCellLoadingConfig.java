@@ -55,6 +55,41 @@ public abstract class CassandraCellLoadingConfig {
         return CassandraConstants.DEFAULT_SINGLE_QUERY_LOAD_BATCH_LIMIT;
     }
 
+    /**
+     * If true, concurrent loads of cells from the same host are queued and coalesced into shared calls to the
+     * database, whose sizes follow the observed latency and response size of calls rather than the limits above.
+     * Calls still read no more than {@link #singleQueryLoadBatchLimit()} cells.
+     */
+    @Value.Default
+    public boolean coalesceConcurrentLoads() {
+        return false;
+    }
+
+    /**
+     * When loads are coalesced, calls are sized to take about this long.
+     */
+    @Value.Default
+    public long targetBatchLatencyMillis() {
+        return 50;
+    }
+
+    /**
+     * When loads are coalesced, calls are sized to return about this many bytes.
+     */
+    @Value.Default
+    public long targetBatchResponseBytes() {
+        return 4 * 1024 * 1024;
+    }
+
+    /**
+     * When loads are coalesced, at most this many calls are made to a host at once. Loads made while a host has this
+     * many calls in flight queue, and are coalesced into later calls.
+     */
+    @Value.Default
+    public int maxConcurrentCallsPerHost() {
+        return 4;
+    }
+
     @Value.Check
     public void check() {
         Preconditions.checkState(
@@ -69,6 +104,18 @@ public abstract class CassandraCellLoadingConfig {
                 "Cross column load batch limit %s shouldn't exceed single query load batch limit %s",
                 crossColumnLoadBatchLimit(),
                 singleQueryLoadBatchLimit());
+        Preconditions.checkState(
+                targetBatchLatencyMillis() > 0,
+                "targetBatchLatencyMillis should be positive, but found %s",
+                targetBatchLatencyMillis());
+        Preconditions.checkState(
+                targetBatchResponseBytes() > 0,
+                "targetBatchResponseBytes should be positive, but found %s",
+                targetBatchResponseBytes());
+        Preconditions.checkState(
+                maxConcurrentCallsPerHost() > 0,
+                "maxConcurrentCallsPerHost should be positive, but found %s",
+                maxConcurrentCallsPerHost());
     }
 
     static CassandraCellLoadingConfig defaultConfig() {
@@ -0,0 +1,87 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.cassandra;
+
+import org.immutables.value.Value;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.common.base.Preconditions;
+
+/**
+ * Specifies when reads from an underlying Cassandra key-value service are hedged, that is, sent to a second replica
+ * if the first replica has not answered within a recent latency percentile of reads from the same table. The first
+ * answer is used.
+ *
+ * Hedged reads cut the tail latency caused by a single slow replica, but every hedge is an extra read. The number of
+ * hedges is therefore limited to a proportion of all reads, so that hedging cannot multiply the load on a cluster
+ * that is slow as a whole.
+ */
+@JsonSerialize(as = ImmutableCassandraHedgedReadsConfig.class)
+@JsonDeserialize(as = ImmutableCassandraHedgedReadsConfig.class)
+@Value.Immutable
+public abstract class CassandraHedgedReadsConfig {
+    @Value.Default
+    public boolean enabled() {
+        return false;
+    }
+
+    /**
+     * A read is hedged once it has taken longer than this percentile of the recent latencies of reads from the same
+     * table.
+     */
+    @Value.Default
+    public double latencyPercentile() {
+        return 95.0;
+    }
+
+    /**
+     * Reads are never hedged before they have taken this long, so that fast tables are not hedged on noise.
+     */
+    @Value.Default
+    public long minimumHedgeDelayMillis() {
+        return 5;
+    }
+
+    /**
+     * The largest number of hedges, as a proportion of the number of reads.
+     */
+    @Value.Default
+    public double maximumHedgeProportion() {
+        return 0.05;
+    }
+
+    @Value.Check
+    public void check() {
+        Preconditions.checkState(
+                latencyPercentile() > 0 && latencyPercentile() < 100,
+                "latencyPercentile should be between 0 and 100 exclusive, but found %s",
+                latencyPercentile());
+        Preconditions.checkState(
+                minimumHedgeDelayMillis() >= 0,
+                "minimumHedgeDelayMillis should not be negative, but found %s",
+                minimumHedgeDelayMillis());
+        Preconditions.checkState(
+                maximumHedgeProportion() >= 0 && maximumHedgeProportion() <= 1,
+                "maximumHedgeProportion should be between 0 and 1 inclusive, but found %s",
+                maximumHedgeProportion());
+    }
+
+    static CassandraHedgedReadsConfig defaultConfig() {
+        return ImmutableCassandraHedgedReadsConfig.builder().build();
+    }
+}
@@ -83,6 +83,14 @@ public abstract class CassandraKeyValueServiceRuntimeConfig implements KeyValueS
         return CassandraCellLoadingConfig.defaultConfig();
     }
 
+    /**
+     * When reads are sent to a second replica because the first replica is slow to answer.
+     */
+    @Value.Default
+    public CassandraHedgedReadsConfig hedgedReadsConfig() {
+        return CassandraHedgedReadsConfig.defaultConfig();
+    }
+
     /**
      * The number of threads Sweep uses to read values from Cassandra.
      * Each thread fetches values from a distinct row.
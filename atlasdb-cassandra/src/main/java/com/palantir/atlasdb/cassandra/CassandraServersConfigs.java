@@ -71,6 +71,16 @@ public final class CassandraServersConfigs {
         public int preparedStatementCacheSize() {
             return 100;
         }
+
+        /**
+         * When CQL reads are sent to a second replica because the first replica is slow to answer. The driver only
+         * tracks latencies across the whole cluster, so the latency percentile is of reads from all tables, and the
+         * configuration is read when the client is created.
+         */
+        @Value.Default
+        public CassandraHedgedReadsConfig hedgedReadsConfig() {
+            return CassandraHedgedReadsConfig.defaultConfig();
+        }
     }
 
     @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type", defaultImpl = ImmutableDefaultConfig.class)
@@ -0,0 +1,73 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.palantir.atlasdb.cassandra.CassandraCellLoadingConfig;
+
+/**
+ * Chooses how many cells to read from a host in one call, so that calls take about
+ * {@link CassandraCellLoadingConfig#targetBatchLatencyMillis()} and return about
+ * {@link CassandraCellLoadingConfig#targetBatchResponseBytes()}. The latency and response size per cell are estimated
+ * from exponentially weighted moving averages of recent calls, so the batch size follows the size of the values read
+ * and the load on the host. Calls read at most the configured single query limit of cells, which is also used until
+ * a call has been observed.
+ */
+@ThreadSafe
+final class AdaptiveBatchSizer {
+    private static final double SAMPLE_WEIGHT = 0.2;
+    private static final int MINIMUM_BATCH_SIZE = 100;
+
+    private final Supplier<CassandraCellLoadingConfig> config;
+
+    private double nanosPerCell = 0;
+    private double bytesPerCell = 0;
+
+    AdaptiveBatchSizer(Supplier<CassandraCellLoadingConfig> config) {
+        this.config = config;
+    }
+
+    synchronized int getBatchSize() {
+        CassandraCellLoadingConfig cellLoadingConfig = config.get();
+        int maximumBatchSize = cellLoadingConfig.singleQueryLoadBatchLimit();
+        double batchSize = maximumBatchSize;
+        if (nanosPerCell > 0) {
+            batchSize = Math.min(batchSize,
+                    TimeUnit.MILLISECONDS.toNanos(cellLoadingConfig.targetBatchLatencyMillis()) / nanosPerCell);
+        }
+        if (bytesPerCell > 0) {
+            batchSize = Math.min(batchSize, cellLoadingConfig.targetBatchResponseBytes() / bytesPerCell);
+        }
+        return (int) Math.max(batchSize, Math.min(MINIMUM_BATCH_SIZE, maximumBatchSize));
+    }
+
+    synchronized void recordCall(int cells, long latencyNanos, long responseBytes) {
+        if (cells <= 0) {
+            return;
+        }
+        nanosPerCell = update(nanosPerCell, (double) latencyNanos / cells);
+        bytesPerCell = update(bytesPerCell, (double) responseBytes / cells);
+    }
+
+    private static double update(double average, double sample) {
+        return average == 0 ? sample : SAMPLE_WEIGHT * sample + (1 - SAMPLE_WEIGHT) * average;
+    }
+}
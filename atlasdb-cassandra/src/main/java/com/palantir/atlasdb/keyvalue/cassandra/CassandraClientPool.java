@@ -17,6 +17,7 @@ package com.palantir.atlasdb.keyvalue.cassandra;
 
 import java.net.InetSocketAddress;
 import java.util.Map;
+import java.util.Optional;
 
 import com.palantir.common.base.FunctionCheckedException;
 import com.palantir.processors.AutoDelegate;
@@ -32,6 +33,7 @@ public interface CassandraClientPool {
             FunctionCheckedException<CassandraClient, V, K> fn) throws K;
     <V, K extends Exception> V runWithRetry(FunctionCheckedException<CassandraClient, V, K> fn) throws K;
     InetSocketAddress getRandomHostForKey(byte[] key);
+    Optional<InetSocketAddress> getAlternativeHostForKey(byte[] key, InetSocketAddress hostToAvoid);
     Map<InetSocketAddress, CassandraClientPoolingContainer> getCurrentPools();
     void shutdown();
 }
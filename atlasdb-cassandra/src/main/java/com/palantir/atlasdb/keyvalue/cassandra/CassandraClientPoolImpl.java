@@ -326,6 +326,11 @@ public class CassandraClientPoolImpl implements CassandraClientPool {
         return cassandra.getRandomHostForKey(key);
     }
 
+    @Override
+    public Optional<InetSocketAddress> getAlternativeHostForKey(byte[] key, InetSocketAddress hostToAvoid) {
+        return cassandra.getAlternativeHostForKey(key, hostToAvoid);
+    }
+
     @VisibleForTesting
     void runOneTimeStartupChecks() {
         try {
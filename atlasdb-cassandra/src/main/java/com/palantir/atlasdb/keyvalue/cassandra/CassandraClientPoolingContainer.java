@@ -44,6 +44,7 @@ import com.google.common.collect.ImmutableMap;
 import com.palantir.atlasdb.cassandra.CassandraKeyValueServiceConfig;
 import com.palantir.atlasdb.encoding.PtBytes;
 import com.palantir.atlasdb.keyvalue.cassandra.pool.CassandraClientPoolMetrics;
+import com.palantir.atlasdb.keyvalue.cassandra.pool.DecayingLatency;
 import com.palantir.atlasdb.util.MetricsManager;
 import com.palantir.common.base.FunctionCheckedException;
 import com.palantir.common.pooling.PoolingContainer;
@@ -58,6 +59,7 @@ public class CassandraClientPoolingContainer implements PoolingContainer<Cassand
     private final MetricsManager metricsManager;
     private final AtomicLong count = new AtomicLong();
     private final AtomicInteger openRequests = new AtomicInteger();
+    private final DecayingLatency latency = new DecayingLatency();
     private final GenericObjectPool<CassandraClient> clientPool;
     private final int poolNumber;
     private final CassandraClientPoolMetrics poolMetrics;
@@ -74,6 +76,7 @@ public class CassandraClientPoolingContainer implements PoolingContainer<Cassand
         this.poolNumber = poolNumber;
         this.clientPool = createClientPool();
         this.poolMetrics = poolMetrics;
+        poolMetrics.registerHostScoreMetrics("pool" + poolNumber, this);
     }
 
     public InetSocketAddress getHost() {
@@ -90,6 +93,14 @@ public class CassandraClientPoolingContainer implements PoolingContainer<Cassand
         return openRequests.get();
     }
 
+    /**
+     * Exponentially decayed latency of requests to {@link #runWithPooledResource(FunctionCheckedException)}, including
+     * the time taken to borrow a client and requests that failed.
+     */
+    public double getDecayedLatencyMillis() {
+        return latency.getMillis();
+    }
+
     // returns negative if not available; only expected use is debugging
     public int getActiveCheckouts() {
         return clientPool.getNumActive();
@@ -108,6 +119,7 @@ public class CassandraClientPoolingContainer implements PoolingContainer<Cassand
                 + " calling cassandra host " + host
                 + " started at " + DateTimeFormatter.ISO_INSTANT.format(Instant.now())
                 + " - " + count.getAndIncrement());
+        long startNanos = System.nanoTime();
         try {
             openRequests.getAndIncrement();
             return runWithGoodResource(fn);
@@ -128,6 +140,7 @@ public class CassandraClientPoolingContainer implements PoolingContainer<Cassand
             throw t;
         } finally {
             openRequests.getAndDecrement();
+            latency.update(System.nanoTime() - startNanos);
             Thread.currentThread().setName(origName);
         }
     }
@@ -86,6 +86,7 @@ import com.palantir.atlasdb.keyvalue.api.CheckAndSetCompatibility;
 import com.palantir.atlasdb.keyvalue.api.CheckAndSetException;
 import com.palantir.atlasdb.keyvalue.api.CheckAndSetRequest;
 import com.palantir.atlasdb.keyvalue.api.ClusterAvailabilityStatus;
+import com.palantir.atlasdb.keyvalue.api.ColumnRangeSelection;
 import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
 import com.palantir.atlasdb.keyvalue.api.ImmutableCandidateCellForSweepingRequest;
 import com.palantir.atlasdb.keyvalue.api.InsufficientConsistencyException;
@@ -219,6 +220,8 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
 
     private final TracingQueryRunner queryRunner;
     private final WrappingQueryRunner wrappingQueryRunner;
+    private final HedgedReads hedgedReads;
+    private final CoalescingCellLoader coalescingCellLoader;
     private final CellLoader cellLoader;
     private final Optional<AsyncKeyValueService> asyncKeyValueService;
     private final RangeLoader rangeLoader;
@@ -428,8 +431,17 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
         this.wrappingQueryRunner = new WrappingQueryRunner(queryRunner);
         this.cassandraTables = new CassandraTables(clientPool, config);
         this.taskRunner = new TaskRunner(executor);
-        this.cellLoader = CellLoader.create(clientPool, wrappingQueryRunner, taskRunner, runtimeConfigSupplier);
-        this.rangeLoader = new RangeLoader(clientPool, queryRunner, metricsManager, readConsistency);
+        this.hedgedReads = HedgedReads.create(clientPool, metricsManager, runtimeConfigSupplier);
+        this.coalescingCellLoader = CoalescingCellLoader.create(
+                metricsManager,
+                clientPool,
+                hedgedReads,
+                wrappingQueryRunner,
+                executor,
+                () -> runtimeConfigSupplier.get().cellLoadingConfig());
+        this.cellLoader = CellLoader.create(
+                clientPool, hedgedReads, wrappingQueryRunner, taskRunner, coalescingCellLoader, runtimeConfigSupplier);
+        this.rangeLoader = new RangeLoader(clientPool, hedgedReads, queryRunner, metricsManager, readConsistency);
         this.cellValuePutter = new CellValuePutter(
                 config,
                 clientPool,
@@ -1342,7 +1354,7 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
             String kvsMethodName,
             TableReference tableRef,
             CandidateCellForSweepingRequest request) {
-        RowGetter rowGetter = new RowGetter(clientPool, queryRunner, ConsistencyLevel.ALL, tableRef);
+        RowGetter rowGetter = new RowGetter(clientPool, hedgedReads, queryRunner, ConsistencyLevel.ALL, tableRef);
         return new CandidateRowsForSweepingIterator(
                 (iteratorTableRef, cells, maxTimestampExclusive) ->
                         get(kvsMethodName, iteratorTableRef, cells, maxTimestampExclusive),
@@ -1363,7 +1375,7 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
      */
     @Override
     public List<byte[]> getRowKeysInRange(TableReference tableRef, byte[] startRow, byte[] endRow, int maxResults) {
-        RowGetter rowGetter = new RowGetter(clientPool, queryRunner, ConsistencyLevel.QUORUM, tableRef);
+        RowGetter rowGetter = new RowGetter(clientPool, hedgedReads, queryRunner, ConsistencyLevel.QUORUM, tableRef);
         return rowGetter.getRowKeysInRange(startRow, endRow, maxResults);
     }
 
@@ -1679,7 +1691,7 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
             try {
                 long timestamp = mutationTimestampProvider.getRemoveTimestamp();
                 byte[] row = range.getStartInclusive();
-                clientPool.runWithRetry(client -> {
+                clientPool.runWithRetryOnHost(clientPool.getRandomHostForKey(row), client -> {
                     client.remove("deleteRange", tableRef, row, timestamp, DELETE_CONSISTENCY);
                     return null;
                 });
@@ -1750,6 +1762,8 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
     @Override
     public void close() {
         clientPool.shutdown();
+        coalescingCellLoader.close();
+        hedgedReads.close();
         asyncKeyValueService.ifPresent(AsyncKeyValueService::close);
         super.close();
     }
@@ -1815,23 +1829,10 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
     public void putUnlessExists(final TableReference tableRef, final Map<Cell, byte[]> values)
             throws KeyAlreadyExistsException {
         try {
-            Optional<KeyAlreadyExistsException> failure = clientPool.runWithRetry(client -> {
-                Map<ByteString, Map<Cell, byte[]>> partitionedEntries = partitionPerRow(values);
-
-                for (Map.Entry<ByteString, Map<Cell, byte[]>> partition : partitionedEntries.entrySet()) {
-                    CASResult casResult = putUnlessExistsSinglePartition(
-                            tableRef, client, partition.getKey(), partition.getValue());
-                    if (!casResult.isSuccess()) {
-                        return Optional.of(new KeyAlreadyExistsException(
-                                String.format("The cells in table %s already exist.", tableRef.getQualifiedName()),
-                                casResult.getCurrent_values().stream()
-                                        .map(column -> Cell.create(partition.getKey().toByteArray(),
-                                                CassandraKeyValueServices.decompose(column.bufferForName()).lhSide))
-                                        .collect(Collectors.toList())));
-                    }
-                }
-                return Optional.empty();
-            });
+            Map<ByteString, Map<Cell, byte[]>> partitionedEntries = partitionPerRow(values);
+            Optional<KeyAlreadyExistsException> failure = runOnReplicaIfSinglePartition(
+                    partitionedEntries.keySet(),
+                    client -> putUnlessExistsPartitions(tableRef, client, partitionedEntries));
             failure.ifPresent(exception -> {
                 throw exception;
             });
@@ -1842,6 +1843,38 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
         }
     }
 
+    private static Optional<KeyAlreadyExistsException> putUnlessExistsPartitions(
+            TableReference tableRef,
+            CassandraClient client,
+            Map<ByteString, Map<Cell, byte[]>> partitionedEntries) throws TException {
+        for (Map.Entry<ByteString, Map<Cell, byte[]>> partition : partitionedEntries.entrySet()) {
+            CASResult casResult = putUnlessExistsSinglePartition(
+                    tableRef, client, partition.getKey(), partition.getValue());
+            if (!casResult.isSuccess()) {
+                return Optional.of(new KeyAlreadyExistsException(
+                        String.format("The cells in table %s already exist.", tableRef.getQualifiedName()),
+                        casResult.getCurrent_values().stream()
+                                .map(column -> Cell.create(partition.getKey().toByteArray(),
+                                        CassandraKeyValueServices.decompose(column.bufferForName()).lhSide))
+                                .collect(Collectors.toList())));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Runs on a replica of the row if all of the work is for a single row, so that the coordinator owns the row.
+     */
+    private <V, K extends Exception> V runOnReplicaIfSinglePartition(
+            Set<ByteString> rows,
+            FunctionCheckedException<CassandraClient, V, K> fn) throws K {
+        if (rows.size() == 1) {
+            return clientPool.runWithRetryOnHost(
+                    clientPool.getRandomHostForKey(Iterables.getOnlyElement(rows).toByteArray()), fn);
+        }
+        return clientPool.runWithRetry(fn);
+    }
+
     public static Map<ByteString, Map<Cell, byte[]>> partitionPerRow(Map<Cell, byte[]> values) {
         return values.entrySet().stream()
                 .collect(Collectors.groupingBy(
@@ -1894,7 +1927,8 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
     @Override
     public void checkAndSet(final CheckAndSetRequest request) throws CheckAndSetException {
         try {
-            CheckAndSetResult<ByteString> casResult = clientPool.runWithRetry(
+            CheckAndSetResult<ByteString> casResult = clientPool.runWithRetryOnHost(
+                    clientPool.getRandomHostForKey(request.cell().getRowName()),
                     client -> checkAndSetRunner.executeCheckAndSet(client, request));
             if (!casResult.successful()) {
                 List<byte[]> currentValues = casResult.existingValues()
@@ -2028,6 +2062,60 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
                 .orElseGet(() -> Futures.immediateFuture(this.get(tableRef, timestampByCell)));
     }
 
+    /**
+     * Asynchronously gets the values of the given rows from the cassandra key-value store, through CQL if it is
+     * configured and through Thrift otherwise.
+     */
+    @Override
+    public ListenableFuture<Map<Cell, Value>> getRowsAsync(
+            TableReference tableRef,
+            Iterable<byte[]> rows,
+            ColumnSelection columnSelection,
+            long timestamp) {
+        if (Iterables.isEmpty(rows) || columnSelection.noColumnsSelected()) {
+            return Futures.immediateFuture(ImmutableMap.of());
+        }
+
+        return asyncKeyValueService.map(asyncKvs -> asyncKvs.getRowsAsync(tableRef, rows, columnSelection, timestamp))
+                .orElseGet(() -> Futures.immediateFuture(this.getRows(tableRef, rows, columnSelection, timestamp)));
+    }
+
+    /**
+     * Asynchronously gets the values of the given rows within the column range from the cassandra key-value store,
+     * through CQL if it is configured and through Thrift otherwise.
+     */
+    @Override
+    public ListenableFuture<Map<Cell, Value>> getRowsColumnRangeAsync(
+            TableReference tableRef,
+            Iterable<byte[]> rows,
+            ColumnRangeSelection columnRangeSelection,
+            long timestamp) {
+        if (Iterables.isEmpty(rows)) {
+            return Futures.immediateFuture(ImmutableMap.of());
+        }
+
+        return asyncKeyValueService
+                .map(asyncKvs -> asyncKvs.getRowsColumnRangeAsync(tableRef, rows, columnRangeSelection, timestamp))
+                .orElseGet(() -> CassandraKeyValueService.super.getRowsColumnRangeAsync(
+                        tableRef, rows, columnRangeSelection, timestamp));
+    }
+
+    /**
+     * Asynchronously gets the first page of the range from the cassandra key-value store, through CQL if it is
+     * configured and the range is not reversed, and through Thrift otherwise.
+     */
+    @Override
+    public ListenableFuture<TokenBackedBasicResultsPage<RowResult<Value>, byte[]>> getFirstBatchForRangeAsync(
+            TableReference tableRef,
+            RangeRequest rangeRequest,
+            long timestamp) {
+        return asyncKeyValueService
+                .filter(unused -> !rangeRequest.isReverse())
+                .map(asyncKvs -> asyncKvs.getFirstBatchForRangeAsync(tableRef, rangeRequest, timestamp))
+                .orElseGet(() -> CassandraKeyValueService.super.getFirstBatchForRangeAsync(
+                        tableRef, rangeRequest, timestamp));
+    }
+
     private static class TableCellAndValue {
         private static final Function<TableCellAndValue, byte[]> EXTRACT_ROW_NAME_FUNCTION =
                 input -> input.cell.getRowName();
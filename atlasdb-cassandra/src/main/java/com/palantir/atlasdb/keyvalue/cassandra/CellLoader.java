@@ -38,6 +38,8 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.primitives.UnsignedBytes;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.palantir.atlasdb.cassandra.CassandraCellLoadingConfig;
 import com.palantir.atlasdb.cassandra.CassandraKeyValueServiceRuntimeConfig;
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
@@ -46,36 +48,47 @@ import com.palantir.atlasdb.logging.LoggingArgs;
 import com.palantir.atlasdb.util.AnnotatedCallable;
 import com.palantir.atlasdb.util.AnnotationType;
 import com.palantir.common.base.FunctionCheckedException;
+import com.palantir.common.base.Throwables;
 import com.palantir.logsafe.SafeArg;
 
 final class CellLoader {
     private static final Logger log = LoggerFactory.getLogger(CellLoader.class);
 
     private final CassandraClientPool clientPool;
+    private final HedgedReads hedgedReads;
     private final WrappingQueryRunner queryRunner;
     private final TaskRunner taskRunner;
     private final CellLoadingBatcher batcher;
+    private final CoalescingCellLoader coalescingCellLoader;
+    private final Supplier<CassandraCellLoadingConfig> config;
 
     private CellLoader(
             CassandraClientPool clientPool,
+            HedgedReads hedgedReads,
             WrappingQueryRunner queryRunner,
             TaskRunner taskRunner,
-            CellLoadingBatcher batcher) {
+            CellLoadingBatcher batcher,
+            CoalescingCellLoader coalescingCellLoader,
+            Supplier<CassandraCellLoadingConfig> config) {
         this.clientPool = clientPool;
+        this.hedgedReads = hedgedReads;
         this.queryRunner = queryRunner;
         this.taskRunner = taskRunner;
         this.batcher = batcher;
+        this.coalescingCellLoader = coalescingCellLoader;
+        this.config = config;
     }
 
     static CellLoader create(
             CassandraClientPool clientPool,
+            HedgedReads hedgedReads,
             WrappingQueryRunner queryRunner,
             TaskRunner taskRunner,
+            CoalescingCellLoader coalescingCellLoader,
             Supplier<CassandraKeyValueServiceRuntimeConfig> configSupplier) {
-        CellLoadingBatcher batcher = new CellLoadingBatcher(
-                () -> configSupplier.get().cellLoadingConfig(),
-                CellLoader::logRebatchingWarnMessage);
-        return new CellLoader(clientPool, queryRunner, taskRunner, batcher);
+        Supplier<CassandraCellLoadingConfig> config = () -> configSupplier.get().cellLoadingConfig();
+        CellLoadingBatcher batcher = new CellLoadingBatcher(config, CellLoader::logRebatchingWarnMessage);
+        return new CellLoader(clientPool, hedgedReads, queryRunner, taskRunner, batcher, coalescingCellLoader, config);
     }
 
     Multimap<Cell, Long> getAllTimestamps(TableReference tableRef, Set<Cell> cells, long ts,
@@ -107,6 +120,11 @@ final class CellLoader {
                     SafeArg.of("totalPartitions", totalPartitions));
         }
 
+        if (config.get().coalesceConcurrentLoads()) {
+            loadCoalesced(tableRef, hostsAndCells, startTs, loadAllTs, visitor, consistency);
+            return;
+        }
+
         List<Callable<Void>> tasks = Lists.newArrayList();
         for (Map.Entry<InetSocketAddress, List<Cell>> hostAndCells : hostsAndCells.entrySet()) {
             if (log.isTraceEnabled()) {
@@ -132,6 +150,31 @@ final class CellLoader {
         taskRunner.runAllTasksCancelOnFailure(tasks);
     }
 
+    private void loadCoalesced(
+            TableReference tableRef,
+            Map<InetSocketAddress, List<Cell>> hostsAndCells,
+            long startTs,
+            boolean loadAllTs,
+            CassandraKeyValueServices.ThreadSafeResultVisitor visitor,
+            ConsistencyLevel consistency) {
+        List<ListenableFuture<Map<ByteBuffer, List<ColumnOrSuperColumn>>>> loads = new ArrayList<>();
+        for (Map.Entry<InetSocketAddress, List<Cell>> hostAndCells : hostsAndCells.entrySet()) {
+            loads.add(coalescingCellLoader.load(
+                    hostAndCells.getKey(), tableRef, hostAndCells.getValue(), startTs, loadAllTs, consistency));
+        }
+
+        try {
+            for (ListenableFuture<Map<ByteBuffer, List<ColumnOrSuperColumn>>> load : loads) {
+                visitor.visit(load.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Throwables.throwUncheckedException(e);
+        } catch (Exception e) {
+            throw Throwables.unwrapAndThrowAtlasDbDependencyException(e);
+        }
+    }
+
     // TODO(unknown): after cassandra api change: handle different column select per row
     private List<Callable<Void>> getLoadWithTsTasksForSingleHost(final String kvsMethodName,
             final InetSocketAddress host,
@@ -144,38 +187,47 @@ final class CellLoader {
         final ColumnParent colFam = new ColumnParent(CassandraKeyValueServiceImpl.internalTableName(tableRef));
         List<Callable<Void>> tasks = Lists.newArrayList();
         for (final List<Cell> partition : batcher.partitionIntoBatches(cells, host, tableRef)) {
-            Callable<Void> multiGetCallable = () -> clientPool.runWithRetryOnHost(
-                    host,
-                    new FunctionCheckedException<CassandraClient, Void, Exception>() {
-                        @Override
-                        public Void apply(CassandraClient client) throws Exception {
-                            List<KeyPredicate> query
-                                    = translatePartitionToKeyPredicates(partition, startTs, loadAllTs);
-
-                            if (log.isTraceEnabled()) {
-                                log.trace("Requesting {} cells from {} {}starting at timestamp {} on {}",
-                                        SafeArg.of("cells", partition.size()),
-                                        LoggingArgs.tableRef(tableRef),
-                                        SafeArg.of("timestampClause", loadAllTs ? "for all timestamps " : ""),
-                                        SafeArg.of("startTs", startTs),
-                                        SafeArg.of("host", CassandraLogHelper.host(host)));
-                            }
+            Callable<Void> multiGetCallable = () -> {
+                // a hedge goes to another replica of the first row; other rows of the batch are still read correctly,
+                // as the coordinator forwards reads of rows it does not own
+                Map<ByteBuffer, List<ColumnOrSuperColumn>> aggregatedResults = hedgedReads.runWithRetryOnHost(
+                        tableRef,
+                        partition.get(0).getRowName(),
+                        host,
+                        new FunctionCheckedException<CassandraClient,
+                                Map<ByteBuffer, List<ColumnOrSuperColumn>>, Exception>() {
+                            @Override
+                            public Map<ByteBuffer, List<ColumnOrSuperColumn>> apply(CassandraClient client)
+                                    throws Exception {
+                                List<KeyPredicate> query
+                                        = translatePartitionToKeyPredicates(partition, startTs, loadAllTs);
 
-                            Map<ByteBuffer, List<List<ColumnOrSuperColumn>>> results = queryRunner.multiget_multislice(
-                                    kvsMethodName, client, tableRef, query, consistency);
-                            Map<ByteBuffer, List<ColumnOrSuperColumn>> aggregatedResults = Maps.transformValues(results,
-                                    lists -> Lists.newArrayList(Iterables.concat(lists)));
-                            visitor.visit(aggregatedResults);
-                            return null;
-                        }
+                                if (log.isTraceEnabled()) {
+                                    log.trace("Requesting {} cells from {} {}starting at timestamp {} on {}",
+                                            SafeArg.of("cells", partition.size()),
+                                            LoggingArgs.tableRef(tableRef),
+                                            SafeArg.of("timestampClause", loadAllTs ? "for all timestamps " : ""),
+                                            SafeArg.of("startTs", startTs),
+                                            SafeArg.of("host", CassandraLogHelper.host(host)));
+                                }
 
-                        @Override
-                        public String toString() {
-                            return "multiget_multislice(" + host + ", " + colFam + ", "
-                                    + partition.size() + " cells" + ")";
-                        }
+                                Map<ByteBuffer, List<List<ColumnOrSuperColumn>>> results =
+                                        queryRunner.multiget_multislice(
+                                                kvsMethodName, client, tableRef, query, consistency);
+                                return Maps.transformValues(results,
+                                        lists -> Lists.newArrayList(Iterables.concat(lists)));
+                            }
 
-                    });
+                            @Override
+                            public String toString() {
+                                return "multiget_multislice(" + host + ", " + colFam + ", "
+                                        + partition.size() + " cells" + ")";
+                            }
+                        });
+                // a hedged read may run the query twice, so results are only visited once the read has finished
+                visitor.visit(aggregatedResults);
+                return null;
+            };
             tasks.add(AnnotatedCallable.wrapWithThreadName(AnnotationType.PREPEND,
                     "Atlas loadWithTs " + partition.size() + " cells from " + tableRef + " on " + host,
                     multiGetCallable));
@@ -183,8 +235,8 @@ final class CellLoader {
         return tasks;
     }
 
-    private static List<KeyPredicate> translatePartitionToKeyPredicates(
-            List<Cell> partition, long startTs, boolean loadAllTs) {
+    static List<KeyPredicate> translatePartitionToKeyPredicates(
+            Collection<Cell> partition, long startTs, boolean loadAllTs) {
         Map<byte[], SlicePredicate> canonicalPredicates = Maps.newTreeMap(UnsignedBytes.lexicographicalComparator());
         List<KeyPredicate> keyPredicates = new ArrayList<>(partition.size());
 
@@ -0,0 +1,527 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import org.apache.cassandra.thrift.Column;
+import org.apache.cassandra.thrift.ColumnOrSuperColumn;
+import org.apache.cassandra.thrift.ConsistencyLevel;
+import org.apache.cassandra.thrift.KeyPredicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.palantir.atlasdb.autobatch.Autobatchers;
+import com.palantir.atlasdb.autobatch.BatchElement;
+import com.palantir.atlasdb.autobatch.DisruptorAutobatcher;
+import com.palantir.atlasdb.cassandra.CassandraCellLoadingConfig;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.util.MetricsManager;
+import com.palantir.common.base.FunctionCheckedException;
+import com.palantir.common.concurrent.NamedThreadFactory;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.util.Pair;
+
+/**
+ * Coalesces concurrent loads of cells from the same host into shared calls to the database. Each host has an
+ * autobatcher, which turns the loads queued on it into calls and hands them to an executor. A call to the database
+ * reads from one table, so the loads of a batch from the same table at the same consistency share calls. Loads at
+ * different start timestamps can share a call, as each cell read by a call has its own predicate, and the values
+ * returned are split between the loads by column and timestamp. Each load completes as soon as the calls that read its
+ * cells have, so a slow call only delays the loads it covers, and a failed call only fails the loads it covers.
+ *
+ * A host has at most {@link CassandraCellLoadingConfig#maxConcurrentCallsPerHost()} calls in flight. Loads made while
+ * a host is at that limit queue on its autobatcher, and are coalesced into the calls made once a call finishes. The
+ * number of cells read by a call is chosen by an {@link AdaptiveBatchSizer} for each host.
+ *
+ * The pipelines of hosts that have left the pool are closed in the background.
+ */
+final class CoalescingCellLoader implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(CoalescingCellLoader.class);
+
+    private static final String KVS_METHOD_NAME = "loadWithTs";
+    private static final long PIPELINE_CLEANUP_INTERVAL_SECONDS = 60;
+
+    private final CassandraClientPool clientPool;
+    private final HedgedReads hedgedReads;
+    private final WrappingQueryRunner queryRunner;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService cleanupExecutor;
+    private final Supplier<CassandraCellLoadingConfig> config;
+    private final Histogram batchFillPercentage;
+    private final Timer queueingDelay;
+    private final ConcurrentMap<InetSocketAddress, HostPipeline> pipelines = new ConcurrentHashMap<>();
+
+    private volatile boolean closed = false;
+
+    @VisibleForTesting
+    CoalescingCellLoader(
+            CassandraClientPool clientPool,
+            HedgedReads hedgedReads,
+            WrappingQueryRunner queryRunner,
+            ExecutorService executor,
+            ScheduledExecutorService cleanupExecutor,
+            Supplier<CassandraCellLoadingConfig> config,
+            Histogram batchFillPercentage,
+            Timer queueingDelay) {
+        this.clientPool = clientPool;
+        this.hedgedReads = hedgedReads;
+        this.queryRunner = queryRunner;
+        this.executor = executor;
+        this.cleanupExecutor = cleanupExecutor;
+        this.config = config;
+        this.batchFillPercentage = batchFillPercentage;
+        this.queueingDelay = queueingDelay;
+    }
+
+    static CoalescingCellLoader create(
+            MetricsManager metricsManager,
+            CassandraClientPool clientPool,
+            HedgedReads hedgedReads,
+            WrappingQueryRunner queryRunner,
+            ExecutorService executor,
+            Supplier<CassandraCellLoadingConfig> config) {
+        CoalescingCellLoader cellLoader = new CoalescingCellLoader(
+                clientPool,
+                hedgedReads,
+                queryRunner,
+                executor,
+                PTExecutors.newSingleThreadScheduledExecutor(
+                        new NamedThreadFactory("Atlas Cassandra coalescing cell loader cleanup", true)),
+                config,
+                metricsManager.registerOrGetHistogram(CoalescingCellLoader.class, "batchFillPercentage"),
+                metricsManager.registerOrGetTimer(CoalescingCellLoader.class, "queueingDelay"));
+        cellLoader.cleanupExecutor.scheduleWithFixedDelay(
+                cellLoader::closePipelinesOfRemovedHosts,
+                PIPELINE_CLEANUP_INTERVAL_SECONDS,
+                PIPELINE_CLEANUP_INTERVAL_SECONDS,
+                TimeUnit.SECONDS);
+        return cellLoader;
+    }
+
+    /**
+     * Loads the latest values of {@code cells} before {@code startTs}, or all of their values before {@code startTs}
+     * if {@code loadAllTs} is set, from {@code host}, which should own all of the cells. The values are grouped by
+     * row, as returned by a call to the database.
+     */
+    ListenableFuture<Map<ByteBuffer, List<ColumnOrSuperColumn>>> load(
+            InetSocketAddress host,
+            TableReference tableRef,
+            Collection<Cell> cells,
+            long startTs,
+            boolean loadAllTs,
+            ConsistencyLevel consistency) {
+        LoadRequest request = new LoadRequest(tableRef, cells, startTs, loadAllTs, consistency);
+        while (true) {
+            Preconditions.checkState(!closed, "The coalescing cell loader is closed");
+            HostPipeline pipeline = pipelines.computeIfAbsent(host, HostPipeline::new);
+            Optional<ListenableFuture<Map<ByteBuffer, List<ColumnOrSuperColumn>>>> result = pipeline.tryLoad(request);
+            if (result.isPresent()) {
+                return result.get();
+            }
+            // the pipeline was closed after it was looked up, as its host left the pool, so a new one is needed
+            pipelines.remove(host, pipeline);
+        }
+    }
+
+    /**
+     * Closes the pipelines of hosts that are no longer in the pool, so that their autobatchers do not keep a thread
+     * each. A pipeline is created again if a host returns to the pool.
+     */
+    @VisibleForTesting
+    void closePipelinesOfRemovedHosts() {
+        try {
+            Set<InetSocketAddress> currentHosts = clientPool.getCurrentPools().keySet();
+            for (InetSocketAddress host : pipelines.keySet()) {
+                if (!currentHosts.contains(host)) {
+                    HostPipeline pipeline = pipelines.remove(host);
+                    if (pipeline != null) {
+                        pipeline.close();
+                    }
+                }
+            }
+        } catch (Throwable t) {
+            log.warn("Failed to close the cell loading pipelines of hosts removed from the pool", t);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        cleanupExecutor.shutdownNow();
+        pipelines.values().forEach(HostPipeline::close);
+    }
+
+    private final class HostPipeline {
+        private final InetSocketAddress host;
+        private final AdaptiveBatchSizer batchSizer;
+        private final DisruptorAutobatcher<LoadRequest, Map<ByteBuffer, List<ColumnOrSuperColumn>>> autobatcher;
+        private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+        private volatile boolean pipelineClosed = false;
+
+        @GuardedBy("this")
+        private int callsInFlight = 0;
+
+        HostPipeline(InetSocketAddress host) {
+            this.host = host;
+            this.batchSizer = new AdaptiveBatchSizer(config);
+            this.autobatcher = Autobatchers.<LoadRequest, Map<ByteBuffer, List<ColumnOrSuperColumn>>>independent(
+                    this::loadBatch)
+                    .safeLoggablePurpose("cassandra-cell-loading")
+                    .build();
+        }
+
+        Optional<ListenableFuture<Map<ByteBuffer, List<ColumnOrSuperColumn>>>> tryLoad(LoadRequest request) {
+            closeLock.readLock().lock();
+            try {
+                return pipelineClosed ? Optional.empty() : Optional.of(autobatcher.apply(request));
+            } finally {
+                closeLock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Closes the autobatcher once no load can still be queued on it. The loads already queued are still read, and
+         * no longer wait for a call to finish, so that the autobatcher drains before it is shut down.
+         */
+        void close() {
+            closeLock.writeLock().lock();
+            try {
+                pipelineClosed = true;
+            } finally {
+                closeLock.writeLock().unlock();
+            }
+            synchronized (this) {
+                notifyAll();
+            }
+            autobatcher.close();
+        }
+
+        private void loadBatch(List<BatchElement<LoadRequest, Map<ByteBuffer, List<ColumnOrSuperColumn>>>> batch) {
+            long batchStartNanos = System.nanoTime();
+            Map<Pair<TableReference, ConsistencyLevel>, List<PendingLoad>> loadsByTable = new HashMap<>();
+            for (BatchElement<LoadRequest, Map<ByteBuffer, List<ColumnOrSuperColumn>>> element : batch) {
+                LoadRequest request = element.argument();
+                queueingDelay.update(batchStartNanos - request.submittedNanos, TimeUnit.NANOSECONDS);
+                loadsByTable.computeIfAbsent(Pair.create(request.tableRef, request.consistency),
+                        unused -> new ArrayList<>())
+                        .add(new PendingLoad(element));
+            }
+
+            int batchSize = batchSizer.getBatchSize();
+            List<SharedCall> calls = new ArrayList<>();
+            loadsByTable.forEach((tableAndConsistency, loads) -> calls.addAll(createCalls(
+                    tableAndConsistency.lhSide, tableAndConsistency.rhSide, loads, batchSize)));
+            loadsByTable.values().forEach(loads -> loads.forEach(PendingLoad::completeIfNothingToRead));
+
+            for (SharedCall call : calls) {
+                try {
+                    awaitCallSlot();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    call.fail(e);
+                    continue;
+                }
+                try {
+                    executor.execute(() -> {
+                        try {
+                            call.run(batchSize);
+                        } finally {
+                            releaseCallSlot();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    releaseCallSlot();
+                    call.fail(e);
+                }
+            }
+        }
+
+        private List<SharedCall> createCalls(
+                TableReference tableRef,
+                ConsistencyLevel consistency,
+                List<PendingLoad> loads,
+                int batchSize) {
+            Map<Pair<Long, Boolean>, Map<Cell, Set<PendingLoad>>> loadsByPredicateAndCell = new HashMap<>();
+            for (PendingLoad load : loads) {
+                LoadRequest request = load.element.argument();
+                Map<Cell, Set<PendingLoad>> loadsByCell = loadsByPredicateAndCell.computeIfAbsent(
+                        Pair.create(request.startTs, request.loadAllTs), unused -> new HashMap<>());
+                for (Cell cell : request.cells) {
+                    loadsByCell.computeIfAbsent(cell, unused -> new HashSet<>()).add(load);
+                }
+            }
+
+            // a key predicate is made for each cell, in order, so the loads of each predicate are kept alongside it
+            List<KeyPredicate> query = new ArrayList<>();
+            List<Set<PendingLoad>> loadsByKeyPredicate = new ArrayList<>();
+            loadsByPredicateAndCell.forEach((startTsAndLoadAllTs, loadsByCell) -> {
+                List<Cell> cells = new ArrayList<>(loadsByCell.keySet());
+                query.addAll(CellLoader.translatePartitionToKeyPredicates(
+                        cells, startTsAndLoadAllTs.lhSide, startTsAndLoadAllTs.rhSide));
+                cells.forEach(cell -> loadsByKeyPredicate.add(loadsByCell.get(cell)));
+            });
+
+            List<List<KeyPredicate>> partitions = Lists.partition(query, batchSize);
+            List<List<Set<PendingLoad>>> loadPartitions = Lists.partition(loadsByKeyPredicate, batchSize);
+            List<SharedCall> calls = new ArrayList<>();
+            for (int i = 0; i < partitions.size(); i++) {
+                Set<PendingLoad> coveredLoads = new HashSet<>();
+                loadPartitions.get(i).forEach(coveredLoads::addAll);
+                coveredLoads.forEach(PendingLoad::expectCall);
+                calls.add(new SharedCall(tableRef, consistency, partitions.get(i), coveredLoads));
+            }
+            return calls;
+        }
+
+        private void awaitCallSlot() throws InterruptedException {
+            synchronized (this) {
+                // a closing pipeline does not wait, so that its queued loads drain before the autobatcher shuts down
+                while (!pipelineClosed && callsInFlight >= config.get().maxConcurrentCallsPerHost()) {
+                    wait();
+                }
+                callsInFlight++;
+            }
+        }
+
+        private synchronized void releaseCallSlot() {
+            callsInFlight--;
+            notifyAll();
+        }
+
+        private final class SharedCall {
+            private final TableReference tableRef;
+            private final ConsistencyLevel consistency;
+            private final List<KeyPredicate> partition;
+            private final Set<PendingLoad> loads;
+
+            SharedCall(
+                    TableReference tableRef,
+                    ConsistencyLevel consistency,
+                    List<KeyPredicate> partition,
+                    Set<PendingLoad> loads) {
+                this.tableRef = tableRef;
+                this.consistency = consistency;
+                this.partition = partition;
+                this.loads = loads;
+            }
+
+            void run(int batchSize) {
+                try {
+                    long startNanos = System.nanoTime();
+                    Map<ByteBuffer, List<List<ColumnOrSuperColumn>>> result = hedgedReads.runWithRetryOnHost(
+                            tableRef,
+                            partition.get(0).getKey(),
+                            host,
+                            new FunctionCheckedException<CassandraClient,
+                                    Map<ByteBuffer, List<List<ColumnOrSuperColumn>>>, Exception>() {
+                                @Override
+                                public Map<ByteBuffer, List<List<ColumnOrSuperColumn>>> apply(CassandraClient client)
+                                        throws Exception {
+                                    return queryRunner.multiget_multislice(
+                                            KVS_METHOD_NAME, client, tableRef, partition, consistency);
+                                }
+
+                                @Override
+                                public String toString() {
+                                    return "multiget_multislice(" + host + ", " + tableRef + ", "
+                                            + partition.size() + " cells)";
+                                }
+                            });
+                    batchSizer.recordCall(partition.size(), System.nanoTime() - startNanos, sizeInBytes(result));
+                    batchFillPercentage.update(100L * partition.size() / batchSize);
+                    loads.forEach(load -> load.addResult(result));
+                } catch (Throwable t) {
+                    fail(t);
+                }
+            }
+
+            void fail(Throwable failure) {
+                loads.forEach(load -> load.fail(failure));
+            }
+        }
+    }
+
+    /**
+     * A load of a batch, which completes once every call that reads some of its cells has returned, or fails as soon
+     * as one of them fails.
+     */
+    private static final class PendingLoad {
+        private final BatchElement<LoadRequest, Map<ByteBuffer, List<ColumnOrSuperColumn>>> element;
+        private final AtomicInteger remainingCalls = new AtomicInteger();
+        private final List<Map<ByteBuffer, List<List<ColumnOrSuperColumn>>>> results = new CopyOnWriteArrayList<>();
+
+        PendingLoad(BatchElement<LoadRequest, Map<ByteBuffer, List<ColumnOrSuperColumn>>> element) {
+            this.element = element;
+        }
+
+        void expectCall() {
+            remainingCalls.incrementAndGet();
+        }
+
+        void completeIfNothingToRead() {
+            if (remainingCalls.get() == 0) {
+                complete();
+            }
+        }
+
+        void addResult(Map<ByteBuffer, List<List<ColumnOrSuperColumn>>> result) {
+            results.add(result);
+            if (remainingCalls.decrementAndGet() == 0) {
+                complete();
+            }
+        }
+
+        void fail(Throwable failure) {
+            element.result().setException(failure);
+        }
+
+        private void complete() {
+            if (element.result().isDone()) {
+                return;
+            }
+            try {
+                Map<ByteBuffer, List<ColumnOrSuperColumn>> columnsByRow = new HashMap<>();
+                for (Map<ByteBuffer, List<List<ColumnOrSuperColumn>>> result : results) {
+                    result.forEach((row, columnLists) -> columnsByRow.computeIfAbsent(row, unused -> new ArrayList<>())
+                            .addAll(Lists.newArrayList(Iterables.concat(columnLists))));
+                }
+                element.result().set(element.argument().selectResults(columnsByRow));
+            } catch (Throwable t) {
+                fail(t);
+            }
+        }
+    }
+
+    private static long sizeInBytes(Map<ByteBuffer, List<List<ColumnOrSuperColumn>>> result) {
+        long bytes = 0;
+        for (List<List<ColumnOrSuperColumn>> columnLists : result.values()) {
+            for (ColumnOrSuperColumn columnOrSuperColumn : Iterables.concat(columnLists)) {
+                Column column = columnOrSuperColumn.getColumn();
+                bytes += column.bufferForName().remaining();
+                if (column.isSetValue()) {
+                    bytes += column.bufferForValue().remaining();
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private static final class LoadRequest {
+        private final TableReference tableRef;
+        private final Collection<Cell> cells;
+        private final long startTs;
+        private final boolean loadAllTs;
+        private final ConsistencyLevel consistency;
+        private final long submittedNanos = System.nanoTime();
+
+        LoadRequest(
+                TableReference tableRef,
+                Collection<Cell> cells,
+                long startTs,
+                boolean loadAllTs,
+                ConsistencyLevel consistency) {
+            this.tableRef = tableRef;
+            this.cells = cells;
+            this.startTs = startTs;
+            this.loadAllTs = loadAllTs;
+            this.consistency = consistency;
+        }
+
+        /**
+         * Selects the values this load asked for from the values returned by the calls for all loads of a batch. The
+         * latest value of a column before the start timestamp is returned by the predicate of this load, so any other
+         * values of the column before the start timestamp are older, and are only kept when loading all timestamps.
+         */
+        Map<ByteBuffer, List<ColumnOrSuperColumn>> selectResults(
+                Map<ByteBuffer, List<ColumnOrSuperColumn>> columnsByRow) {
+            Map<ByteBuffer, Set<ByteBuffer>> columnNamesByRow = new HashMap<>();
+            for (Cell cell : cells) {
+                columnNamesByRow.computeIfAbsent(ByteBuffer.wrap(cell.getRowName()), unused -> new HashSet<>())
+                        .add(ByteBuffer.wrap(cell.getColumnName()));
+            }
+
+            Map<ByteBuffer, List<ColumnOrSuperColumn>> results = new HashMap<>();
+            columnNamesByRow.forEach((row, columnNames) -> {
+                List<ColumnOrSuperColumn> rowResults = selectColumns(
+                        columnsByRow.getOrDefault(row, ImmutableList.of()), columnNames);
+                if (!rowResults.isEmpty()) {
+                    results.put(row, rowResults);
+                }
+            });
+            return results;
+        }
+
+        private List<ColumnOrSuperColumn> selectColumns(
+                List<ColumnOrSuperColumn> columns,
+                Set<ByteBuffer> columnNames) {
+            // keyed by the column name and timestamp when loading all timestamps, and by the column name otherwise
+            Map<ByteBuffer, ColumnOrSuperColumn> selected = new HashMap<>();
+            for (ColumnOrSuperColumn column : columns) {
+                Pair<byte[], Long> nameAndTimestamp = CassandraKeyValueServices.decomposeName(column.getColumn());
+                ByteBuffer columnName = ByteBuffer.wrap(nameAndTimestamp.lhSide);
+                if (nameAndTimestamp.rhSide >= startTs || !columnNames.contains(columnName)) {
+                    continue;
+                }
+                if (loadAllTs) {
+                    selected.putIfAbsent(column.getColumn().bufferForName(), column);
+                } else {
+                    selected.merge(columnName, column, LoadRequest::latest);
+                }
+            }
+            return new ArrayList<>(selected.values());
+        }
+
+        private static ColumnOrSuperColumn latest(ColumnOrSuperColumn first, ColumnOrSuperColumn second) {
+            long firstTimestamp = CassandraKeyValueServices.decomposeName(first.getColumn()).rhSide;
+            long secondTimestamp = CassandraKeyValueServices.decomposeName(second.getColumn()).rhSide;
+            return firstTimestamp >= secondTimestamp ? first : second;
+        }
+    }
+}
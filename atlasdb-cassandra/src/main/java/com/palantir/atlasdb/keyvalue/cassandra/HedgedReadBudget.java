@@ -0,0 +1,63 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Limits the number of hedged reads to a proportion of all reads. Every read adds the proportion to a bucket of
+ * tokens and every hedged read takes a whole token from it. The bucket holds a small number of tokens, so a burst of
+ * slow reads can only hedge that many reads before hedging is limited to the proportion again.
+ */
+public final class HedgedReadBudget {
+    private static final long TOKEN = 1_000_000L;
+    private static final long MAXIMUM_TOKENS = 10 * TOKEN;
+
+    private final DoubleSupplier hedgeProportion;
+    private final AtomicLong tokens = new AtomicLong();
+
+    private HedgedReadBudget(DoubleSupplier hedgeProportion) {
+        this.hedgeProportion = hedgeProportion;
+    }
+
+    public static HedgedReadBudget create(DoubleSupplier hedgeProportion) {
+        return new HedgedReadBudget(hedgeProportion);
+    }
+
+    public void recordRead() {
+        long deposit = (long) (hedgeProportion.getAsDouble() * TOKEN);
+        tokens.updateAndGet(current -> Math.min(MAXIMUM_TOKENS, current + deposit));
+    }
+
+    public boolean hasBudget() {
+        return tokens.get() >= TOKEN;
+    }
+
+    public boolean tryAcquire() {
+        long tokensBefore = tokens.getAndUpdate(current -> current >= TOKEN ? current - TOKEN : current);
+        return tokensBefore >= TOKEN;
+    }
+
+    /**
+     * Takes a token for a hedged read that has already started, even if the bucket does not have one. The bucket then
+     * goes into debt, which later reads pay back before any more reads are hedged.
+     */
+    public void charge() {
+        tokens.addAndGet(-TOKEN);
+    }
+}
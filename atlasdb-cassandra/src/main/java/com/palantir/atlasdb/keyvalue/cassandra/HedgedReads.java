@@ -0,0 +1,222 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra;
+
+import java.net.InetSocketAddress;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Snapshot;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Suppliers;
+import com.palantir.atlasdb.cassandra.CassandraHedgedReadsConfig;
+import com.palantir.atlasdb.cassandra.CassandraKeyValueServiceRuntimeConfig;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.util.MetricsManager;
+import com.palantir.common.base.FunctionCheckedException;
+import com.palantir.common.base.Throwables;
+import com.palantir.common.concurrent.NamedThreadFactory;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.tracing.Tracers;
+
+/**
+ * Runs reads on a replica of the data being read and, if the replica has not answered within a percentile of the
+ * recent latencies of reads from the same table, sends the same read to a second replica and uses whichever answer
+ * comes first. The slower read is left to finish, as cancelling it would close its connection. Hedging is configured
+ * by {@link CassandraHedgedReadsConfig}, and the number of hedged reads is limited by a {@link HedgedReadBudget}.
+ * <p>
+ * Reads that might be hedged run on a bounded pool, so that the calling thread can take whichever answer comes first;
+ * the hedge is only submitted once the delay has passed. Reads that cannot be hedged run on the calling thread, as do
+ * reads that find the pool busy, which are then not hedged.
+ */
+public final class HedgedReads {
+    private static final long MINIMUM_SAMPLES_FOR_HEDGING = 100;
+    private static final long SNAPSHOT_REFRESH_SECONDS = 1;
+    private static final int MAXIMUM_THREADS = 64;
+
+    private final CassandraClientPool clientPool;
+    private final MetricsManager metricsManager;
+    private final Supplier<CassandraHedgedReadsConfig> config;
+    private final HedgedReadBudget budget;
+    private final ExecutorService executor;
+    private final ConcurrentMap<TableReference, TableLatency> tableLatencies = new ConcurrentHashMap<>();
+
+    @VisibleForTesting
+    HedgedReads(
+            CassandraClientPool clientPool,
+            MetricsManager metricsManager,
+            Supplier<CassandraHedgedReadsConfig> config,
+            ExecutorService executor) {
+        this.clientPool = clientPool;
+        this.metricsManager = metricsManager;
+        this.config = config;
+        this.budget = HedgedReadBudget.create(() -> config.get().maximumHedgeProportion());
+        this.executor = executor;
+    }
+
+    public static HedgedReads create(
+            CassandraClientPool clientPool,
+            MetricsManager metricsManager,
+            Supplier<CassandraKeyValueServiceRuntimeConfig> runtimeConfig) {
+        return new HedgedReads(
+                clientPool,
+                metricsManager,
+                () -> runtimeConfig.get().hedgedReadsConfig(),
+                Tracers.wrap(PTExecutors.newThreadPoolExecutor(
+                        0,
+                        MAXIMUM_THREADS,
+                        1,
+                        TimeUnit.MINUTES,
+                        new SynchronousQueue<>(),
+                        new NamedThreadFactory("Atlas Cassandra hedged reads", true))));
+    }
+
+    /**
+     * Runs {@code fn} on {@code host}, which should be a replica of {@code key}, and possibly also on another replica
+     * of {@code key}. {@code fn} must only read, as it may run more than once.
+     */
+    public <V, K extends Exception> V runWithRetryOnHost(
+            TableReference tableRef,
+            byte[] key,
+            InetSocketAddress host,
+            FunctionCheckedException<CassandraClient, V, K> fn) throws K {
+        CassandraHedgedReadsConfig hedgedReadsConfig = config.get();
+        if (!hedgedReadsConfig.enabled()) {
+            return clientPool.runWithRetryOnHost(host, fn);
+        }
+
+        budget.recordRead();
+        TableLatency tableLatency = tableLatencies.computeIfAbsent(tableRef, TableLatency::new);
+        OptionalLong latencyNanos = tableLatency.getLatencyNanos(hedgedReadsConfig.latencyPercentile());
+        if (!latencyNanos.isPresent() || !budget.hasBudget()) {
+            return tableLatency.time(host, fn);
+        }
+        long hedgeDelayNanos = Math.max(
+                latencyNanos.getAsLong(),
+                TimeUnit.MILLISECONDS.toNanos(hedgedReadsConfig.minimumHedgeDelayMillis()));
+
+        CompletionService<V> completionService = new ExecutorCompletionService<>(executor);
+        Future<V> primary;
+        try {
+            primary = completionService.submit(() -> tableLatency.time(host, fn));
+        } catch (RejectedExecutionException e) {
+            return tableLatency.time(host, fn);
+        }
+        try {
+            Future<V> first = completionService.poll(hedgeDelayNanos, TimeUnit.NANOSECONDS);
+            if (first != null) {
+                return getResult(first);
+            }
+
+            Optional<InetSocketAddress> alternativeHost = clientPool.getAlternativeHostForKey(key, host);
+            if (!alternativeHost.isPresent() || !budget.tryAcquire()) {
+                return getResult(completionService.take());
+            }
+
+            Future<V> hedge;
+            try {
+                hedge = completionService.submit(() -> clientPool.runWithRetryOnHost(alternativeHost.get(), fn));
+            } catch (RejectedExecutionException e) {
+                return getResult(completionService.take());
+            }
+            tableLatency.hedgedReads.mark();
+            first = completionService.take();
+            Future<V> firstSuccessful = isSuccessful(first) ? first : completionService.take();
+            if (firstSuccessful == hedge && isSuccessful(hedge)) {
+                tableLatency.hedgeWins.mark();
+                return getResult(hedge);
+            }
+            // the primary read answered, or both reads failed and the error of the primary read is thrown
+            return getResult(primary);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Throwables.throwUncheckedException(e);
+        }
+    }
+
+    private static boolean isSuccessful(Future<?> future) throws InterruptedException {
+        try {
+            future.get();
+            return true;
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V, K extends Exception> V getResult(Future<V> future) throws K, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (K) cause;
+        }
+    }
+
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private final class TableLatency {
+        private final Histogram latencyNanos = new Histogram(new ExponentiallyDecayingReservoir());
+        private final Supplier<Snapshot> snapshot = Suppliers.memoizeWithExpiration(
+                latencyNanos::getSnapshot, SNAPSHOT_REFRESH_SECONDS, TimeUnit.SECONDS);
+        private final Meter hedgedReads;
+        private final Meter hedgeWins;
+
+        TableLatency(TableReference tableRef) {
+            this.hedgedReads = metricsManager.registerOrGetTaggedMeter(
+                    HedgedReads.class, "hedgedReads", metricsManager.getTableNameTagFor(tableRef));
+            this.hedgeWins = metricsManager.registerOrGetTaggedMeter(
+                    HedgedReads.class, "hedgeWins", metricsManager.getTableNameTagFor(tableRef));
+        }
+
+        OptionalLong getLatencyNanos(double percentile) {
+            if (latencyNanos.getCount() < MINIMUM_SAMPLES_FOR_HEDGING) {
+                return OptionalLong.empty();
+            }
+            return OptionalLong.of((long) snapshot.get().getValue(percentile / 100));
+        }
+
+        <V, K extends Exception> V time(InetSocketAddress host, FunctionCheckedException<CassandraClient, V, K> fn)
+                throws K {
+            long startNanos = System.nanoTime();
+            try {
+                return clientPool.runWithRetryOnHost(host, fn);
+            } finally {
+                latencyNanos.update(System.nanoTime() - startNanos);
+            }
+        }
+    }
+}
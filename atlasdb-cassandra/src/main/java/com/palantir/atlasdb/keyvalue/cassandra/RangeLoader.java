@@ -37,13 +37,15 @@ import com.palantir.common.base.ClosableIterators;
 
 public class RangeLoader {
     private final CassandraClientPool clientPool;
+    private final HedgedReads hedgedReads;
     private final TracingQueryRunner queryRunner;
     private final MetricsManager metricsManager;
     private ConsistencyLevel consistencyLevel;
 
-    public RangeLoader(CassandraClientPool clientPool, TracingQueryRunner queryRunner, MetricsManager metricsManager,
-            ConsistencyLevel consistencyLevel) {
+    public RangeLoader(CassandraClientPool clientPool, HedgedReads hedgedReads, TracingQueryRunner queryRunner,
+            MetricsManager metricsManager, ConsistencyLevel consistencyLevel) {
         this.clientPool = clientPool;
+        this.hedgedReads = hedgedReads;
         this.queryRunner = queryRunner;
         this.metricsManager = metricsManager;
         this.consistencyLevel = consistencyLevel;
@@ -73,7 +75,7 @@ public class RangeLoader {
             // each column. note that if no columns are specified, it's a special case that means all columns
             predicate = SlicePredicates.create(SlicePredicates.Range.ALL, SlicePredicates.Limit.NO_LIMIT);
         }
-        RowGetter rowGetter = new RowGetter(clientPool, queryRunner, consistency, tableRef);
+        RowGetter rowGetter = new RowGetter(clientPool, hedgedReads, queryRunner, consistency, tableRef);
         ColumnGetter columnGetter = new ThriftColumnGetter();
 
         return getRangeWithPageCreator(rowGetter, predicate, columnGetter, rangeRequest, resultsExtractor, startTs);
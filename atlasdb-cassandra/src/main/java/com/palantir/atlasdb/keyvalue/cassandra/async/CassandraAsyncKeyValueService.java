@@ -16,44 +16,107 @@
 
 package com.palantir.atlasdb.keyvalue.cassandra.async;
 
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Histogram;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.MultimapBuilder;
+import com.google.common.collect.Multimaps;
+import com.google.common.collect.Streams;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.palantir.atlasdb.futures.FuturesCombiner;
 import com.palantir.atlasdb.keyvalue.api.AsyncKeyValueService;
 import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.ColumnRangeSelection;
+import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
+import com.palantir.atlasdb.keyvalue.api.RangeRequest;
+import com.palantir.atlasdb.keyvalue.api.RangeRequests;
+import com.palantir.atlasdb.keyvalue.api.RowResult;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.atlasdb.keyvalue.api.Value;
 import com.palantir.atlasdb.keyvalue.cassandra.async.queries.CqlQueryContext;
-import com.palantir.atlasdb.keyvalue.cassandra.async.queries.GetQuerySpec;
-import com.palantir.atlasdb.keyvalue.cassandra.async.queries.GetQuerySpec.GetQueryParameters;
+import com.palantir.atlasdb.keyvalue.cassandra.async.queries.CqlQuerySpec;
+import com.palantir.atlasdb.keyvalue.cassandra.async.queries.GetRangeQuerySpec;
+import com.palantir.atlasdb.keyvalue.cassandra.async.queries.GetRowQuerySpec;
 import com.palantir.atlasdb.keyvalue.cassandra.async.queries.ImmutableCqlQueryContext;
-import com.palantir.atlasdb.keyvalue.cassandra.async.queries.ImmutableGetQueryParameters;
+import com.palantir.atlasdb.keyvalue.cassandra.async.queries.ImmutableGetRangeQueryParameters;
+import com.palantir.atlasdb.keyvalue.cassandra.async.queries.ImmutableGetRowQueryParameters;
+import com.palantir.atlasdb.keyvalue.cassandra.async.queries.ImmutableMultiGetQueryParameters;
+import com.palantir.atlasdb.keyvalue.cassandra.async.queries.MultiGetQuerySpec;
 import com.palantir.atlasdb.logging.LoggingArgs;
-import com.palantir.common.streams.KeyedStream;
+import com.palantir.atlasdb.util.MetricsManager;
+import com.palantir.logsafe.Preconditions;
 import com.palantir.logsafe.SafeArg;
+import com.palantir.util.paging.SimpleTokenBackedResultsPage;
+import com.palantir.util.paging.TokenBackedBasicResultsPage;
 
+/**
+ * Reads cells through CQL. Cells of the same row that are read at the same timestamp are read by a single statement,
+ * which the driver routes to a replica of the row's partition, and each call keeps at most
+ * {@link #MAX_CONCURRENT_STATEMENTS_PER_GET} statements in flight so that large reads do not exhaust the driver's
+ * in-flight request limits. A statement stops reading versions of its cells once it has read a few per cell, and the
+ * cells it missed are then read again individually under the same bound. Whole rows and column ranges are read with
+ * one statement per row under the same bound, and a page of a range of rows is read with a single statement.
+ * Statements that follow another are executed on the given executor rather than on the driver's I/O thread that
+ * completed the previous one, as executing a statement may have to prepare it first, which blocks.
+ */
 public final class CassandraAsyncKeyValueService implements AsyncKeyValueService {
     private static final Logger log = LoggerFactory.getLogger(CassandraAsyncKeyValueService.class);
 
+    private static final int MAX_CELLS_PER_STATEMENT = 100;
+    private static final int MAX_CONCURRENT_STATEMENTS_PER_GET = 16;
+
     private final String keyspace;
     private final CqlClient cqlClient;
     private final FuturesCombiner futuresCombiner;
+    private final Executor executor;
+    private final Histogram statementsPerGet;
+    private final Histogram cellsPerStatement;
 
-    public static AsyncKeyValueService create(String keyspace, CqlClient cqlClient, FuturesCombiner futuresCombiner) {
-        return new CassandraAsyncKeyValueService(keyspace, cqlClient, futuresCombiner);
+    public static AsyncKeyValueService create(
+            String keyspace,
+            CqlClient cqlClient,
+            FuturesCombiner futuresCombiner,
+            Executor executor,
+            MetricsManager metricsManager) {
+        return new CassandraAsyncKeyValueService(keyspace, cqlClient, futuresCombiner, executor, metricsManager);
     }
 
-    private CassandraAsyncKeyValueService(String keyspace, CqlClient cqlClient, FuturesCombiner futuresCombiner) {
+    private CassandraAsyncKeyValueService(
+            String keyspace,
+            CqlClient cqlClient,
+            FuturesCombiner futuresCombiner,
+            Executor executor,
+            MetricsManager metricsManager) {
         this.keyspace = keyspace;
         this.cqlClient = cqlClient;
         this.futuresCombiner = futuresCombiner;
+        this.executor = executor;
+        this.statementsPerGet = metricsManager.registerOrGetHistogram(
+                CassandraAsyncKeyValueService.class, "statementsPerGet");
+        this.cellsPerStatement = metricsManager.registerOrGetHistogram(
+                CassandraAsyncKeyValueService.class, "cellsPerStatement");
     }
 
+    @Override
     public ListenableFuture<Map<Cell, Value>> getAsync(TableReference tableReference, Map<Cell, Long> timestampByCell) {
         if (log.isTraceEnabled()) {
             log.trace(
@@ -62,24 +125,135 @@ public final class CassandraAsyncKeyValueService implements AsyncKeyValueService
                     LoggingArgs.tableRef(tableReference));
         }
 
-        Map<Cell, ListenableFuture<Optional<Value>>> cellListenableFutureMap = KeyedStream.stream(timestampByCell)
-                .map((cell, timestamp) -> getCellAsync(tableReference, cell, timestamp))
-                .collectToMap();
+        List<MultiGetQuerySpec> queries = groupIntoQueries(tableReference, timestampByCell);
+        statementsPerGet.update(queries.size());
+        return executeWithBoundedConcurrency(queries, MultiGetQuerySpec::queriesForCellsNotRead);
+    }
+
+    private List<MultiGetQuerySpec> groupIntoQueries(TableReference tableReference, Map<Cell, Long> timestampByCell) {
+        CqlQueryContext queryContext = queryContext(tableReference);
+
+        Map<Long, ListMultimap<ByteBuffer, Cell>> cellsByTimestampAndRow = new HashMap<>();
+        timestampByCell.forEach((cell, timestamp) -> cellsByTimestampAndRow
+                .computeIfAbsent(timestamp, unused -> MultimapBuilder.hashKeys().arrayListValues().build())
+                .put(ByteBuffer.wrap(cell.getRowName()), cell));
+
+        ImmutableList.Builder<MultiGetQuerySpec> queries = ImmutableList.builder();
+        cellsByTimestampAndRow.forEach((timestamp, cellsByRow) -> {
+            for (List<Cell> cellsOfRow : Multimaps.asMap(cellsByRow).values()) {
+                for (List<Cell> batch : Lists.partition(cellsOfRow, MAX_CELLS_PER_STATEMENT)) {
+                    cellsPerStatement.update(batch.size());
+                    queries.add(new MultiGetQuerySpec(
+                            queryContext,
+                            ImmutableMultiGetQueryParameters.builder()
+                                    .cells(batch)
+                                    .humanReadableTimestamp(timestamp)
+                                    .build()));
+                }
+            }
+        });
+        return queries.build();
+    }
+
+    @Override
+    public ListenableFuture<Map<Cell, Value>> getRowsAsync(
+            TableReference tableReference,
+            Iterable<byte[]> rows,
+            ColumnSelection columnSelection,
+            long timestamp) {
+        if (!columnSelection.allColumnsSelected()) {
+            Map<Cell, Long> timestampByCell = new HashMap<>();
+            for (byte[] row : rows) {
+                for (byte[] column : columnSelection.getSelectedColumns()) {
+                    timestampByCell.put(Cell.create(row, column), timestamp);
+                }
+            }
+            return getAsync(tableReference, timestampByCell);
+        }
+        return getRowsColumnRangeAsync(tableReference, rows, new ColumnRangeSelection(null, null), timestamp);
+    }
+
+    @Override
+    public ListenableFuture<Map<Cell, Value>> getRowsColumnRangeAsync(
+            TableReference tableReference,
+            Iterable<byte[]> rows,
+            ColumnRangeSelection columnRangeSelection,
+            long timestamp) {
+        CqlQueryContext queryContext = queryContext(tableReference);
+        List<GetRowQuerySpec> queries = Streams.stream(rows)
+                .map(row -> new GetRowQuerySpec(
+                        queryContext,
+                        ImmutableGetRowQueryParameters.builder()
+                                .row(row)
+                                .startColumnInclusive(columnRangeSelection.getStartCol())
+                                .endColumnExclusive(columnRangeSelection.getEndCol())
+                                .humanReadableTimestamp(timestamp)
+                                .build()))
+                .collect(Collectors.toList());
+        return executeWithBoundedConcurrency(queries, unused -> ImmutableList.of());
+    }
 
-        return futuresCombiner.allAsMap(cellListenableFutureMap);
+    @Override
+    public ListenableFuture<TokenBackedBasicResultsPage<RowResult<Value>, byte[]>> getFirstBatchForRangeAsync(
+            TableReference tableReference,
+            RangeRequest rangeRequest,
+            long timestamp) {
+        Preconditions.checkArgument(!rangeRequest.isReverse(), "Reverse range reads are not supported through CQL");
+        if (rangeRequest.isEmptyRange()) {
+            return Futures.immediateFuture(SimpleTokenBackedResultsPage.create(
+                    rangeRequest.getEndExclusive(), ImmutableList.of(), false));
+        }
+        return cqlClient.executeQuery(new GetRangeQuerySpec(
+                queryContext(tableReference),
+                ImmutableGetRangeQueryParameters.builder()
+                        .startRowInclusive(rangeRequest.getStartInclusive())
+                        .endRowExclusive(rangeRequest.getEndExclusive())
+                        .columnSelection(RangeRequests.extractColumnSelection(rangeRequest))
+                        .batchHint(MoreObjects.firstNonNull(rangeRequest.getBatchHint(), 1))
+                        .humanReadableTimestamp(timestamp)
+                        .build()));
     }
 
-    private ListenableFuture<Optional<Value>> getCellAsync(TableReference tableReference, Cell cell, long timestamp) {
-        CqlQueryContext queryContext = ImmutableCqlQueryContext.builder()
+    private CqlQueryContext queryContext(TableReference tableReference) {
+        return ImmutableCqlQueryContext.builder()
                 .tableReference(tableReference)
                 .keyspace(keyspace)
                 .build();
-        GetQueryParameters getQueryParameters = ImmutableGetQueryParameters.builder()
-                .cell(cell)
-                .humanReadableTimestamp(timestamp)
-                .build();
+    }
 
-        return cqlClient.executeQuery(new GetQuerySpec(queryContext, getQueryParameters));
+    /**
+     * Executes the given queries, and any follow-up queries that they need once they have run, with at most
+     * {@link #MAX_CONCURRENT_STATEMENTS_PER_GET} in flight.
+     */
+    private <Q extends CqlQuerySpec<Map<Cell, Value>>> ListenableFuture<Map<Cell, Value>> executeWithBoundedConcurrency(
+            List<Q> queries,
+            Function<Q, List<Q>> followUpQueries) {
+        Queue<Q> pendingQueries = new ConcurrentLinkedQueue<>(queries);
+        Map<Cell, Value> result = new ConcurrentHashMap<>();
+        List<ListenableFuture<Void>> workers = IntStream
+                .range(0, Math.min(queries.size(), MAX_CONCURRENT_STATEMENTS_PER_GET))
+                .mapToObj(unused -> executeRemaining(pendingQueries, followUpQueries, result))
+                .collect(Collectors.toList());
+        return Futures.transform(Futures.allAsList(workers), unused -> result, MoreExecutors.directExecutor());
+    }
+
+    private <Q extends CqlQuerySpec<Map<Cell, Value>>> ListenableFuture<Void> executeRemaining(
+            Queue<Q> pendingQueries,
+            Function<Q, List<Q>> followUpQueries,
+            Map<Cell, Value> result) {
+        Q query = pendingQueries.poll();
+        if (query == null) {
+            return Futures.immediateFuture(null);
+        }
+        return Futures.transformAsync(
+                cqlClient.executeQuery(query),
+                values -> {
+                    result.putAll(values);
+                    // this worker keeps polling, so follow-ups are run even if every other worker has finished
+                    pendingQueries.addAll(followUpQueries.apply(query));
+                    return executeRemaining(pendingQueries, followUpQueries, result);
+                },
+                executor);
     }
 
     @Override
@@ -18,11 +18,14 @@ package com.palantir.atlasdb.keyvalue.cassandra.async;
 
 import java.util.concurrent.Executor;
 
+import com.codahale.metrics.MetricRegistry;
 import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.ExecutionInfo;
 import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.ResultSet;
 import com.datastax.driver.core.Session;
 import com.datastax.driver.core.Statement;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Streams;
 import com.google.common.util.concurrent.AsyncFunction;
 import com.google.common.util.concurrent.Futures;
@@ -30,10 +33,13 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.palantir.async.initializer.AsyncInitializer;
 import com.palantir.atlasdb.cassandra.CassandraServersConfigs.CqlCapableConfigTuning;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.atlasdb.keyvalue.cassandra.async.queries.CqlQuerySpec;
 import com.palantir.atlasdb.keyvalue.cassandra.async.queries.RowStreamAccumulator;
 import com.palantir.atlasdb.keyvalue.cassandra.async.statement.preparing.CachingStatementPreparer;
 import com.palantir.atlasdb.keyvalue.cassandra.async.statement.preparing.StatementPreparer;
+import com.palantir.atlasdb.logging.LoggingArgs;
+import com.palantir.tritium.metrics.registry.MetricName;
 import com.palantir.tritium.metrics.registry.TaggedMetricRegistry;
 
 public final class CqlClientImpl implements CqlClient {
@@ -77,6 +83,7 @@ public final class CqlClientImpl implements CqlClient {
         }
     }
 
+    private final TaggedMetricRegistry taggedMetricRegistry;
     private final Session session;
     private final StatementPreparer statementPreparer;
 
@@ -107,10 +114,14 @@ public final class CqlClientImpl implements CqlClient {
                 taggedMetricRegistry,
                 preparedStatementCacheSize);
 
-        return new CqlClientImpl(session, cachingStatementPreparer);
+        return new CqlClientImpl(taggedMetricRegistry, session, cachingStatementPreparer);
     }
 
-    private CqlClientImpl(Session session, CachingStatementPreparer statementPreparer) {
+    private CqlClientImpl(
+            TaggedMetricRegistry taggedMetricRegistry,
+            Session session,
+            CachingStatementPreparer statementPreparer) {
+        this.taggedMetricRegistry = taggedMetricRegistry;
         this.session = session;
         this.statementPreparer = statementPreparer;
     }
@@ -125,37 +136,61 @@ public final class CqlClientImpl implements CqlClient {
     @Override
     public <V> ListenableFuture<V> executeQuery(CqlQuerySpec<V> querySpec) {
         PreparedStatement statement = statementPreparer.prepare(querySpec);
+        // all queries only read, so the driver may send them to a second replica if the first is slow to answer
         Statement executableStatement = querySpec.makeExecutableStatement(statement)
-                .setConsistencyLevel(querySpec.queryConsistency());
+                .setConsistencyLevel(querySpec.queryConsistency())
+                .setIdempotent(true);
 
         return execute(
+                querySpec.cqlQueryContext().tableReference(),
                 executableStatement,
                 MoreExecutors.directExecutor(),
                 querySpec.rowStreamAccumulator());
     }
 
     private <V> ListenableFuture<V> execute(
+            TableReference tableRef,
             Statement executableStatement,
             Executor executor,
             RowStreamAccumulator<V> rowStreamAccumulator) {
         return Futures.transformAsync(
                 session.executeAsync(executableStatement),
-                iterate(executor, rowStreamAccumulator),
+                iterate(tableRef, executor, rowStreamAccumulator),
                 executor);
     }
 
-    private <V> AsyncFunction<ResultSet, V> iterate(Executor executor, RowStreamAccumulator<V> rowStreamAccumulator) {
+    private <V> AsyncFunction<ResultSet, V> iterate(
+            TableReference tableRef,
+            Executor executor,
+            RowStreamAccumulator<V> rowStreamAccumulator) {
         return resultSet -> {
+            recordSpeculativeExecutions(tableRef, resultSet.getExecutionInfo());
             rowStreamAccumulator.accumulateRowStream(Streams.stream(resultSet)
                     .limit(resultSet.getAvailableWithoutFetching()));
 
             boolean wasLastPage = resultSet.getExecutionInfo().getPagingState() == null;
-            if (wasLastPage) {
+            if (wasLastPage || rowStreamAccumulator.isDone()) {
                 return Futures.immediateFuture(rowStreamAccumulator.result());
             } else {
                 ListenableFuture<ResultSet> future = resultSet.fetchMoreResults();
-                return Futures.transformAsync(future, iterate(executor, rowStreamAccumulator), executor);
+                return Futures.transformAsync(future, iterate(tableRef, executor, rowStreamAccumulator), executor);
             }
         };
     }
+
+    private void recordSpeculativeExecutions(TableReference tableRef, ExecutionInfo executionInfo) {
+        if (executionInfo.getSpeculativeExecutions() > 0) {
+            taggedMetricRegistry.meter(speculativeExecutionMetricName("hedgedReads", tableRef)).mark();
+            if (executionInfo.getSuccessfulExecutionIndex() > 0) {
+                taggedMetricRegistry.meter(speculativeExecutionMetricName("hedgeWins", tableRef)).mark();
+            }
+        }
+    }
+
+    private static MetricName speculativeExecutionMetricName(String name, TableReference tableRef) {
+        return MetricName.builder()
+                .safeName(MetricRegistry.name(CqlClientImpl.class, name))
+                .safeTags(ImmutableMap.of("tableName", LoggingArgs.safeTableOrPlaceholder(tableRef).getTablename()))
+                .build();
+    }
 }
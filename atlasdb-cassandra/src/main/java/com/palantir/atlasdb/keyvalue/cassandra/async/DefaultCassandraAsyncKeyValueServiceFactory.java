@@ -19,6 +19,7 @@ package com.palantir.atlasdb.keyvalue.cassandra.async;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import com.codahale.metrics.InstrumentedExecutorService;
@@ -78,11 +79,14 @@ public final class DefaultCassandraAsyncKeyValueServiceFactory implements Cassan
         return cqlClient.map(client -> CassandraAsyncKeyValueService.create(
                 config.getKeyspaceOrThrow(),
                 client,
-                AtlasFutures.futuresCombiner(executorService)));
+                AtlasFutures.futuresCombiner(executorService),
+                executorService,
+                metricsManager));
     }
 
     /**
-     * Creates a thread pool with number of threads between 0 and {@code maxPoolSize}.
+     * Creates a thread pool with number of threads between 0 and {@code maxPoolSize}. The work queue is unbounded, so
+     * the pool would never grow past its core size; the core size is therefore the maximum, and core threads time out.
      *
      * @param maxPoolSize      maximum size of the pool
      * @return a new dynamic thread pool with a thread keep alive time of 1 minute
@@ -91,7 +95,10 @@ public final class DefaultCassandraAsyncKeyValueServiceFactory implements Cassan
         LinkedBlockingQueue<Runnable> workQueue = new LinkedBlockingQueue<>();
         NamedThreadFactory threadFactory = new NamedThreadFactory("Atlas Cassandra Async KVS", false);
 
-        return PTExecutors.newThreadPoolExecutor(0, maxPoolSize, 1, TimeUnit.MINUTES, workQueue, threadFactory);
+        ThreadPoolExecutor executor = PTExecutors.newThreadPoolExecutor(
+                maxPoolSize, maxPoolSize, 1, TimeUnit.MINUTES, workQueue, threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     private ExecutorService tracingExecutorService(ExecutorService executorService) {
@@ -0,0 +1,87 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra.async.client.creation;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.Host;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.policies.SpeculativeExecutionPolicy;
+import com.palantir.atlasdb.keyvalue.cassandra.HedgedReadBudget;
+
+/**
+ * Limits the speculative executions of a delegate policy with a {@link HedgedReadBudget}, and delays them by at least
+ * a minimum delay. Reads are only planned to be hedged while the budget has a token. The driver asks a plan for the
+ * delay of the next execution whenever an execution starts, so the second call to a plan means that the read has been
+ * hedged, and it is only then that the budget is charged. The driver does not tell a plan when its read completes, so
+ * a token cannot be reserved for a plan and returned if the read completes before it is hedged. Instead, many plans
+ * created while the budget has a single token may all be hedged, and every hedge is charged, overdrawing the budget;
+ * no more reads are hedged until later reads have paid back the overdraft.
+ */
+final class BudgetedSpeculativeExecutionPolicy implements SpeculativeExecutionPolicy {
+    private static final long NO_SPECULATIVE_EXECUTION = -1;
+
+    private final SpeculativeExecutionPolicy delegate;
+    private final HedgedReadBudget budget;
+    private final long minimumDelayMillis;
+
+    BudgetedSpeculativeExecutionPolicy(
+            SpeculativeExecutionPolicy delegate,
+            HedgedReadBudget budget,
+            long minimumDelayMillis) {
+        this.delegate = delegate;
+        this.budget = budget;
+        this.minimumDelayMillis = minimumDelayMillis;
+    }
+
+    @Override
+    public void init(Cluster cluster) {
+        delegate.init(cluster);
+    }
+
+    @Override
+    public SpeculativeExecutionPlan newPlan(String loggedKeyspace, Statement statement) {
+        budget.recordRead();
+        if (!budget.hasBudget()) {
+            return lastQueried -> NO_SPECULATIVE_EXECUTION;
+        }
+        return new BudgetedPlan(delegate.newPlan(loggedKeyspace, statement));
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    private final class BudgetedPlan implements SpeculativeExecutionPlan {
+        private final SpeculativeExecutionPlan delegatePlan;
+        private int executionsStarted = 0;
+
+        BudgetedPlan(SpeculativeExecutionPlan delegatePlan) {
+            this.delegatePlan = delegatePlan;
+        }
+
+        @Override
+        public synchronized long nextExecution(Host lastQueried) {
+            executionsStarted++;
+            if (executionsStarted > 1) {
+                budget.charge();
+            }
+            long delayMillis = delegatePlan.nextExecution(lastQueried);
+            return delayMillis < 0 ? delayMillis : Math.max(delayMillis, minimumDelayMillis);
+        }
+    }
+}
@@ -27,7 +27,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.ClusterWidePercentileTracker;
 import com.datastax.driver.core.HostDistance;
+import com.datastax.driver.core.PercentileTracker;
 import com.datastax.driver.core.PoolingOptions;
 import com.datastax.driver.core.ProtocolOptions;
 import com.datastax.driver.core.ProtocolVersion;
@@ -38,11 +40,15 @@ import com.datastax.driver.core.ThreadingOptions;
 import com.datastax.driver.core.policies.DefaultRetryPolicy;
 import com.datastax.driver.core.policies.LatencyAwarePolicy;
 import com.datastax.driver.core.policies.LoadBalancingPolicy;
+import com.datastax.driver.core.policies.PercentileSpeculativeExecutionPolicy;
 import com.datastax.driver.core.policies.RoundRobinPolicy;
+import com.datastax.driver.core.policies.SpeculativeExecutionPolicy;
 import com.datastax.driver.core.policies.TokenAwarePolicy;
 import com.datastax.driver.core.policies.WhiteListPolicy;
+import com.palantir.atlasdb.cassandra.CassandraHedgedReadsConfig;
 import com.palantir.atlasdb.cassandra.CassandraKeyValueServiceConfig;
 import com.palantir.atlasdb.cassandra.CassandraServersConfigs;
+import com.palantir.atlasdb.keyvalue.cassandra.HedgedReadBudget;
 import com.palantir.atlasdb.keyvalue.cassandra.async.CqlClient;
 import com.palantir.atlasdb.keyvalue.cassandra.async.CqlClientImpl;
 import com.palantir.conjure.java.config.ssl.SslSocketFactories;
@@ -97,6 +103,10 @@ public class DefaultCqlClientFactory implements CqlClientFactory {
                 clusterBuilder = withQueryOptions(clusterBuilder, config);
                 clusterBuilder = withLoadBalancingPolicy(clusterBuilder, config, servers);
                 clusterBuilder = withSocketOptions(clusterBuilder, config);
+                clusterBuilder = withSpeculativeExecutionPolicy(
+                        clusterBuilder,
+                        config,
+                        cqlCapableConfig.tuning().hedgedReadsConfig());
 
                 return Optional.of(CqlClientImpl.create(
                         taggedMetricRegistry,
@@ -112,6 +122,27 @@ public class DefaultCqlClientFactory implements CqlClientFactory {
                 new SocketOptions().setReadTimeoutMillis(config.socketQueryTimeoutMillis()));
     }
 
+    private static Cluster.Builder withSpeculativeExecutionPolicy(
+            Cluster.Builder builder,
+            CassandraKeyValueServiceConfig config,
+            CassandraHedgedReadsConfig hedgedReadsConfig) {
+        if (!hedgedReadsConfig.enabled()) {
+            return builder;
+        }
+        // latencies above the query timeout are not tracked, as such queries fail anyway
+        PercentileTracker percentileTracker = ClusterWidePercentileTracker
+                .builder(config.socketQueryTimeoutMillis())
+                .build();
+        SpeculativeExecutionPolicy percentilePolicy = new PercentileSpeculativeExecutionPolicy(
+                percentileTracker,
+                hedgedReadsConfig.latencyPercentile(),
+                1);
+        return builder.withSpeculativeExecutionPolicy(new BudgetedSpeculativeExecutionPolicy(
+                percentilePolicy,
+                HedgedReadBudget.create(hedgedReadsConfig::maximumHedgeProportion),
+                hedgedReadsConfig.minimumHedgeDelayMillis()));
+    }
+
     private static Cluster.Builder withSslOptions(Cluster.Builder builder, CassandraKeyValueServiceConfig config) {
         if (!config.usingSsl()) {
             return builder;
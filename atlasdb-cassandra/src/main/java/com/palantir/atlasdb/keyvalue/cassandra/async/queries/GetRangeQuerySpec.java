@@ -0,0 +1,245 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra.async.queries;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.stream.Stream;
+
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.utils.Bytes;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.UnsignedBytes;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
+import com.palantir.atlasdb.keyvalue.api.RowResult;
+import com.palantir.atlasdb.keyvalue.api.Value;
+import com.palantir.atlasdb.keyvalue.impl.AbstractKeyValueService;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.util.paging.SimpleTokenBackedResultsPage;
+import com.palantir.util.paging.TokenBackedBasicResultsPage;
+
+public final class GetRangeQuerySpec implements CqlQuerySpec<TokenBackedBasicResultsPage<RowResult<Value>, byte[]>> {
+
+    /**
+     * Reads a page of rows in a range of rows. Tables are created with an ordered partitioner, so partitions are
+     * returned in the order of their keys, and the driver keeps fetching pages until the accumulator has seen the first
+     * row after the requested number of rows with visible columns. As with {@link GetRowQuerySpec}, all versions of
+     * each column are returned and the versions written at or after the read timestamp are skipped here.
+     */
+    private static final String QUERY_FORMAT = "SELECT key, column1, column2, value FROM \"%s\".\"%s\"";
+    private static final String FROM_ROW_RESTRICTION = "token(key) >= token(:start)";
+    private static final String TO_ROW_RESTRICTION = "token(key) < token(:end)";
+
+    private final CqlQueryContext cqlQueryContext;
+    private final GetRangeQueryParameters getRangeQueryParameters;
+    private final GetRangeQueryAccumulator getRangeQueryAccumulator;
+
+    public GetRangeQuerySpec(CqlQueryContext cqlQueryContext, GetRangeQueryParameters getRangeQueryParameters) {
+        this.cqlQueryContext = cqlQueryContext;
+        this.getRangeQueryParameters = getRangeQueryParameters;
+        this.getRangeQueryAccumulator = new GetRangeQueryAccumulator(getRangeQueryParameters);
+    }
+
+    @Override
+    public CqlQueryContext cqlQueryContext() {
+        return cqlQueryContext;
+    }
+
+    @Override
+    public String formatQueryString() {
+        String query = String.format(
+                QUERY_FORMAT,
+                cqlQueryContext().keyspace(),
+                AbstractKeyValueService.internalTableName(cqlQueryContext().tableReference()));
+        switch (queryType()) {
+            case GET_RANGE:
+                return query + " WHERE " + FROM_ROW_RESTRICTION + " AND " + TO_ROW_RESTRICTION + ";";
+            case GET_RANGE_FROM:
+                return query + " WHERE " + FROM_ROW_RESTRICTION + ";";
+            case GET_RANGE_TO:
+                return query + " WHERE " + TO_ROW_RESTRICTION + ";";
+            default:
+                return query + ";";
+        }
+    }
+
+    @Override
+    public QueryType queryType() {
+        boolean hasStart = getRangeQueryParameters.startRowInclusive().length > 0;
+        boolean hasEnd = getRangeQueryParameters.endRowExclusive().length > 0;
+        if (hasStart) {
+            return hasEnd ? QueryType.GET_RANGE : QueryType.GET_RANGE_FROM;
+        }
+        return hasEnd ? QueryType.GET_RANGE_TO : QueryType.GET_RANGE_ALL;
+    }
+
+    @Override
+    public Statement makeExecutableStatement(PreparedStatement preparedStatement) {
+        BoundStatement statement = preparedStatement.bind();
+        if (getRangeQueryParameters.startRowInclusive().length > 0) {
+            statement.setBytes("start", toReadOnlyByteBuffer(getRangeQueryParameters.startRowInclusive()));
+        }
+        if (getRangeQueryParameters.endRowExclusive().length > 0) {
+            statement.setBytes("end", toReadOnlyByteBuffer(getRangeQueryParameters.endRowExclusive()));
+        }
+        return statement;
+    }
+
+    private static ByteBuffer toReadOnlyByteBuffer(byte[] bytes) {
+        return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+
+    @Override
+    public ConsistencyLevel queryConsistency() {
+        return ConsistencyLevel.LOCAL_QUORUM;
+    }
+
+    @Override
+    public RowStreamAccumulator<TokenBackedBasicResultsPage<RowResult<Value>, byte[]>> rowStreamAccumulator() {
+        return getRangeQueryAccumulator;
+    }
+
+    @org.immutables.value.Value.Immutable
+    public interface GetRangeQueryParameters {
+        /**
+         * First row to read, or an empty array to read from the first row of the table.
+         */
+        @org.immutables.value.Value.Default
+        default byte[] startRowInclusive() {
+            return PtBytes.EMPTY_BYTE_ARRAY;
+        }
+
+        /**
+         * Row to stop reading at, or an empty array to read up to the last row of the table.
+         */
+        @org.immutables.value.Value.Default
+        default byte[] endRowExclusive() {
+            return PtBytes.EMPTY_BYTE_ARRAY;
+        }
+
+        @org.immutables.value.Value.Default
+        default ColumnSelection columnSelection() {
+            return ColumnSelection.all();
+        }
+
+        /**
+         * Number of rows in the page.
+         */
+        int batchHint();
+
+        long humanReadableTimestamp();
+
+        default long queryTimestamp() {
+            return ~humanReadableTimestamp();
+        }
+
+        @org.immutables.value.Value.Check
+        default void check() {
+            Preconditions.checkArgument(batchHint() > 0, "Batch hint must be positive");
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || getClass() != other.getClass()) {
+            return false;
+        }
+        GetRangeQuerySpec that = (GetRangeQuerySpec) other;
+        return cqlQueryContext.equals(that.cqlQueryContext)
+                && getRangeQueryParameters.equals(that.getRangeQueryParameters);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(cqlQueryContext, getRangeQueryParameters);
+    }
+
+    private static class GetRangeQueryAccumulator
+            implements RowStreamAccumulator<TokenBackedBasicResultsPage<RowResult<Value>, byte[]>> {
+
+        private final GetRangeQueryParameters parameters;
+        private final List<RowResult<Value>> rowResults = new ArrayList<>();
+        private byte[] currentRow = null;
+        private SortedMap<byte[], Value> currentColumns = null;
+        private byte[] nextRow = null;
+
+        GetRangeQueryAccumulator(GetRangeQueryParameters parameters) {
+            this.parameters = parameters;
+        }
+
+        @Override
+        public void accumulateRowStream(Stream<Row> rowStream) {
+            Iterator<Row> cqlRows = rowStream.iterator();
+            while (!isDone() && cqlRows.hasNext()) {
+                Row cqlRow = cqlRows.next();
+                byte[] row = Bytes.getArray(cqlRow.getBytes(0));
+                if (!Arrays.equals(row, currentRow)) {
+                    finishCurrentRow();
+                    // rows with no visible columns are not returned, so they do not count towards the page
+                    if (rowResults.size() == parameters.batchHint()) {
+                        nextRow = row;
+                        return;
+                    }
+                    currentRow = row;
+                    currentColumns = Maps.newTreeMap(UnsignedBytes.lexicographicalComparator());
+                }
+                byte[] column = Bytes.getArray(cqlRow.getBytes(1));
+                // the first visible version of each column is the freshest one
+                if (cqlRow.getLong(2) > parameters.queryTimestamp()
+                        && parameters.columnSelection().contains(column)
+                        && !currentColumns.containsKey(column)) {
+                    currentColumns.put(column, Value.create(Bytes.getArray(cqlRow.getBytes(3)), ~cqlRow.getLong(2)));
+                }
+            }
+        }
+
+        @Override
+        public boolean isDone() {
+            return nextRow != null;
+        }
+
+        @Override
+        public TokenBackedBasicResultsPage<RowResult<Value>, byte[]> result() {
+            finishCurrentRow();
+            if (isDone()) {
+                return SimpleTokenBackedResultsPage.create(nextRow, rowResults, true);
+            }
+            return SimpleTokenBackedResultsPage.create(parameters.endRowExclusive(), rowResults, false);
+        }
+
+        private void finishCurrentRow() {
+            if (currentRow != null && !currentColumns.isEmpty()) {
+                rowResults.add(RowResult.create(currentRow, currentColumns));
+            }
+            currentRow = null;
+            currentColumns = null;
+        }
+    }
+}
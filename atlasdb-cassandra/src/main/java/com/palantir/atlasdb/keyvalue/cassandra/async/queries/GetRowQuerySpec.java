@@ -0,0 +1,195 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra.async.queries;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.utils.Bytes;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.Value;
+import com.palantir.atlasdb.keyvalue.impl.AbstractKeyValueService;
+
+public final class GetRowQuerySpec implements CqlQuerySpec<Map<Cell, Value>> {
+
+    /**
+     * Reads the columns of one row within a column range. A restriction on {@code column2/timestamp} cannot follow a
+     * range restriction on {@code column1/column}, so all versions of each column are returned and the versions
+     * written at or after the read timestamp are skipped here. Cells are clustered in ASC order by
+     * {@code column1/column} and {@code column2/timestamp}, and timestamps are stored as bitwise complements of the
+     * original values, so the first visible row of each column is its freshest visible value.
+     */
+    private static final String QUERY_FORMAT = "SELECT column1, column2, value FROM \"%s\".\"%s\" WHERE key = :row";
+    private static final String FROM_COLUMN_RESTRICTION = " AND column1 >= :start";
+    private static final String TO_COLUMN_RESTRICTION = " AND column1 < :end";
+
+    private final CqlQueryContext cqlQueryContext;
+    private final GetRowQueryParameters getRowQueryParameters;
+    private final GetRowQueryAccumulator getRowQueryAccumulator;
+
+    public GetRowQuerySpec(CqlQueryContext cqlQueryContext, GetRowQueryParameters getRowQueryParameters) {
+        this.cqlQueryContext = cqlQueryContext;
+        this.getRowQueryParameters = getRowQueryParameters;
+        this.getRowQueryAccumulator = new GetRowQueryAccumulator(getRowQueryParameters);
+    }
+
+    @Override
+    public CqlQueryContext cqlQueryContext() {
+        return cqlQueryContext;
+    }
+
+    @Override
+    public String formatQueryString() {
+        StringBuilder query = new StringBuilder(String.format(
+                QUERY_FORMAT,
+                cqlQueryContext().keyspace(),
+                AbstractKeyValueService.internalTableName(cqlQueryContext().tableReference())));
+        switch (queryType()) {
+            case GET_ROW_COLUMN_RANGE:
+                query.append(FROM_COLUMN_RESTRICTION).append(TO_COLUMN_RESTRICTION);
+                break;
+            case GET_ROW_FROM_COLUMN:
+                query.append(FROM_COLUMN_RESTRICTION);
+                break;
+            default:
+                break;
+        }
+        return query.append(';').toString();
+    }
+
+    @Override
+    public QueryType queryType() {
+        if (getRowQueryParameters.endColumnExclusive().length > 0) {
+            return QueryType.GET_ROW_COLUMN_RANGE;
+        }
+        if (getRowQueryParameters.startColumnInclusive().length > 0) {
+            return QueryType.GET_ROW_FROM_COLUMN;
+        }
+        return QueryType.GET_ROW;
+    }
+
+    @Override
+    public Statement makeExecutableStatement(PreparedStatement preparedStatement) {
+        BoundStatement statement = preparedStatement.bind()
+                .setBytes("row", toReadOnlyByteBuffer(getRowQueryParameters.row()));
+        switch (queryType()) {
+            case GET_ROW_COLUMN_RANGE:
+                return statement
+                        .setBytes("start", toReadOnlyByteBuffer(getRowQueryParameters.startColumnInclusive()))
+                        .setBytes("end", toReadOnlyByteBuffer(getRowQueryParameters.endColumnExclusive()));
+            case GET_ROW_FROM_COLUMN:
+                return statement
+                        .setBytes("start", toReadOnlyByteBuffer(getRowQueryParameters.startColumnInclusive()));
+            default:
+                return statement;
+        }
+    }
+
+    private static ByteBuffer toReadOnlyByteBuffer(byte[] bytes) {
+        return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+
+    @Override
+    public ConsistencyLevel queryConsistency() {
+        return ConsistencyLevel.LOCAL_QUORUM;
+    }
+
+    @Override
+    public RowStreamAccumulator<Map<Cell, Value>> rowStreamAccumulator() {
+        return getRowQueryAccumulator;
+    }
+
+    @org.immutables.value.Value.Immutable
+    public interface GetRowQueryParameters {
+        byte[] row();
+
+        /**
+         * First column to read, or an empty array to read from the first column of the row.
+         */
+        @org.immutables.value.Value.Default
+        default byte[] startColumnInclusive() {
+            return PtBytes.EMPTY_BYTE_ARRAY;
+        }
+
+        /**
+         * Column to stop reading at, or an empty array to read up to the last column of the row.
+         */
+        @org.immutables.value.Value.Default
+        default byte[] endColumnExclusive() {
+            return PtBytes.EMPTY_BYTE_ARRAY;
+        }
+
+        long humanReadableTimestamp();
+
+        default long queryTimestamp() {
+            return ~humanReadableTimestamp();
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || getClass() != other.getClass()) {
+            return false;
+        }
+        GetRowQuerySpec that = (GetRowQuerySpec) other;
+        return cqlQueryContext.equals(that.cqlQueryContext)
+                && getRowQueryParameters.equals(that.getRowQueryParameters);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(cqlQueryContext, getRowQueryParameters);
+    }
+
+    private static class GetRowQueryAccumulator implements RowStreamAccumulator<Map<Cell, Value>> {
+
+        private final byte[] row;
+        private final long queryTimestamp;
+        private final Map<Cell, Value> resultValues = new HashMap<>();
+
+        GetRowQueryAccumulator(GetRowQueryParameters parameters) {
+            this.row = parameters.row();
+            this.queryTimestamp = parameters.queryTimestamp();
+        }
+
+        @Override
+        public void accumulateRowStream(Stream<Row> rowStream) {
+            rowStream
+                    .filter(cqlRow -> cqlRow.getLong(1) > queryTimestamp)
+                    .forEach(cqlRow -> resultValues.computeIfAbsent(
+                            Cell.create(row, Bytes.getArray(cqlRow.getBytes(0))),
+                            unused -> Value.create(Bytes.getArray(cqlRow.getBytes(2)), ~cqlRow.getLong(1))));
+        }
+
+        @Override
+        public Map<Cell, Value> result() {
+            return resultValues;
+        }
+    }
+}
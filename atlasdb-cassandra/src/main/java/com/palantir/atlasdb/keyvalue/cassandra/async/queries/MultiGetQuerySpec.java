@@ -0,0 +1,217 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra.async.queries;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Statement;
+import com.google.common.collect.ImmutableList;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.Value;
+import com.palantir.atlasdb.keyvalue.impl.AbstractKeyValueService;
+import com.palantir.logsafe.Preconditions;
+
+public final class MultiGetQuerySpec implements CqlQuerySpec<Map<Cell, Value>> {
+
+    /**
+     * Reads several cells of one partition (row) in a single statement, so the statement is routed to a replica of
+     * that partition and the coordinator reads the partition once. Cells are clustered in ASC order by
+     * {@code column1/column} and {@code column2/timestamp}, and timestamps are stored as bitwise complements of the
+     * original values, so the first row returned for each column is the freshest visible value and the remaining rows
+     * are skipped. Unlike {@link GetQuerySpec} we cannot use {@code LIMIT 1}, as the limit applies to the partition
+     * rather than to each column, and our Cassandra supports neither {@code PER PARTITION LIMIT} nor grouping by
+     * column. Instead the statement reads at most {@link #VERSIONS_READ_PER_CELL} versions per requested cell, and if
+     * that limit is reached, the cells it returned no value for are read again one at a time by
+     * {@link #queriesForCellsNotRead()}, with {@code LIMIT 1}.
+     */
+    private static final String QUERY_FORMAT = "SELECT column1, column2, value FROM \"%s\".\"%s\" "
+            + "WHERE key = :row AND column1 IN :columns AND column2 > :timestamp "
+            + "LIMIT :limit;";
+    private static final int VERSIONS_READ_PER_CELL = 8;
+
+    private final CqlQueryContext cqlQueryContext;
+    private final MultiGetQueryParameters multiGetQueryParameters;
+    private final MultiGetQueryAccumulator multiGetQueryAccumulator;
+
+    public MultiGetQuerySpec(CqlQueryContext cqlQueryContext, MultiGetQueryParameters multiGetQueryParameters) {
+        this.cqlQueryContext = cqlQueryContext;
+        this.multiGetQueryParameters = multiGetQueryParameters;
+        this.multiGetQueryAccumulator = new MultiGetQueryAccumulator(multiGetQueryParameters.cells(), limit());
+    }
+
+    /**
+     * Once this query has run, returns a query for each requested cell that it may have missed the value of because
+     * it read as many versions as it was allowed to.
+     */
+    public List<MultiGetQuerySpec> queriesForCellsNotRead() {
+        return multiGetQueryAccumulator.cellsNotRead().stream()
+                .map(cell -> new MultiGetQuerySpec(
+                        cqlQueryContext,
+                        ImmutableMultiGetQueryParameters.builder()
+                                .addCells(cell)
+                                .humanReadableTimestamp(multiGetQueryParameters.humanReadableTimestamp())
+                                .build()))
+                .collect(Collectors.toList());
+    }
+
+    private int limit() {
+        // the first version of a lone cell is all that we need
+        int cells = multiGetQueryParameters.cells().size();
+        return cells == 1 ? 1 : cells * VERSIONS_READ_PER_CELL;
+    }
+
+    @Override
+    public CqlQueryContext cqlQueryContext() {
+        return cqlQueryContext;
+    }
+
+    @Override
+    public String formatQueryString() {
+        return String.format(
+                QUERY_FORMAT,
+                cqlQueryContext().keyspace(),
+                AbstractKeyValueService.internalTableName(cqlQueryContext().tableReference()));
+    }
+
+    @Override
+    public QueryType queryType() {
+        return QueryType.MULTI_GET;
+    }
+
+    @Override
+    public Statement makeExecutableStatement(PreparedStatement preparedStatement) {
+        List<ByteBuffer> columns = multiGetQueryParameters.cells().stream()
+                .map(cell -> toReadOnlyByteBuffer(cell.getColumnName()))
+                .collect(Collectors.toList());
+        return preparedStatement.bind()
+                .setBytes("row", toReadOnlyByteBuffer(multiGetQueryParameters.rowName()))
+                .setList("columns", columns)
+                .setLong("timestamp", multiGetQueryParameters.queryTimestamp())
+                .setInt("limit", limit());
+    }
+
+    private static ByteBuffer toReadOnlyByteBuffer(byte[] bytes) {
+        return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+
+    @Override
+    public ConsistencyLevel queryConsistency() {
+        return ConsistencyLevel.LOCAL_QUORUM;
+    }
+
+    @Override
+    public RowStreamAccumulator<Map<Cell, Value>> rowStreamAccumulator() {
+        return multiGetQueryAccumulator;
+    }
+
+    @org.immutables.value.Value.Immutable
+    public interface MultiGetQueryParameters {
+        /**
+         * Cells to read, which must all be in the same row.
+         */
+        Set<Cell> cells();
+
+        long humanReadableTimestamp();
+
+        default byte[] rowName() {
+            return cells().iterator().next().getRowName();
+        }
+
+        default long queryTimestamp() {
+            return ~humanReadableTimestamp();
+        }
+
+        @org.immutables.value.Value.Check
+        default void check() {
+            Preconditions.checkArgument(!cells().isEmpty(), "Must read at least one cell");
+            Preconditions.checkArgument(
+                    cells().stream().allMatch(cell -> Objects.deepEquals(cell.getRowName(), rowName())),
+                    "All cells read by one query must be in the same row");
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || getClass() != other.getClass()) {
+            return false;
+        }
+        MultiGetQuerySpec that = (MultiGetQuerySpec) other;
+        return cqlQueryContext.equals(that.cqlQueryContext)
+                && multiGetQueryParameters.equals(that.multiGetQueryParameters);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(cqlQueryContext, multiGetQueryParameters);
+    }
+
+    private static class MultiGetQueryAccumulator implements RowStreamAccumulator<Map<Cell, Value>> {
+
+        private final Map<ByteBuffer, Cell> cellsByColumn;
+        private final int limit;
+        private final Map<Cell, Value> resultValues = new HashMap<>();
+        private int rows = 0;
+
+        MultiGetQueryAccumulator(Set<Cell> cells, int limit) {
+            this.cellsByColumn = cells.stream()
+                    .collect(Collectors.toMap(cell -> ByteBuffer.wrap(cell.getColumnName()), cell -> cell));
+            this.limit = limit;
+        }
+
+        @Override
+        public void accumulateRowStream(Stream<Row> rowStream) {
+            // pages are processed in clustering order, so the first row of each column is its freshest value
+            rowStream.forEach(row -> {
+                Cell cell = cellsByColumn.get(row.getBytes(0));
+                Preconditions.checkState(cell != null, "Query returned a column that was not requested");
+                resultValues.computeIfAbsent(cell, unused -> parseValue(row));
+                rows++;
+            });
+        }
+
+        @Override
+        public Map<Cell, Value> result() {
+            return resultValues;
+        }
+
+        List<Cell> cellsNotRead() {
+            if (rows < limit) {
+                return ImmutableList.of();
+            }
+            return cellsByColumn.values().stream()
+                    .filter(cell -> !resultValues.containsKey(cell))
+                    .collect(Collectors.toList());
+        }
+
+        private static Value parseValue(Row row) {
+            return Value.create(row.getBytes(2).array(), ~row.getLong(1));
+        }
+    }
+}
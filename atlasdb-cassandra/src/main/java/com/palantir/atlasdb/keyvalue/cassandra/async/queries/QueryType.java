@@ -17,5 +17,13 @@
 package com.palantir.atlasdb.keyvalue.cassandra.async.queries;
 
 public enum QueryType {
-    GET
+    GET,
+    MULTI_GET,
+    GET_ROW,
+    GET_ROW_FROM_COLUMN,
+    GET_ROW_COLUMN_RANGE,
+    GET_RANGE_ALL,
+    GET_RANGE_FROM,
+    GET_RANGE_TO,
+    GET_RANGE
 }
@@ -45,4 +45,14 @@ public interface RowStreamAccumulator<R> {
      * @return accumulated result
      */
     R result();
+
+    /**
+     * Whether the accumulator has all the rows it needs, in which case the remaining pages of the query are not
+     * fetched. Accumulators may stop consuming the passed stream once this returns true.
+     *
+     * @return true if no further rows should be fetched
+     */
+    default boolean isDone() {
+        return false;
+    }
 }
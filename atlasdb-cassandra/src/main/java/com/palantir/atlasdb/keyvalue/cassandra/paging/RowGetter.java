@@ -29,6 +29,7 @@ import com.palantir.atlasdb.keyvalue.api.InsufficientConsistencyException;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.atlasdb.keyvalue.cassandra.CassandraClient;
 import com.palantir.atlasdb.keyvalue.cassandra.CassandraClientPool;
+import com.palantir.atlasdb.keyvalue.cassandra.HedgedReads;
 import com.palantir.atlasdb.keyvalue.cassandra.TracingQueryRunner;
 import com.palantir.atlasdb.keyvalue.cassandra.thrift.SlicePredicates;
 import com.palantir.common.base.FunctionCheckedException;
@@ -36,16 +37,19 @@ import com.palantir.common.base.Throwables;
 
 public class RowGetter {
     private CassandraClientPool clientPool;
+    private HedgedReads hedgedReads;
     private TracingQueryRunner queryRunner;
     private ConsistencyLevel consistency;
     private TableReference tableRef;
 
     public RowGetter(
             CassandraClientPool clientPool,
+            HedgedReads hedgedReads,
             TracingQueryRunner queryRunner,
             ConsistencyLevel consistency,
             TableReference tableRef) {
         this.clientPool = clientPool;
+        this.hedgedReads = hedgedReads;
         this.queryRunner = queryRunner;
         this.consistency = consistency;
         this.tableRef = tableRef;
@@ -53,7 +57,9 @@ public class RowGetter {
 
     public List<KeySlice> getRows(String kvsMethodName, KeyRange keyRange, SlicePredicate slicePredicate) {
         InetSocketAddress host = clientPool.getRandomHostForKey(keyRange.getStart_key());
-        return clientPool.runWithRetryOnHost(
+        return hedgedReads.runWithRetryOnHost(
+                tableRef,
+                keyRange.getStart_key(),
                 host,
                 new FunctionCheckedException<CassandraClient, List<KeySlice>, RuntimeException>() {
                     @Override
@@ -23,6 +23,7 @@ import java.util.function.Supplier;
 
 import com.codahale.metrics.Counter;
 import com.codahale.metrics.Meter;
+import com.google.common.collect.ImmutableMap;
 import com.palantir.atlasdb.keyvalue.cassandra.CassandraClientPool;
 import com.palantir.atlasdb.keyvalue.cassandra.CassandraClientPoolingContainer;
 import com.palantir.atlasdb.util.MetricsManager;
@@ -56,6 +57,22 @@ public class CassandraClientPoolMetrics {
                 aggregateRequestMetrics::getConnectionExceptionProportion);
     }
 
+    /**
+     * Registers the latency and score that {@link LatencyWeightedHosts} uses to choose between replicas of a key,
+     * tagged by the pool of the host rather than by the host itself.
+     */
+    public void registerHostScoreMetrics(String poolName, CassandraClientPoolingContainer hostPool) {
+        Map<String, String> tags = ImmutableMap.of("pool", poolName);
+        metricsManager.registerOrGet(
+                CassandraClientPool.class, "decayedLatencyMillis",
+                hostPool::getDecayedLatencyMillis,
+                tags);
+        metricsManager.registerOrGet(
+                CassandraClientPool.class, "hostScore",
+                () -> LatencyWeightedHosts.score(hostPool),
+                tags);
+    }
+
     public void recordRequestOnHost(CassandraClientPoolingContainer hostPool) {
         updateMetricOnAggregateAndHost(hostPool, RequestMetrics::markRequest);
     }
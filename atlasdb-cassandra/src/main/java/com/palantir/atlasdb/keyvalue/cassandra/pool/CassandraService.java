@@ -319,6 +319,19 @@ public class CassandraService implements AutoCloseable {
         return Optional.of(WeightedHosts.create(matchingPools).getRandomHost());
     }
 
+    private Optional<InetSocketAddress> getHostByLatencyAndOpenRequests(Set<InetSocketAddress> desiredHosts) {
+
+        Set<InetSocketAddress> localFilteredHosts = maybeFilterLocalHosts(desiredHosts);
+
+        Map<InetSocketAddress, CassandraClientPoolingContainer> matchingPools = Maps.filterKeys(currentPools,
+                localFilteredHosts::contains);
+        if (matchingPools.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(LatencyWeightedHosts.create(matchingPools).getHost());
+    }
+
     public void debugLogStateOfPool() {
         if (log.isDebugEnabled()) {
             StringBuilder currentState = new StringBuilder();
@@ -353,9 +366,9 @@ public class CassandraService implements AutoCloseable {
         Set<InetSocketAddress> liveOwnerHosts = blacklist.filterBlacklistedHostsFrom(hostsForKey);
 
         if (!liveOwnerHosts.isEmpty()) {
-            Optional<InetSocketAddress> activeHost = getRandomHostByActiveConnections(liveOwnerHosts);
-            if (activeHost.isPresent()) {
-                return activeHost.get();
+            Optional<InetSocketAddress> fastestHost = getHostByLatencyAndOpenRequests(liveOwnerHosts);
+            if (fastestHost.isPresent()) {
+                return fastestHost.get();
             }
         }
 
@@ -370,6 +383,28 @@ public class CassandraService implements AutoCloseable {
         return getRandomGoodHost().getHost();
     }
 
+    /**
+     * Chooses a live replica of the given key other than {@code hostToAvoid}, for example to send a second copy of a
+     * read that the first replica is slow to answer. Returns empty if no other replica of the key is known to be live.
+     */
+    public Optional<InetSocketAddress> getAlternativeHostForKey(byte[] key, InetSocketAddress hostToAvoid) {
+        List<InetSocketAddress> hostsForKey = getHostsFor(key);
+        if (hostsForKey == null) {
+            return Optional.empty();
+        }
+
+        Set<InetSocketAddress> otherLiveOwnerHosts = Sets.difference(
+                blacklist.filterBlacklistedHostsFrom(hostsForKey),
+                ImmutableSet.of(hostToAvoid));
+        Map<InetSocketAddress, CassandraClientPoolingContainer> matchingPools = Maps.filterKeys(currentPools,
+                otherLiveOwnerHosts::contains);
+        if (matchingPools.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(LatencyWeightedHosts.create(matchingPools).getHost());
+    }
+
     public void addPool(InetSocketAddress server) {
         int currentPoolNumber = cassandraHosts.indexOf(server) + 1;
         currentPools.put(server,
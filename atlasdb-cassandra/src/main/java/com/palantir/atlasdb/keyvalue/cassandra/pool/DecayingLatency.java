@@ -0,0 +1,67 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra.pool;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Exponentially weighted moving average of the latency of requests to a host. The average also decays towards zero
+ * while no requests to the host complete, so that a host that was slow for a while is eventually tried again.
+ */
+public final class DecayingLatency {
+    private static final double SAMPLE_WEIGHT = 0.1;
+    private static final double DECAY_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final LongSupplier nanoClock;
+
+    private boolean hasSamples = false;
+    private double averageNanos = 0;
+    private long lastUpdateNanos;
+
+    public DecayingLatency() {
+        this(System::nanoTime);
+    }
+
+    @VisibleForTesting
+    DecayingLatency(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.lastUpdateNanos = nanoClock.getAsLong();
+    }
+
+    public synchronized void update(long latencyNanos) {
+        long now = nanoClock.getAsLong();
+        if (hasSamples) {
+            averageNanos = decayedAverageNanos(now) * (1 - SAMPLE_WEIGHT) + latencyNanos * SAMPLE_WEIGHT;
+        } else {
+            averageNanos = latencyNanos;
+            hasSamples = true;
+        }
+        lastUpdateNanos = now;
+    }
+
+    public synchronized double getMillis() {
+        return decayedAverageNanos(nanoClock.getAsLong()) / NANOS_PER_MILLI;
+    }
+
+    private double decayedAverageNanos(long now) {
+        return averageNanos * Math.exp(-(now - lastUpdateNanos) / DECAY_NANOS);
+    }
+}
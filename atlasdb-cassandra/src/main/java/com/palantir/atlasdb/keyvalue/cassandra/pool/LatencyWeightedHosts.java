@@ -0,0 +1,68 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra.pool;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.google.common.collect.ImmutableList;
+import com.palantir.atlasdb.keyvalue.cassandra.CassandraClientPoolingContainer;
+import com.palantir.logsafe.Preconditions;
+
+/**
+ * Chooses among hosts by the power of two choices: two distinct hosts are picked at random and the one with the lower
+ * {@link #score(CassandraClientPoolingContainer)} is used. Slow or busy hosts are avoided in the manner of a dynamic
+ * snitch, without sending every request to whichever host currently looks fastest.
+ */
+public final class LatencyWeightedHosts {
+    final List<CassandraClientPoolingContainer> pools;
+
+    private LatencyWeightedHosts(List<CassandraClientPoolingContainer> pools) {
+        this.pools = pools;
+    }
+
+    public static LatencyWeightedHosts create(Map<InetSocketAddress, CassandraClientPoolingContainer> pools) {
+        Preconditions.checkArgument(!pools.isEmpty(), "pools should be non-empty");
+        return new LatencyWeightedHosts(ImmutableList.copyOf(pools.values()));
+    }
+
+    /**
+     * The score of a host is its decayed latency multiplied by one more than its number of open requests. One
+     * millisecond is added to the latency, so that open requests still count for hosts that have not been measured.
+     */
+    public static double score(CassandraClientPoolingContainer pool) {
+        return (pool.getDecayedLatencyMillis() + 1) * (Math.max(pool.getOpenRequests(), 0) + 1);
+    }
+
+    public InetSocketAddress getHost() {
+        if (pools.size() == 1) {
+            return pools.get(0).getHost();
+        }
+        int first = ThreadLocalRandom.current().nextInt(pools.size());
+        int second = ThreadLocalRandom.current().nextInt(pools.size() - 1);
+        return getHostInternal(first, second < first ? second : second + 1);
+    }
+
+    // This basically exists for testing
+    InetSocketAddress getHostInternal(int first, int second) {
+        CassandraClientPoolingContainer firstPool = pools.get(first);
+        CassandraClientPoolingContainer secondPool = pools.get(second);
+        return score(firstPool) <= score(secondPool) ? firstPool.getHost() : secondPool.getHost();
+    }
+}
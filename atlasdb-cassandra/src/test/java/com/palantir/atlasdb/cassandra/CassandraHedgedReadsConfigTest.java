@@ -0,0 +1,56 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.cassandra;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.Test;
+
+public class CassandraHedgedReadsConfigTest {
+    @Test
+    public void hedgedReadsAreDisabledByDefault() {
+        assertThat(CassandraHedgedReadsConfig.defaultConfig().enabled()).isFalse();
+    }
+
+    @Test
+    public void cannotCreateConfigWithPercentileOutOfRange() {
+        assertThatThrownBy(() -> ImmutableCassandraHedgedReadsConfig.builder().latencyPercentile(0).build())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("latencyPercentile should be between 0 and 100");
+        assertThatThrownBy(() -> ImmutableCassandraHedgedReadsConfig.builder().latencyPercentile(100).build())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("latencyPercentile should be between 0 and 100");
+    }
+
+    @Test
+    public void cannotCreateConfigWithNegativeMinimumHedgeDelay() {
+        assertThatThrownBy(() -> ImmutableCassandraHedgedReadsConfig.builder().minimumHedgeDelayMillis(-1).build())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("minimumHedgeDelayMillis should not be negative");
+    }
+
+    @Test
+    public void cannotCreateConfigWithHedgeProportionOutOfRange() {
+        assertThatThrownBy(() -> ImmutableCassandraHedgedReadsConfig.builder().maximumHedgeProportion(-0.1).build())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("maximumHedgeProportion should be between 0 and 1");
+        assertThatThrownBy(() -> ImmutableCassandraHedgedReadsConfig.builder().maximumHedgeProportion(1.5).build())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("maximumHedgeProportion should be between 0 and 1");
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.palantir.atlasdb.cassandra.CassandraCellLoadingConfig;
+import com.palantir.atlasdb.cassandra.ImmutableCassandraCellLoadingConfig;
+
+public class AdaptiveBatchSizerTest {
+    private static final int SINGLE_QUERY_LIMIT = 10_000;
+    private static final CassandraCellLoadingConfig LOADING_CONFIG = ImmutableCassandraCellLoadingConfig.builder()
+            .singleQueryLoadBatchLimit(SINGLE_QUERY_LIMIT)
+            .targetBatchLatencyMillis(50)
+            .targetBatchResponseBytes(1_000_000)
+            .build();
+
+    private final AdaptiveBatchSizer batchSizer = new AdaptiveBatchSizer(() -> LOADING_CONFIG);
+
+    @Test
+    public void usesSingleQueryLimitBeforeAnyCalls() {
+        assertThat(batchSizer.getBatchSize()).isEqualTo(SINGLE_QUERY_LIMIT);
+    }
+
+    @Test
+    public void shrinksBatchesToTargetLatency() {
+        batchSizer.recordCall(1_000, TimeUnit.MILLISECONDS.toNanos(10), 0);
+        assertThat(batchSizer.getBatchSize()).isEqualTo(5_000);
+    }
+
+    @Test
+    public void shrinksBatchesToTargetResponseSize() {
+        batchSizer.recordCall(1_000, TimeUnit.MILLISECONDS.toNanos(1), 2_000_000);
+        assertThat(batchSizer.getBatchSize()).isEqualTo(500);
+    }
+
+    @Test
+    public void doesNotExceedSingleQueryLimit() {
+        batchSizer.recordCall(1_000, 1, 1);
+        assertThat(batchSizer.getBatchSize()).isEqualTo(SINGLE_QUERY_LIMIT);
+    }
+
+    @Test
+    public void doesNotShrinkBelowMinimumBatchSize() {
+        batchSizer.recordCall(100, TimeUnit.SECONDS.toNanos(1), 0);
+        assertThat(batchSizer.getBatchSize()).isEqualTo(100);
+    }
+
+    @Test
+    public void weightsRecentCallsByMovingAverage() {
+        batchSizer.recordCall(1_000, TimeUnit.MILLISECONDS.toNanos(10), 0);
+        batchSizer.recordCall(1_000, TimeUnit.MILLISECONDS.toNanos(20), 0);
+        // 0.2 * 20 us + 0.8 * 10 us = 12 us per cell
+        assertThat(batchSizer.getBatchSize()).isEqualTo(4_166);
+    }
+
+    @Test
+    public void ignoresCallsWithoutCells() {
+        batchSizer.recordCall(0, TimeUnit.SECONDS.toNanos(1), 1_000_000);
+        assertThat(batchSizer.getBatchSize()).isEqualTo(SINGLE_QUERY_LIMIT);
+    }
+}
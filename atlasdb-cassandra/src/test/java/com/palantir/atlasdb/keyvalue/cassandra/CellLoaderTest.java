@@ -0,0 +1,152 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.cassandra.thrift.Column;
+import org.apache.cassandra.thrift.ColumnOrSuperColumn;
+import org.apache.cassandra.thrift.ConsistencyLevel;
+import org.apache.cassandra.thrift.KeyPredicate;
+import org.apache.thrift.TException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.palantir.atlasdb.cassandra.CassandraKeyValueServiceRuntimeConfig;
+import com.palantir.atlasdb.cassandra.ImmutableCassandraCellLoadingConfig;
+import com.palantir.atlasdb.cassandra.ImmutableCassandraHedgedReadsConfig;
+import com.palantir.atlasdb.cassandra.ImmutableCassandraKeyValueServiceRuntimeConfig;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.util.MetricsManagers;
+import com.palantir.common.base.FunctionCheckedException;
+import com.palantir.common.concurrent.PTExecutors;
+
+public class CellLoaderTest {
+    private static final TableReference TABLE = TableReference.createFromFullyQualifiedName("test.table");
+    private static final InetSocketAddress HOST = new InetSocketAddress(0);
+    private static final ConsistencyLevel CONSISTENCY = ConsistencyLevel.LOCAL_QUORUM;
+    private static final Cell CELL = Cell.create(PtBytes.toBytes("row"), PtBytes.toBytes("col"));
+
+    private final CassandraClientPool clientPool = mock(CassandraClientPool.class);
+    private final CassandraClient client = mock(CassandraClient.class);
+    private final WrappingQueryRunner queryRunner = mock(WrappingQueryRunner.class);
+    private final ExecutorService executor = PTExecutors.newCachedThreadPool("cell-loader-test");
+
+    private CassandraKeyValueServiceRuntimeConfig config = runtimeConfig(true);
+    private CoalescingCellLoader coalescingCellLoader;
+    private CellLoader cellLoader;
+
+    @Before
+    public void setUp() throws TException {
+        when(clientPool.getRandomHostForKey(any())).thenReturn(HOST);
+        when(clientPool.getCurrentPools()).thenReturn(
+                ImmutableMap.of(HOST, mock(CassandraClientPoolingContainer.class)));
+        when(clientPool.runWithRetryOnHost(eq(HOST), any())).thenAnswer(invocation -> invocation
+                .<FunctionCheckedException<CassandraClient, ?, ?>>getArgument(1)
+                .apply(client));
+        when(queryRunner.multiget_multislice(anyString(), eq(client), eq(TABLE), anyList(), eq(CONSISTENCY)))
+                .thenAnswer(invocation -> read(invocation.getArgument(3)));
+
+        HedgedReads hedgedReads = new HedgedReads(
+                clientPool,
+                MetricsManagers.createForTests(),
+                () -> ImmutableCassandraHedgedReadsConfig.builder().build(),
+                MoreExecutors.newDirectExecutorService());
+        TaskRunner taskRunner = new TaskRunner(executor);
+        coalescingCellLoader = CoalescingCellLoader.create(
+                MetricsManagers.createForTests(),
+                clientPool,
+                hedgedReads,
+                queryRunner,
+                executor,
+                () -> config.cellLoadingConfig());
+        cellLoader = CellLoader.create(
+                clientPool, hedgedReads, queryRunner, taskRunner, coalescingCellLoader, () -> config);
+    }
+
+    @After
+    public void tearDown() {
+        coalescingCellLoader.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void loadsAreCoalescedWhenConfigured() throws TException {
+        assertThat(cellLoader.getAllTimestamps(TABLE, ImmutableSet.of(CELL), 25L, CONSISTENCY).get(CELL))
+                .containsExactlyInAnyOrder(10L, 20L);
+
+        verify(queryRunner).multiget_multislice(eq("loadWithTs"), eq(client), eq(TABLE), anyList(), eq(CONSISTENCY));
+        verify(queryRunner, never())
+                .multiget_multislice(eq("getAllTimestamps"), any(), any(), anyList(), any());
+    }
+
+    @Test
+    public void loadsAreReadDirectlyWhenNotCoalesced() throws TException {
+        config = runtimeConfig(false);
+
+        assertThat(cellLoader.getAllTimestamps(TABLE, ImmutableSet.of(CELL), 25L, CONSISTENCY).get(CELL))
+                .containsExactlyInAnyOrder(10L, 20L);
+
+        verify(queryRunner)
+                .multiget_multislice(eq("getAllTimestamps"), eq(client), eq(TABLE), anyList(), eq(CONSISTENCY));
+        verify(queryRunner, never()).multiget_multislice(eq("loadWithTs"), any(), any(), anyList(), any());
+    }
+
+    // returns the versions of the cell below the start timestamp of the test, as the predicates ask for
+    private static Map<ByteBuffer, List<List<ColumnOrSuperColumn>>> read(List<KeyPredicate> query) {
+        assertThat(query).hasSize(1);
+        return ImmutableMap.of(
+                ByteBuffer.wrap(CELL.getRowName()),
+                ImmutableList.of(ImmutableList.of(version(20L), version(10L))));
+    }
+
+    private static ColumnOrSuperColumn version(long timestamp) {
+        Column column = new Column(CassandraKeyValueServices.makeCompositeBuffer(CELL.getColumnName(), timestamp))
+                .setValue(PtBytes.toBytes(timestamp))
+                .setTimestamp(timestamp);
+        return new ColumnOrSuperColumn().setColumn(column);
+    }
+
+    private static CassandraKeyValueServiceRuntimeConfig runtimeConfig(boolean coalesceConcurrentLoads) {
+        return ImmutableCassandraKeyValueServiceRuntimeConfig.builder()
+                .cellLoadingConfig(ImmutableCassandraCellLoadingConfig.builder()
+                        .coalesceConcurrentLoads(coalesceConcurrentLoads)
+                        .build())
+                .build();
+    }
+}
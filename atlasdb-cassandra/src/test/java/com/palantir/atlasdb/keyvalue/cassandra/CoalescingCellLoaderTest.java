@@ -0,0 +1,314 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.apache.cassandra.thrift.Column;
+import org.apache.cassandra.thrift.ColumnOrSuperColumn;
+import org.apache.cassandra.thrift.ConsistencyLevel;
+import org.apache.cassandra.thrift.KeyPredicate;
+import org.apache.thrift.TException;
+import org.awaitility.Awaitility;
+import org.awaitility.Duration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.palantir.atlasdb.cassandra.CassandraCellLoadingConfig;
+import com.palantir.atlasdb.cassandra.ImmutableCassandraCellLoadingConfig;
+import com.palantir.atlasdb.cassandra.ImmutableCassandraHedgedReadsConfig;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.util.MetricsManager;
+import com.palantir.atlasdb.util.MetricsManagers;
+import com.palantir.common.base.FunctionCheckedException;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.util.Pair;
+
+public class CoalescingCellLoaderTest {
+    private static final TableReference TABLE = TableReference.createFromFullyQualifiedName("test.table");
+    private static final TableReference OTHER_TABLE = TableReference.createFromFullyQualifiedName("test.other");
+    private static final InetSocketAddress HOST = new InetSocketAddress(0);
+    private static final ConsistencyLevel CONSISTENCY = ConsistencyLevel.LOCAL_QUORUM;
+
+    private static final Cell CELL_1 = cell("row1", "col");
+    private static final Cell CELL_2 = cell("row2", "col");
+    private static final Cell CELL_3 = cell("row3", "col");
+    private static final Cell BLOCKING_CELL = cell("blocking", "col");
+    private static final Cell FAILING_CELL = cell("failing", "col");
+
+    private final CassandraClientPool clientPool = mock(CassandraClientPool.class);
+    private final CassandraClient client = mock(CassandraClient.class);
+    private final WrappingQueryRunner queryRunner = mock(WrappingQueryRunner.class);
+    private final MetricsManager metricsManager = MetricsManagers.createForTests();
+    private final ExecutorService executor = PTExecutors.newCachedThreadPool("coalescing-cell-loader-test");
+    private final Map<ByteBuffer, List<ColumnOrSuperColumn>> columnsByRow = new HashMap<>();
+    private final List<Pair<TableReference, List<KeyPredicate>>> queries = new ArrayList<>();
+    private final CountDownLatch blockedReadStarted = new CountDownLatch(1);
+    private final CountDownLatch blockedReadReleased = new CountDownLatch(1);
+
+    private CassandraCellLoadingConfig config = ImmutableCassandraCellLoadingConfig.builder()
+            .coalesceConcurrentLoads(true)
+            .build();
+    private CoalescingCellLoader cellLoader;
+
+    @Before
+    public void setUp() throws TException {
+        when(clientPool.getCurrentPools()).thenReturn(
+                ImmutableMap.of(HOST, mock(CassandraClientPoolingContainer.class)));
+        when(clientPool.runWithRetryOnHost(eq(HOST), any())).thenAnswer(invocation -> invocation
+                .<FunctionCheckedException<CassandraClient, ?, ?>>getArgument(1)
+                .apply(client));
+        when(queryRunner.multiget_multislice(anyString(), eq(client), any(), anyList(), eq(CONSISTENCY)))
+                .thenAnswer(invocation -> read(invocation.getArgument(2), invocation.getArgument(3)));
+
+        HedgedReads hedgedReads = new HedgedReads(
+                clientPool,
+                metricsManager,
+                () -> ImmutableCassandraHedgedReadsConfig.builder().build(),
+                MoreExecutors.newDirectExecutorService());
+        cellLoader = CoalescingCellLoader.create(
+                metricsManager,
+                clientPool,
+                hedgedReads,
+                queryRunner,
+                executor,
+                () -> config);
+
+        put(CELL_1, 10L);
+        put(CELL_1, 20L);
+        put(CELL_1, 30L);
+        put(CELL_2, 10L);
+        put(CELL_3, 10L);
+    }
+
+    @After
+    public void tearDown() {
+        blockedReadReleased.countDown();
+        cellLoader.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void loadsAtDifferentStartTimestampsEachReadTheirOwnLatestValue() throws Exception {
+        List<ListenableFuture<?>> blockingLoads = queueBehindABlockedRead();
+        ListenableFuture<Map<ByteBuffer, List<ColumnOrSuperColumn>>> early = load(TABLE, CELL_1, 15L, false);
+        ListenableFuture<Map<ByteBuffer, List<ColumnOrSuperColumn>>> late = load(TABLE, CELL_1, 25L, false);
+        releaseBlockedRead(blockingLoads);
+
+        assertThat(timestamps(early.get())).containsExactly(10L);
+        assertThat(timestamps(late.get())).containsExactly(20L);
+        assertThat(queriesOf(TABLE)).hasSize(2);
+    }
+
+    @Test
+    public void loadsOfAllTimestampsAtDifferentStartTimestampsEachReadTheirOwnValues() throws Exception {
+        List<ListenableFuture<?>> blockingLoads = queueBehindABlockedRead();
+        ListenableFuture<Map<ByteBuffer, List<ColumnOrSuperColumn>>> early = load(TABLE, CELL_1, 15L, true);
+        ListenableFuture<Map<ByteBuffer, List<ColumnOrSuperColumn>>> late = load(TABLE, CELL_1, 25L, true);
+        ListenableFuture<Map<ByteBuffer, List<ColumnOrSuperColumn>>> latest = load(TABLE, CELL_1, 25L, false);
+        releaseBlockedRead(blockingLoads);
+
+        assertThat(timestamps(early.get())).containsExactly(10L);
+        assertThat(timestamps(late.get())).containsExactlyInAnyOrder(10L, 20L);
+        assertThat(timestamps(latest.get())).containsExactly(20L);
+        assertThat(queriesOf(TABLE)).hasSize(2);
+    }
+
+    @Test
+    public void cellsLoadedByOverlappingLoadsAreReadOnce() throws Exception {
+        List<ListenableFuture<?>> blockingLoads = queueBehindABlockedRead();
+        ListenableFuture<Map<ByteBuffer, List<ColumnOrSuperColumn>>> first =
+                load(TABLE, ImmutableList.of(CELL_1, CELL_2), 25L, false);
+        ListenableFuture<Map<ByteBuffer, List<ColumnOrSuperColumn>>> second =
+                load(TABLE, ImmutableList.of(CELL_2, CELL_3), 25L, false);
+        releaseBlockedRead(blockingLoads);
+
+        assertThat(first.get().keySet()).containsExactlyInAnyOrder(row(CELL_1), row(CELL_2));
+        assertThat(second.get().keySet()).containsExactlyInAnyOrder(row(CELL_2), row(CELL_3));
+        assertThat(queriesOf(TABLE)).hasSize(2);
+        assertThat(queriesOf(TABLE).get(1)).hasSize(3);
+    }
+
+    @Test
+    public void failedCallOnlyFailsTheLoadsItReads() throws Exception {
+        // every cell is read by a separate call
+        config = ImmutableCassandraCellLoadingConfig.builder()
+                .coalesceConcurrentLoads(true)
+                .crossColumnLoadBatchLimit(1)
+                .singleQueryLoadBatchLimit(1)
+                .maxConcurrentCallsPerHost(1)
+                .build();
+
+        List<ListenableFuture<?>> blockingLoads = queueBehindABlockedRead();
+        ListenableFuture<Map<ByteBuffer, List<ColumnOrSuperColumn>>> failing =
+                load(TABLE, ImmutableList.of(FAILING_CELL, CELL_2), 25L, false);
+        ListenableFuture<Map<ByteBuffer, List<ColumnOrSuperColumn>>> sameTable = load(TABLE, CELL_1, 25L, false);
+        releaseBlockedRead(blockingLoads);
+
+        assertThatThrownBy(failing::get).isInstanceOf(ExecutionException.class).hasCauseInstanceOf(TException.class);
+        assertThat(timestamps(sameTable.get())).containsExactly(20L);
+    }
+
+    @Test
+    public void slowCallsOnlyDelayTheLoadsTheyRead() throws Exception {
+        ListenableFuture<Map<ByteBuffer, List<ColumnOrSuperColumn>>> blockingLoad =
+                load(TABLE, BLOCKING_CELL, 25L, false);
+        assertThat(blockedReadStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(timestamps(load(TABLE, CELL_1, 25L, false).get(10, TimeUnit.SECONDS))).containsExactly(20L);
+        assertThat(blockingLoad.isDone()).isFalse();
+    }
+
+    @Test
+    public void loadsWaitWhileAHostHasTheMaximumNumberOfCallsInFlight() throws Exception {
+        List<ListenableFuture<?>> blockingLoads = queueBehindABlockedRead();
+        ListenableFuture<Map<ByteBuffer, List<ColumnOrSuperColumn>>> queued = load(TABLE, CELL_1, 25L, false);
+        assertThat(queriesOf(OTHER_TABLE)).isEmpty();
+        assertThat(blockingLoads.get(1).isDone()).isFalse();
+        assertThat(queued.isDone()).isFalse();
+
+        releaseBlockedRead(blockingLoads);
+        assertThat(timestamps(queued.get(10, TimeUnit.SECONDS))).containsExactly(20L);
+        assertThat(queriesOf(OTHER_TABLE)).hasSize(1);
+    }
+
+    @Test
+    public void hostsCanBeLoadedFromAgainAfterTheirPipelineIsClosed() throws Exception {
+        assertThat(timestamps(load(TABLE, CELL_1, 25L, false).get())).containsExactly(20L);
+
+        when(clientPool.getCurrentPools()).thenReturn(ImmutableMap.of());
+        cellLoader.closePipelinesOfRemovedHosts();
+
+        assertThat(timestamps(load(TABLE, CELL_1, 35L, false).get())).containsExactly(30L);
+    }
+
+    /**
+     * Allows only one call in flight, and blocks it, then queues another load, which the autobatcher takes and waits
+     * to make the call for. Loads made after this are batched together, once the blocked read is released.
+     */
+    private List<ListenableFuture<?>> queueBehindABlockedRead() throws InterruptedException {
+        config = ImmutableCassandraCellLoadingConfig.copyOf(config).withMaxConcurrentCallsPerHost(1);
+        ListenableFuture<?> blockingLoad = load(TABLE, BLOCKING_CELL, 25L, false);
+        assertThat(blockedReadStarted.await(10, TimeUnit.SECONDS)).isTrue();
+        ListenableFuture<?> waitingLoad = load(OTHER_TABLE, CELL_3, 25L, false);
+        awaitLoadsBatched(2);
+        return ImmutableList.of(blockingLoad, waitingLoad);
+    }
+
+    private void releaseBlockedRead(List<ListenableFuture<?>> blockingLoads) throws Exception {
+        blockedReadReleased.countDown();
+        for (ListenableFuture<?> blockingLoad : blockingLoads) {
+            blockingLoad.get();
+        }
+    }
+
+    private void awaitLoadsBatched(long loads) {
+        Awaitility.await()
+                .atMost(Duration.TEN_SECONDS)
+                .until(() -> metricsManager.registerOrGetTimer(CoalescingCellLoader.class, "queueingDelay")
+                        .getCount() == loads);
+    }
+
+    private ListenableFuture<Map<ByteBuffer, List<ColumnOrSuperColumn>>> load(
+            TableReference tableRef, Cell cell, long startTs, boolean loadAllTs) {
+        return load(tableRef, ImmutableList.of(cell), startTs, loadAllTs);
+    }
+
+    private ListenableFuture<Map<ByteBuffer, List<ColumnOrSuperColumn>>> load(
+            TableReference tableRef, List<Cell> cells, long startTs, boolean loadAllTs) {
+        return cellLoader.load(HOST, tableRef, cells, startTs, loadAllTs, CONSISTENCY);
+    }
+
+    private List<List<KeyPredicate>> queriesOf(TableReference tableRef) {
+        synchronized (queries) {
+            return queries.stream()
+                    .filter(query -> query.lhSide.equals(tableRef))
+                    .map(query -> query.rhSide)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    // returns every version of the rows read, leaving the loads to select the versions they asked for
+    private Map<ByteBuffer, List<List<ColumnOrSuperColumn>>> read(TableReference tableRef, List<KeyPredicate> query)
+            throws TException, InterruptedException {
+        synchronized (queries) {
+            queries.add(Pair.create(tableRef, query));
+        }
+        Map<ByteBuffer, List<List<ColumnOrSuperColumn>>> result = new HashMap<>();
+        for (KeyPredicate predicate : query) {
+            ByteBuffer row = ByteBuffer.wrap(predicate.getKey());
+            if (row.equals(row(BLOCKING_CELL))) {
+                blockedReadStarted.countDown();
+                blockedReadReleased.await();
+            } else if (row.equals(row(FAILING_CELL))) {
+                throw new TException("read failed");
+            }
+            result.computeIfAbsent(row, unused -> new ArrayList<>())
+                    .add(columnsByRow.getOrDefault(row, ImmutableList.of()));
+        }
+        return result;
+    }
+
+    private void put(Cell cell, long timestamp) {
+        Column column = new Column(CassandraKeyValueServices.makeCompositeBuffer(cell.getColumnName(), timestamp))
+                .setValue(PtBytes.toBytes(timestamp))
+                .setTimestamp(timestamp);
+        columnsByRow.computeIfAbsent(row(cell), unused -> new ArrayList<>())
+                .add(new ColumnOrSuperColumn().setColumn(column));
+    }
+
+    private static List<Long> timestamps(Map<ByteBuffer, List<ColumnOrSuperColumn>> result) {
+        List<Long> timestamps = new ArrayList<>();
+        result.values().forEach(columns -> columns.forEach(
+                column -> timestamps.add(CassandraKeyValueServices.decomposeName(column.getColumn()).rhSide)));
+        return timestamps;
+    }
+
+    private static ByteBuffer row(Cell cell) {
+        return ByteBuffer.wrap(cell.getRowName());
+    }
+
+    private static Cell cell(String row, String column) {
+        return Cell.create(PtBytes.toBytes(row), PtBytes.toBytes(column));
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class HedgedReadBudgetTest {
+    @Test
+    public void noHedgesAreAllowedBeforeAnyReads() {
+        HedgedReadBudget budget = HedgedReadBudget.create(() -> 0.5);
+
+        assertThat(budget.hasBudget()).isFalse();
+        assertThat(budget.tryAcquire()).isFalse();
+    }
+
+    @Test
+    public void hedgesAreLimitedToProportionOfReads() {
+        HedgedReadBudget budget = HedgedReadBudget.create(() -> 0.25);
+        for (int i = 0; i < 8; i++) {
+            budget.recordRead();
+        }
+
+        assertThat(budget.tryAcquire()).isTrue();
+        assertThat(budget.tryAcquire()).isTrue();
+        assertThat(budget.tryAcquire()).isFalse();
+    }
+
+    @Test
+    public void unusedBudgetIsCapped() {
+        HedgedReadBudget budget = HedgedReadBudget.create(() -> 1.0);
+        for (int i = 0; i < 1_000; i++) {
+            budget.recordRead();
+        }
+
+        int hedges = 0;
+        while (budget.tryAcquire()) {
+            hedges++;
+        }
+        assertThat(hedges).isEqualTo(10);
+    }
+
+    @Test
+    public void overdraftIsPaidBackBeforeMoreHedges() {
+        HedgedReadBudget budget = HedgedReadBudget.create(() -> 0.5);
+        budget.recordRead();
+        budget.recordRead();
+        budget.charge();
+        budget.charge();
+
+        budget.recordRead();
+        budget.recordRead();
+        budget.recordRead();
+        assertThat(budget.hasBudget()).isFalse();
+        budget.recordRead();
+        assertThat(budget.tryAcquire()).isTrue();
+    }
+
+    @Test
+    public void noHedgesAreAllowedWithZeroProportion() {
+        HedgedReadBudget budget = HedgedReadBudget.create(() -> 0.0);
+        for (int i = 0; i < 1_000; i++) {
+            budget.recordRead();
+        }
+
+        assertThat(budget.hasBudget()).isFalse();
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.InetSocketAddress;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.palantir.atlasdb.cassandra.CassandraHedgedReadsConfig;
+import com.palantir.atlasdb.cassandra.ImmutableCassandraHedgedReadsConfig;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.util.MetricsManager;
+import com.palantir.atlasdb.util.MetricsManagers;
+import com.palantir.common.base.FunctionCheckedException;
+import com.palantir.common.concurrent.PTExecutors;
+
+public class HedgedReadsTest {
+    private static final TableReference TABLE = TableReference.createFromFullyQualifiedName("test.table");
+    private static final byte[] KEY = {1, 2, 3};
+    private static final InetSocketAddress PRIMARY_HOST = new InetSocketAddress(0);
+    private static final InetSocketAddress OTHER_HOST = new InetSocketAddress(1);
+    private static final FunctionCheckedException<CassandraClient, String, RuntimeException> READ = client -> "";
+    private static final int WARM_UP_READS = 100;
+
+    private final CassandraClientPool clientPool = mock(CassandraClientPool.class);
+    private final MetricsManager metricsManager = MetricsManagers.createForTests();
+    private final ExecutorService executor = PTExecutors.newCachedThreadPool("hedged-reads-test");
+    private final CountDownLatch primaryHostLatch = new CountDownLatch(1);
+
+    private CassandraHedgedReadsConfig config = ImmutableCassandraHedgedReadsConfig.builder()
+            .enabled(true)
+            .minimumHedgeDelayMillis(0)
+            .maximumHedgeProportion(0.05)
+            .build();
+    private HedgedReads hedgedReads;
+
+    @Before
+    public void setUp() {
+        when(clientPool.getAlternativeHostForKey(KEY, PRIMARY_HOST)).thenReturn(Optional.of(OTHER_HOST));
+        when(clientPool.runWithRetryOnHost(eq(OTHER_HOST), any())).thenReturn("other");
+        hedgedReads = new HedgedReads(clientPool, metricsManager, () -> config, executor);
+    }
+
+    @After
+    public void tearDown() {
+        primaryHostLatch.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void readsAreNotHedgedWhenDisabled() {
+        config = ImmutableCassandraHedgedReadsConfig.builder().enabled(false).build();
+        warmUpWithFastReads();
+        makePrimaryHostSlow();
+
+        primaryHostLatch.countDown();
+        assertThat(read()).isEqualTo("primary");
+        verify(clientPool, never()).runWithRetryOnHost(eq(OTHER_HOST), any());
+    }
+
+    @Test
+    public void readsAreNotHedgedBeforeEnoughLatenciesAreKnown() {
+        makePrimaryHostSlow();
+
+        primaryHostLatch.countDown();
+        assertThat(read()).isEqualTo("primary");
+        verify(clientPool, never()).runWithRetryOnHost(eq(OTHER_HOST), any());
+    }
+
+    @Test
+    public void slowReadsAreHedgedToAnotherReplica() {
+        warmUpWithFastReads();
+        makePrimaryHostSlow();
+
+        assertThat(read()).isEqualTo("other");
+        assertThat(meterCount("hedgedReads")).isEqualTo(1);
+        assertThat(meterCount("hedgeWins")).isEqualTo(1);
+    }
+
+    @Test
+    public void hedgedReadsAreLimitedByBudget() {
+        warmUpWithFastReads();
+        makePrimaryHostSlow();
+
+        // the warm up reads allow 5 hedged reads, and the hedged reads themselves less than one more
+        for (int i = 0; i < 5; i++) {
+            assertThat(read()).isEqualTo("other");
+        }
+        primaryHostLatch.countDown();
+        assertThat(read()).isEqualTo("primary");
+        assertThat(meterCount("hedgedReads")).isEqualTo(5);
+    }
+
+    @Test
+    public void readsAreNotHedgedWithoutAnotherReplica() {
+        when(clientPool.getAlternativeHostForKey(KEY, PRIMARY_HOST)).thenReturn(Optional.empty());
+        warmUpWithFastReads();
+        makePrimaryHostSlow();
+
+        executor.submit(() -> {
+            Thread.sleep(100);
+            primaryHostLatch.countDown();
+            return null;
+        });
+        assertThat(read()).isEqualTo("primary");
+        assertThat(meterCount("hedgedReads")).isEqualTo(0);
+    }
+
+    @Test
+    public void errorOfPrimaryReadIsThrownIfBothReadsFail() {
+        warmUpWithFastReads();
+        RuntimeException primaryError = new RuntimeException("primary");
+        when(clientPool.runWithRetryOnHost(eq(PRIMARY_HOST), any())).thenAnswer(invocation -> {
+            primaryHostLatch.await();
+            throw primaryError;
+        });
+        when(clientPool.runWithRetryOnHost(eq(OTHER_HOST), any())).thenAnswer(invocation -> {
+            primaryHostLatch.countDown();
+            throw new RuntimeException("other");
+        });
+
+        assertThatThrownBy(this::read).isSameAs(primaryError);
+        assertThat(meterCount("hedgeWins")).isEqualTo(0);
+    }
+
+    @Test
+    public void successfulReadIsUsedIfOtherReadFails() {
+        warmUpWithFastReads();
+        when(clientPool.runWithRetryOnHost(eq(PRIMARY_HOST), any())).thenAnswer(invocation -> {
+            primaryHostLatch.await();
+            return "primary";
+        });
+        when(clientPool.runWithRetryOnHost(eq(OTHER_HOST), any())).thenAnswer(invocation -> {
+            primaryHostLatch.countDown();
+            throw new RuntimeException("other");
+        });
+
+        assertThat(read()).isEqualTo("primary");
+    }
+
+    @Test
+    public void readsAreRunOnTheCallingThreadWithoutHedgingWhenThePoolIsBusy() throws InterruptedException {
+        ExecutorService busyExecutor = PTExecutors.newThreadPoolExecutor(
+                0, 1, 1, TimeUnit.MINUTES, new SynchronousQueue<>());
+        CountDownLatch busyLatch = new CountDownLatch(1);
+        try {
+            busyExecutor.submit(() -> {
+                busyLatch.await();
+                return null;
+            });
+            hedgedReads = new HedgedReads(clientPool, metricsManager, () -> config, busyExecutor);
+            warmUpWithFastReads();
+            AtomicReference<Thread> readingThread = new AtomicReference<>();
+            when(clientPool.runWithRetryOnHost(eq(PRIMARY_HOST), any())).thenAnswer(invocation -> {
+                readingThread.set(Thread.currentThread());
+                return "primary";
+            });
+
+            assertThat(read()).isEqualTo("primary");
+            assertThat(readingThread.get()).isSameAs(Thread.currentThread());
+            assertThat(meterCount("hedgedReads")).isEqualTo(0);
+        } finally {
+            busyLatch.countDown();
+            busyExecutor.shutdownNow();
+        }
+    }
+
+    private void warmUpWithFastReads() {
+        when(clientPool.runWithRetryOnHost(eq(PRIMARY_HOST), any())).thenReturn("fast");
+        for (int i = 0; i < WARM_UP_READS; i++) {
+            read();
+        }
+    }
+
+    private void makePrimaryHostSlow() {
+        when(clientPool.runWithRetryOnHost(eq(PRIMARY_HOST), any())).thenAnswer(invocation -> {
+            primaryHostLatch.await(10, TimeUnit.SECONDS);
+            return "primary";
+        });
+    }
+
+    private String read() {
+        return hedgedReads.runWithRetryOnHost(TABLE, KEY, PRIMARY_HOST, READ);
+    }
+
+    private long meterCount(String name) {
+        return metricsManager.registerOrGetTaggedMeter(
+                HedgedReads.class, name, metricsManager.getTableNameTagFor(TABLE)).getCount();
+    }
+}
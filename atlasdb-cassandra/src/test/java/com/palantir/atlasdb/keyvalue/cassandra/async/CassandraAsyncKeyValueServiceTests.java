@@ -17,11 +17,19 @@
 package com.palantir.atlasdb.keyvalue.cassandra.async;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import org.junit.After;
 import org.junit.Before;
@@ -30,6 +38,8 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import com.datastax.driver.core.Row;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.MoreExecutors;
@@ -41,9 +51,10 @@ import com.palantir.atlasdb.keyvalue.api.Namespace;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.atlasdb.keyvalue.api.Value;
 import com.palantir.atlasdb.keyvalue.cassandra.async.queries.CqlQueryContext;
-import com.palantir.atlasdb.keyvalue.cassandra.async.queries.GetQuerySpec;
 import com.palantir.atlasdb.keyvalue.cassandra.async.queries.ImmutableCqlQueryContext;
-import com.palantir.atlasdb.keyvalue.cassandra.async.queries.ImmutableGetQueryParameters;
+import com.palantir.atlasdb.keyvalue.cassandra.async.queries.ImmutableMultiGetQueryParameters;
+import com.palantir.atlasdb.keyvalue.cassandra.async.queries.MultiGetQuerySpec;
+import com.palantir.atlasdb.util.MetricsManagers;
 import com.palantir.common.random.RandomBytes;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -55,11 +66,13 @@ public class CassandraAsyncKeyValueServiceTests {
     private static final Cell NON_VISIBLE_CELL = Cell.create(PtBytes.toBytes(100), PtBytes.toBytes(100));
     private static final Cell VISIBLE_CELL_1 = Cell.create(PtBytes.toBytes(100), PtBytes.toBytes(200));
     private static final Cell VISIBLE_CELL_2 = Cell.create(PtBytes.toBytes(100), PtBytes.toBytes(300));
+    private static final Cell VISIBLE_CELL_OF_OTHER_ROW = Cell.create(PtBytes.toBytes(200), PtBytes.toBytes(200));
     private static final CqlQueryContext CQL_QUERY_CONTEXT = ImmutableCqlQueryContext.builder()
             .keyspace(KEYSPACE)
             .tableReference(TABLE)
             .build();
 
+    private final AtomicBoolean runningOnExecutor = new AtomicBoolean();
     private AsyncKeyValueService asyncKeyValueService;
     @Mock
     private CqlClient cqlClient;
@@ -69,7 +82,9 @@ public class CassandraAsyncKeyValueServiceTests {
         asyncKeyValueService = CassandraAsyncKeyValueService.create(
                 KEYSPACE,
                 cqlClient,
-                AtlasFutures.futuresCombiner(MoreExecutors.newDirectExecutorService()));
+                AtlasFutures.futuresCombiner(MoreExecutors.newDirectExecutorService()),
+                this::runOnExecutor,
+                MetricsManagers.createForTests());
     }
 
     @After
@@ -79,7 +94,7 @@ public class CassandraAsyncKeyValueServiceTests {
 
     @Test
     public void testNoDataVisible() throws Exception {
-        setUpNonVisibleCells(NON_VISIBLE_CELL);
+        setUpQuery(TIMESTAMP, ImmutableMap.of(), NON_VISIBLE_CELL);
 
         Map<Cell, Long> request = ImmutableMap.of(NON_VISIBLE_CELL, TIMESTAMP);
         Map<Cell, Value> result = asyncKeyValueService.getAsync(TABLE, request).get();
@@ -89,52 +104,134 @@ public class CassandraAsyncKeyValueServiceTests {
 
     @Test
     public void testFilteringNonVisible() throws Exception {
-        setUpVisibleCells(VISIBLE_CELL_1);
-        setUpNonVisibleCells(NON_VISIBLE_CELL);
+        Map<Cell, Value> visibleValues = visibleValues(VISIBLE_CELL_1);
+        setUpQuery(TIMESTAMP, visibleValues, NON_VISIBLE_CELL, VISIBLE_CELL_1);
 
         Map<Cell, Long> request = ImmutableMap.of(
                 NON_VISIBLE_CELL, TIMESTAMP,
                 VISIBLE_CELL_1, TIMESTAMP);
         Map<Cell, Value> result = asyncKeyValueService.getAsync(TABLE, request).get();
 
-        assertThat(result).containsOnlyKeys(VISIBLE_CELL_1);
+        assertThat(result).isEqualTo(visibleValues);
     }
 
     @Test
     public void testAllVisible() throws Exception {
-        setUpVisibleCells(VISIBLE_CELL_1, VISIBLE_CELL_2);
+        Map<Cell, Value> visibleValues = visibleValues(VISIBLE_CELL_1, VISIBLE_CELL_2);
+        setUpQuery(TIMESTAMP, visibleValues, VISIBLE_CELL_1, VISIBLE_CELL_2);
 
         Map<Cell, Long> request = ImmutableMap.of(
                 VISIBLE_CELL_1, TIMESTAMP,
                 VISIBLE_CELL_2, TIMESTAMP);
         Map<Cell, Value> result = asyncKeyValueService.getAsync(TABLE, request).get();
 
-        assertThat(result).containsOnlyKeys(VISIBLE_CELL_1, VISIBLE_CELL_2);
+        assertThat(result).isEqualTo(visibleValues);
     }
 
-    private void setUpVisibleCells(Cell... cells) {
-        for (Cell cell : cells) {
-            when(cqlClient.executeQuery(buildGetQuerySpec(buildGetQueryParameter(cell))))
-                    .thenReturn(Futures.immediateFuture(
-                            Optional.of(Value.create(RandomBytes.ofLength(10), Math.abs(new Random().nextInt())))));
-        }
+    @Test
+    public void testCellsOfDifferentRowsOrTimestampsAreReadSeparately() throws Exception {
+        Map<Cell, Value> firstRowValues = visibleValues(VISIBLE_CELL_1);
+        Map<Cell, Value> secondRowValues = visibleValues(VISIBLE_CELL_OF_OTHER_ROW);
+        Map<Cell, Value> laterValues = visibleValues(VISIBLE_CELL_2);
+        setUpQuery(TIMESTAMP, firstRowValues, VISIBLE_CELL_1);
+        setUpQuery(TIMESTAMP, secondRowValues, VISIBLE_CELL_OF_OTHER_ROW);
+        setUpQuery(TIMESTAMP + 1, laterValues, VISIBLE_CELL_2);
+
+        Map<Cell, Long> request = ImmutableMap.of(
+                VISIBLE_CELL_1, TIMESTAMP,
+                VISIBLE_CELL_OF_OTHER_ROW, TIMESTAMP,
+                VISIBLE_CELL_2, TIMESTAMP + 1);
+        Map<Cell, Value> result = asyncKeyValueService.getAsync(TABLE, request).get();
+
+        assertThat(result).isEqualTo(ImmutableMap.<Cell, Value>builder()
+                .putAll(firstRowValues)
+                .putAll(secondRowValues)
+                .putAll(laterValues)
+                .build());
     }
 
-    private void setUpNonVisibleCells(Cell... nonVisibleCells) {
-        for (Cell cell : nonVisibleCells) {
-            when(cqlClient.executeQuery(buildGetQuerySpec(buildGetQueryParameter(cell))))
-                    .thenReturn(Futures.immediateFuture(Optional.empty()));
+    @Test
+    public void testCellsMissedByALimitedStatementAreReadAgain() throws Exception {
+        Value freshest = Value.create(PtBytes.toBytes("freshest"), TIMESTAMP - 1);
+        Value missed = Value.create(PtBytes.toBytes("missed"), TIMESTAMP - 1);
+        // a statement for two cells reads at most 16 versions, all of which are of the first cell here
+        List<Row> versionsOfFirstCell = LongStream.range(0, 16)
+                .mapToObj(version -> row(VISIBLE_CELL_1, version == 0
+                        ? freshest
+                        : Value.create(RandomBytes.ofLength(10), TIMESTAMP - 1 - version)))
+                .collect(Collectors.toList());
+        setUpQueryReturningRows(TIMESTAMP, versionsOfFirstCell, VISIBLE_CELL_1, VISIBLE_CELL_2);
+        setUpQueryReturningRows(TIMESTAMP, ImmutableList.of(row(VISIBLE_CELL_2, missed)), VISIBLE_CELL_2);
+
+        Map<Cell, Long> request = ImmutableMap.of(
+                VISIBLE_CELL_1, TIMESTAMP,
+                VISIBLE_CELL_2, TIMESTAMP);
+        Map<Cell, Value> result = asyncKeyValueService.getAsync(TABLE, request).get();
+
+        assertThat(result).isEqualTo(ImmutableMap.of(VISIBLE_CELL_1, freshest, VISIBLE_CELL_2, missed));
+    }
+
+    @Test
+    public void testStatementsFollowingAnotherAreExecutedOnTheExecutor() throws Exception {
+        List<Row> versionsOfFirstCell = LongStream.range(0, 16)
+                .mapToObj(version -> row(
+                        VISIBLE_CELL_1, Value.create(RandomBytes.ofLength(10), TIMESTAMP - 1 - version)))
+                .collect(Collectors.toList());
+        setUpQueryReturningRows(TIMESTAMP, versionsOfFirstCell, VISIBLE_CELL_1, VISIBLE_CELL_2);
+        AtomicBoolean followUpExecutedOnExecutor = new AtomicBoolean();
+        when(cqlClient.executeQuery(buildMultiGetQuerySpec(TIMESTAMP, VISIBLE_CELL_2))).thenAnswer(invocation -> {
+            followUpExecutedOnExecutor.set(runningOnExecutor.get());
+            return Futures.immediateFuture(ImmutableMap.of());
+        });
+
+        asyncKeyValueService.getAsync(TABLE, ImmutableMap.of(VISIBLE_CELL_1, TIMESTAMP, VISIBLE_CELL_2, TIMESTAMP))
+                .get();
+
+        assertThat(followUpExecutedOnExecutor).isTrue();
+    }
+
+    private void runOnExecutor(Runnable task) {
+        runningOnExecutor.set(true);
+        try {
+            task.run();
+        } finally {
+            runningOnExecutor.set(false);
         }
     }
 
-    private static GetQuerySpec buildGetQuerySpec(GetQuerySpec.GetQueryParameters getQueryParameters) {
-        return new GetQuerySpec(CQL_QUERY_CONTEXT, getQueryParameters);
+    private void setUpQueryReturningRows(long timestamp, List<Row> rows, Cell... cells) {
+        when(cqlClient.executeQuery(buildMultiGetQuerySpec(timestamp, cells))).thenAnswer(invocation -> {
+            MultiGetQuerySpec query = invocation.getArgument(0);
+            query.rowStreamAccumulator().accumulateRowStream(rows.stream());
+            return Futures.immediateFuture(query.rowStreamAccumulator().result());
+        });
+    }
+
+    private static Row row(Cell cell, Value value) {
+        Row row = mock(Row.class);
+        lenient().when(row.getBytes(0)).thenReturn(ByteBuffer.wrap(cell.getColumnName()));
+        lenient().when(row.getLong(1)).thenReturn(~value.getTimestamp());
+        lenient().when(row.getBytes(2)).thenReturn(ByteBuffer.wrap(value.getContents()));
+        return row;
+    }
+
+    private void setUpQuery(long timestamp, Map<Cell, Value> visibleValues, Cell... cells) {
+        when(cqlClient.executeQuery(buildMultiGetQuerySpec(timestamp, cells)))
+                .thenReturn(Futures.immediateFuture(visibleValues));
+    }
+
+    private static Map<Cell, Value> visibleValues(Cell... cells) {
+        return Arrays.stream(cells).collect(Collectors.toMap(
+                Function.identity(),
+                unused -> Value.create(RandomBytes.ofLength(10), Math.abs(new Random().nextInt()))));
     }
 
-    private static GetQuerySpec.GetQueryParameters buildGetQueryParameter(Cell cell) {
-        return ImmutableGetQueryParameters.builder()
-                .cell(cell)
-                .humanReadableTimestamp(TIMESTAMP)
-                .build();
+    private static MultiGetQuerySpec buildMultiGetQuerySpec(long timestamp, Cell... cells) {
+        return new MultiGetQuerySpec(
+                CQL_QUERY_CONTEXT,
+                ImmutableMultiGetQueryParameters.builder()
+                        .addCells(cells)
+                        .humanReadableTimestamp(timestamp)
+                        .build());
     }
 }
@@ -0,0 +1,104 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra.async.client.creation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import com.datastax.driver.core.Host;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.policies.ConstantSpeculativeExecutionPolicy;
+import com.datastax.driver.core.policies.SpeculativeExecutionPolicy.SpeculativeExecutionPlan;
+import com.palantir.atlasdb.keyvalue.cassandra.HedgedReadBudget;
+
+public class BudgetedSpeculativeExecutionPolicyTest {
+    private static final long DELEGATE_DELAY_MILLIS = 10;
+    private static final long MINIMUM_DELAY_MILLIS = 50;
+    private static final Host HOST = mock(Host.class);
+    private static final Statement STATEMENT = mock(Statement.class);
+
+    // one read in ten may be hedged
+    private final HedgedReadBudget budget = HedgedReadBudget.create(() -> 0.1);
+    private final BudgetedSpeculativeExecutionPolicy policy = new BudgetedSpeculativeExecutionPolicy(
+            new ConstantSpeculativeExecutionPolicy(DELEGATE_DELAY_MILLIS, 2), budget, MINIMUM_DELAY_MILLIS);
+
+    @Test
+    public void readsAreNotHedgedWithoutBudget() {
+        assertThat(policy.newPlan("keyspace", STATEMENT).nextExecution(HOST)).isNegative();
+    }
+
+    @Test
+    public void hedgesAreDelayedByAtLeastTheMinimumDelay() {
+        recordReads(9);
+
+        assertThat(policy.newPlan("keyspace", STATEMENT).nextExecution(HOST)).isEqualTo(MINIMUM_DELAY_MILLIS);
+    }
+
+    @Test
+    public void budgetIsOnlyChargedOnceAReadIsHedged() {
+        recordReads(9);
+        SpeculativeExecutionPlan unhedged = policy.newPlan("keyspace", STATEMENT);
+        unhedged.nextExecution(HOST);
+        assertThat(budget.hasBudget()).isTrue();
+
+        SpeculativeExecutionPlan hedged = policy.newPlan("keyspace", STATEMENT);
+        hedged.nextExecution(HOST);
+        // the second call means that the first speculative execution has started
+        hedged.nextExecution(HOST);
+        assertThat(budget.hasBudget()).isFalse();
+    }
+
+    @Test
+    public void hedgesOfConcurrentPlansArePaidBackBeforeMoreReadsAreHedged() {
+        recordReads(9);
+        List<SpeculativeExecutionPlan> concurrentPlans = IntStream.range(0, 10)
+                .mapToObj(unused -> policy.newPlan("keyspace", STATEMENT))
+                .collect(Collectors.toList());
+        for (SpeculativeExecutionPlan plan : concurrentPlans) {
+            assertThat(plan.nextExecution(HOST)).isEqualTo(MINIMUM_DELAY_MILLIS);
+            plan.nextExecution(HOST);
+        }
+
+        // ten hedges were charged against the 1.9 tokens deposited by nineteen reads, so 91 reads pay back the debt
+        for (int i = 0; i < 90; i++) {
+            assertThat(policy.newPlan("keyspace", STATEMENT).nextExecution(HOST)).isNegative();
+        }
+        assertThat(policy.newPlan("keyspace", STATEMENT).nextExecution(HOST)).isEqualTo(MINIMUM_DELAY_MILLIS);
+    }
+
+    @Test
+    public void delegateDecidesWhenToStopHedging() {
+        recordReads(9);
+        SpeculativeExecutionPlan plan = policy.newPlan("keyspace", STATEMENT);
+
+        assertThat(plan.nextExecution(HOST)).isEqualTo(MINIMUM_DELAY_MILLIS);
+        assertThat(plan.nextExecution(HOST)).isEqualTo(MINIMUM_DELAY_MILLIS);
+        assertThat(plan.nextExecution(HOST)).isNegative();
+    }
+
+    private void recordReads(int reads) {
+        for (int i = 0; i < reads; i++) {
+            budget.recordRead();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra.async.queries;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import com.datastax.driver.core.Row;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.primitives.UnsignedBytes;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
+import com.palantir.atlasdb.keyvalue.api.RowResult;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.keyvalue.api.Value;
+import com.palantir.util.paging.TokenBackedBasicResultsPage;
+
+public class GetRangeQuerySpecTest {
+    private static final CqlQueryContext CQL_QUERY_CONTEXT = ImmutableCqlQueryContext.builder()
+            .keyspace("test")
+            .tableReference(TableReference.createFromFullyQualifiedName("ns.table"))
+            .build();
+    private static final long TIMESTAMP = 20L;
+    private static final byte[] COLUMN = PtBytes.toBytes("column");
+    private static final byte[] OTHER_COLUMN = PtBytes.toBytes("other");
+
+    @Test
+    public void returnsFreshestVisibleVersionOfEachSelectedColumn() {
+        RowStreamAccumulator<TokenBackedBasicResultsPage<RowResult<Value>, byte[]>> accumulator = accumulator(
+                10, ColumnSelection.create(ImmutableList.of(COLUMN)));
+
+        accumulator.accumulateRowStream(Stream.of(
+                row("row", COLUMN, "invisible", TIMESTAMP),
+                row("row", COLUMN, "freshest", TIMESTAMP - 1),
+                row("row", COLUMN, "older", TIMESTAMP - 2),
+                row("row", OTHER_COLUMN, "not selected", TIMESTAMP - 1)));
+        TokenBackedBasicResultsPage<RowResult<Value>, byte[]> page = accumulator.result();
+
+        assertThat(page.getResults()).containsExactly(RowResult.create(
+                PtBytes.toBytes("row"),
+                ImmutableSortedMap.<byte[], Value>orderedBy(UnsignedBytes.lexicographicalComparator())
+                        .put(COLUMN, Value.create(PtBytes.toBytes("freshest"), TIMESTAMP - 1))
+                        .build()));
+        assertThat(page.moreResultsAvailable()).isFalse();
+    }
+
+    @Test
+    public void doesNotCountRowsWithoutVisibleColumnsTowardsBatchHint() {
+        RowStreamAccumulator<TokenBackedBasicResultsPage<RowResult<Value>, byte[]>> accumulator = accumulator(
+                2, ColumnSelection.all());
+
+        accumulator.accumulateRowStream(Stream.of(
+                row("row1", COLUMN, "invisible", TIMESTAMP + 1),
+                row("row2", COLUMN, "value2", TIMESTAMP - 1),
+                row("row3", COLUMN, "value3", TIMESTAMP - 1),
+                row("row4", COLUMN, "value4", TIMESTAMP - 1)));
+
+        assertThat(accumulator.isDone()).isTrue();
+        TokenBackedBasicResultsPage<RowResult<Value>, byte[]> page = accumulator.result();
+        assertThat(page.getResults()).extracting(RowResult::getRowName)
+                .containsExactly(PtBytes.toBytes("row2"), PtBytes.toBytes("row3"));
+        assertThat(page.getTokenForNextPage()).isEqualTo(PtBytes.toBytes("row4"));
+        assertThat(page.moreResultsAvailable()).isTrue();
+    }
+
+    @Test
+    public void continuesRowsAcrossPagesOfCqlRows() {
+        RowStreamAccumulator<TokenBackedBasicResultsPage<RowResult<Value>, byte[]>> accumulator = accumulator(
+                1, ColumnSelection.all());
+
+        accumulator.accumulateRowStream(Stream.of(row("row1", COLUMN, "invisible", TIMESTAMP)));
+        assertThat(accumulator.isDone()).isFalse();
+        accumulator.accumulateRowStream(Stream.of(
+                row("row1", OTHER_COLUMN, "value1", TIMESTAMP - 1),
+                row("row2", COLUMN, "value2", TIMESTAMP - 1)));
+
+        TokenBackedBasicResultsPage<RowResult<Value>, byte[]> page = accumulator.result();
+        assertThat(page.getResults()).extracting(RowResult::getRowName).containsExactly(PtBytes.toBytes("row1"));
+        assertThat(page.getTokenForNextPage()).isEqualTo(PtBytes.toBytes("row2"));
+    }
+
+    @Test
+    public void endsAtEndOfRangeWhenRowsRunOut() {
+        RowStreamAccumulator<TokenBackedBasicResultsPage<RowResult<Value>, byte[]>> accumulator = accumulator(
+                10, ColumnSelection.all());
+
+        accumulator.accumulateRowStream(Stream.of(row("row1", COLUMN, "value1", TIMESTAMP - 1)));
+
+        assertThat(accumulator.isDone()).isFalse();
+        TokenBackedBasicResultsPage<RowResult<Value>, byte[]> page = accumulator.result();
+        assertThat(page.getResults()).hasSize(1);
+        assertThat(page.getTokenForNextPage()).isEqualTo(PtBytes.toBytes("end"));
+        assertThat(page.moreResultsAvailable()).isFalse();
+    }
+
+    private static RowStreamAccumulator<TokenBackedBasicResultsPage<RowResult<Value>, byte[]>> accumulator(
+            int batchHint, ColumnSelection columnSelection) {
+        return new GetRangeQuerySpec(
+                CQL_QUERY_CONTEXT,
+                ImmutableGetRangeQueryParameters.builder()
+                        .endRowExclusive(PtBytes.toBytes("end"))
+                        .columnSelection(columnSelection)
+                        .batchHint(batchHint)
+                        .humanReadableTimestamp(TIMESTAMP)
+                        .build())
+                .rowStreamAccumulator();
+    }
+
+    private static Row row(String row, byte[] column, String value, long timestamp) {
+        Row cqlRow = mock(Row.class);
+        when(cqlRow.getBytes(0)).thenReturn(ByteBuffer.wrap(PtBytes.toBytes(row)));
+        when(cqlRow.getBytes(1)).thenReturn(ByteBuffer.wrap(column));
+        when(cqlRow.getLong(2)).thenReturn(~timestamp);
+        when(cqlRow.getBytes(3)).thenReturn(ByteBuffer.wrap(PtBytes.toBytes(value)));
+        return cqlRow;
+    }
+}
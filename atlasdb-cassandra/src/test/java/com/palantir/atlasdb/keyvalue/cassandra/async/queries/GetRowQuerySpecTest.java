@@ -0,0 +1,74 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra.async.queries;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import com.datastax.driver.core.Row;
+import com.google.common.collect.ImmutableMap;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.keyvalue.api.Value;
+
+public class GetRowQuerySpecTest {
+    private static final CqlQueryContext CQL_QUERY_CONTEXT = ImmutableCqlQueryContext.builder()
+            .keyspace("test")
+            .tableReference(TableReference.createFromFullyQualifiedName("ns.table"))
+            .build();
+    private static final long TIMESTAMP = 20L;
+    private static final byte[] ROW = PtBytes.toBytes("row");
+    private static final byte[] COLUMN = PtBytes.toBytes("column");
+    private static final byte[] OTHER_COLUMN = PtBytes.toBytes("other");
+
+    @Test
+    public void returnsFreshestVisibleVersionOfEachColumn() {
+        RowStreamAccumulator<Map<Cell, Value>> accumulator = new GetRowQuerySpec(
+                CQL_QUERY_CONTEXT,
+                ImmutableGetRowQueryParameters.builder()
+                        .row(ROW)
+                        .humanReadableTimestamp(TIMESTAMP)
+                        .build())
+                .rowStreamAccumulator();
+
+        accumulator.accumulateRowStream(Stream.of(
+                row(COLUMN, "invisible", TIMESTAMP),
+                row(COLUMN, "freshest", TIMESTAMP - 1),
+                row(COLUMN, "older", TIMESTAMP - 2)));
+        accumulator.accumulateRowStream(Stream.of(
+                row(OTHER_COLUMN, "invisible", TIMESTAMP + 1)));
+
+        assertThat(accumulator.result()).isEqualTo(ImmutableMap.of(
+                Cell.create(ROW, COLUMN), Value.create(PtBytes.toBytes("freshest"), TIMESTAMP - 1)));
+    }
+
+    private static Row row(byte[] column, String value, long timestamp) {
+        Row cqlRow = mock(Row.class);
+        when(cqlRow.getBytes(0)).thenReturn(ByteBuffer.wrap(column));
+        when(cqlRow.getLong(1)).thenReturn(~timestamp);
+        when(cqlRow.getBytes(2)).thenReturn(ByteBuffer.wrap(PtBytes.toBytes(value)));
+        return cqlRow;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra.pool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class DecayingLatencyTest {
+    private static final long ONE_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong();
+    private final DecayingLatency latency = new DecayingLatency(clock::get);
+
+    @Test
+    public void latencyIsZeroBeforeAnyRequest() {
+        assertThat(latency.getMillis()).isZero();
+    }
+
+    @Test
+    public void firstRequestSetsLatency() {
+        latency.update(10 * ONE_MILLI);
+        assertThat(latency.getMillis()).isCloseTo(10.0, within(1e-9));
+    }
+
+    @Test
+    public void laterRequestsMoveLatencyTowardsTheirLatency() {
+        latency.update(10 * ONE_MILLI);
+        latency.update(20 * ONE_MILLI);
+        assertThat(latency.getMillis()).isStrictlyBetween(10.0, 20.0);
+    }
+
+    @Test
+    public void latencyDecaysWhileNoRequestsComplete() {
+        latency.update(10 * ONE_MILLI);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        assertThat(latency.getMillis()).isCloseTo(10.0 / Math.E, within(1e-9));
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(10));
+        assertThat(latency.getMillis()).isLessThan(0.001);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra.pool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.google.common.collect.ImmutableMap;
+import com.palantir.atlasdb.keyvalue.cassandra.CassandraClientPoolingContainer;
+
+public class LatencyWeightedHostsTest {
+    private static final InetSocketAddress HOST_1 = new InetSocketAddress(0);
+    private static final InetSocketAddress HOST_2 = new InetSocketAddress(1);
+    private static final InetSocketAddress HOST_3 = new InetSocketAddress(2);
+
+    @Test
+    public void testSingleHostIsAlwaysChosen() {
+        Map<InetSocketAddress, CassandraClientPoolingContainer> pools = ImmutableMap.of(
+                HOST_1, createMockClientPoolingContainer(HOST_1, 100.0, 20));
+
+        assertEquals(HOST_1, LatencyWeightedHosts.create(pools).getHost());
+    }
+
+    @Test
+    public void testFasterHostIsChosenWithSameOpenRequests() {
+        LatencyWeightedHosts hosts = LatencyWeightedHosts.create(ImmutableMap.of(
+                HOST_1, createMockClientPoolingContainer(HOST_1, 10.0, 2),
+                HOST_2, createMockClientPoolingContainer(HOST_2, 1.0, 2)));
+
+        assertEquals(HOST_2, hosts.getHostInternal(0, 1));
+        assertEquals(HOST_2, hosts.getHostInternal(1, 0));
+    }
+
+    @Test
+    public void testLessBusyHostIsChosenWithSameLatency() {
+        LatencyWeightedHosts hosts = LatencyWeightedHosts.create(ImmutableMap.of(
+                HOST_1, createMockClientPoolingContainer(HOST_1, 5.0, 0),
+                HOST_2, createMockClientPoolingContainer(HOST_2, 5.0, 10)));
+
+        assertEquals(HOST_1, hosts.getHostInternal(0, 1));
+        assertEquals(HOST_1, hosts.getHostInternal(1, 0));
+    }
+
+    @Test
+    public void testOpenRequestsCountForUnmeasuredHosts() {
+        LatencyWeightedHosts hosts = LatencyWeightedHosts.create(ImmutableMap.of(
+                HOST_1, createMockClientPoolingContainer(HOST_1, 0.0, 5),
+                HOST_2, createMockClientPoolingContainer(HOST_2, 0.0, 1)));
+
+        assertEquals(HOST_2, hosts.getHostInternal(0, 1));
+    }
+
+    @Test
+    public void testSlowestHostIsNeverChosenFromThreeHosts() {
+        LatencyWeightedHosts hosts = LatencyWeightedHosts.create(ImmutableMap.of(
+                HOST_1, createMockClientPoolingContainer(HOST_1, 1.0, 0),
+                HOST_2, createMockClientPoolingContainer(HOST_2, 2.0, 0),
+                HOST_3, createMockClientPoolingContainer(HOST_3, 50.0, 0)));
+
+        for (int i = 0; i < 100; i++) {
+            assertNotEquals(HOST_3, hosts.getHost());
+        }
+    }
+
+    private static CassandraClientPoolingContainer createMockClientPoolingContainer(
+            InetSocketAddress host,
+            double latencyMillis,
+            int openRequests) {
+        CassandraClientPoolingContainer mock = Mockito.mock(CassandraClientPoolingContainer.class);
+        Mockito.when(mock.getHost()).thenReturn(host);
+        Mockito.when(mock.getDecayedLatencyMillis()).thenReturn(latencyMillis);
+        Mockito.when(mock.getOpenRequests()).thenReturn(openRequests);
+        return mock;
+    }
+}
@@ -59,6 +59,8 @@ public final class KeyValueServiceMigrators {
                 Suppliers.ofInstance(migrationStartTimestamp),
                 migratorSpec.threads(),
                 migratorSpec.batchSize(),
+                migratorSpec.writeBatchBytes(),
+                migratorSpec.maxBytesPerSecond(),
                 ImmutableMap.of(),
                 (String message, KeyValueServiceMigrator.KvsMigrationMessageLevel level) ->
                         printer.info(level.toString() + ": " + message),
@@ -96,10 +98,25 @@ public final class KeyValueServiceMigrators {
             return 100;
         }
 
+        @Value.Default
+        public long writeBatchBytes() {
+            return KeyValueServiceMigrator.DEFAULT_WRITE_BATCH_BYTES;
+        }
+
+        /**
+         * Limits the rate at which data is written to the new key value service. Not positive means unlimited.
+         */
+        @Value.Default
+        public long maxBytesPerSecond() {
+            return 0L;
+        }
+
         @Value.Check
         void check() {
             Preconditions.checkArgument(threads() > 0, "Threads used for migration should be positive.");
             Preconditions.checkArgument(batchSize() > 0, "Batch size used for migration should be positive.");
+            Preconditions.checkArgument(writeBatchBytes() > 0,
+                    "Bytes written per batch used for migration should be positive.");
         }
     }
 }
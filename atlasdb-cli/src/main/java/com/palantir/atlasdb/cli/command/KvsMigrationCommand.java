@@ -63,7 +63,7 @@ public class KvsMigrationCommand implements Callable<Integer> {
 
     @Option(name = {"-t", "--threads"},
             title = "THREADS",
-            description = "number of threads to use for migration",
+            description = "number of threads to use for migration, each migrating one range of a table at a time",
             required = false,
             arity = 1)
     private int threads = 16;
@@ -75,6 +75,22 @@ public class KvsMigrationCommand implements Callable<Integer> {
             arity = 1)
     private int batchSize = 100;
 
+    @Option(name = {"-wb", "--writeBatchBytes"},
+            title = "WRITE BATCH BYTES",
+            description = "approximate number of bytes to copy in each transaction, after which progress is"
+                    + " checkpointed",
+            required = false,
+            arity = 1)
+    private long writeBatchBytes = KeyValueServiceMigrator.DEFAULT_WRITE_BATCH_BYTES;
+
+    @Option(name = {"--maxBytesPerSecond"},
+            title = "MAX BYTES PER SECOND",
+            description = "limit on the rate at which data is written to the new key value service, across all"
+                    + " threads; unlimited by default",
+            required = false,
+            arity = 1)
+    private long maxBytesPerSecond = 0L;
+
     @Option(name = {"-s", "--setup"},
             description = "Setup migration by dropping and creating tables.")
     private boolean setup = false;
@@ -181,6 +197,8 @@ public class KvsMigrationCommand implements Callable<Integer> {
                 .toServices(toServices)
                 .threads(threads)
                 .batchSize(batchSize)
+                .writeBatchBytes(writeBatchBytes)
+                .maxBytesPerSecond(maxBytesPerSecond)
                 .build());
     }
 }
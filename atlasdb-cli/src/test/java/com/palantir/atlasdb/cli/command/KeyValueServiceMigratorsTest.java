@@ -37,6 +37,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
+import com.google.common.primitives.Longs;
 import com.palantir.atlasdb.AtlasDbConstants;
 import com.palantir.atlasdb.cleaner.NoOpCleaner;
 import com.palantir.atlasdb.keyvalue.api.Cell;
@@ -131,6 +132,12 @@ public class KeyValueServiceMigratorsTest {
                 .isInstanceOf(IllegalArgumentException.class);
     }
 
+    @Test
+    public void throwsIfSpecifyingNonPositiveWriteBatchBytes() {
+        assertThatThrownBy(() -> ImmutableMigratorSpec.builder().from(migratorSpec).writeBatchBytes(0).build())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
     @Test
     public void setupClearsOutExistingTablesExceptAtomic() {
         toKvs.createTables(TEST_AND_CHECKPOINT_TABLES);
@@ -267,6 +274,34 @@ public class KeyValueServiceMigratorsTest {
         verify(toKvs, times(1)).dropTable(CHECKPOINT_TABLE);
     }
 
+    @Test
+    public void migrateCopiesAllRowsOfAllTablesInSmallBatches() {
+        TableReference otherTable = TableReference.createFromFullyQualifiedName("test.other");
+        fromKvs.createTables(ImmutableMap.of(
+                TEST_TABLE, AtlasDbConstants.GENERIC_TABLE_METADATA,
+                otherTable, AtlasDbConstants.GENERIC_TABLE_METADATA));
+        Map<Cell, byte[]> values = Maps.newHashMap();
+        for (long row = 0; row < 500; row++) {
+            values.put(Cell.create(Longs.toByteArray(row * 7919L << 40), TEST_VALUE1), Longs.toByteArray(row));
+        }
+        fromTxManager.runTaskWithRetry(tx -> {
+            tx.put(TEST_TABLE, values);
+            tx.put(otherTable, values);
+            return null;
+        });
+
+        KeyValueServiceMigrator migrator = KeyValueServiceMigrators.setupMigrator(
+                ImmutableMigratorSpec.builder().from(migratorSpec).writeBatchBytes(100).threads(4).build());
+        migrator.setup();
+        migrator.migrate();
+
+        toTxManager.runTaskThrowOnConflict(tx -> {
+            assertThat(tx.get(TEST_TABLE, values.keySet())).containsOnlyKeys(values.keySet());
+            assertThat(tx.get(otherTable, values.keySet())).containsOnlyKeys(values.keySet());
+            return null;
+        });
+    }
+
     @Test
     public void tablesDelegatedToSourceKvsGetDroppedFromSourceKvsIfMigratable() {
         fromKvs.createTable(FAKE_ATOMIC_TABLE, AtlasDbConstants.GENERIC_TABLE_METADATA);
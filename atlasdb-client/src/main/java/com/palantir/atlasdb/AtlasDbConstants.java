@@ -73,6 +73,8 @@ public final class AtlasDbConstants {
     public static final byte[] NAMESPACE_SHORT_COLUMN_BYTES = PtBytes.toBytes(NAMESPACE_SHORT_COLUMN_NAME);
 
     public static final TableReference PARTITION_MAP_TABLE = TableReference.createWithEmptyNamespace("_partition_map");
+    public static final TableReference WRITE_SET_INDEX_TABLE =
+            TableReference.createWithEmptyNamespace("_write_set_index");
     public static final byte[] EMPTY_TABLE_METADATA = {}; // use carefully
     public static final byte[] GENERIC_TABLE_METADATA = TableMetadata.builder()
             .nameLogSafety(LogSafety.SAFE)
@@ -92,6 +94,7 @@ public final class AtlasDbConstants {
 
     public static final long DEFAULT_TRANSACTION_LOCK_ACQUIRE_TIMEOUT_MS = 60_000;
     public static final int THRESHOLD_FOR_LOGGING_LARGE_NUMBER_OF_TRANSACTION_LOOKUPS = 10_000_000;
+    public static final int DEFAULT_GROUP_COMMIT_MAX_BATCH_SIZE = 1_000;
 
     public static final Set<TableReference> HIDDEN_TABLES = ImmutableSet.of(
             TransactionConstants.TRANSACTION_TABLE,
@@ -106,7 +109,8 @@ public final class AtlasDbConstants {
             COORDINATION_TABLE,
             DEFAULT_SCHEMA_METADATA_TABLE,
             SWEEP_PROGRESS_V2,
-            SWEEP_PROGRESS_V1_5);
+            SWEEP_PROGRESS_V1_5,
+            WRITE_SET_INDEX_TABLE);
 
     /**
      * Tables that must always be on a KVS that supports an atomic putUnlessExists operation.
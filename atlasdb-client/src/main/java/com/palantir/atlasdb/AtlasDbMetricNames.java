@@ -59,6 +59,12 @@ public final class AtlasDbMetricNames {
     public static final String LAST_SWEPT_TS = "lastSweptTimestamp";
     public static final String LAG_MILLIS = "millisSinceLastSweptTs";
     public static final String BATCH_SIZE_MEAN = "batchSizeMean";
+    public static final String DELETE_BATCHES_IN_FLIGHT = "deleteBatchesInFlight";
+    public static final String DELETE_BATCH_DURATION = "deleteBatchDuration";
+    public static final String SWEEP_BACKLOG = "backlog";
+    public static final String TAG_SHARD = "shard";
+    public static final String SWEEP_CONTROLLER_DECISION = "controllerDecision";
+    public static final String TAG_DECISION = "decision";
 
     public static final String SWEEP_OUTCOME = "outcome";
     public static final String TAG_OUTCOME = "status";
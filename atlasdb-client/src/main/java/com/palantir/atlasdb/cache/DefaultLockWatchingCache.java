@@ -0,0 +1,497 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.cache;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.RangeSet;
+import com.google.common.collect.TreeRangeSet;
+import com.palantir.atlasdb.keyvalue.api.AtlasLockDescriptorUtils;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.CellReference;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.transaction.api.GuardedValue;
+import com.palantir.atlasdb.transaction.api.LockWatchingCache;
+import com.palantir.atlasdb.transaction.api.NoOpTransactionLockWatchingCacheView;
+import com.palantir.atlasdb.transaction.api.TransactionLockWatchingCacheView;
+import com.palantir.atlasdb.util.MetricsManager;
+import com.palantir.lock.AtlasCellLockDescriptor;
+import com.palantir.lock.AtlasRowLockDescriptor;
+import com.palantir.lock.LockDescriptor;
+import com.palantir.lock.watch.IdentifiedVersion;
+import com.palantir.lock.watch.ImmutableIdentifiedVersion;
+import com.palantir.lock.watch.LockEvent;
+import com.palantir.lock.watch.LockWatchCreatedEvent;
+import com.palantir.lock.watch.LockWatchEvent;
+import com.palantir.lock.watch.LockWatchReferences;
+import com.palantir.lock.watch.LockWatchStateUpdate;
+import com.palantir.lock.watch.UnlockEvent;
+import com.palantir.logsafe.SafeArg;
+
+/**
+ * A bounded cache of committed values for an explicit set of tables, kept fresh using lock watch events.
+ *
+ * A value read by a transaction at lock watch version v is cached with guard v if its cell (and row) is watched, was
+ * not locked at v, and has not been locked or unlocked since. Such a value can then be served to any transaction whose
+ * lock watch version is at least v, until an event touching its cell or row is processed. Values written by committing
+ * transactions are invalidated rather than cached, since the version at which the writer's locks were released is not
+ * known at that point.
+ *
+ * Only tables whose writers always acquire cell or row locks on commit may be cached; writes that do not take out lock
+ * watched locks are invisible to this cache.
+ */
+public final class DefaultLockWatchingCache implements LockWatchingCache {
+    private static final Logger log = LoggerFactory.getLogger(DefaultLockWatchingCache.class);
+
+    @VisibleForTesting
+    static final int DEFAULT_MAX_TRACKED_DESCRIPTORS = 100_000;
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+    private static final UUID UNKNOWN_LOG_ID = new UUID(0L, 0L);
+
+    private final Map<TableReference, TableCache> tableCaches;
+    private final int maxTrackedDescriptors;
+
+    private final Map<LockDescriptor, Long> lastEventVersions = new ConcurrentHashMap<>();
+    private final Set<LockDescriptor> lockedDescriptors = new HashSet<>();
+    private final RangeSet<LockDescriptor> watchedRanges = TreeRangeSet.create();
+    private volatile CacheState state = CacheState.UNKNOWN;
+
+    @VisibleForTesting
+    DefaultLockWatchingCache(
+            MetricsManager metricsManager,
+            Map<TableReference, Long> maxCacheSizeInBytesByTable,
+            int maxTrackedDescriptors) {
+        Map<TableReference, TableCache> caches = new HashMap<>();
+        maxCacheSizeInBytesByTable.forEach((tableRef, maxBytes) ->
+                caches.put(tableRef, new TableCache(metricsManager, tableRef, maxBytes)));
+        this.tableCaches = ImmutableMap.copyOf(caches);
+        this.maxTrackedDescriptors = maxTrackedDescriptors;
+    }
+
+    /**
+     * Creates a cache for the given tables. Tables not present in the map are never cached.
+     *
+     * @param metricsManager used to register hit, miss and invalidation metrics per table
+     * @param maxCacheSizeInBytesByTable approximate upper bound on the memory used by cached values of each table
+     */
+    public static LockWatchingCache create(
+            MetricsManager metricsManager,
+            Map<TableReference, Long> maxCacheSizeInBytesByTable) {
+        return new DefaultLockWatchingCache(
+                metricsManager, maxCacheSizeInBytesByTable, DEFAULT_MAX_TRACKED_DESCRIPTORS);
+    }
+
+    @Override
+    public IdentifiedVersion lastKnownVersion() {
+        CacheState current = state;
+        Optional<Long> version = current.version().isPresent()
+                ? Optional.of(current.version().getAsLong())
+                : Optional.empty();
+        return ImmutableIdentifiedVersion.of(current.logId().orElse(UNKNOWN_LOG_ID), version);
+    }
+
+    @Override
+    public synchronized void processUpdate(LockWatchStateUpdate update) {
+        update.accept(new LockWatchStateUpdate.Visitor<Void>() {
+            @Override
+            public Void visit(LockWatchStateUpdate.Failed failed) {
+                resetToUnknown();
+                return null;
+            }
+
+            @Override
+            public Void visit(LockWatchStateUpdate.Success success) {
+                applyEvents(success);
+                return null;
+            }
+
+            @Override
+            public Void visit(LockWatchStateUpdate.Snapshot snapshot) {
+                resetToSnapshot(snapshot);
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public Map<Cell, GuardedValue> getCached(TableReference tableRef, Set<Cell> reads) {
+        TableCache tableCache = tableCaches.get(tableRef);
+        if (tableCache == null) {
+            return ImmutableMap.of();
+        }
+        return ImmutableMap.copyOf(tableCache.values.getAllPresent(reads));
+    }
+
+    @Override
+    public void maybeCacheCommittedWrites(TableReference tableRef, Map<Cell, byte[]> writes) {
+        TableCache tableCache = tableCaches.get(tableRef);
+        if (tableCache == null) {
+            return;
+        }
+        for (Cell cell : writes.keySet()) {
+            tableCache.invalidate(cell);
+        }
+    }
+
+    @Override
+    public void maybeCacheEntriesRead(
+            TableReference tableRef,
+            Map<Cell, byte[]> writes,
+            LockWatchStateUpdate lockWatchState) {
+        versionOf(lockWatchState).ifPresent(
+                version -> cacheEntriesRead(tableRef, writes, lockWatchState.logId(), version));
+    }
+
+    @Override
+    public TransactionLockWatchingCacheView getView(long startTimestamp, LockWatchStateUpdate lockWatchState) {
+        processUpdate(lockWatchState);
+        OptionalLong transactionVersion = versionOf(lockWatchState);
+        if (!transactionVersion.isPresent()) {
+            return NoOpTransactionLockWatchingCacheView.INSTANCE;
+        }
+        long version = transactionVersion.getAsLong();
+        if (!state.canServe(lockWatchState.logId(), version)) {
+            return NoOpTransactionLockWatchingCacheView.INSTANCE;
+        }
+        return new View(lockWatchState.logId(), version);
+    }
+
+    private synchronized void cacheEntriesRead(TableReference tableRef, Map<Cell, byte[]> values, UUID logId,
+            long readVersion) {
+        TableCache tableCache = tableCaches.get(tableRef);
+        if (tableCache == null || !state.canServe(logId, readVersion)) {
+            return;
+        }
+        values.forEach((cell, value) -> {
+            if (isUnlockedAndUnchangedSince(tableRef, cell, readVersion)) {
+                tableCache.values.put(cell, GuardedValue.of(value, readVersion));
+            }
+        });
+    }
+
+    private Map<Cell, byte[]> readCached(TableReference tableRef, Set<Cell> cells, UUID logId, long version) {
+        TableCache tableCache = tableCaches.get(tableRef);
+        if (tableCache == null || cells.isEmpty()) {
+            return ImmutableMap.of();
+        }
+
+        Map<Cell, GuardedValue> candidates = new HashMap<>();
+        for (Cell cell : cells) {
+            GuardedValue guardedValue = tableCache.values.getIfPresent(cell);
+            if (guardedValue != null
+                    && guardedValue.guardTimestamp() <= version
+                    && isUnchangedSince(tableRef, cell, guardedValue.guardTimestamp())) {
+                candidates.put(cell, guardedValue);
+            }
+        }
+
+        // The state must be read after the event versions: a reset publishes its new floor before clearing them.
+        CacheState current = state;
+        Map<Cell, byte[]> result = new HashMap<>();
+        if (current.logId().filter(logId::equals).isPresent()) {
+            candidates.forEach((cell, guardedValue) -> {
+                if (guardedValue.guardTimestamp() >= current.floor()) {
+                    result.put(cell, guardedValue.value());
+                }
+            });
+        }
+        tableCache.hits.mark(result.size());
+        tableCache.misses.mark(cells.size() - result.size());
+        return result;
+    }
+
+    private boolean isUnlockedAndUnchangedSince(TableReference tableRef, Cell cell, long version) {
+        LockDescriptor cellDescriptor = cellDescriptor(tableRef, cell);
+        LockDescriptor rowDescriptor = rowDescriptor(tableRef, cell);
+        return watchedRanges.contains(cellDescriptor)
+                && watchedRanges.contains(rowDescriptor)
+                && !lockedDescriptors.contains(cellDescriptor)
+                && !lockedDescriptors.contains(rowDescriptor)
+                && hasNoEventsAfter(cellDescriptor, version)
+                && hasNoEventsAfter(rowDescriptor, version);
+    }
+
+    private boolean isUnchangedSince(TableReference tableRef, Cell cell, long version) {
+        return hasNoEventsAfter(cellDescriptor(tableRef, cell), version)
+                && hasNoEventsAfter(rowDescriptor(tableRef, cell), version);
+    }
+
+    private boolean hasNoEventsAfter(LockDescriptor descriptor, long version) {
+        Long lastEventVersion = lastEventVersions.get(descriptor);
+        return lastEventVersion == null || lastEventVersion <= version;
+    }
+
+    private void applyEvents(LockWatchStateUpdate.Success success) {
+        CacheState current = state;
+        if (!current.logId().isPresent()) {
+            return;
+        }
+        if (!current.logId().get().equals(success.logId())) {
+            log.info("Lock watch log id changed; clearing the lock watching cache",
+                    SafeArg.of("oldLogId", current.logId().get()),
+                    SafeArg.of("newLogId", success.logId()));
+            resetToUnknown();
+            return;
+        }
+
+        long version = current.version().getAsLong();
+        EventProcessor processor = new EventProcessor();
+        for (LockWatchEvent event : success.events()) {
+            if (event.sequence() <= version) {
+                continue;
+            }
+            if (event.sequence() != version + 1) {
+                log.info("Missed lock watch events; clearing the lock watching cache",
+                        SafeArg.of("lastKnownVersion", version),
+                        SafeArg.of("nextEventSequence", event.sequence()));
+                resetToUnknown();
+                return;
+            }
+            event.accept(processor);
+            version = event.sequence();
+        }
+
+        if (lastEventVersions.size() > maxTrackedDescriptors) {
+            // We can no longer tell whether values guarded by older versions were modified, so drop them.
+            state = CacheState.of(success.logId(), version, version);
+            lastEventVersions.clear();
+            invalidateAllValues();
+        } else {
+            state = CacheState.of(success.logId(), version, current.floor());
+        }
+    }
+
+    private void resetToSnapshot(LockWatchStateUpdate.Snapshot snapshot) {
+        state = CacheState.of(snapshot.logId(), snapshot.lastKnownVersion(), snapshot.lastKnownVersion());
+        clearLockWatchState();
+        snapshot.lockWatches().forEach(reference ->
+                watchedRanges.add(reference.accept(LockWatchReferences.TO_RANGES_VISITOR)));
+        snapshot.locked().stream()
+                .filter(this::isForCachedTable)
+                .forEach(lockedDescriptors::add);
+    }
+
+    private void resetToUnknown() {
+        state = CacheState.UNKNOWN;
+        clearLockWatchState();
+    }
+
+    private void clearLockWatchState() {
+        lastEventVersions.clear();
+        lockedDescriptors.clear();
+        watchedRanges.clear();
+        invalidateAllValues();
+    }
+
+    private void invalidateAllValues() {
+        tableCaches.values().forEach(TableCache::invalidateAll);
+    }
+
+    private boolean isForCachedTable(LockDescriptor descriptor) {
+        return AtlasLockDescriptorUtils.tryParseTableRef(descriptor)
+                .map(tableRefAndRemainder -> tableCaches.containsKey(tableRefAndRemainder.tableRef()))
+                .orElse(false);
+    }
+
+    private static LockDescriptor cellDescriptor(TableReference tableRef, Cell cell) {
+        return AtlasCellLockDescriptor.of(tableRef.getQualifiedName(), cell.getRowName(), cell.getColumnName());
+    }
+
+    private static LockDescriptor rowDescriptor(TableReference tableRef, Cell cell) {
+        return AtlasRowLockDescriptor.of(tableRef.getQualifiedName(), cell.getRowName());
+    }
+
+    private static OptionalLong versionOf(LockWatchStateUpdate update) {
+        return update.accept(new LockWatchStateUpdate.Visitor<OptionalLong>() {
+            @Override
+            public OptionalLong visit(LockWatchStateUpdate.Failed failed) {
+                return OptionalLong.empty();
+            }
+
+            @Override
+            public OptionalLong visit(LockWatchStateUpdate.Success success) {
+                return OptionalLong.of(success.lastKnownVersion());
+            }
+
+            @Override
+            public OptionalLong visit(LockWatchStateUpdate.Snapshot snapshot) {
+                return OptionalLong.of(snapshot.lastKnownVersion());
+            }
+        });
+    }
+
+    private final class EventProcessor implements LockWatchEvent.Visitor<Void> {
+        @Override
+        public Void visit(LockEvent lockEvent) {
+            for (LockDescriptor descriptor : lockEvent.lockDescriptors()) {
+                if (isForCachedTable(descriptor)) {
+                    lockedDescriptors.add(descriptor);
+                    lastEventVersions.put(descriptor, lockEvent.sequence());
+                    invalidateCandidateCells(descriptor);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(UnlockEvent unlockEvent) {
+            for (LockDescriptor descriptor : unlockEvent.lockDescriptors()) {
+                if (isForCachedTable(descriptor)) {
+                    lockedDescriptors.remove(descriptor);
+                    lastEventVersions.put(descriptor, unlockEvent.sequence());
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(LockWatchCreatedEvent lockWatchCreatedEvent) {
+            lockWatchCreatedEvent.references().forEach(reference ->
+                    watchedRanges.add(reference.accept(LockWatchReferences.TO_RANGES_VISITOR)));
+            for (LockDescriptor descriptor : lockWatchCreatedEvent.lockDescriptors()) {
+                if (isForCachedTable(descriptor)) {
+                    lockedDescriptors.add(descriptor);
+                    lastEventVersions.put(descriptor, lockWatchCreatedEvent.sequence());
+                }
+            }
+            return null;
+        }
+
+        private void invalidateCandidateCells(LockDescriptor descriptor) {
+            for (CellReference cellReference : AtlasLockDescriptorUtils.candidateCells(descriptor)) {
+                TableCache tableCache = tableCaches.get(cellReference.tableRef());
+                if (tableCache != null) {
+                    tableCache.invalidate(cellReference.cell());
+                }
+            }
+        }
+    }
+
+    private final class View implements TransactionLockWatchingCacheView {
+        private final UUID logId;
+        private final long version;
+
+        private View(UUID logId, long version) {
+            this.logId = logId;
+            this.version = version;
+        }
+
+        @Override
+        public Map<Cell, byte[]> readCached(TableReference tableRef, Set<Cell> cells) {
+            return DefaultLockWatchingCache.this.readCached(tableRef, cells, logId, version);
+        }
+
+        @Override
+        public void tryCacheNewValuesRead(TableReference tableRef, Map<Cell, byte[]> values) {
+            cacheEntriesRead(tableRef, values, logId, version);
+        }
+
+        @Override
+        public void tryCacheWrittenValues(TableReference tableRef, Map<Cell, byte[]> writes, long lockTs) {
+            maybeCacheCommittedWrites(tableRef, writes);
+        }
+    }
+
+    private static final class TableCache {
+        private final Cache<Cell, GuardedValue> values;
+        private final Meter hits;
+        private final Meter misses;
+        private final Meter invalidations;
+
+        private TableCache(MetricsManager metricsManager, TableReference tableRef, long maxBytes) {
+            this.values = Caffeine.newBuilder()
+                    .maximumWeight(maxBytes)
+                    .<Cell, GuardedValue>weigher((cell, value) -> ENTRY_OVERHEAD_BYTES
+                            + cell.getRowName().length + cell.getColumnName().length + value.value().length)
+                    .build();
+            Map<String, String> tags = metricsManager.getTableNameTagFor(tableRef);
+            this.hits = metricsManager.registerOrGetTaggedMeter(DefaultLockWatchingCache.class, "cacheHit", tags);
+            this.misses = metricsManager.registerOrGetTaggedMeter(DefaultLockWatchingCache.class, "cacheMiss", tags);
+            this.invalidations = metricsManager.registerOrGetTaggedMeter(
+                    DefaultLockWatchingCache.class, "cacheInvalidation", tags);
+            metricsManager.registerOrGet(DefaultLockWatchingCache.class, "cacheSize",
+                    (Gauge<Long>) values::estimatedSize, tags);
+        }
+
+        private void invalidate(Cell cell) {
+            if (values.asMap().remove(cell) != null) {
+                invalidations.mark();
+            }
+        }
+
+        private void invalidateAll() {
+            invalidations.mark(values.estimatedSize());
+            values.invalidateAll();
+        }
+    }
+
+    private static final class CacheState {
+        private static final CacheState UNKNOWN =
+                new CacheState(Optional.empty(), OptionalLong.empty(), Long.MAX_VALUE);
+
+        private final Optional<UUID> logId;
+        private final OptionalLong version;
+        private final long floor;
+
+        private CacheState(Optional<UUID> logId, OptionalLong version, long floor) {
+            this.logId = logId;
+            this.version = version;
+            this.floor = floor;
+        }
+
+        private static CacheState of(UUID logId, long version, long floor) {
+            return new CacheState(Optional.of(logId), OptionalLong.of(version), floor);
+        }
+
+        private Optional<UUID> logId() {
+            return logId;
+        }
+
+        private OptionalLong version() {
+            return version;
+        }
+
+        /**
+         * Values guarded by versions below the floor may have been modified by events the cache no longer tracks.
+         */
+        private long floor() {
+            return floor;
+        }
+
+        private boolean canServe(UUID requestedLogId, long requestedVersion) {
+            return logId.filter(requestedLogId::equals).isPresent()
+                    && requestedVersion >= floor
+                    && requestedVersion <= version.getAsLong();
+        }
+    }
+}
@@ -33,9 +33,10 @@ import com.codahale.metrics.Counter;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.Futures;
 import com.palantir.atlasdb.autobatch.Autobatchers;
 import com.palantir.atlasdb.autobatch.CoalescingRequestFunction;
@@ -48,22 +49,39 @@ import com.palantir.tritium.metrics.registry.TaggedMetricRegistry;
 
 import okio.ByteString;
 
+/**
+ * An off-heap cache backed by a {@link PersistentStore}, which bounds its size by evicting entries in generations.
+ * <p>
+ * Entries are written to the newest generation, each of which lives in its own store space. Once the newest
+ * generation holds its share of {@code maxSize} entries a new generation is started, and the oldest generations are
+ * dropped until the remaining ones leave room for the new generation to fill up. Reads look through the generations
+ * from newest to oldest, and entries read from an older generation are copied to the newest one, so entries that are
+ * still in use survive rotation. Compared to dropping the whole cache once it is full, this keeps the hit rate stable
+ * while the cache evicts.
+ */
 public final class DefaultOffHeapCache<K, V> implements OffHeapCache<K, V> {
     private static final Logger log = LoggerFactory.getLogger(DefaultOffHeapCache.class);
     private static final String BATCHER_PURPOSE = "off-heap-cache";
+    private static final int GENERATIONS = 4;
     private static final MetricName CACHE_HIT = constructCacheMetricName("cacheHit");
     private static final MetricName CACHE_MISS = constructCacheMetricName("cacheMiss");
     private static final MetricName CACHE_NUKE = constructCacheMetricName("cacheNuke");
     private static final MetricName CACHE_SIZE = constructCacheMetricName("cacheSize");
+    private static final MetricName CACHE_HIT_RATE = constructCacheMetricName("cacheHitRate");
+    private static final MetricName CACHE_EVICTION = constructCacheMetricName("cacheEviction");
+    private static final MetricName CACHE_ROTATION = constructCacheMetricName("cacheSegmentRotation");
 
     private final PersistentStore persistentStore;
     private final EntryMapper<K, V> entryMapper;
     private final LongSupplier maxSize;
-    private final AtomicReference<CacheDescriptor> cacheDescriptor = new AtomicReference<>();
+    // Newest generation first; only the newest generation is written to.
+    private final AtomicReference<ImmutableList<CacheDescriptor>> generations = new AtomicReference<>();
     private final DisruptorAutobatcher<Map.Entry<K, V>, Void> valuePutter;
     private final Meter cacheHit;
     private final Meter cacheMiss;
     private final Counter cacheNuke;
+    private final Meter cacheEviction;
+    private final Counter cacheRotation;
 
     public interface EntryMapper<K, V> {
         ByteString serializeKey(K key);
@@ -100,25 +118,36 @@ public final class DefaultOffHeapCache<K, V> implements OffHeapCache<K, V> {
             TaggedMetricRegistry taggedMetricRegistry) {
         this.persistentStore = persistentStore;
         this.entryMapper = entryMapper;
-        this.cacheDescriptor.set(cacheDescriptor);
+        this.generations.set(ImmutableList.of(cacheDescriptor));
         this.maxSize = maxSize;
         this.cacheHit = taggedMetricRegistry.meter(CACHE_HIT);
         this.cacheMiss = taggedMetricRegistry.meter(CACHE_MISS);
         this.cacheNuke = taggedMetricRegistry.counter(CACHE_NUKE);
+        this.cacheEviction = taggedMetricRegistry.meter(CACHE_EVICTION);
+        this.cacheRotation = taggedMetricRegistry.counter(CACHE_ROTATION);
         this.valuePutter = Autobatchers.coalescing(new WriteBatcher<>(this))
                 .safeLoggablePurpose(BATCHER_PURPOSE)
                 .build();
-        Gauge<Integer> cacheSizeGauge = () -> this.cacheDescriptor.get().currentSize().intValue();
+        Gauge<Integer> cacheSizeGauge = () -> totalSize(this.generations.get());
         taggedMetricRegistry.gauge(CACHE_SIZE, cacheSizeGauge);
+        taggedMetricRegistry.gauge(CACHE_HIT_RATE, new RatioGauge() {
+            @Override
+            protected Ratio getRatio() {
+                return Ratio.of(
+                        cacheHit.getOneMinuteRate(),
+                        cacheHit.getOneMinuteRate() + cacheMiss.getOneMinuteRate());
+            }
+        });
     }
 
     @Override
     public void clear() {
         CacheDescriptor proposedCacheDescriptor = createNamespaceAndConstructCacheProposal(persistentStore);
 
-        CacheDescriptor previous = cacheDescriptor.getAndUpdate(prev -> proposedCacheDescriptor);
+        List<CacheDescriptor> previous = generations.getAndSet(ImmutableList.of(proposedCacheDescriptor));
+        cacheNuke.inc();
         if (previous != null) {
-            persistentStore.dropStoreSpace(previous.handle());
+            previous.forEach(generation -> persistentStore.dropStoreSpace(generation.handle()));
         }
     }
 
@@ -130,13 +159,75 @@ public final class DefaultOffHeapCache<K, V> implements OffHeapCache<K, V> {
     @Override
     public Optional<V> get(K key) {
         ByteString serializedKey = entryMapper.serializeKey(key);
-        Optional<ByteString> value = persistentStore.get(cacheDescriptor.get().handle(), serializedKey);
-        getCacheMeter(value.isPresent()).mark();
-        return value.map(v -> entryMapper.deserializeValue(serializedKey, v));
+        List<CacheDescriptor> snapshot = generations.get();
+        for (int i = 0; i < snapshot.size(); i++) {
+            Optional<ByteString> value = getFromGeneration(snapshot.get(i), serializedKey);
+            if (value.isPresent()) {
+                cacheHit.mark();
+                V deserializedValue = entryMapper.deserializeValue(serializedKey, value.get());
+                if (i > 0) {
+                    promote(key, deserializedValue);
+                }
+                return Optional.of(deserializedValue);
+            }
+        }
+        cacheMiss.mark();
+        return Optional.empty();
+    }
+
+    /**
+     * Copies an entry read from an older generation to the newest one, so that it is not evicted when its generation
+     * is retired. There is no need to wait for the write to complete.
+     */
+    @SuppressWarnings("FutureReturnValueIgnored")
+    private void promote(K key, V value) {
+        valuePutter.apply(Maps.immutableEntry(key, value));
     }
 
-    private Meter getCacheMeter(boolean cacheOutcome) {
-        return cacheOutcome ? cacheHit : cacheMiss;
+    private Optional<ByteString> getFromGeneration(CacheDescriptor generation, ByteString serializedKey) {
+        try {
+            return persistentStore.get(generation.handle(), serializedKey);
+        } catch (SafeIllegalArgumentException exception) {
+            // happens when a generation is dropped by a concurrent rotation or call to clear
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Starts a new generation if the newest one is full, retiring the oldest generations so that the remaining ones,
+     * together with a full new generation, fit in {@code maxSize}. Only called from the (single threaded) batcher.
+     */
+    private void rotateIfFull() {
+        long currentMaxSize = maxSize.getAsLong();
+        long generationCapacity = Math.max(1, currentMaxSize / GENERATIONS);
+        ImmutableList<CacheDescriptor> current = generations.get();
+        if (current.get(0).currentSize().get() < generationCapacity) {
+            return;
+        }
+
+        List<CacheDescriptor> retained = current;
+        while (!retained.isEmpty() && totalSize(retained) + generationCapacity > currentMaxSize) {
+            retained = retained.subList(0, retained.size() - 1);
+        }
+        ImmutableList<CacheDescriptor> rotated = ImmutableList.<CacheDescriptor>builder()
+                .add(createNamespaceAndConstructCacheProposal(persistentStore))
+                .addAll(retained)
+                .build();
+
+        if (!generations.compareAndSet(current, rotated)) {
+            // a concurrent call to clear already dropped these generations and started afresh
+            persistentStore.dropStoreSpace(rotated.get(0).handle());
+            return;
+        }
+        cacheRotation.inc();
+        for (CacheDescriptor retired : current.subList(retained.size(), current.size())) {
+            cacheEviction.mark(retired.currentSize().get());
+            persistentStore.dropStoreSpace(retired.handle());
+        }
+    }
+
+    private static int totalSize(List<CacheDescriptor> generations) {
+        return generations.stream().mapToInt(generation -> generation.currentSize().get()).sum();
     }
 
     private static CacheDescriptor createNamespaceAndConstructCacheProposal(PersistentStore persistentStore) {
@@ -162,23 +253,17 @@ public final class DefaultOffHeapCache<K, V> implements OffHeapCache<K, V> {
 
         @Override
         public Map<Map.Entry<K, V>, Void> apply(Set<Map.Entry<K, V>> request) {
-            CacheDescriptor cacheDescriptor = offHeapCache.cacheDescriptor.get();
-            if (cacheDescriptor.currentSize().get() >= offHeapCache.maxSize.getAsLong()) {
-                offHeapCache.cacheNuke.inc();
-                offHeapCache.clear();
-            }
-            cacheDescriptor = offHeapCache.cacheDescriptor.get();
-            Set<Map.Entry<ByteString, ByteString>> serializedRequest = request.stream()
+            offHeapCache.rotateIfFull();
+            CacheDescriptor cacheDescriptor = offHeapCache.generations.get().get(0);
+            Map<ByteString, ByteString> serializedRequest = request.stream()
                     .map(this::serializeEntry)
-                    .collect(Collectors.toSet());
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (first, second) -> first));
             try {
-                List<ByteString> toWrite = serializedRequest.stream()
-                        .map(Map.Entry::getKey)
-                        .collect(Collectors.toList());
+                List<ByteString> toWrite = ImmutableList.copyOf(serializedRequest.keySet());
                 Map<ByteString, ByteString> response =
                         offHeapCache.persistentStore.get(cacheDescriptor.handle(), toWrite);
 
-                int sizeIncrease = Sets.difference(request, response.entrySet()).size();
+                int sizeIncrease = toWrite.size() - response.size();
                 cacheDescriptor.currentSize().addAndGet(sizeIncrease);
                 offHeapCache.persistentStore.put(
                         cacheDescriptor.handle(),
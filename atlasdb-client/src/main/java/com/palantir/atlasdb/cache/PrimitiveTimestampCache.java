@@ -0,0 +1,372 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.cache;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongSupplier;
+
+import javax.annotation.Nullable;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.primitives.Ints;
+import com.palantir.logsafe.Preconditions;
+
+/**
+ * A bounded {@link TimestampCache} that stores timestamps in primitive arrays, so that neither lookups nor the cached
+ * entries themselves allocate.
+ * <p>
+ * Entries are spread over a number of segments, each of which is an open addressing hash table with linear probing,
+ * guarded by its own {@link StampedLock}. Reads are optimistic, and only fall back to taking the read lock if they
+ * raced with a write to the same segment. Tables start small and grow up to their share of the maximum size, after
+ * which entries are evicted using the CLOCK algorithm: every read marks an entry as referenced, and the clock hand
+ * evicts the first entry it finds that has not been referenced since the hand last passed it.
+ * <p>
+ * Changing the maximum size drops the cached entries.
+ */
+public final class PrimitiveTimestampCache implements TimestampCache {
+    private static final String METRIC_PREFIX = MetricRegistry.name(TimestampCache.class, "startToCommitTimestamp");
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_CAPACITY = 64;
+    private static final int INITIAL_SLOTS = 16;
+    private static final long EMPTY = NO_COMMIT_TIMESTAMP;
+
+    private final LongSupplier size;
+    private final Meter hits;
+    private final Meter misses;
+    private final Meter evictions;
+    private volatile Table table;
+
+    public PrimitiveTimestampCache(MetricRegistry metricRegistry, LongSupplier size) {
+        this.size = size;
+        this.table = new Table(size.getAsLong());
+        this.hits = metricRegistry.meter(MetricRegistry.name(METRIC_PREFIX, "hits"));
+        this.misses = metricRegistry.meter(MetricRegistry.name(METRIC_PREFIX, "misses"));
+        this.evictions = metricRegistry.meter(MetricRegistry.name(METRIC_PREFIX, "evictions"));
+        Gauge<Long> sizeGauge = () -> table.size();
+        metricRegistry.gauge(MetricRegistry.name(METRIC_PREFIX, "size"), () -> sizeGauge);
+    }
+
+    public static TimestampCache createForTests() {
+        return new PrimitiveTimestampCache(new MetricRegistry(), () -> 1000L);
+    }
+
+    @Override
+    public void clear() {
+        table.clear();
+    }
+
+    @Override
+    public void putAlreadyCommittedTransaction(Long startTimestamp, Long commitTimestamp) {
+        evictions.mark(currentTable().put(startTimestamp, commitTimestamp));
+    }
+
+    @Override
+    public void putAlreadyCommittedTransactions(long[] startTimestamps, long[] commitTimestamps) {
+        Preconditions.checkArgument(startTimestamps.length == commitTimestamps.length,
+                "Start and commit timestamps must have the same length");
+        Table current = currentTable();
+        long evicted = 0;
+        for (int i = 0; i < startTimestamps.length; i++) {
+            evicted += current.put(startTimestamps[i], commitTimestamps[i]);
+        }
+        evictions.mark(evicted);
+    }
+
+    @Nullable
+    @Override
+    public Long getCommitTimestampIfPresent(Long startTimestamp) {
+        long commitTimestamp = currentTable().get(startTimestamp);
+        if (commitTimestamp == EMPTY) {
+            misses.mark();
+            return null;
+        }
+        hits.mark();
+        return commitTimestamp;
+    }
+
+    @Override
+    public void getCommitTimestampsIfPresent(long[] startTimestamps, long[] commitTimestamps) {
+        Preconditions.checkArgument(startTimestamps.length == commitTimestamps.length,
+                "Start and commit timestamps must have the same length");
+        Table current = currentTable();
+        int found = 0;
+        for (int i = 0; i < startTimestamps.length; i++) {
+            commitTimestamps[i] = current.get(startTimestamps[i]);
+            if (commitTimestamps[i] != EMPTY) {
+                found++;
+            }
+        }
+        hits.mark(found);
+        misses.mark(startTimestamps.length - found);
+    }
+
+    private Table currentTable() {
+        Table current = table;
+        long maxSize = size.getAsLong();
+        if (current.maxSize == maxSize) {
+            return current;
+        }
+        synchronized (this) {
+            if (table.maxSize != maxSize) {
+                table = new Table(maxSize);
+            }
+            return table;
+        }
+    }
+
+    private static int hash(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    private static final class Table {
+        private final long maxSize;
+        private final Segment[] segments;
+        private final int segmentShift;
+
+        Table(long maxSize) {
+            this.maxSize = maxSize;
+            long segmentCount = Math.max(1, Math.min(MAX_SEGMENTS, Long.highestOneBit(maxSize / MIN_SEGMENT_CAPACITY)));
+            int capacity = maxSize <= 0 ? 0 : Ints.checkedCast(maxSize / segmentCount);
+            this.segments = new Segment[(int) segmentCount];
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = new Segment(capacity);
+            }
+            this.segmentShift = Integer.SIZE - Integer.numberOfTrailingZeros(segments.length);
+        }
+
+        long get(long key) {
+            if (key == EMPTY) {
+                return EMPTY;
+            }
+            int hash = hash(key);
+            return segmentFor(hash).get(key, hash);
+        }
+
+        /**
+         * Returns the number of entries evicted to make space for this one.
+         */
+        int put(long key, long value) {
+            if (key == EMPTY || value == EMPTY) {
+                return 0;
+            }
+            int hash = hash(key);
+            return segmentFor(hash).put(key, value, hash);
+        }
+
+        void clear() {
+            for (Segment segment : segments) {
+                segment.clear();
+            }
+        }
+
+        long size() {
+            long size = 0;
+            for (Segment segment : segments) {
+                size += segment.size();
+            }
+            return size;
+        }
+
+        private Segment segmentFor(int hash) {
+            // The low bits of the hash pick the slot within a segment, so use the high bits to pick the segment.
+            return segments.length == 1 ? segments[0] : segments[hash >>> segmentShift];
+        }
+    }
+
+    private static final class Slots {
+        final long[] keys;
+        final long[] values;
+        final boolean[] referenced;
+        final int mask;
+
+        Slots(int length) {
+            this.keys = new long[length];
+            this.values = new long[length];
+            this.referenced = new boolean[length];
+            this.mask = length - 1;
+            Arrays.fill(keys, EMPTY);
+        }
+    }
+
+    private static final class Segment {
+        private final StampedLock lock = new StampedLock();
+        private final int capacity;
+        private final int maxSlots;
+
+        private Slots slots;
+        private int size;
+        private int clockHand;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+            // keep the load factor at or below one half
+            this.maxSlots = Math.max(INITIAL_SLOTS, Integer.highestOneBit(Math.max(1, capacity)) << 2);
+            this.slots = new Slots(Math.min(INITIAL_SLOTS, maxSlots));
+        }
+
+        long get(long key, int hash) {
+            long stamp = lock.tryOptimisticRead();
+            long value = find(slots, key, hash);
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    value = find(slots, key, hash);
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            return value;
+        }
+
+        int put(long key, long value, int hash) {
+            if (capacity == 0) {
+                return 0;
+            }
+            long stamp = lock.writeLock();
+            try {
+                int slot = hash & slots.mask;
+                while (slots.keys[slot] != EMPTY) {
+                    if (slots.keys[slot] == key) {
+                        slots.values[slot] = value;
+                        return 0;
+                    }
+                    slot = (slot + 1) & slots.mask;
+                }
+
+                int evicted = 0;
+                if (size >= capacity) {
+                    evictOne();
+                    evicted = 1;
+                } else if (2 * (size + 1) > slots.keys.length && slots.keys.length < maxSlots) {
+                    grow();
+                }
+                insert(slots, key, value, false);
+                size++;
+                return evicted;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        int size() {
+            long stamp = lock.readLock();
+            try {
+                return size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        void clear() {
+            long stamp = lock.writeLock();
+            try {
+                slots = new Slots(Math.min(INITIAL_SLOTS, maxSlots));
+                size = 0;
+                clockHand = 0;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * May run concurrently with writes when called optimistically, in which case the result is discarded. The
+         * slots are therefore read once, so that all the arrays have the same length, and probing is bounded.
+         */
+        private static long find(Slots slots, long key, int hash) {
+            int slot = hash & slots.mask;
+            for (int probes = 0; probes <= slots.mask; probes++) {
+                long candidate = slots.keys[slot];
+                if (candidate == key) {
+                    // a racy write at worst marks the wrong entry, which only makes eviction less accurate
+                    slots.referenced[slot] = true;
+                    return slots.values[slot];
+                }
+                if (candidate == EMPTY) {
+                    return EMPTY;
+                }
+                slot = (slot + 1) & slots.mask;
+            }
+            return EMPTY;
+        }
+
+        private static void insert(Slots slots, long key, long value, boolean referenced) {
+            int slot = hash(key) & slots.mask;
+            while (slots.keys[slot] != EMPTY) {
+                slot = (slot + 1) & slots.mask;
+            }
+            slots.keys[slot] = key;
+            slots.values[slot] = value;
+            slots.referenced[slot] = referenced;
+        }
+
+        private void grow() {
+            Slots previous = slots;
+            Slots grown = new Slots(previous.keys.length << 1);
+            for (int slot = 0; slot < previous.keys.length; slot++) {
+                if (previous.keys[slot] != EMPTY) {
+                    insert(grown, previous.keys[slot], previous.values[slot], previous.referenced[slot]);
+                }
+            }
+            slots = grown;
+            clockHand = 0;
+        }
+
+        private void evictOne() {
+            while (true) {
+                int slot = clockHand;
+                clockHand = (clockHand + 1) & slots.mask;
+                if (slots.keys[slot] == EMPTY) {
+                    continue;
+                }
+                if (slots.referenced[slot]) {
+                    slots.referenced[slot] = false;
+                    continue;
+                }
+                remove(slot);
+                return;
+            }
+        }
+
+        /**
+         * Removes the entry in the given slot, shifting back later entries in the same probe sequence so that lookups
+         * never stop early at the freed slot.
+         */
+        private void remove(int slot) {
+            long[] keys = slots.keys;
+            int mask = slots.mask;
+            int gap = slot;
+            int next = (gap + 1) & mask;
+            while (keys[next] != EMPTY) {
+                int ideal = hash(keys[next]) & mask;
+                if (((next - ideal) & mask) >= ((next - gap) & mask)) {
+                    keys[gap] = keys[next];
+                    slots.values[gap] = slots.values[next];
+                    slots.referenced[gap] = slots.referenced[next];
+                    gap = next;
+                }
+                next = (next + 1) & mask;
+            }
+            keys[gap] = EMPTY;
+            slots.referenced[gap] = false;
+            size--;
+        }
+    }
+}
@@ -21,6 +21,12 @@ import javax.annotation.Nullable;
 import com.palantir.atlasdb.metrics.Timed;
 
 public interface TimestampCache {
+    /**
+     * Marks start timestamps whose commit timestamp is not cached in the output of
+     * {@link #getCommitTimestampsIfPresent(long[], long[])}.
+     */
+    long NO_COMMIT_TIMESTAMP = Long.MIN_VALUE;
+
     /**
      * Clear all values from the cache.
      */
@@ -44,4 +50,34 @@ public interface TimestampCache {
     @Nullable
     @Timed
     Long getCommitTimestampIfPresent(Long startTimestamp);
+
+    /**
+     * Batched version of {@link #putAlreadyCommittedTransaction(Long, Long)}, caching the commit timestamp
+     * {@code commitTimestamps[i]} for the start timestamp {@code startTimestamps[i]}.
+     *
+     * @param startTimestamps transaction start timestamps
+     * @param commitTimestamps transaction commit timestamps, of the same length as {@code startTimestamps}
+     */
+    @Timed
+    default void putAlreadyCommittedTransactions(long[] startTimestamps, long[] commitTimestamps) {
+        for (int i = 0; i < startTimestamps.length; i++) {
+            putAlreadyCommittedTransaction(startTimestamps[i], commitTimestamps[i]);
+        }
+    }
+
+    /**
+     * Batched version of {@link #getCommitTimestampIfPresent(Long)}. Implementations may override this to look up
+     * the whole batch without boxing.
+     *
+     * @param startTimestamps transaction start timestamps
+     * @param commitTimestamps output array of the same length as {@code startTimestamps}; its i-th element is set to
+     * the commit timestamp of {@code startTimestamps[i]} if present in cache, otherwise {@link #NO_COMMIT_TIMESTAMP}
+     */
+    @Timed
+    default void getCommitTimestampsIfPresent(long[] startTimestamps, long[] commitTimestamps) {
+        for (int i = 0; i < startTimestamps.length; i++) {
+            Long commitTimestamp = getCommitTimestampIfPresent(startTimestamps[i]);
+            commitTimestamps[i] = commitTimestamp == null ? NO_COMMIT_TIMESTAMP : commitTimestamp;
+        }
+    }
 }
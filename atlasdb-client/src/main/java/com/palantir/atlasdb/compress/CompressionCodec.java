@@ -0,0 +1,36 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.compress;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compresses and decompresses individual values. Implementations are thread safe, and are obtained through
+ * {@link CompressionCodecs}.
+ */
+public interface CompressionCodec {
+    byte[] compress(byte[] bytes);
+
+    byte[] decompress(byte[] bytes);
+
+    /**
+     * Decompresses the given bytes into a heap buffer, which holds the decompressed value between position zero and
+     * its limit. The given buffer is used if it is large enough; otherwise a larger one is allocated and returned, and
+     * callers should pass that one to subsequent calls.
+     */
+    ByteBuffer decompress(byte[] bytes, ByteBuffer reusableBuffer);
+}
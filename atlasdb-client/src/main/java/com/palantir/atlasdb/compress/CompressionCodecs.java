@@ -0,0 +1,73 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.compress;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nullable;
+
+import com.palantir.atlasdb.table.description.ColumnValueDescription.Compression;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
+
+public final class CompressionCodecs {
+    private static final CompressionCodec NONE = new NoCompressionCodec();
+    private static final CompressionCodec SNAPPY = new SnappyCompressionCodec();
+    private static final CompressionCodec LZ4 = new Lz4CompressionCodec();
+    private static final CompressionCodec ZSTD = new ZstdCompressionCodec(null);
+
+    private static final Map<String, CompressionCodec> zstdCodecsByDictionary = new ConcurrentHashMap<>();
+
+    private CompressionCodecs() {
+        // utility
+    }
+
+    public static CompressionCodec forCompression(Compression compression) {
+        switch (compression) {
+            case NONE: return NONE;
+            case SNAPPY: return SNAPPY;
+            case LZ4: return LZ4;
+            case ZSTD: return ZSTD;
+        }
+        throw new AssertionError("Unreachable code");
+    }
+
+    /**
+     * Returns the codec for the given compression, using the trained dictionary stored in the given classpath
+     * resource, if any. Only {@link Compression#ZSTD} supports dictionaries.
+     */
+    public static CompressionCodec forCompression(Compression compression, @Nullable String dictionaryResource) {
+        if (dictionaryResource == null) {
+            return forCompression(compression);
+        }
+        Preconditions.checkArgument(compression == Compression.ZSTD,
+                "Only ZSTD compression supports dictionaries",
+                SafeArg.of("compression", compression));
+        return zstdCodecsByDictionary.computeIfAbsent(dictionaryResource,
+                resource -> new ZstdCompressionCodec(CompressionDictionaries.load(resource)));
+    }
+
+    static ByteBuffer ensureCapacity(ByteBuffer buffer, int capacity) {
+        if (buffer.capacity() >= capacity && buffer.hasArray()) {
+            buffer.clear();
+            return buffer;
+        }
+        return ByteBuffer.allocate(capacity);
+    }
+}
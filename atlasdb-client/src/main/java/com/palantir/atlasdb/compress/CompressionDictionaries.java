@@ -0,0 +1,51 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.compress;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.io.Resources;
+import com.palantir.logsafe.SafeArg;
+import com.palantir.logsafe.exceptions.SafeIllegalArgumentException;
+
+/**
+ * Loads trained compression dictionaries from the classpath. Tables and stream stores refer to their dictionary by
+ * resource name, so that the dictionary is available to any process that has the schema on its classpath.
+ */
+public final class CompressionDictionaries {
+    private static final Map<String, byte[]> dictionaries = new ConcurrentHashMap<>();
+
+    private CompressionDictionaries() {
+        // utility
+    }
+
+    public static byte[] load(String resourceName) {
+        return dictionaries.computeIfAbsent(resourceName, CompressionDictionaries::loadUncached);
+    }
+
+    private static byte[] loadUncached(String resourceName) {
+        try {
+            return Resources.toByteArray(Resources.getResource(resourceName));
+        } catch (IOException | IllegalArgumentException e) {
+            throw new SafeIllegalArgumentException("Could not load compression dictionary",
+                    e,
+                    SafeArg.of("resourceName", resourceName));
+        }
+    }
+}
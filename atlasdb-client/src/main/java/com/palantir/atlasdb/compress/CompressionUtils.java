@@ -16,6 +16,9 @@
 package com.palantir.atlasdb.compress;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import javax.annotation.Nullable;
 
 import org.xerial.snappy.Snappy;
 
@@ -24,28 +27,51 @@ import com.palantir.common.base.Throwables;
 import com.palantir.logsafe.exceptions.SafeIllegalArgumentException;
 
 public final class CompressionUtils {
+    private static final int INITIAL_REUSABLE_BUFFER_SIZE = 4096;
+    // threads do not hold on to buffers for unusually large values
+    private static final int MAX_REUSABLE_BUFFER_SIZE = 1024 * 1024;
+
+    private static final ThreadLocal<ByteBuffer> reusableBuffers =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(INITIAL_REUSABLE_BUFFER_SIZE));
+
     private CompressionUtils() {
         // empty
     }
 
     public static byte[] compress(byte[] bytes, Compression compressionType) {
-        if (compressionType == Compression.SNAPPY) {
-            return compressWithSnappy(bytes);
-        } else if (compressionType == Compression.NONE) {
-            return bytes;
-        } else {
-            throw new UnsupportedOperationException();
-        }
+        return CompressionCodecs.forCompression(compressionType).compress(bytes);
+    }
+
+    public static byte[] compress(byte[] bytes, Compression compressionType, @Nullable String dictionaryResource) {
+        return CompressionCodecs.forCompression(compressionType, dictionaryResource).compress(bytes);
     }
 
     public static byte[] decompress(byte[] bytes, Compression compressionType) {
-        if (compressionType == Compression.SNAPPY) {
-            return decompressWithSnappy(bytes);
-        } else if (compressionType == Compression.NONE) {
-            return bytes;
-        } else {
-            throw new UnsupportedOperationException();
+        return CompressionCodecs.forCompression(compressionType).decompress(bytes);
+    }
+
+    public static byte[] decompress(byte[] bytes, Compression compressionType, @Nullable String dictionaryResource) {
+        return CompressionCodecs.forCompression(compressionType, dictionaryResource).decompress(bytes);
+    }
+
+    public static ByteBuffer decompressIntoReusableBuffer(byte[] bytes, Compression compressionType) {
+        return decompressIntoReusableBuffer(bytes, compressionType, null);
+    }
+
+    /**
+     * Decompresses the given bytes into a heap buffer owned by the calling thread, rather than into a new array.
+     * The buffer is overwritten by the next call on the same thread, so callers must be done reading it by then.
+     */
+    public static ByteBuffer decompressIntoReusableBuffer(
+            byte[] bytes,
+            Compression compressionType,
+            @Nullable String dictionaryResource) {
+        ByteBuffer buffer = CompressionCodecs.forCompression(compressionType, dictionaryResource)
+                .decompress(bytes, reusableBuffers.get());
+        if (buffer.capacity() <= MAX_REUSABLE_BUFFER_SIZE) {
+            reusableBuffers.set(buffer);
         }
+        return buffer;
     }
 
     public static byte[] compressWithSnappy(byte[] bytes) {
@@ -0,0 +1,101 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.compress;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import com.google.common.primitives.Ints;
+import com.palantir.logsafe.SafeArg;
+import com.palantir.logsafe.exceptions.SafeIllegalArgumentException;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+/**
+ * Compresses values as a single LZ4 block, prefixed by the big-endian length of the uncompressed value.
+ */
+final class Lz4CompressionCodec implements CompressionCodec {
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4FastDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().fastDecompressor();
+
+    // every byte of an LZ4 block decompresses to at most 255 bytes
+    private static final int MAX_COMPRESSION_RATIO = 255;
+
+    @Override
+    public byte[] compress(byte[] bytes) {
+        byte[] compressed = new byte[Integer.BYTES + COMPRESSOR.maxCompressedLength(bytes.length)];
+        writeLength(compressed, bytes.length);
+        int compressedLength = COMPRESSOR.compress(
+                bytes, 0, bytes.length, compressed, Integer.BYTES, compressed.length - Integer.BYTES);
+        return Arrays.copyOf(compressed, Integer.BYTES + compressedLength);
+    }
+
+    @Override
+    public byte[] decompress(byte[] bytes) {
+        byte[] decompressed = new byte[readLength(bytes)];
+        decompressInto(bytes, decompressed, 0, decompressed.length);
+        return decompressed;
+    }
+
+    @Override
+    public ByteBuffer decompress(byte[] bytes, ByteBuffer reusableBuffer) {
+        int length = readLength(bytes);
+        ByteBuffer buffer = CompressionCodecs.ensureCapacity(reusableBuffer, length);
+        decompressInto(bytes, buffer.array(), buffer.arrayOffset(), length);
+        buffer.limit(length);
+        return buffer;
+    }
+
+    private static void writeLength(byte[] compressed, int length) {
+        compressed[0] = (byte) (length >>> 24);
+        compressed[1] = (byte) (length >>> 16);
+        compressed[2] = (byte) (length >>> 8);
+        compressed[3] = (byte) length;
+    }
+
+    /**
+     * Reads the length prefix, rejecting lengths that the block could not decompress to, so that corrupt values fail
+     * before we allocate a buffer for them.
+     */
+    private static int readLength(byte[] compressed) {
+        if (compressed.length < Integer.BYTES) {
+            throw new SafeIllegalArgumentException("Cannot decompress these bytes using LZ4");
+        }
+        int length = Ints.fromBytes(compressed[0], compressed[1], compressed[2], compressed[3]);
+        long maxLength = (long) (compressed.length - Integer.BYTES) * MAX_COMPRESSION_RATIO;
+        if (length < 0 || length > maxLength) {
+            throw new SafeIllegalArgumentException("Cannot decompress these bytes using LZ4",
+                    SafeArg.of("length", length),
+                    SafeArg.of("compressedLength", compressed.length));
+        }
+        return length;
+    }
+
+    private static void decompressInto(byte[] compressed, byte[] destination, int offset, int length) {
+        try {
+            int read = DECOMPRESSOR.decompress(compressed, Integer.BYTES, destination, offset, length);
+            if (read != compressed.length - Integer.BYTES) {
+                throw new SafeIllegalArgumentException("Cannot decompress these bytes using LZ4");
+            }
+        } catch (LZ4Exception e) {
+            throw new SafeIllegalArgumentException("Cannot decompress these bytes using LZ4", e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.compress;
+
+import java.nio.ByteBuffer;
+
+final class NoCompressionCodec implements CompressionCodec {
+    @Override
+    public byte[] compress(byte[] bytes) {
+        return bytes;
+    }
+
+    @Override
+    public byte[] decompress(byte[] bytes) {
+        return bytes;
+    }
+
+    @Override
+    public ByteBuffer decompress(byte[] bytes, ByteBuffer reusableBuffer) {
+        ByteBuffer buffer = CompressionCodecs.ensureCapacity(reusableBuffer, bytes.length);
+        buffer.put(bytes).flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.compress;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.xerial.snappy.Snappy;
+
+import com.palantir.common.base.Throwables;
+import com.palantir.logsafe.exceptions.SafeIllegalArgumentException;
+
+final class SnappyCompressionCodec implements CompressionCodec {
+    @Override
+    public byte[] compress(byte[] bytes) {
+        return CompressionUtils.compressWithSnappy(bytes);
+    }
+
+    @Override
+    public byte[] decompress(byte[] bytes) {
+        return CompressionUtils.decompressWithSnappy(bytes);
+    }
+
+    @Override
+    public ByteBuffer decompress(byte[] bytes, ByteBuffer reusableBuffer) {
+        try {
+            if (!Snappy.isValidCompressedBuffer(bytes)) {
+                throw new SafeIllegalArgumentException("Cannot decompress these bytes using Snappy");
+            }
+            ByteBuffer buffer = CompressionCodecs.ensureCapacity(reusableBuffer, Snappy.uncompressedLength(bytes));
+            int length = Snappy.uncompress(bytes, 0, bytes.length, buffer.array(), buffer.arrayOffset());
+            buffer.limit(length);
+            return buffer;
+        } catch (IOException e) {
+            throw Throwables.throwUncheckedException(e);
+        }
+    }
+}
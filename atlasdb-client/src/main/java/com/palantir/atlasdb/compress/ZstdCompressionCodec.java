@@ -0,0 +1,85 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.compress;
+
+import java.nio.ByteBuffer;
+
+import javax.annotation.Nullable;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.palantir.logsafe.SafeArg;
+import com.palantir.logsafe.exceptions.SafeIllegalArgumentException;
+
+/**
+ * Compresses values as single Zstd frames, optionally using a trained dictionary. Dictionaries help most for small,
+ * similarly structured values such as JSON documents, where there is too little data in a single value for the
+ * compressor to learn from.
+ */
+final class ZstdCompressionCodec implements CompressionCodec {
+    private static final int COMPRESSION_LEVEL = 3;
+
+    @Nullable private final ZstdDictCompress compressionDictionary;
+    @Nullable private final ZstdDictDecompress decompressionDictionary;
+
+    ZstdCompressionCodec(@Nullable byte[] dictionary) {
+        this.compressionDictionary = dictionary == null ? null : new ZstdDictCompress(dictionary, COMPRESSION_LEVEL);
+        this.decompressionDictionary = dictionary == null ? null : new ZstdDictDecompress(dictionary);
+    }
+
+    @Override
+    public byte[] compress(byte[] bytes) {
+        return compressionDictionary == null
+                ? Zstd.compress(bytes, COMPRESSION_LEVEL)
+                : Zstd.compress(bytes, compressionDictionary);
+    }
+
+    @Override
+    public byte[] decompress(byte[] bytes) {
+        byte[] decompressed = new byte[decompressedLength(bytes)];
+        decompressInto(bytes, decompressed, 0);
+        return decompressed;
+    }
+
+    @Override
+    public ByteBuffer decompress(byte[] bytes, ByteBuffer reusableBuffer) {
+        int length = decompressedLength(bytes);
+        ByteBuffer buffer = CompressionCodecs.ensureCapacity(reusableBuffer, length);
+        decompressInto(bytes, buffer.array(), buffer.arrayOffset());
+        buffer.limit(length);
+        return buffer;
+    }
+
+    /**
+     * Values are compressed in a single pass, so frames always record their content size. Invalid frames report a
+     * negative size, and are rejected when decompressing into the (empty) destination.
+     */
+    private static int decompressedLength(byte[] bytes) {
+        return Math.toIntExact(Math.max(Zstd.decompressedSize(bytes), 0));
+    }
+
+    private void decompressInto(byte[] bytes, byte[] destination, int offset) {
+        long result = decompressionDictionary == null
+                ? Zstd.decompressByteArray(destination, offset, destination.length - offset, bytes, 0, bytes.length)
+                : Zstd.decompressFastDict(destination, offset, bytes, 0, bytes.length, decompressionDictionary);
+        if (Zstd.isError(result)) {
+            throw new SafeIllegalArgumentException("Cannot decompress these bytes using Zstd",
+                    SafeArg.of("error", Zstd.getErrorName(result)));
+        }
+    }
+}
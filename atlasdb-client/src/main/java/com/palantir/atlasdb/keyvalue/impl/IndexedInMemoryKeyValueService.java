@@ -0,0 +1,652 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.apache.commons.lang3.ArrayUtils;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.UnsignedBytes;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.palantir.atlasdb.AtlasDbConstants;
+import com.palantir.atlasdb.keyvalue.api.BatchColumnRangeSelection;
+import com.palantir.atlasdb.keyvalue.api.CandidateCellForSweeping;
+import com.palantir.atlasdb.keyvalue.api.CandidateCellForSweepingRequest;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.CheckAndSetCompatibility;
+import com.palantir.atlasdb.keyvalue.api.CheckAndSetException;
+import com.palantir.atlasdb.keyvalue.api.CheckAndSetRequest;
+import com.palantir.atlasdb.keyvalue.api.ClusterAvailabilityStatus;
+import com.palantir.atlasdb.keyvalue.api.ColumnRangeSelection;
+import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
+import com.palantir.atlasdb.keyvalue.api.KeyAlreadyExistsException;
+import com.palantir.atlasdb.keyvalue.api.RangeRequest;
+import com.palantir.atlasdb.keyvalue.api.RowColumnRangeIterator;
+import com.palantir.atlasdb.keyvalue.api.RowResult;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.keyvalue.api.TimestampRangeDelete;
+import com.palantir.atlasdb.keyvalue.api.Value;
+import com.palantir.common.base.ClosableIterator;
+import com.palantir.common.base.ClosableIterators;
+import com.palantir.common.exception.TableMappingNotFoundException;
+import com.palantir.util.paging.TokenBackedBasicResultsPage;
+
+/**
+ * In-memory (non-durable) key-value store implementation, laid out for read performance rather than simplicity.
+ * <p>
+ * Each table is a sorted map of rows to sorted maps of columns, and each cell keeps all of its versions in arrays
+ * sorted by timestamp. Reading the latest version of a cell below a timestamp is therefore a binary search rather than
+ * a walk over the older versions, and a range scan visits every cell once, however many versions it has. A cell's
+ * versions are replaced wholesale on every write, so readers never lock.
+ * <p>
+ * Values are copied when they are written, but not when they are read: callers must not modify the contents of the
+ * values returned by this key-value service.
+ * <p>
+ * Intended for testing and benchmarking use only.
+ */
+@ThreadSafe
+public class IndexedInMemoryKeyValueService extends AbstractKeyValueService {
+    private final ConcurrentMap<TableReference, Table> tables = Maps.newConcurrentMap();
+    private final ConcurrentMap<TableReference, byte[]> tableMetadata = Maps.newConcurrentMap();
+    private final boolean createTablesAutomatically;
+
+    public IndexedInMemoryKeyValueService(boolean createTablesAutomatically) {
+        this(createTablesAutomatically, MoreExecutors.newDirectExecutorService());
+    }
+
+    public IndexedInMemoryKeyValueService(boolean createTablesAutomatically, ExecutorService executor) {
+        super(executor);
+        this.createTablesAutomatically = createTablesAutomatically;
+    }
+
+    @Override
+    public Map<Cell, Value> getRows(TableReference tableRef, Iterable<byte[]> rows,
+                                    ColumnSelection columnSelection, long timestamp) {
+        Table table = getTable(tableRef);
+        Map<Cell, Value> result = Maps.newHashMap();
+        for (byte[] row : rows) {
+            ConcurrentNavigableMap<byte[], Versions> columns = table.rows.get(row);
+            if (columns == null) {
+                continue;
+            }
+            if (columnSelection.allColumnsSelected()) {
+                columns.forEach((col, versions) -> putLatestVersion(row, col, versions, timestamp, result));
+            } else {
+                for (byte[] col : columnSelection.getSelectedColumns()) {
+                    Versions versions = columns.get(col);
+                    if (versions != null) {
+                        putLatestVersion(row, col, versions, timestamp, result);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void putLatestVersion(byte[] row, byte[] col, Versions versions, long timestamp,
+                                         Map<Cell, Value> result) {
+        Value value = versions.current.latestBefore(timestamp);
+        if (value != null) {
+            result.put(Cell.create(row, col), value);
+        }
+    }
+
+    @Override
+    public Map<Cell, Value> get(TableReference tableRef, Map<Cell, Long> timestampByCell) {
+        Table table = getTable(tableRef);
+        Map<Cell, Value> result = Maps.newHashMap();
+        for (Map.Entry<Cell, Long> e : timestampByCell.entrySet()) {
+            Versions versions = table.getVersions(e.getKey());
+            if (versions != null) {
+                Value value = versions.current.latestBefore(e.getValue());
+                if (value != null) {
+                    result.put(e.getKey(), value);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Map<RangeRequest, TokenBackedBasicResultsPage<RowResult<Value>, byte[]>> getFirstBatchForRanges(
+            TableReference tableRef,
+            Iterable<RangeRequest> rangeRequests,
+            long timestamp) {
+        return KeyValueServices.getFirstBatchForRangesUsingGetRange(this, tableRef, rangeRequests, timestamp);
+    }
+
+    @Override
+    public ClosableIterator<RowResult<Value>> getRange(
+            TableReference tableRef,
+            RangeRequest range,
+            long timestamp) {
+        return getRangeInternal(tableRef, range, versions -> versions.latestBefore(timestamp));
+    }
+
+    @Override
+    public ClosableIterator<RowResult<Set<Long>>> getRangeOfTimestamps(
+            TableReference tableRef,
+            RangeRequest range,
+            long timestamp) {
+        return getRangeInternal(tableRef, range, versions -> {
+            int end = versions.indexOf(timestamp);
+            if (end == 0) {
+                return null;
+            }
+            Set<Long> timestamps = Sets.newTreeSet();
+            for (int i = 0; i < end; i++) {
+                timestamps.add(versions.timestamps[i]);
+            }
+            return timestamps;
+        });
+    }
+
+    @Override
+    public ClosableIterator<List<CandidateCellForSweeping>> getCandidateCellsForSweeping(TableReference tableRef,
+            CandidateCellForSweepingRequest request) {
+        return new GetCandidateCellsForSweepingShim(this).getCandidateCellsForSweeping(tableRef, request);
+    }
+
+    private <T> ClosableIterator<RowResult<T>> getRangeInternal(TableReference tableRef,
+                                                                RangeRequest range,
+                                                                Function<VersionArrays, T> resultProducer) {
+        ConcurrentNavigableMap<byte[], ConcurrentNavigableMap<byte[], Versions>> rows = getTable(tableRef).rows;
+        if (range.isReverse()) {
+            // in a descending map, the tail holds the smaller rows and the head the larger ones
+            rows = rows.descendingMap();
+        }
+        if (range.getStartInclusive().length != 0) {
+            rows = rows.tailMap(range.getStartInclusive(), true);
+        }
+        if (range.getEndExclusive().length != 0) {
+            rows = rows.headMap(range.getEndExclusive(), false);
+        }
+        Iterator<Entry<byte[], ConcurrentNavigableMap<byte[], Versions>>> it = rows.entrySet().iterator();
+        return ClosableIterators.wrap(new AbstractIterator<RowResult<T>>() {
+            @Override
+            protected RowResult<T> computeNext() {
+                while (it.hasNext()) {
+                    Entry<byte[], ConcurrentNavigableMap<byte[], Versions>> row = it.next();
+                    SortedMap<byte[], T> columns = collectColumns(row.getValue(), range, resultProducer);
+                    if (!columns.isEmpty()) {
+                        return RowResult.create(row.getKey(), columns);
+                    }
+                }
+                return endOfData();
+            }
+        });
+    }
+
+    private static <T> SortedMap<byte[], T> collectColumns(NavigableMap<byte[], Versions> columns,
+                                                           RangeRequest range,
+                                                           Function<VersionArrays, T> resultProducer) {
+        ImmutableSortedMap.Builder<byte[], T> result = ImmutableSortedMap.orderedBy(
+                UnsignedBytes.lexicographicalComparator());
+        if (range.getColumnNames().isEmpty()) {
+            columns.forEach((col, versions) -> putIfNonNull(result, col, resultProducer.apply(versions.current)));
+        } else {
+            for (byte[] col : range.getColumnNames()) {
+                Versions versions = columns.get(col);
+                if (versions != null) {
+                    putIfNonNull(result, col, resultProducer.apply(versions.current));
+                }
+            }
+        }
+        return result.build();
+    }
+
+    private static <T> void putIfNonNull(ImmutableSortedMap.Builder<byte[], T> result, byte[] col, @Nullable T value) {
+        if (value != null) {
+            result.put(col, value);
+        }
+    }
+
+    @Override
+    public Map<byte[], RowColumnRangeIterator> getRowsColumnRange(TableReference tableRef,
+                                                                  Iterable<byte[]> rows,
+                                                                  BatchColumnRangeSelection batchColumnRangeSelection,
+                                                                  long timestamp) {
+        Table table = getTable(tableRef);
+        ColumnRangeSelection columnRangeSelection = new ColumnRangeSelection(
+                batchColumnRangeSelection.getStartCol(),
+                batchColumnRangeSelection.getEndCol());
+        Map<byte[], RowColumnRangeIterator> result = Maps.newHashMap();
+        for (byte[] row : rows) {
+            result.put(row, getColumnRangeForSingleRow(table, row, columnRangeSelection, timestamp));
+        }
+        return result;
+    }
+
+    @Override
+    public RowColumnRangeIterator getRowsColumnRange(TableReference tableRef,
+                                                     Iterable<byte[]> rows,
+                                                     ColumnRangeSelection columnRangeSelection,
+                                                     int cellBatchHint,
+                                                     long timestamp) {
+        Table table = getTable(tableRef);
+        Iterator<RowColumnRangeIterator> rowColumnRanges =
+                Iterators.transform(rows.iterator(),
+                        row -> getColumnRangeForSingleRow(table, row, columnRangeSelection, timestamp));
+        return new LocalRowColumnRangeIterator(Iterators.concat(rowColumnRanges));
+    }
+
+    private static RowColumnRangeIterator getColumnRangeForSingleRow(Table table,
+                                                                     byte[] row,
+                                                                     ColumnRangeSelection columnRangeSelection,
+                                                                     long timestamp) {
+        NavigableMap<byte[], Versions> columns = table.rows.get(row);
+        if (columns == null) {
+            return new LocalRowColumnRangeIterator(Collections.emptyIterator());
+        }
+        if (columnRangeSelection.getStartCol().length > 0) {
+            columns = columns.tailMap(columnRangeSelection.getStartCol(), true);
+        }
+        if (columnRangeSelection.getEndCol().length > 0) {
+            columns = columns.headMap(columnRangeSelection.getEndCol(), false);
+        }
+        Map<Cell, Value> rowResults = new LinkedHashMap<>();
+        columns.forEach((col, versions) -> putLatestVersion(row, col, versions, timestamp, rowResults));
+        return new LocalRowColumnRangeIterator(rowResults.entrySet().iterator());
+    }
+
+    @Override
+    public void multiPut(Map<TableReference, ? extends Map<Cell, byte[]>> valuesByTable, long timestamp) {
+        valuesByTable.forEach((tableRef, values) -> put(tableRef, values, timestamp));
+    }
+
+    @Override
+    public void put(TableReference tableRef, Map<Cell, byte[]> values, long timestamp) {
+        putInternal(tableRef, KeyValueServices.toConstantTimestampValues(values.entrySet(), timestamp), false);
+    }
+
+    @Override
+    public void putWithTimestamps(TableReference tableRef, Multimap<Cell, Value> values) {
+        putInternal(tableRef, values.entries(), false);
+    }
+
+    @Override
+    public void putUnlessExists(TableReference tableRef, Map<Cell, byte[]> values)
+            throws KeyAlreadyExistsException {
+        putInternal(tableRef,
+                KeyValueServices.toConstantTimestampValues(values.entrySet(), AtlasDbConstants.TRANSACTION_TS),
+                true);
+    }
+
+    private void putInternal(
+            TableReference tableRef,
+            Collection<Map.Entry<Cell, Value>> values,
+            boolean doNotOverwriteWithSameValue) {
+        Table table = getTable(tableRef);
+        List<Cell> knownSuccessfullyCommittedKeys = new ArrayList<>();
+        for (Map.Entry<Cell, Value> entry : values) {
+            byte[] contents = entry.getValue().getContents();
+            long timestamp = entry.getValue().getTimestamp();
+
+            byte[] oldContents = table.updateVersions(entry.getKey(),
+                    versions -> versions.putIfAbsent(timestamp, contents));
+            if (oldContents != null && (doNotOverwriteWithSameValue || !Arrays.equals(oldContents, contents))) {
+                throw new KeyAlreadyExistsException("We already have a value for this timestamp",
+                        ImmutableList.of(entry.getKey()), knownSuccessfullyCommittedKeys);
+            }
+            knownSuccessfullyCommittedKeys.add(entry.getKey());
+        }
+    }
+
+    @Override
+    public CheckAndSetCompatibility getCheckAndSetCompatibility() {
+        return CheckAndSetCompatibility.SUPPORTED_DETAIL_ON_FAILURE;
+    }
+
+    @Override
+    public void checkAndSet(CheckAndSetRequest request) throws CheckAndSetException {
+        TableReference tableRef = request.table();
+        Cell cell = request.cell();
+        Optional<byte[]> oldValue = request.oldValue();
+        byte[] contents = request.newValue();
+
+        getTable(tableRef).updateVersions(cell, versions -> {
+            byte[] storedValue = versions.current.get(AtlasDbConstants.TRANSACTION_TS);
+            if (oldValue.isPresent() ? !Arrays.equals(storedValue, oldValue.get()) : storedValue != null) {
+                ImmutableList<byte[]> actuals = storedValue == null
+                        ? ImmutableList.of()
+                        : ImmutableList.of(storedValue);
+                throw new CheckAndSetException(cell, tableRef, oldValue.orElse(null), actuals);
+            }
+            versions.put(AtlasDbConstants.TRANSACTION_TS, contents);
+            return null;
+        });
+    }
+
+    @Override
+    public void delete(TableReference tableRef, Multimap<Cell, Long> keys) {
+        Table table = getTable(tableRef);
+        for (Map.Entry<Cell, Long> e : keys.entries()) {
+            table.removeVersions(e.getKey(), e.getValue(), e.getValue());
+        }
+    }
+
+    @Override
+    public void deleteAllTimestamps(TableReference tableRef, Map<Cell, TimestampRangeDelete> deletes) {
+        Table table = getTable(tableRef);
+        deletes.forEach((cell, delete) ->
+                table.removeVersions(cell, delete.minTimestampToDelete(), delete.maxTimestampToDelete()));
+    }
+
+    @Override
+    public Multimap<Cell, Long> getAllTimestamps(TableReference tableRef, Set<Cell> cells, long ts) {
+        Table table = getTable(tableRef);
+        Multimap<Cell, Long> multimap = HashMultimap.create();
+        for (Cell cell : cells) {
+            Versions versions = table.getVersions(cell);
+            if (versions != null) {
+                VersionArrays current = versions.current;
+                int end = current.indexOf(ts);
+                for (int i = 0; i < end; i++) {
+                    multimap.put(cell, current.timestamps[i]);
+                }
+            }
+        }
+        return multimap;
+    }
+
+    @Override
+    public void dropTable(TableReference tableRef) {
+        tables.remove(tableRef);
+        tableMetadata.remove(tableRef);
+    }
+
+    @Override
+    public void truncateTables(Set<TableReference> tableRefs) {
+        tableRefs.forEach(this::truncateTable);
+    }
+
+    @Override
+    public void truncateTable(TableReference tableRef) {
+        Table table = tables.get(tableRef);
+        if (table != null) {
+            table.rows.clear();
+        } else {
+            throw tableMappingException(tableRef);
+        }
+    }
+
+    @Override
+    public void createTable(TableReference tableRef, byte[] metadata) {
+        tables.putIfAbsent(tableRef, new Table());
+        putMetadataForTable(tableRef, metadata);
+    }
+
+    @Override
+    public void putMetadataForTable(TableReference tableRef, byte[] metadata) {
+        if (!tables.containsKey(tableRef)) {
+            throw tableMappingException(tableRef);
+        }
+        tableMetadata.put(tableRef, metadata);
+    }
+
+    @Override
+    public byte[] getMetadataForTable(TableReference tableRef) {
+        if (!tables.containsKey(tableRef)) {
+            return AtlasDbConstants.EMPTY_TABLE_METADATA;
+        }
+        byte[] ret = tableMetadata.get(tableRef);
+        return ret == null ? ArrayUtils.EMPTY_BYTE_ARRAY : ret;
+    }
+
+    @Override
+    public Set<TableReference> getAllTableNames() {
+        return ImmutableSet.copyOf(tables.keySet());
+    }
+
+    private Table getTable(TableReference tableRef) {
+        if (createTablesAutomatically && !tables.containsKey(tableRef)) {
+            createTable(tableRef, AtlasDbConstants.EMPTY_TABLE_METADATA);
+        }
+        Table table = tables.get(tableRef);
+        if (table == null) {
+            throw tableMappingException(tableRef);
+        }
+        return table;
+    }
+
+    @Override
+    public void addGarbageCollectionSentinelValues(TableReference tableRef, Iterable<Cell> cells) {
+        Table table = getTable(tableRef);
+        for (Cell cell : cells) {
+            table.updateVersions(cell, versions -> {
+                versions.put(Value.INVALID_VALUE_TIMESTAMP, ArrayUtils.EMPTY_BYTE_ARRAY);
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public void compactInternally(TableReference tableRef) {
+        // nothing to do
+    }
+
+    @Override
+    public ClusterAvailabilityStatus getClusterAvailabilityStatus() {
+        return ClusterAvailabilityStatus.ALL_AVAILABLE;
+    }
+
+    private static IllegalArgumentException tableMappingException(TableReference tableReference) {
+        return new IllegalArgumentException(
+                new TableMappingNotFoundException(
+                        "Table " + tableReference.getQualifiedName() + " does not exist"));
+    }
+
+    @Override
+    public ListenableFuture<Map<Cell, Value>> getAsync(TableReference tableRef, Map<Cell, Long> timestampByCell) {
+        return Futures.immediateFuture(get(tableRef, timestampByCell));
+    }
+
+    private static final class Table {
+        final ConcurrentSkipListMap<byte[], ConcurrentNavigableMap<byte[], Versions>> rows =
+                new ConcurrentSkipListMap<>(UnsignedBytes.lexicographicalComparator());
+
+        @Nullable
+        Versions getVersions(Cell cell) {
+            ConcurrentNavigableMap<byte[], Versions> columns = rows.get(cell.getRowName());
+            return columns == null ? null : columns.get(cell.getColumnName());
+        }
+
+        /**
+         * Applies the given update to the versions of the given cell, creating them if needed, while holding their
+         * lock. If the cell is left without versions, for example because the update failed, it is removed.
+         */
+        <T> T updateVersions(Cell cell, Function<Versions, T> update) {
+            while (true) {
+                ConcurrentNavigableMap<byte[], Versions> columns = rows.computeIfAbsent(cell.getRowName(),
+                        unused -> new ConcurrentSkipListMap<>(UnsignedBytes.lexicographicalComparator()));
+                Versions versions = columns.computeIfAbsent(cell.getColumnName(), unused -> new Versions());
+                synchronized (versions) {
+                    // if the versions were removed after we looked them up, try again with new ones
+                    if (!versions.removed) {
+                        try {
+                            return update.apply(versions);
+                        } finally {
+                            removeIfEmpty(columns, cell.getColumnName(), versions);
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Removes the versions of the given cell between the given timestamps, inclusive, and the cell itself if it
+         * has no versions left. Rows are never removed, as an empty row is only ever skipped over.
+         */
+        void removeVersions(Cell cell, long minTimestamp, long maxTimestamp) {
+            ConcurrentNavigableMap<byte[], Versions> columns = rows.get(cell.getRowName());
+            Versions versions = columns == null ? null : columns.get(cell.getColumnName());
+            if (versions == null) {
+                return;
+            }
+            synchronized (versions) {
+                versions.removeBetween(minTimestamp, maxTimestamp);
+                removeIfEmpty(columns, cell.getColumnName(), versions);
+            }
+        }
+
+        @GuardedBy("versions")
+        private static void removeIfEmpty(ConcurrentNavigableMap<byte[], Versions> columns, byte[] col,
+                                          Versions versions) {
+            if (versions.current.timestamps.length == 0 && !versions.removed) {
+                versions.removed = true;
+                columns.remove(col, versions);
+            }
+        }
+    }
+
+    /**
+     * All the versions of a single cell. Readers read the current arrays without locking; writers hold the lock on
+     * this object and replace the arrays.
+     */
+    private static final class Versions {
+        volatile VersionArrays current = VersionArrays.EMPTY;
+        @GuardedBy("this")
+        boolean removed = false;
+
+        /**
+         * Stores a copy of the given contents at the given timestamp if there is nothing there yet, and otherwise
+         * returns the contents that are already there.
+         */
+        @GuardedBy("this")
+        @Nullable
+        byte[] putIfAbsent(long timestamp, byte[] contents) {
+            byte[] existing = current.get(timestamp);
+            if (existing == null) {
+                put(timestamp, contents);
+            }
+            return existing;
+        }
+
+        @GuardedBy("this")
+        void put(long timestamp, byte[] contents) {
+            current = current.with(timestamp, Arrays.copyOf(contents, contents.length));
+        }
+
+        @GuardedBy("this")
+        void removeBetween(long minTimestamp, long maxTimestamp) {
+            current = current.without(minTimestamp, maxTimestamp);
+        }
+    }
+
+    /**
+     * Immutable once published: the timestamps of a cell in ascending order, and the contents at each timestamp.
+     */
+    private static final class VersionArrays {
+        static final VersionArrays EMPTY = new VersionArrays(new long[0], new byte[0][]);
+
+        final long[] timestamps;
+        final byte[][] contents;
+
+        VersionArrays(long[] timestamps, byte[][] contents) {
+            this.timestamps = timestamps;
+            this.contents = contents;
+        }
+
+        /**
+         * Returns the number of versions strictly before the given timestamp, which is also the index of the version
+         * at the given timestamp, if any.
+         */
+        int indexOf(long timestamp) {
+            int index = Arrays.binarySearch(timestamps, timestamp);
+            return index >= 0 ? index : -(index + 1);
+        }
+
+        @Nullable
+        byte[] get(long timestamp) {
+            int index = Arrays.binarySearch(timestamps, timestamp);
+            return index >= 0 ? contents[index] : null;
+        }
+
+        @Nullable
+        Value latestBefore(long timestamp) {
+            int index = indexOf(timestamp) - 1;
+            return index >= 0 ? Value.create(contents[index], timestamps[index]) : null;
+        }
+
+        VersionArrays with(long timestamp, byte[] value) {
+            int index = Arrays.binarySearch(timestamps, timestamp);
+            if (index >= 0) {
+                byte[][] newContents = contents.clone();
+                newContents[index] = value;
+                return new VersionArrays(timestamps, newContents);
+            }
+            int insertAt = -(index + 1);
+            long[] newTimestamps = new long[timestamps.length + 1];
+            byte[][] newContents = new byte[contents.length + 1][];
+            System.arraycopy(timestamps, 0, newTimestamps, 0, insertAt);
+            System.arraycopy(contents, 0, newContents, 0, insertAt);
+            newTimestamps[insertAt] = timestamp;
+            newContents[insertAt] = value;
+            System.arraycopy(timestamps, insertAt, newTimestamps, insertAt + 1, timestamps.length - insertAt);
+            System.arraycopy(contents, insertAt, newContents, insertAt + 1, contents.length - insertAt);
+            return new VersionArrays(newTimestamps, newContents);
+        }
+
+        VersionArrays without(long minTimestamp, long maxTimestamp) {
+            int from = indexOf(minTimestamp);
+            int to = maxTimestamp == Long.MAX_VALUE ? timestamps.length : indexOf(maxTimestamp + 1);
+            if (from >= to) {
+                return this;
+            }
+            int removed = to - from;
+            long[] newTimestamps = new long[timestamps.length - removed];
+            byte[][] newContents = new byte[contents.length - removed][];
+            System.arraycopy(timestamps, 0, newTimestamps, 0, from);
+            System.arraycopy(contents, 0, newContents, 0, from);
+            System.arraycopy(timestamps, to, newTimestamps, from, timestamps.length - to);
+            System.arraycopy(contents, to, newContents, from, contents.length - to);
+            return new VersionArrays(newTimestamps, newContents);
+        }
+    }
+}
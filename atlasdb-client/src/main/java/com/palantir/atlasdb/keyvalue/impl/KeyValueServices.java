@@ -18,6 +18,7 @@ package com.palantir.atlasdb.keyvalue.impl;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
@@ -234,6 +235,37 @@ public class KeyValueServices {
                 return Futures.immediateFuture(keyValueService.get(tableRef, timestampByCell));
             }
 
+            @Override
+            public ListenableFuture<Map<Cell, Value>> getRowsAsync(
+                    TableReference tableRef,
+                    Iterable<byte[]> rows,
+                    ColumnSelection columnSelection,
+                    long timestamp) {
+                return Futures.immediateFuture(keyValueService.getRows(tableRef, rows, columnSelection, timestamp));
+            }
+
+            @Override
+            public ListenableFuture<Map<Cell, Value>> getRowsColumnRangeAsync(
+                    TableReference tableRef,
+                    Iterable<byte[]> rows,
+                    ColumnRangeSelection columnRangeSelection,
+                    long timestamp) {
+                Map<Cell, Value> result = new HashMap<>();
+                keyValueService.getRowsColumnRange(tableRef, rows, columnRangeSelection, 1_000, timestamp)
+                        .forEachRemaining(entry -> result.put(entry.getKey(), entry.getValue()));
+                return Futures.immediateFuture(result);
+            }
+
+            @Override
+            public ListenableFuture<TokenBackedBasicResultsPage<RowResult<Value>, byte[]>> getFirstBatchForRangeAsync(
+                    TableReference tableRef,
+                    RangeRequest rangeRequest,
+                    long timestamp) {
+                return Futures.immediateFuture(keyValueService
+                        .getFirstBatchForRanges(tableRef, ImmutableList.of(rangeRequest), timestamp)
+                        .get(rangeRequest));
+            }
+
             @Override
             public void close() {
                 // NoOp
@@ -15,6 +15,7 @@
  */
 package com.palantir.atlasdb.schema;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -29,6 +30,7 @@ import com.palantir.atlasdb.encoding.PtBytes;
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
 import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.api.RangeRequest;
 import com.palantir.atlasdb.keyvalue.api.RowResult;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.atlasdb.ptobject.EncodingUtils;
@@ -41,12 +43,17 @@ import com.palantir.atlasdb.transaction.api.ConflictHandler;
 import com.palantir.atlasdb.transaction.api.Transaction;
 import com.palantir.atlasdb.transaction.api.TransactionManager;
 import com.palantir.atlasdb.transaction.api.TransactionTask;
+import com.palantir.common.base.BatchingVisitables;
 
 /**
  * This checkpointer creates a temporary table for checkpointing.
  */
 public class GeneralTaskCheckpointer extends AbstractTaskCheckpointer {
     private static final String SHORT_COLUMN_NAME = "s";
+    private static final String END_COLUMN_NAME = "e";
+    private static final List<EncodingType> ROW_TYPES = ImmutableList.of(
+            new EncodingType(ValueType.VAR_STRING),
+            new EncodingType(ValueType.VAR_LONG));
 
     private final TableReference checkpointTable;
     private final KeyValueService kvs;
@@ -73,6 +80,37 @@ public class GeneralTaskCheckpointer extends AbstractTaskCheckpointer {
         return fromDb(value);
     }
 
+    /**
+     * Records that the given range now ends at endRowExclusive, which is the empty byte array if the range extends to
+     * the end of the table. This is used when splitting ranges, so that the new ranges can be recovered with
+     * {@link #getRangeEnds(String, Transaction)}.
+     */
+    public void setRangeEnd(String extraId, long rangeId, byte[] endRowExclusive, Transaction tx) {
+        Cell cell = Cell.create(getRowName(extraId, rangeId), PtBytes.toBytes(END_COLUMN_NAME));
+        tx.put(checkpointTable, ImmutableMap.of(cell, toDb(endRowExclusive, true)));
+    }
+
+    /**
+     * Returns the ends recorded with {@link #setRangeEnd(String, long, byte[], Transaction)}, by range id. Ranges
+     * whose end was never recorded are not included.
+     */
+    public Map<Long, byte[]> getRangeEnds(String extraId, Transaction tx) {
+        byte[] endColumn = PtBytes.toBytes(END_COLUMN_NAME);
+        RangeRequest range = RangeRequest.builder()
+                .prefixRange(EncodingUtils.encodeVarString(extraId))
+                .retainColumns(ColumnSelection.create(ImmutableList.of(endColumn)))
+                .build();
+        Map<Long, byte[]> endById = new HashMap<>();
+        for (RowResult<byte[]> row : BatchingVisitables.copyToList(tx.getRange(checkpointTable, range))) {
+            byte[] end = row.getColumns().get(endColumn);
+            if (end != null) {
+                long rangeId = (Long) EncodingUtils.fromBytes(row.getRowName(), ROW_TYPES).get(1);
+                endById.put(rangeId, fromDb(end));
+            }
+        }
+        return endById;
+    }
+
     @Override
     public void createCheckpoints(final String extraId,
                                   final Map<Long, byte[]> startById) {
@@ -114,13 +152,10 @@ public class GeneralTaskCheckpointer extends AbstractTaskCheckpointer {
     }
 
     private byte[] getRowName(String extraId, long rangeId) {
-        List<EncodingType> types = ImmutableList.of(
-                new EncodingType(ValueType.VAR_STRING),
-                new EncodingType(ValueType.VAR_LONG));
         List<Object> components = ImmutableList.<Object>of(
                 extraId,
                 rangeId);
-        return EncodingUtils.toBytes(types, components);
+        return EncodingUtils.toBytes(ROW_TYPES, components);
     }
 
     @SuppressWarnings({"checkstyle:Indentation", "checkstyle:RightCurly"})
@@ -132,6 +167,7 @@ public class GeneralTaskCheckpointer extends AbstractTaskCheckpointer {
                 rowComponent("range_id",   ValueType.VAR_LONG);
             columns();
                 column("start", SHORT_COLUMN_NAME, ValueType.BLOB);
+                column("end", END_COLUMN_NAME, ValueType.BLOB);
             rangeScanAllowed();
             conflictHandler(ConflictHandler.IGNORE_ALL);
         }});
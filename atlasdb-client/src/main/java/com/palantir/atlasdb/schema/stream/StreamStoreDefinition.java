@@ -38,6 +38,7 @@ public class StreamStoreDefinition {
     private final String longName;
     private final ValueType idType;
     private final StreamCompression streamCompression;
+    private final String compressionDictionary;
     private final int numberOfRowComponentsHashed;
 
     private int inMemoryThreshold;
@@ -49,6 +50,7 @@ public class StreamStoreDefinition {
             ValueType idType,
             int inMemoryThreshold,
             StreamCompression streamCompression,
+            String compressionDictionary,
             int numberOfRowComponentsHashed) {
         this.streamStoreTables = streamStoreTables;
         this.shortName = shortName;
@@ -56,6 +58,7 @@ public class StreamStoreDefinition {
         this.idType = idType;
         this.inMemoryThreshold = inMemoryThreshold;
         this.streamCompression = streamCompression;
+        this.compressionDictionary = compressionDictionary;
         this.numberOfRowComponentsHashed = numberOfRowComponentsHashed;
     }
 
@@ -74,7 +77,7 @@ public class StreamStoreDefinition {
     public StreamStoreRenderer getRenderer(String packageName, String name) {
         String renderedLongName = Renderers.CamelCase(longName);
         return new StreamStoreRenderer(renderedLongName, idType, packageName, name, inMemoryThreshold,
-                streamCompression);
+                streamCompression, compressionDictionary);
     }
 
     public Multimap<String, Supplier<OnCleanupTask>> getCleanupTasks(
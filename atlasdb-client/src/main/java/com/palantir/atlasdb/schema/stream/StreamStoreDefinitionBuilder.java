@@ -34,6 +34,7 @@ public class StreamStoreDefinitionBuilder {
             Maps.newHashMapWithExpectedSize(StreamTableType.values().length);
     private int inMemoryThreshold = AtlasDbConstants.DEFAULT_STREAM_IN_MEMORY_THRESHOLD;
     private StreamCompression compressStreamType;
+    private String compressionDictionary;
     private int numberOfRowComponentsHashed = 0;
 
     /**
@@ -111,6 +112,17 @@ public class StreamStoreDefinitionBuilder {
         return this;
     }
 
+    /**
+     * Compresses streams in the client with {@link StreamCompression#ZSTD}, using the trained dictionary in the given
+     * classpath resource. Do not change the dictionary for an existing store, as streams stored with it could then no
+     * longer be read.
+     */
+    public StreamStoreDefinitionBuilder compressStreamInClientWithDictionary(String dictionaryResource) {
+        compressStreamType = StreamCompression.ZSTD;
+        compressionDictionary = dictionaryResource;
+        return this;
+    }
+
     public StreamStoreDefinitionBuilder inMemoryThreshold(int inMemoryThreshold) {
         this.inMemoryThreshold = inMemoryThreshold;
         return this;
@@ -131,6 +143,7 @@ public class StreamStoreDefinitionBuilder {
                 valueType,
                 inMemoryThreshold,
                 compressStreamType,
+                compressionDictionary,
                 numberOfRowComponentsHashed);
     }
 
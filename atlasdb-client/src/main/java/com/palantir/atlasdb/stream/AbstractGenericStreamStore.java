@@ -28,6 +28,7 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,12 +53,21 @@ public abstract class AbstractGenericStreamStore<T> implements GenericStreamStor
 
     @CheckForNull protected final TransactionManager txnMgr;
     private final StreamCompression compression;
+    @Nullable private final byte[] compressionDictionary;
 
     protected AbstractGenericStreamStore(
             TransactionManager txManager,
             StreamCompression compression) {
+        this(txManager, compression, null);
+    }
+
+    protected AbstractGenericStreamStore(
+            TransactionManager txManager,
+            StreamCompression compression,
+            @Nullable byte[] compressionDictionary) {
         this.txnMgr = txManager;
         this.compression = compression;
+        this.compressionDictionary = compressionDictionary;
     }
 
     private long getNumberOfBlocksFromMetadata(StreamMetadata metadata) {
@@ -102,7 +112,7 @@ public abstract class AbstractGenericStreamStore<T> implements GenericStreamStor
 
     private InputStream getStream(Transaction transaction, T id, StreamMetadata metadata) {
         try {
-            return compression.decompress(tryGetStream(transaction, id, metadata));
+            return compression.decompress(tryGetStream(transaction, id, metadata), compressionDictionary);
         } catch (FileNotFoundException e) {
             log.error("Error opening temp file for stream {}", id, e);
             throw Throwables.rewrapAndThrowUncheckedException("Could not open temp file to create stream.", e);
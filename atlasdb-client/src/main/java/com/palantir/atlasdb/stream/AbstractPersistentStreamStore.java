@@ -50,6 +50,7 @@ public abstract class AbstractPersistentStreamStore extends AbstractGenericStrea
         implements PersistentStreamStore {
     private final StreamStoreBackoffStrategy backoffStrategy;
     private final StreamCompression compression;
+    @Nullable private final byte[] compressionDictionary;
 
     protected AbstractPersistentStreamStore(TransactionManager txManager,
             StreamCompression compression) {
@@ -59,8 +60,20 @@ public abstract class AbstractPersistentStreamStore extends AbstractGenericStrea
     protected AbstractPersistentStreamStore(TransactionManager txManager,
             StreamCompression compression,
             Supplier<StreamStorePersistenceConfiguration> persistenceConfiguration) {
-        super(txManager, compression);
+        this(txManager, compression, null, persistenceConfiguration);
+    }
+
+    /**
+     * @param compressionDictionary trained dictionary to compress streams with; only used by
+     * {@link StreamCompression#ZSTD}, and must not change once streams have been stored with it
+     */
+    protected AbstractPersistentStreamStore(TransactionManager txManager,
+            StreamCompression compression,
+            @Nullable byte[] compressionDictionary,
+            Supplier<StreamStorePersistenceConfiguration> persistenceConfiguration) {
+        super(txManager, compression, compressionDictionary);
         this.compression = compression;
+        this.compressionDictionary = compressionDictionary;
         this.backoffStrategy = StandardPeriodicBackoffStrategy.create(persistenceConfiguration);
     }
 
@@ -154,7 +167,7 @@ public abstract class AbstractPersistentStreamStore extends AbstractGenericStrea
     protected StreamMetadata storeBlocksAndGetFinalMetadata(@Nullable Transaction tx, long id, InputStream stream) {
         MessageDigest digest = Sha256Hash.getMessageDigest();
         try (InputStream hashingStream = new DigestInputStream(stream, digest);
-                InputStream compressingStream = compression.compress(hashingStream)) {
+                InputStream compressingStream = compression.compress(hashingStream, compressionDictionary)) {
             StreamMetadata metadata = storeBlocksAndGetHashlessMetadata(tx, id, compressingStream);
             return StreamMetadata.newBuilder(metadata)
                     .setHash(ByteString.copyFrom(digest.digest()))
@@ -29,6 +29,7 @@ import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.CharMatcher;
 import com.google.protobuf.AbstractMessage;
 import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
 import com.google.protobuf.Descriptors.Descriptor;
@@ -72,7 +73,13 @@ public final class ColumnValueDescription {
 
     public enum Compression {
         SNAPPY,
-        NONE;
+        NONE,
+        LZ4,
+        /**
+         * Zstd compression, optionally with a trained dictionary; see
+         * {@link TableDefinition#compressionDictionary(String)}.
+         */
+        ZSTD;
 
         public TableMetadataPersistence.Compression persistToProto() {
             return TableMetadataPersistence.Compression.valueOf(name());
@@ -85,6 +92,8 @@ public final class ColumnValueDescription {
 
     final Format format;
     final Compression compression;
+    // classpath resource holding the ZSTD dictionary, or null if none
+    @Nullable final String compressionDictionary;
     final ValueType type;
     @Nullable final String className; // null if format is VALUE_TYPE
 
@@ -93,8 +102,13 @@ public final class ColumnValueDescription {
     @Nullable final Descriptor protoDescriptor;
 
     private ColumnValueDescription(ValueType type, Compression compression) {
+        this(type, compression, null);
+    }
+
+    private ColumnValueDescription(ValueType type, Compression compression, @Nullable String compressionDictionary) {
         this.format = Format.VALUE_TYPE;
         this.compression = Preconditions.checkNotNull(compression);
+        this.compressionDictionary = checkCompressionDictionary(compression, compressionDictionary);
         this.type = Preconditions.checkNotNull(type);
         this.canonicalClassName = null;
         this.className = null;
@@ -158,7 +172,17 @@ public final class ColumnValueDescription {
                                    String canonicalClassName,
                                    Compression compression,
                                    Descriptor protoDescriptor) {
+        this(format, className, canonicalClassName, compression, null, protoDescriptor);
+    }
+
+    private ColumnValueDescription(Format format,
+                                   String className,
+                                   String canonicalClassName,
+                                   Compression compression,
+                                   @Nullable String compressionDictionary,
+                                   Descriptor protoDescriptor) {
         this.compression = Preconditions.checkNotNull(compression);
+        this.compressionDictionary = checkCompressionDictionary(compression, compressionDictionary);
         this.type = ValueType.BLOB;
         this.format = Preconditions.checkNotNull(format);
         Validate.notEmpty(className, "className should not be empty");
@@ -169,6 +193,32 @@ public final class ColumnValueDescription {
         this.protoDescriptor = protoDescriptor;
     }
 
+    @Nullable
+    private static String checkCompressionDictionary(Compression compression, @Nullable String dictionary) {
+        if (dictionary != null) {
+            Preconditions.checkArgument(compression == Compression.ZSTD,
+                    "Only ZSTD compression supports dictionaries");
+            Preconditions.checkArgument(CharMatcher.anyOf("\"\\").matchesNoneOf(dictionary),
+                    "Compression dictionary resource names may not contain quotes or backslashes");
+        }
+        return dictionary;
+    }
+
+    /**
+     * Returns a copy of this description that compresses with the trained dictionary in the given classpath resource.
+     * Has no effect unless values are compressed with {@link Compression#ZSTD}.
+     */
+    public ColumnValueDescription withCompressionDictionary(String dictionaryResource) {
+        if (compression != Compression.ZSTD) {
+            return this;
+        }
+        if (format == Format.VALUE_TYPE) {
+            return new ColumnValueDescription(type, compression, dictionaryResource);
+        }
+        return new ColumnValueDescription(
+                format, className, canonicalClassName, compression, dictionaryResource, protoDescriptor);
+    }
+
     public int getMaxValueSize() {
         return type.getMaxValueSize();
     }
@@ -181,6 +231,11 @@ public final class ColumnValueDescription {
         return compression;
     }
 
+    @Nullable
+    public String getCompressionDictionary() {
+        return compressionDictionary;
+    }
+
     public Format getFormat() {
         return format;
     }
@@ -248,7 +303,8 @@ public final class ColumnValueDescription {
             result = type.getPersistCode(varName);
         }
         return "com.palantir.atlasdb.compress.CompressionUtils.compress(" + result + ", " +
-                "com.palantir.atlasdb.table.description.ColumnValueDescription.Compression." + compression + ")";
+                "com.palantir.atlasdb.table.description.ColumnValueDescription.Compression." + compression +
+                renderDictionaryArgument() + ")";
     }
 
     public byte[] persistJsonToBytes(String str) throws ParseException {
@@ -280,7 +336,7 @@ public final class ColumnValueDescription {
         } else {
             bytes = type.convertFromString(str);
         }
-        return CompressionUtils.compress(bytes, compression);
+        return CompressionUtils.compress(bytes, compression, compressionDictionary);
     }
 
     private Message.Builder createBuilder(ClassLoader classLoader) {
@@ -344,7 +400,37 @@ public final class ColumnValueDescription {
 
     public String composeVarName(String varName) {
         return "com.palantir.atlasdb.compress.CompressionUtils.decompress(" + varName +
-                ", com.palantir.atlasdb.table.description.ColumnValueDescription.Compression." + compression + ")";
+                ", com.palantir.atlasdb.table.description.ColumnValueDescription.Compression." + compression +
+                renderDictionaryArgument() + ")";
+    }
+
+    /**
+     * Renders the trailing dictionary argument to pass to {@link CompressionUtils}, if this column has a dictionary.
+     */
+    public String renderDictionaryArgument() {
+        if (compressionDictionary == null) {
+            return "";
+        }
+        return ", \"" + compressionDictionary + "\"";
+    }
+
+    /**
+     * Whether values are hydrated straight out of a reusable decompression buffer, rather than out of a decompressed
+     * copy of each value. This is the case for compressed protocol buffers, which can be parsed from a buffer.
+     */
+    public boolean hydratesFromReusableBuffer() {
+        return format == Format.PROTO && compression != Compression.NONE;
+    }
+
+    /**
+     * Renders the input to pass to the generated protobuf parser.
+     */
+    public String renderProtoInput(String varName) {
+        if (!hydratesFromReusableBuffer()) {
+            return varName;
+        }
+        return "CompressionUtils.decompressIntoReusableBuffer(" + varName + ", Compression." + compression
+                + renderDictionaryArgument() + ")";
     }
 
     public String getInstantiateReusablePersisterCode() {
@@ -355,25 +441,34 @@ public final class ColumnValueDescription {
     @SuppressWarnings("unchecked")
     public Persistable hydratePersistable(ClassLoader classLoader, byte[] value) {
         Preconditions.checkState(format == Format.PERSISTABLE, "Column value is not a Persistable.");
-        return ColumnValues.parsePersistable((Class<? extends Persistable>)getImportClass(classLoader), CompressionUtils.decompress(value, compression));
+        return ColumnValues.parsePersistable((Class<? extends Persistable>)getImportClass(classLoader), CompressionUtils.decompress(value, compression, compressionDictionary));
     }
 
     public Object hydratePersister(ClassLoader classLoader, byte[] value) {
         Preconditions.checkState(format == Format.PERSISTER, "Column value is not a Persister.");
         Persister<?> persister = getPersister();
-        return persister.hydrateFromBytes(CompressionUtils.decompress(value, compression));
+        return persister.hydrateFromBytes(CompressionUtils.decompress(value, compression, compressionDictionary));
     }
 
     @SuppressWarnings("unchecked")
     public Message hydrateProto(ClassLoader classLoader, byte[] value) {
         Preconditions.checkState(format == Format.PROTO, "Column value is not a protocol buffer.");
-        return ColumnValues.parseProtoBuf((Class<? extends AbstractMessage>) getImportClass(classLoader), CompressionUtils.decompress(value, compression));
+        Class<? extends AbstractMessage> protoClass = (Class<? extends AbstractMessage>) getImportClass(classLoader);
+        if (hydratesFromReusableBuffer()) {
+            return ColumnValues.parseProtoBuf(protoClass,
+                    CompressionUtils.decompressIntoReusableBuffer(value, compression, compressionDictionary));
+        }
+        return ColumnValues.parseProtoBuf(protoClass,
+                CompressionUtils.decompress(value, compression, compressionDictionary));
     }
 
     public TableMetadataPersistence.ColumnValueDescription.Builder persistToProto() {
         Builder builder = TableMetadataPersistence.ColumnValueDescription.newBuilder();
         builder.setType(type.persistToProto());
         builder.setCompression(compression.persistToProto());
+        if (compressionDictionary != null) {
+            builder.setCompressionDictionary(compressionDictionary);
+        }
         if (className != null) {
             builder.setClassName(className);
         }
@@ -403,8 +498,9 @@ public final class ColumnValueDescription {
     public static ColumnValueDescription hydrateFromProto(TableMetadataPersistence.ColumnValueDescription message) {
         ValueType type = ValueType.hydrateFromProto(message.getType());
         Compression compression = Compression.hydrateFromProto(message.getCompression());
+        String compressionDictionary = message.hasCompressionDictionary() ? message.getCompressionDictionary() : null;
         if (!message.hasClassName()) {
-            return new ColumnValueDescription(type, compression);
+            return new ColumnValueDescription(type, compression, compressionDictionary);
         }
 
         Preconditions.checkArgument(type == ValueType.BLOB);
@@ -425,6 +521,7 @@ public final class ColumnValueDescription {
                         message.getClassName(),
                         message.getCanonicalClassName(),
                         compression,
+                        compressionDictionary,
                         protoDescriptor);
             } catch (Exception e) {
                 log.error("Failed to parse FileDescriptorProto.", e);
@@ -470,8 +567,8 @@ public final class ColumnValueDescription {
     @Override
     public String toString() {
         return "ColumnValueDescription [format=" + format + ", compression=" + compression
-                + ", type=" + type + ", className=" + className + ", canonicalClassName="
-                + canonicalClassName + "]";
+                + ", compressionDictionary=" + compressionDictionary + ", type=" + type
+                + ", className=" + className + ", canonicalClassName=" + canonicalClassName + "]";
     }
 
     @Override
@@ -481,6 +578,7 @@ public final class ColumnValueDescription {
         int result = 1;
         result = prime * result + (format == null ? 0 : format.hashCode());
         result = prime * result + (compression == null ? 0 : compression.hashCode());
+        result = prime * result + (compressionDictionary == null ? 0 : compressionDictionary.hashCode());
         result = prime * result + (type == null ? 0 : type.hashCode());
         result = prime * result + (className == null ? 0 : className.hashCode());
         result = prime * result + (canonicalClassName == null ? 0 : canonicalClassName.hashCode());
@@ -513,6 +611,13 @@ public final class ColumnValueDescription {
         } else if (!compression.equals(other.getCompression())) {
             return false;
         }
+        if (compressionDictionary == null) {
+            if (other.compressionDictionary != null) {
+                return false;
+            }
+        } else if (!compressionDictionary.equals(other.compressionDictionary)) {
+            return false;
+        }
         if (type == null) {
             if (other.type != null) {
                 return false;
@@ -323,6 +323,17 @@ public class TableDefinition extends AbstractDefinition {
                 "Can only define a constraint inside the constraints scope.");
     }
 
+    /**
+     * Compresses values of this table's {@link Compression#ZSTD} columns with a trained dictionary, which is loaded
+     * from the given classpath resource. The dictionary is part of the table's format: it must remain available, and
+     * must not change, for as long as values compressed with it may be read.
+     */
+    public void compressionDictionary(String dictionaryResource) {
+        com.palantir.logsafe.Preconditions.checkState(state == State.NONE,
+                "Specifying a compression dictionary should be done outside of the subscopes of TableDefinition.");
+        compressionDictionary = dictionaryResource;
+    }
+
     public void maxValueSize(int size) {
         maxValueSize = size;
     }
@@ -396,6 +407,7 @@ public class TableDefinition extends AbstractDefinition {
     private LogSafety tableNameSafety = LogSafety.UNSAFE;
     private LogSafety defaultNamedComponentLogSafety = LogSafety.UNSAFE;
     private boolean v2TableEnabled = false;
+    private String compressionDictionary = null;
 
     public TableMetadata toTableMetadata() {
         com.palantir.logsafe.Preconditions.checkState(!rowNameComponents.isEmpty(), "No row name components defined.");
@@ -427,17 +439,25 @@ public class TableDefinition extends AbstractDefinition {
             com.palantir.logsafe.Preconditions.checkState(
                     dynamicColumnNameComponents.isEmpty(),
                     "Cannot define both dynamic and fixed columns.");
-            return new ColumnMetadataDescription(fixedColumns);
+            return new ColumnMetadataDescription(Lists.transform(fixedColumns, column -> new NamedColumnDescription(
+                    column.getShortName(),
+                    column.getLongName(),
+                    withCompressionDictionary(column.getValue()),
+                    column.getLogSafety())));
         } else {
             com.palantir.logsafe.Preconditions.checkState(
                     !dynamicColumnNameComponents.isEmpty() && dynamicColumnValue != null,
                     "Columns not properly defined.");
             return new ColumnMetadataDescription(
                     new DynamicColumnDescription(NameMetadataDescription.create(dynamicColumnNameComponents),
-                            dynamicColumnValue));
+                            withCompressionDictionary(dynamicColumnValue)));
         }
     }
 
+    private ColumnValueDescription withCompressionDictionary(ColumnValueDescription value) {
+        return compressionDictionary == null ? value : value.withCompressionDictionary(compressionDictionary);
+    }
+
     public ConstraintMetadata getConstraintMetadata() {
         return constraintBuilder.build();
     }
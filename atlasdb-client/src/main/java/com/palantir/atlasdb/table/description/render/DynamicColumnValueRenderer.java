@@ -148,20 +148,24 @@ public class DynamicColumnValueRenderer extends Renderer {
             default:
                 throw new UnsupportedOperationException("Unsupported value type: " + val.getFormat());
             }
-            line("return CompressionUtils.compress(bytes, Compression.", val.getCompression().name(), ");");
+            line("return CompressionUtils.compress(bytes, Compression.", val.getCompression().name(),
+                    val.renderDictionaryArgument(), ");");
         } line("}");
     }
 
     private void hydrateValue() {
         line("public static ", Value, " hydrateValue(byte[] bytes) {"); {
-            line("bytes = CompressionUtils.decompress(bytes, Compression.", val.getCompression().name(), ");");
+            if (!val.hydratesFromReusableBuffer()) {
+                line("bytes = CompressionUtils.decompress(bytes, Compression.", val.getCompression().name(),
+                        val.renderDictionaryArgument(), ");");
+            }
             switch (val.getFormat()) {
             case PERSISTABLE:
                 line("return ", Value, ".BYTES_HYDRATOR.hydrateFromBytes(bytes);");
                 break;
             case PROTO:
                 line("try {"); {
-                    line("return ", Value, ".parseFrom(bytes);");
+                    line("return ", Value, ".parseFrom(", val.renderProtoInput("bytes"), ");");
                 } line("} catch (InvalidProtocolBufferException e) {"); {
                     line("throw Throwables.throwUncheckedException(e);");
                 } line("}");
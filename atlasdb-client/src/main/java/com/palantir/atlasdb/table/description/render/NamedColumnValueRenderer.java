@@ -132,7 +132,8 @@ public class NamedColumnValueRenderer extends Renderer {
             default:
                 throw new UnsupportedOperationException("Unsupported value type: " + col.getValue().getFormat());
             }
-            line("return CompressionUtils.compress(bytes, Compression.", col.getValue().getCompression().name(), ");");
+            line("return CompressionUtils.compress(bytes, Compression.", col.getValue().getCompression().name(),
+                    col.getValue().renderDictionaryArgument(), ");");
         } line("}");
     }
 
@@ -149,14 +150,18 @@ public class NamedColumnValueRenderer extends Renderer {
         line("public static final Hydrator<", Name, "> BYTES_HYDRATOR = new Hydrator<", Name, ">() {"); {
             line("@Override");
             line("public ", Name, " hydrateFromBytes(byte[] bytes) {"); {
-                line("bytes = CompressionUtils.decompress(bytes, Compression.", col.getValue().getCompression().name(), ");");
+                if (!col.getValue().hydratesFromReusableBuffer()) {
+                    line("bytes = CompressionUtils.decompress(bytes, Compression.",
+                            col.getValue().getCompression().name(), col.getValue().renderDictionaryArgument(), ");");
+                }
                 switch (col.getValue().getFormat()) {
                 case PERSISTABLE:
                     line("return of(", TypeName(col), ".BYTES_HYDRATOR.hydrateFromBytes(bytes));");
                     break;
                 case PROTO:
                     line("try {"); {
-                        line("return of(", TypeName(col), ".parseFrom(bytes));");
+                        line("return of(", TypeName(col), ".parseFrom(",
+                                col.getValue().renderProtoInput("bytes"), "));");
                     } line("} catch (InvalidProtocolBufferException e) {"); {
                         line("throw Throwables.throwUncheckedException(e);");
                     } line("}");
@@ -92,14 +92,20 @@ public class StreamStoreRenderer {
     private final String schemaName;
     private final int inMemoryThreshold;
     private final StreamCompression streamCompression;
+    private final String compressionDictionary;
 
     public StreamStoreRenderer(String name, ValueType streamIdType, String packageName, String schemaName, int inMemoryThreshold, StreamCompression streamCompression) {
+        this(name, streamIdType, packageName, schemaName, inMemoryThreshold, streamCompression, null);
+    }
+
+    public StreamStoreRenderer(String name, ValueType streamIdType, String packageName, String schemaName, int inMemoryThreshold, StreamCompression streamCompression, String compressionDictionary) {
         this.name = name;
         this.streamIdType = streamIdType;
         this.packageName = packageName;
         this.schemaName = schemaName;
         this.inMemoryThreshold = inMemoryThreshold;
         this.streamCompression = streamCompression;
+        this.compressionDictionary = compressionDictionary;
     }
 
     public String getPackageName() {
@@ -212,9 +218,17 @@ public class StreamStoreRenderer {
                 line();
                 line("private ", StreamStore, "(TransactionManager txManager, ", TableFactory, " tables, ",
                         "Supplier<StreamStorePersistenceConfiguration> persistenceConfiguration) {"); {
-                    line("super(txManager, ",
-                            streamCompression.getClass().getSimpleName() + "." + streamCompression,
-                            ", persistenceConfiguration);");
+                    if (compressionDictionary == null) {
+                        line("super(txManager, ",
+                                streamCompression.getClass().getSimpleName() + "." + streamCompression,
+                                ", persistenceConfiguration);");
+                    } else {
+                        line("super(txManager, ",
+                                streamCompression.getClass().getSimpleName() + "." + streamCompression,
+                                ", com.palantir.atlasdb.compress.CompressionDictionaries.load(\"",
+                                compressionDictionary,
+                                "\"), persistenceConfiguration);");
+                    }
                     line("this.tables = tables;");
                 } line("}");
                 line();
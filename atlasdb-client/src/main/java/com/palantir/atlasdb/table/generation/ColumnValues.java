@@ -17,6 +17,7 @@ package com.palantir.atlasdb.table.generation;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
@@ -85,6 +86,16 @@ public final class ColumnValues {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    public static <T extends AbstractMessage> T parseProtoBuf(Class<T> clazz, ByteBuffer msg) {
+        try {
+            Method parseMethod = clazz.getMethod("parseFrom", ByteBuffer.class);
+            return (T) parseMethod.invoke(null, msg);
+        } catch (Exception e) {
+            throw Throwables.throwUncheckedException(e);
+        }
+    }
+
     public static <T extends Persistable> T parsePersistable(Class<T> persistableClazz, byte[] bytes) {
         try {
             Field field = persistableClazz.getDeclaredField(Persistable.HYDRATOR_NAME);
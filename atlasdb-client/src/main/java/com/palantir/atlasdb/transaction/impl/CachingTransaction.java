@@ -76,14 +76,42 @@ public class CachingTransaction extends ForwardingTransaction {
     @Override
     public SortedMap<byte[], RowResult<byte[]>> getRows(TableReference tableRef, Iterable<byte[]> rows,
                                                         ColumnSelection columnSelection) {
+        try {
+            return getRowsWithLoader(
+                    tableRef,
+                    rows,
+                    columnSelection,
+                    (tableReference, toRead, selection) ->
+                            Futures.immediateFuture(super.getRows(tableReference, toRead, selection))).get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw Throwables.rewrapAndThrowUncheckedException(e.getCause());
+        }
+    }
+
+    @Override
+    public ListenableFuture<SortedMap<byte[], RowResult<byte[]>>> getRowsAsync(
+            TableReference tableRef,
+            Iterable<byte[]> rows,
+            ColumnSelection columnSelection) {
+        return getRowsWithLoader(tableRef, rows, columnSelection, super::getRowsAsync);
+    }
+
+    private ListenableFuture<SortedMap<byte[], RowResult<byte[]>>> getRowsWithLoader(
+            TableReference tableRef,
+            Iterable<byte[]> rows,
+            ColumnSelection columnSelection,
+            RowLoader rowLoader) {
         if (Iterables.isEmpty(rows)) {
-            return AbstractTransaction.EMPTY_SORTED_ROWS;
+            return Futures.immediateFuture(AbstractTransaction.EMPTY_SORTED_ROWS);
         }
 
         if (columnSelection.allColumnsSelected()) {
-            SortedMap<byte[], RowResult<byte[]>> loaded = super.getRows(tableRef, rows, columnSelection);
-            cacheLoadedRows(tableRef, loaded.values());
-            return loaded;
+            return Futures.transform(rowLoader.load(tableRef, rows, columnSelection),
+                    loaded -> {
+                        cacheLoadedRows(tableRef, loaded.values());
+                        return loaded;
+                    },
+                    MoreExecutors.directExecutor());
         } else {
             Set<byte[]> toLoad = Sets.newHashSet();
             ImmutableSortedMap.Builder<byte[], RowResult<byte[]>> inCache =
@@ -109,10 +137,13 @@ public class CachingTransaction extends ForwardingTransaction {
                     inCache.put(row, RowResult.create(row, matches.build()));
                 }
             }
-            SortedMap<byte[], RowResult<byte[]>> results = super.getRows(tableRef, toLoad, columnSelection);
-            cacheLoadedRows(tableRef, toLoad, columnSelection.getSelectedColumns(), results);
-            inCache.putAll(results);
-            return inCache.build();
+            return Futures.transform(rowLoader.load(tableRef, toLoad, columnSelection),
+                    results -> {
+                        cacheLoadedRows(tableRef, toLoad, columnSelection.getSelectedColumns(), results);
+                        inCache.putAll(results);
+                        return inCache.build();
+                    },
+                    MoreExecutors.directExecutor());
         }
     }
 
@@ -271,4 +302,12 @@ public class CachingTransaction extends ForwardingTransaction {
     private interface CellLoader {
         ListenableFuture<Map<Cell, byte[]>> load(TableReference tableReference, Set<Cell> toRead);
     }
+
+    @FunctionalInterface
+    private interface RowLoader {
+        ListenableFuture<SortedMap<byte[], RowResult<byte[]>>> load(
+                TableReference tableReference,
+                Iterable<byte[]> toRead,
+                ColumnSelection columnSelection);
+    }
 }
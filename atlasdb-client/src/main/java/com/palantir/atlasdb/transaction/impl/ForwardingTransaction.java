@@ -187,4 +187,12 @@ public abstract class ForwardingTransaction extends ForwardingObject implements
     public ListenableFuture<Map<Cell, byte[]>> getAsync(TableReference tableRef, Set<Cell> cells) {
         return delegate().getAsync(tableRef, cells);
     }
+
+    @Override
+    public ListenableFuture<SortedMap<byte[], RowResult<byte[]>>> getRowsAsync(
+            TableReference tableRef,
+            Iterable<byte[]> rows,
+            ColumnSelection columnSelection) {
+        return delegate().getRowsAsync(tableRef, rows, columnSelection);
+    }
 }
@@ -60,6 +60,15 @@ public class ReadTransaction extends ForwardingTransaction {
         return delegate().getRows(tableRef, rows, columnSelection);
     }
 
+    @Override
+    public ListenableFuture<SortedMap<byte[], RowResult<byte[]>>> getRowsAsync(
+            TableReference tableRef,
+            Iterable<byte[]> rows,
+            ColumnSelection columnSelection) {
+        checkTableName(tableRef);
+        return delegate().getRowsAsync(tableRef, rows, columnSelection);
+    }
+
     @Override
     public Map<Cell, byte[]> get(TableReference tableRef, Set<Cell> cells) {
         checkTableName(tableRef);
@@ -0,0 +1,169 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.UUID;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.transaction.api.NoOpTransactionLockWatchingCacheView;
+import com.palantir.atlasdb.transaction.api.TransactionLockWatchingCacheView;
+import com.palantir.atlasdb.util.MetricsManagers;
+import com.palantir.lock.AtlasCellLockDescriptor;
+import com.palantir.lock.LockDescriptor;
+import com.palantir.lock.v2.LockToken;
+import com.palantir.lock.watch.LockEvent;
+import com.palantir.lock.watch.LockWatchEvent;
+import com.palantir.lock.watch.LockWatchReferences;
+import com.palantir.lock.watch.LockWatchStateUpdate;
+import com.palantir.lock.watch.UnlockEvent;
+
+public class DefaultLockWatchingCacheTest {
+    private static final UUID LOG_ID = UUID.randomUUID();
+    private static final TableReference TABLE = TableReference.createFromFullyQualifiedName("test.table");
+    private static final TableReference OTHER_TABLE = TableReference.createFromFullyQualifiedName("test.other");
+    private static final Cell CELL = Cell.create(PtBytes.toBytes("row"), PtBytes.toBytes("col"));
+    private static final Cell OTHER_CELL = Cell.create(PtBytes.toBytes("row2"), PtBytes.toBytes("col"));
+    private static final LockDescriptor CELL_DESCRIPTOR =
+            AtlasCellLockDescriptor.of(TABLE.getQualifiedName(), CELL.getRowName(), CELL.getColumnName());
+    private static final LockDescriptor OTHER_CELL_DESCRIPTOR =
+            AtlasCellLockDescriptor.of(TABLE.getQualifiedName(), OTHER_CELL.getRowName(), OTHER_CELL.getColumnName());
+    private static final byte[] VALUE = PtBytes.toBytes("value");
+    private static final LockToken TOKEN = LockToken.of(UUID.randomUUID());
+
+    private final DefaultLockWatchingCache cache = new DefaultLockWatchingCache(
+            MetricsManagers.createForTests(),
+            ImmutableMap.of(TABLE, 1_000_000L),
+            DefaultLockWatchingCache.DEFAULT_MAX_TRACKED_DESCRIPTORS);
+
+    @Test
+    public void valuesReadAreServedToLaterTransactions() {
+        watchTableAtVersion(1L);
+        viewAt(1L, ImmutableList.of()).tryCacheNewValuesRead(TABLE, ImmutableMap.of(CELL, VALUE));
+
+        TransactionLockWatchingCacheView laterView = viewAt(2L, ImmutableList.of(unlock(2L, OTHER_CELL_DESCRIPTOR)));
+        assertThat(laterView.readCached(TABLE, ImmutableSet.of(CELL))).containsOnlyKeys(CELL).containsValue(VALUE);
+    }
+
+    @Test
+    public void lockEventInvalidatesCachedValue() {
+        watchTableAtVersion(1L);
+        viewAt(1L, ImmutableList.of()).tryCacheNewValuesRead(TABLE, ImmutableMap.of(CELL, VALUE));
+
+        TransactionLockWatchingCacheView laterView = viewAt(2L, ImmutableList.of(lock(2L, CELL_DESCRIPTOR)));
+        assertThat(laterView.readCached(TABLE, ImmutableSet.of(CELL))).isEmpty();
+    }
+
+    @Test
+    public void lockedCellsAreNotCached() {
+        cache.processUpdate(LockWatchStateUpdate.snapshot(LOG_ID, 1L, ImmutableSet.of(CELL_DESCRIPTOR),
+                ImmutableSet.of(LockWatchReferences.entireTable(TABLE.getQualifiedName()))));
+        TransactionLockWatchingCacheView view = viewAt(1L, ImmutableList.of());
+        view.tryCacheNewValuesRead(TABLE, ImmutableMap.of(CELL, VALUE, OTHER_CELL, VALUE));
+
+        assertThat(view.readCached(TABLE, ImmutableSet.of(CELL, OTHER_CELL))).containsOnlyKeys(OTHER_CELL);
+    }
+
+    @Test
+    public void cellsUnlockedAfterReadVersionAreNotCached() {
+        cache.processUpdate(LockWatchStateUpdate.snapshot(LOG_ID, 1L, ImmutableSet.of(CELL_DESCRIPTOR),
+                ImmutableSet.of(LockWatchReferences.entireTable(TABLE.getQualifiedName()))));
+        TransactionLockWatchingCacheView view = viewAt(1L, ImmutableList.of());
+        viewAt(2L, ImmutableList.of(unlock(2L, CELL_DESCRIPTOR)));
+        view.tryCacheNewValuesRead(TABLE, ImmutableMap.of(CELL, VALUE));
+
+        assertThat(viewAt(2L, ImmutableList.of()).readCached(TABLE, ImmutableSet.of(CELL))).isEmpty();
+    }
+
+    @Test
+    public void unwatchedCellsAreNotCached() {
+        cache.processUpdate(LockWatchStateUpdate.snapshot(LOG_ID, 1L, ImmutableSet.of(),
+                ImmutableSet.of(LockWatchReferences.exactCell(
+                        TABLE.getQualifiedName(), OTHER_CELL.getRowName(), OTHER_CELL.getColumnName()))));
+        TransactionLockWatchingCacheView view = viewAt(1L, ImmutableList.of());
+        view.tryCacheNewValuesRead(TABLE, ImmutableMap.of(CELL, VALUE));
+
+        assertThat(view.readCached(TABLE, ImmutableSet.of(CELL))).isEmpty();
+    }
+
+    @Test
+    public void valuesAreNotServedToTransactionsAtEarlierVersions() {
+        watchTableAtVersion(1L);
+        TransactionLockWatchingCacheView earlierView = viewAt(1L, ImmutableList.of());
+        viewAt(2L, ImmutableList.of(unlock(2L, OTHER_CELL_DESCRIPTOR)))
+                .tryCacheNewValuesRead(TABLE, ImmutableMap.of(CELL, VALUE));
+
+        assertThat(earlierView.readCached(TABLE, ImmutableSet.of(CELL))).isEmpty();
+        assertThat(viewAt(2L, ImmutableList.of()).readCached(TABLE, ImmutableSet.of(CELL))).containsOnlyKeys(CELL);
+    }
+
+    @Test
+    public void tablesNotConfiguredAreNeverCached() {
+        cache.processUpdate(LockWatchStateUpdate.snapshot(LOG_ID, 1L, ImmutableSet.of(),
+                ImmutableSet.of(LockWatchReferences.entireTable(OTHER_TABLE.getQualifiedName()))));
+        TransactionLockWatchingCacheView view = viewAt(1L, ImmutableList.of());
+        view.tryCacheNewValuesRead(OTHER_TABLE, ImmutableMap.of(CELL, VALUE));
+
+        assertThat(view.readCached(OTHER_TABLE, ImmutableSet.of(CELL))).isEmpty();
+    }
+
+    @Test
+    public void missedEventsResetTheCache() {
+        watchTableAtVersion(1L);
+        viewAt(1L, ImmutableList.of()).tryCacheNewValuesRead(TABLE, ImmutableMap.of(CELL, VALUE));
+
+        assertThat(viewAt(3L, ImmutableList.of(unlock(3L, OTHER_CELL_DESCRIPTOR))))
+                .isEqualTo(NoOpTransactionLockWatchingCacheView.INSTANCE);
+        assertThat(cache.getCached(TABLE, ImmutableSet.of(CELL))).isEmpty();
+        assertThat(cache.lastKnownVersion().version()).isEmpty();
+    }
+
+    @Test
+    public void committedWritesInvalidateCachedValues() {
+        watchTableAtVersion(1L);
+        TransactionLockWatchingCacheView view = viewAt(1L, ImmutableList.of());
+        view.tryCacheNewValuesRead(TABLE, ImmutableMap.of(CELL, VALUE));
+        view.tryCacheWrittenValues(TABLE, ImmutableMap.of(CELL, PtBytes.toBytes("newValue")), 5L);
+
+        assertThat(view.readCached(TABLE, ImmutableSet.of(CELL))).isEmpty();
+    }
+
+    private void watchTableAtVersion(long version) {
+        cache.processUpdate(LockWatchStateUpdate.snapshot(LOG_ID, version, ImmutableSet.of(),
+                ImmutableSet.of(LockWatchReferences.entireTable(TABLE.getQualifiedName()))));
+    }
+
+    private TransactionLockWatchingCacheView viewAt(long version, ImmutableList<LockWatchEvent> events) {
+        return cache.getView(0L, LockWatchStateUpdate.success(LOG_ID, version, events));
+    }
+
+    private static LockWatchEvent lock(long sequence, LockDescriptor descriptor) {
+        return LockEvent.builder(ImmutableSet.of(descriptor), TOKEN).build(sequence);
+    }
+
+    private static LockWatchEvent unlock(long sequence, LockDescriptor descriptor) {
+        return UnlockEvent.builder(ImmutableSet.of(descriptor)).build(sequence);
+    }
+}
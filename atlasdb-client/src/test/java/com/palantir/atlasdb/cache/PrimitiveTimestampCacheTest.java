@@ -0,0 +1,110 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+public class PrimitiveTimestampCacheTest {
+    private final AtomicLong size = new AtomicLong(1000L);
+    private final TimestampCache cache = new PrimitiveTimestampCache(new MetricRegistry(), size::get);
+
+    @Test
+    public void returnsCachedCommitTimestamps() {
+        cache.putAlreadyCommittedTransaction(1L, 3L);
+        cache.putAlreadyCommittedTransaction(2L, -1L);
+
+        assertThat(cache.getCommitTimestampIfPresent(1L)).isEqualTo(3L);
+        assertThat(cache.getCommitTimestampIfPresent(2L)).isEqualTo(-1L);
+        assertThat(cache.getCommitTimestampIfPresent(4L)).isNull();
+    }
+
+    @Test
+    public void getsAndPutsBatches() {
+        cache.putAlreadyCommittedTransactions(new long[] {1L, 5L, 7L}, new long[] {2L, 6L, 8L});
+
+        long[] commitTimestamps = new long[4];
+        cache.getCommitTimestampsIfPresent(new long[] {7L, 3L, 1L, 5L}, commitTimestamps);
+        assertThat(commitTimestamps).containsExactly(8L, TimestampCache.NO_COMMIT_TIMESTAMP, 2L, 6L);
+    }
+
+    @Test
+    public void retainsManyEntriesWithinMaximumSize() {
+        LongStream.range(0, 1000).forEach(timestamp -> cache.putAlreadyCommittedTransaction(timestamp, timestamp + 1));
+
+        LongStream.range(0, 1000).forEach(timestamp ->
+                assertThat(cache.getCommitTimestampIfPresent(timestamp)).isEqualTo(timestamp + 1));
+    }
+
+    @Test
+    public void evictsEntriesBeyondMaximumSize() {
+        LongStream.range(0, 10_000)
+                .forEach(timestamp -> cache.putAlreadyCommittedTransaction(timestamp, timestamp + 1));
+
+        long cached = LongStream.range(0, 10_000)
+                .filter(timestamp -> cache.getCommitTimestampIfPresent(timestamp) != null)
+                .count();
+        assertThat(cached).isBetween(1L, size.get());
+        // whatever was not evicted must still map to the right value
+        LongStream.range(0, 10_000).forEach(timestamp ->
+                assertThat(cache.getCommitTimestampIfPresent(timestamp)).isIn(null, timestamp + 1));
+    }
+
+    @Test
+    public void prefersEvictingEntriesThatWereNotRead() {
+        size.set(64L);
+        LongStream.range(0, 64).forEach(timestamp -> cache.putAlreadyCommittedTransaction(timestamp, timestamp + 1));
+        assertThat(cache.getCommitTimestampIfPresent(0L)).isEqualTo(1L);
+
+        cache.putAlreadyCommittedTransaction(100L, 101L);
+
+        assertThat(cache.getCommitTimestampIfPresent(0L)).isEqualTo(1L);
+        assertThat(cache.getCommitTimestampIfPresent(100L)).isEqualTo(101L);
+    }
+
+    @Test
+    public void clearRemovesAllEntries() {
+        cache.putAlreadyCommittedTransaction(1L, 3L);
+        cache.clear();
+
+        assertThat(cache.getCommitTimestampIfPresent(1L)).isNull();
+    }
+
+    @Test
+    public void resizingStartsAfresh() {
+        cache.putAlreadyCommittedTransaction(1L, 3L);
+        size.set(10L);
+
+        assertThat(cache.getCommitTimestampIfPresent(1L)).isNull();
+        cache.putAlreadyCommittedTransaction(1L, 3L);
+        assertThat(cache.getCommitTimestampIfPresent(1L)).isEqualTo(3L);
+    }
+
+    @Test
+    public void doesNotCacheAnythingIfSizeIsZero() {
+        size.set(0L);
+        cache.putAlreadyCommittedTransaction(1L, 3L);
+
+        assertThat(cache.getCommitTimestampIfPresent(1L)).isNull();
+    }
+}
@@ -72,7 +72,7 @@ public final class RocksDbOffHeapTimestampCacheIntegrationTests {
     }
 
     @Test
-    public void cacheNukedWhenSizeLimitExceeded() {
+    public void oldestEntriesEvictedWhenSizeLimitExceeded() {
         offHeapTimestampCache.putAlreadyCommittedTransaction(1L, 3L);
         offHeapTimestampCache.putAlreadyCommittedTransaction(2L, 4L);
         offHeapTimestampCache.putAlreadyCommittedTransaction(5L, 6L);
@@ -80,7 +80,21 @@ public final class RocksDbOffHeapTimestampCacheIntegrationTests {
         assertThat(offHeapTimestampCache.getCommitTimestampIfPresent(1L))
                 .isNull();
         assertThat(offHeapTimestampCache.getCommitTimestampIfPresent(2L))
-                .isNull();
+                .isEqualTo(4L);
+        assertThat(offHeapTimestampCache.getCommitTimestampIfPresent(5L))
+                .isEqualTo(6L);
+    }
+
+    @Test
+    public void recentlyReadEntriesSurviveEviction() {
+        offHeapTimestampCache.putAlreadyCommittedTransaction(1L, 3L);
+        offHeapTimestampCache.putAlreadyCommittedTransaction(2L, 4L);
+        assertThat(offHeapTimestampCache.getCommitTimestampIfPresent(1L))
+                .isEqualTo(3L);
+        offHeapTimestampCache.putAlreadyCommittedTransaction(5L, 6L);
+
+        assertThat(offHeapTimestampCache.getCommitTimestampIfPresent(1L))
+                .isEqualTo(3L);
         assertThat(offHeapTimestampCache.getCommitTimestampIfPresent(5L))
                 .isEqualTo(6L);
     }
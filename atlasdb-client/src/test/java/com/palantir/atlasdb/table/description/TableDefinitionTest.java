@@ -23,7 +23,9 @@ import org.junit.Test;
 import com.google.common.collect.Iterables;
 import com.palantir.atlasdb.keyvalue.api.Namespace;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.protos.generated.TableMetadataPersistence;
 import com.palantir.atlasdb.protos.generated.TableMetadataPersistence.LogSafety;
+import com.palantir.atlasdb.table.description.ColumnValueDescription.Compression;
 
 @SuppressWarnings("checkstyle:all") // too many warnings to fix
 public class TableDefinitionTest {
@@ -32,6 +34,7 @@ public class TableDefinitionTest {
     private static final String ROW_NAME = "foo";
     private static final String COLUMN_NAME = "bar";
     private static final String COLUMN_SHORTNAME = "b";
+    private static final String DICTIONARY = "compression/dictionary";
 
     private static final TableDefinition BASE_DEFINITION = new TableDefinition() {{
         javaTableName(TABLE_REF.getTablename());
@@ -255,6 +258,25 @@ public class TableDefinitionTest {
         assertNamedColumnSafety(definition, LogSafety.SAFE);
     }
 
+    @Test
+    public void compressionDictionaryAppliesToZstdColumns() {
+        TableDefinition definition = new TableDefinition() {{
+            compressionDictionary(DICTIONARY);
+            javaTableName(TABLE_REF.getTablename());
+            rowName();
+            rowComponent(ROW_NAME, ValueType.STRING);
+            columns();
+            column(COLUMN_NAME, COLUMN_SHORTNAME, TableMetadataPersistence.TableMetadata.class, Compression.ZSTD);
+            column("baz", "z", TableMetadataPersistence.TableMetadata.class, Compression.SNAPPY);
+        }};
+
+        TableMetadata metadata = definition.toTableMetadata();
+        assertThat(metadata.getColumns().getNamedColumns())
+                .extracting(column -> column.getValue().getCompressionDictionary())
+                .containsExactlyInAnyOrder(DICTIONARY, null);
+        assertThat(TableMetadata.BYTES_HYDRATOR.hydrateFromBytes(metadata.persistToBytes())).isEqualTo(metadata);
+    }
+
     /**
      * Asserts that the only row component for the TableDefinition object passed in has loggability matching
      * expectedSafety. Throws if the actual safety doesn't match the expected safety, or if it is not the case that
@@ -22,31 +22,54 @@ import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.zip.GZIPInputStream;
 
+import javax.annotation.Nullable;
+
+import com.github.luben.zstd.ZstdInputStream;
 import com.google.common.io.Closeables;
 
 import net.jpountz.lz4.LZ4BlockInputStream;
 
 public enum StreamCompression {
-    GZIP, LZ4, NONE;
+    GZIP, LZ4, NONE,
+    /**
+     * Zstd compression, which can additionally use a trained dictionary; see
+     * {@link #compress(InputStream, byte[])}.
+     */
+    ZSTD;
 
     private static final byte[] gzipMagic = GzipCompressingInputStream.getMagicPrefix();
     private static final byte[] lz4Magic = "LZ4Block".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] zstdMagic = new byte[] {(byte) 0x28, (byte) 0xB5, (byte) 0x2F, (byte) 0xFD};
 
     public InputStream compress(InputStream stream) {
+        return compress(stream, null);
+    }
+
+    /**
+     * Compresses the stream, using the given trained dictionary if this is {@link #ZSTD}. Streams compressed with a
+     * dictionary must be decompressed with the same dictionary.
+     */
+    public InputStream compress(InputStream stream, @Nullable byte[] dictionary) {
         switch (this) {
             case GZIP: return GzipCompressingInputStream.compress(stream);
             case LZ4: return new LZ4CompressingInputStream(stream);
+            case ZSTD: return new ZstdCompressingInputStream(stream, dictionary);
             case NONE: return stream;
         }
         throw new AssertionError("Unreachable code");
     }
 
     public InputStream decompress(InputStream stream) {
+        return decompress(stream, null);
+    }
+
+    public InputStream decompress(InputStream stream, @Nullable byte[] dictionary) {
         switch (this) {
             case NONE: return stream;
             case GZIP:
             case LZ4:
-                return decompressWithHeader(stream);
+            case ZSTD:
+                return decompressWithHeader(stream, dictionary);
         }
         throw new AssertionError("Unreachable code");
     }
@@ -65,13 +88,16 @@ public enum StreamCompression {
         }
     }
 
-    private static InputStream decompressWithHeader(InputStream unbuffered) {
+    private static InputStream decompressWithHeader(InputStream unbuffered, @Nullable byte[] dictionary) {
         try {
             BufferedInputStream stream = new BufferedInputStream(unbuffered);
             if (startsWith(stream, gzipMagic)) {
                 return new GZIPInputStream(stream);
             } else if (startsWith(stream, lz4Magic)) {
                 return new LZ4BlockInputStream(stream);
+            } else if (startsWith(stream, zstdMagic)) {
+                ZstdInputStream zstdStream = new ZstdInputStream(stream);
+                return dictionary == null ? zstdStream : zstdStream.setDict(dictionary);
             } else {
                 return new ThrowingInputStream(new UnsupportedOperationException("Unknown compression scheme"));
             }
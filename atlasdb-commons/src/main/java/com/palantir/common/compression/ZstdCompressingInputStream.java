@@ -0,0 +1,124 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.common.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import javax.annotation.Nullable;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdOutputStream;
+import com.google.common.io.ByteStreams;
+import com.palantir.logsafe.Preconditions;
+
+/**
+ * Compresses the delegate stream into a single Zstd frame, one block at a time. Works like
+ * {@link LZ4CompressingInputStream}, but can additionally use a trained dictionary.
+ */
+public final class ZstdCompressingInputStream extends BufferedDelegateInputStream {
+
+    private static final int COMPRESSION_LEVEL = 3;
+    private static final int DEFAULT_BLOCK_SIZE = 1 << 16; // 64 KB
+    // Generous bound for the frame header and epilogue, which are written on top of the compressed blocks.
+    private static final int ZSTD_FRAME_OVERHEAD = 64;
+
+    private final ZstdOutputStream compressingStream;
+    private final int blockSize;
+    private final byte[] uncompressedBuffer;
+
+    // Position in the compressed buffer while writing
+    private int writeBufferPosition;
+    // Flag to indicate whether this stream has been exhausted.
+    private boolean finished;
+
+    public ZstdCompressingInputStream(InputStream delegate) {
+        this(delegate, null);
+    }
+
+    public ZstdCompressingInputStream(InputStream delegate, @Nullable byte[] dictionary) {
+        this(delegate, dictionary, DEFAULT_BLOCK_SIZE);
+    }
+
+    public ZstdCompressingInputStream(InputStream delegate, @Nullable byte[] dictionary, int blockSize) {
+        super(delegate, Math.toIntExact(Zstd.compressBound(blockSize)) + ZSTD_FRAME_OVERHEAD);
+        this.blockSize = blockSize;
+        this.uncompressedBuffer = new byte[blockSize];
+        try {
+            this.compressingStream = new ZstdOutputStream(new InternalByteArrayOutputStream(), COMPRESSION_LEVEL);
+            if (dictionary != null) {
+                compressingStream.setDict(dictionary);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not create Zstd compressing stream", e);
+        }
+        this.finished = false;
+    }
+
+    @Override
+    protected int refill() throws IOException {
+        if (finished) {
+            return 0;
+        }
+        writeBufferPosition = 0;
+
+        int bytesRead = ByteStreams.read(delegate, uncompressedBuffer, BUFFER_START, blockSize);
+        if (bytesRead == 0) {
+            // Closing the compressing stream writes the end of the frame into the internal buffer.
+            compressingStream.close();
+            finished = true;
+        } else {
+            compressingStream.write(uncompressedBuffer, BUFFER_START, bytesRead);
+            compressingStream.flush();
+        }
+
+        return writeBufferPosition;
+    }
+
+    private void write(byte[] b, int off, int len) {
+        Preconditions.checkNotNull(b, "Provided byte array b cannot be null.");
+        if ((off < 0) || (len < 0) || (off + len > b.length)) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return;
+        }
+        Preconditions.checkState(buffer.length >= writeBufferPosition + len, "Internal buffer overflow");
+        System.arraycopy(b, off, buffer, writeBufferPosition, len);
+        writeBufferPosition += len;
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+        // Nobody will read the end of the frame if we close early, so let it overwrite the internal buffer.
+        writeBufferPosition = BUFFER_START;
+        compressingStream.close();
+    }
+
+    private final class InternalByteArrayOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+            ZstdCompressingInputStream.this.write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            ZstdCompressingInputStream.this.write(b, off, len);
+        }
+    }
+}
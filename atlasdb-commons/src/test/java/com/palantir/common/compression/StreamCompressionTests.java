@@ -37,6 +37,7 @@ public class StreamCompressionTests {
     private static final StreamCompression GZIP = StreamCompression.GZIP;
     private static final StreamCompression LZ4 = StreamCompression.LZ4;
     private static final StreamCompression NONE = StreamCompression.NONE;
+    private static final StreamCompression ZSTD = StreamCompression.ZSTD;
 
     private static final byte SINGLE_VALUE = 42;
     private static final int BLOCK_SIZE = 1 << 16; // 64 KB
@@ -81,6 +82,15 @@ public class StreamCompressionTests {
                         new ByteArrayInputStream(data)))))).isEqualTo(data);
     }
 
+    @Test
+    public void testZstdWithDictionary() throws IOException {
+        byte[] dictionary = new byte[1024];
+        fillWithIncompressibleData(dictionary);
+        byte[] data = Arrays.copyOf(dictionary, 16 * BLOCK_SIZE);
+        assertThat(ByteStreams.toByteArray(ZSTD.decompress(ZSTD.compress(
+                        new ByteArrayInputStream(data), dictionary), dictionary))).isEqualTo(data);
+    }
+
     @Test
     public void testEmptyStream() throws IOException {
         initializeStreams(new byte[0]);
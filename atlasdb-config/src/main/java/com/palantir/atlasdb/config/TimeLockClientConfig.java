@@ -22,6 +22,7 @@ import org.immutables.value.Value;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.palantir.lock.client.StartTransactionPrefetchConfig;
 import com.palantir.logsafe.Preconditions;
 import com.palantir.logsafe.exceptions.SafeIllegalStateException;
 
@@ -54,6 +55,13 @@ public abstract class TimeLockClientConfig {
         return ImmutableServerListConfig.builder().build();
     }
 
+    /**
+     * If present, transactions are started against TimeLock ahead of being needed, and kept in a small reserve. Note
+     * that transactions started from the reserve may not observe the writes of transactions that committed shortly
+     * before; see {@link StartTransactionPrefetchConfig}.
+     */
+    public abstract Optional<StartTransactionPrefetchConfig> startTransactionPrefetch();
+
     public ServerListConfig toNamespacedServerList() {
         return ServerListConfigs.namespaceUris(serversList(), getClientOrThrow());
     }
@@ -15,11 +15,16 @@
  */
 package com.palantir.atlasdb.memory;
 
+import java.util.Objects;
 import java.util.Optional;
 
+import javax.annotation.Nullable;
+
 import org.immutables.value.Value;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonTypeName;
 import com.google.auto.service.AutoService;
 import com.palantir.atlasdb.spi.KeyValueServiceConfig;
@@ -29,14 +34,43 @@ import com.palantir.atlasdb.spi.KeyValueServiceConfig;
 public final class InMemoryAtlasDbConfig implements KeyValueServiceConfig {
     public static final String TYPE = "memory";
 
+    public enum Engine {
+        /**
+         * Stores every version of every cell in a single skip list. See {@code InMemoryKeyValueService}.
+         */
+        DEFAULT,
+        /**
+         * Indexes cells by row and column, and keeps the versions of each cell in sorted arrays, which makes reads
+         * cheaper when cells have many versions. See {@code IndexedInMemoryKeyValueService}.
+         */
+        INDEXED
+    }
+
+    private final Engine engine;
+
+    public InMemoryAtlasDbConfig() {
+        this(Engine.DEFAULT);
+    }
+
+    @JsonCreator
+    public InMemoryAtlasDbConfig(@JsonProperty("engine") @Nullable Engine engine) {
+        this.engine = engine == null ? Engine.DEFAULT : engine;
+    }
+
     @Override
     public String type() {
         return TYPE;
     }
 
+    @JsonProperty("engine")
+    public Engine engine() {
+        return engine;
+    }
+
     @Override
     public boolean equals(Object other) {
-        return this == other || (other != null && this.getClass() == other.getClass());
+        return this == other || (other != null && this.getClass() == other.getClass()
+                && engine == ((InMemoryAtlasDbConfig) other).engine);
     }
 
     @Override
@@ -47,7 +81,7 @@ public final class InMemoryAtlasDbConfig implements KeyValueServiceConfig {
 
     @Override
     public int hashCode() {
-        return InMemoryAtlasDbConfig.class.hashCode();
+        return Objects.hash(InMemoryAtlasDbConfig.class, engine);
     }
 
     @Override
@@ -28,6 +28,7 @@ import com.palantir.atlasdb.config.LeaderConfig;
 import com.palantir.atlasdb.keyvalue.api.KeyValueService;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.atlasdb.keyvalue.impl.InMemoryKeyValueService;
+import com.palantir.atlasdb.keyvalue.impl.IndexedInMemoryKeyValueService;
 import com.palantir.atlasdb.spi.AtlasDbFactory;
 import com.palantir.atlasdb.spi.KeyValueServiceConfig;
 import com.palantir.atlasdb.spi.KeyValueServiceRuntimeConfig;
@@ -54,7 +55,8 @@ public class InMemoryAtlasDbFactory implements AtlasDbFactory {
     }
 
     /**
-     * Creates an InMemoryKeyValueService.
+     * Creates an InMemoryKeyValueService, or an IndexedInMemoryKeyValueService if the config asks for the
+     * {@link InMemoryAtlasDbConfig.Engine#INDEXED} engine.
      *
      * @param config Configuration file.
      * @param runtimeConfig unused.
@@ -65,7 +67,7 @@ public class InMemoryAtlasDbFactory implements AtlasDbFactory {
      * @return The requested KeyValueService instance
      */
     @Override
-    public InMemoryKeyValueService createRawKeyValueService(
+    public KeyValueService createRawKeyValueService(
             MetricsManager metricsManager,
             KeyValueServiceConfig config,
             Supplier<Optional<KeyValueServiceRuntimeConfig>> runtimeConfig,
@@ -78,6 +80,10 @@ public class InMemoryAtlasDbFactory implements AtlasDbFactory {
         }
 
         AtlasDbVersion.ensureVersionReported();
+        if (config instanceof InMemoryAtlasDbConfig
+                && ((InMemoryAtlasDbConfig) config).engine() == InMemoryAtlasDbConfig.Engine.INDEXED) {
+            return new IndexedInMemoryKeyValueService(false);
+        }
         return new InMemoryKeyValueService(false);
     }
 
@@ -16,7 +16,6 @@
 package com.palantir.atlasdb.schema;
 
 
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
@@ -24,20 +23,19 @@ import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
 import com.palantir.atlasdb.keyvalue.api.KeyValueService;
 import com.palantir.atlasdb.keyvalue.api.Namespace;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
-import com.palantir.atlasdb.table.description.RowNamePartitioner;
-import com.palantir.atlasdb.table.description.TableMetadata;
 import com.palantir.atlasdb.transaction.api.TransactionManager;
+import com.palantir.atlasdb.transaction.impl.TransactionConstants;
 import com.palantir.common.base.Throwables;
 import com.palantir.common.concurrent.PTExecutors;
 
 public class KeyValueServiceMigrator {
+    public static final long DEFAULT_WRITE_BATCH_BYTES = TransactionConstants.WARN_LEVEL_FOR_QUEUED_BYTES / 2;
+
     private final TableReference checkpointTable;
-    private static final int PARTITIONS = 256;
 
     private final TransactionManager fromTransactionManager;
     private final TransactionManager toTransactionManager;
@@ -47,6 +45,8 @@ public class KeyValueServiceMigrator {
 
     private final int threads;
     private final int defaultBatchSize;
+    private final long writeBatchBytes;
+    private final long maxBytesPerSecond;
 
     // Tables that exist on the legacy KVS and should not be migrated.
     // TODO(tgordeeva): hacky, clean this up when we have table specific migration
@@ -79,6 +79,33 @@ public class KeyValueServiceMigrator {
             KvsMigrationMessageProcessor messageProcessor,
             TaskProgress taskProgress,
             Set<TableReference> unmigratableTables) {
+        this(checkpointNamespace, fromTransactionManager, toTransactionManager, fromKvs, toKvs,
+                migrationTimestampSupplier, threads, defaultBatchSize, DEFAULT_WRITE_BATCH_BYTES, 0L,
+                readBatchSizeOverrides, messageProcessor, taskProgress, unmigratableTables);
+    }
+
+    /**
+     * @param threads number of ranges to migrate in parallel
+     * @param writeBatchBytes approximate number of bytes to copy in each transaction, after which the migration of a
+     * range is checkpointed
+     * @param maxBytesPerSecond limit on the rate at which bytes are written to the new key value service; unlimited
+     * if not positive
+     */
+    public KeyValueServiceMigrator(Namespace checkpointNamespace,
+            TransactionManager fromTransactionManager,
+            TransactionManager toTransactionManager,
+            KeyValueService fromKvs,
+            KeyValueService toKvs,
+            Supplier<Long> migrationTimestampSupplier,
+            int threads,
+            int defaultBatchSize,
+            long writeBatchBytes,
+            long maxBytesPerSecond,
+            Map<TableReference, Integer> readBatchSizeOverrides,
+            KvsMigrationMessageProcessor messageProcessor,
+            TaskProgress taskProgress,
+            Set<TableReference> unmigratableTables) {
+        Preconditions.checkArgument(writeBatchBytes > 0, "writeBatchBytes must be positive");
         this.checkpointTable =
                 TableReference.create(checkpointNamespace, KeyValueServiceMigratorUtils.CHECKPOINT_TABLE_NAME);
         this.fromTransactionManager = fromTransactionManager;
@@ -88,6 +115,8 @@ public class KeyValueServiceMigrator {
         this.migrationTimestampSupplier = migrationTimestampSupplier;
         this.threads = threads;
         this.defaultBatchSize = defaultBatchSize;
+        this.writeBatchBytes = writeBatchBytes;
+        this.maxBytesPerSecond = maxBytesPerSecond;
         this.readBatchSizeOverrides = readBatchSizeOverrides;
         this.messageProcessor = messageProcessor;
         this.taskProgress = taskProgress;
@@ -160,14 +189,20 @@ public class KeyValueServiceMigrator {
 
         ExecutorService executor = PTExecutors.newFixedThreadPool(threads);
         try {
-            migrateTables(
-                    tables,
+            new ParallelKvsMigrator(
                     fromTransactionManager,
                     toTransactionManager,
+                    fromKvs,
                     toKvs,
                     migrationTimestampSupplier.get(),
+                    checkpointer,
                     executor,
-                    checkpointer);
+                    threads,
+                    this::getBatchSize,
+                    writeBatchBytes,
+                    maxBytesPerSecond,
+                    messageProcessor,
+                    taskProgress).migrate(tables);
             processMessage("Data migration complete.", KvsMigrationMessageLevel.INFO);
         } catch (Throwable t) {
             processMessage("Migration failed.", t, KvsMigrationMessageLevel.ERROR);
@@ -178,46 +213,6 @@ public class KeyValueServiceMigrator {
         }
     }
 
-    private void migrateTables(Set<TableReference> tables,
-                               TransactionManager readTxManager,
-                               TransactionManager txManager,
-                               KeyValueService writeKvs,
-                               long migrationTimestamp,
-                               ExecutorService executor,
-                               GeneralTaskCheckpointer checkpointer) {
-        processMessage("Migrating tables at migrationTimestamp " + migrationTimestamp,
-                KvsMigrationMessageLevel.INFO);
-        for (TableReference table : tables) {
-            KvsRangeMigrator rangeMigrator =
-                    new KvsRangeMigratorBuilder().srcTable(table).readBatchSize(getBatchSize(table)).readTxManager(
-                            readTxManager).txManager(txManager).writeKvs(writeKvs).migrationTimestamp(
-                            migrationTimestamp).checkpointer(checkpointer).build();
-            TableMigratorBuilder builder =
-                    new TableMigratorBuilder().srcTable(table).partitions(PARTITIONS).partitioners(
-                            getPartitioners(fromKvs, table)).readBatchSize(
-                            getBatchSize(table)).executor(executor).checkpointer(checkpointer).progress(
-                            taskProgress).rangeMigrator(rangeMigrator);
-            TableMigrator migrator = builder.build();
-            migrator.migrate();
-        }
-    }
-
-    private List<RowNamePartitioner> getPartitioners(KeyValueService kvs, TableReference table) {
-        try {
-            byte[] metadata = kvs.getMetadataForTable(table);
-            TableMetadata tableMeta = TableMetadata.BYTES_HYDRATOR.hydrateFromBytes(metadata);
-            return tableMeta.getRowMetadata().getPartitionersForRow();
-        } catch (RuntimeException e) {
-            processMessage(
-                    "Could not resolve partitioners from table metadata for "
-                            + table
-                            + " this may result in a small decrease in performance migrating this table.",
-                    e,
-                    KvsMigrationMessageLevel.WARN);
-            return ImmutableList.of();
-        }
-    }
-
     private int getBatchSize(TableReference table) {
         Integer batchSize = readBatchSizeOverrides.get(table);
         return batchSize != null ? batchSize : defaultBatchSize;
@@ -0,0 +1,515 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.schema;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+
+import javax.annotation.Nullable;
+
+import org.apache.commons.lang3.mutable.MutableInt;
+import org.apache.commons.lang3.mutable.MutableLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.Longs;
+import com.google.common.primitives.UnsignedBytes;
+import com.google.common.primitives.UnsignedLong;
+import com.google.common.primitives.UnsignedLongs;
+import com.google.common.util.concurrent.RateLimiter;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.KeyAlreadyExistsException;
+import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.api.RangeRequest;
+import com.palantir.atlasdb.keyvalue.api.RangeRequests;
+import com.palantir.atlasdb.keyvalue.api.RowResult;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.keyvalue.impl.Cells;
+import com.palantir.atlasdb.logging.LoggingArgs;
+import com.palantir.atlasdb.schema.KeyValueServiceMigrator.KvsMigrationMessageLevel;
+import com.palantir.atlasdb.schema.KeyValueServiceMigrator.KvsMigrationMessageProcessor;
+import com.palantir.atlasdb.table.description.RowNamePartitioner;
+import com.palantir.atlasdb.table.description.TableMetadata;
+import com.palantir.atlasdb.transaction.api.Transaction;
+import com.palantir.atlasdb.transaction.api.TransactionManager;
+import com.palantir.common.base.AbortingVisitor;
+import com.palantir.common.base.Throwables;
+import com.palantir.common.collect.Maps2;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.logsafe.SafeArg;
+
+/**
+ * Copies tables from one key value service to another on a shared pool of workers.
+ * <p>
+ * Every table starts out partitioned into ranges, as in {@link TableMigrator}, and the ranges of all the tables are
+ * queued up front, so that workers move on to other tables instead of idling while the last ranges of a table finish.
+ * A worker copies its range in transactions that write about {@code writeBatchBytes} each, checkpointing the next row
+ * to copy in the same transaction. If some workers are idle and, at the rate the worker is moving through the row
+ * space, its range would take a while to finish, the worker splits off the second half of what remains of its range
+ * and queues it for an idle worker. Splits are recorded in the checkpoint table along with the checkpoint, so a
+ * migration that is resumed picks up every range, split or not, where it left off.
+ */
+final class ParallelKvsMigrator {
+    private static final Logger log = LoggerFactory.getLogger(ParallelKvsMigrator.class);
+
+    private static final int PARTITIONS = 256;
+    private static final long MIN_REMAINING_MILLIS_TO_SPLIT = 10_000L;
+    private static final long PROGRESS_REPORT_INTERVAL_SECONDS = 60L;
+
+    private final TransactionManager readTxManager;
+    private final TransactionManager txManager;
+    private final KeyValueService readKvs;
+    private final KeyValueService writeKvs;
+    private final long migrationTimestamp;
+    private final GeneralTaskCheckpointer checkpointer;
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final ToIntFunction<TableReference> readBatchSizes;
+    private final long writeBatchBytes;
+    @Nullable
+    private final RateLimiter bytesRateLimiter;
+    private final KvsMigrationMessageProcessor messageProcessor;
+    private final TaskProgress taskProgress;
+    private final long minRemainingMillisToSplit;
+
+    private final List<TableProgress> tables = new ArrayList<>();
+    private final AtomicInteger queuedRanges = new AtomicInteger();
+    private final AtomicInteger runningRanges = new AtomicInteger();
+    // one more than the number of unfinished ranges while ranges are still being scheduled
+    private final AtomicInteger outstandingRanges = new AtomicInteger();
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    ParallelKvsMigrator(
+            TransactionManager readTxManager,
+            TransactionManager txManager,
+            KeyValueService readKvs,
+            KeyValueService writeKvs,
+            long migrationTimestamp,
+            GeneralTaskCheckpointer checkpointer,
+            ExecutorService executor,
+            int parallelism,
+            ToIntFunction<TableReference> readBatchSizes,
+            long writeBatchBytes,
+            long maxBytesPerSecond,
+            KvsMigrationMessageProcessor messageProcessor,
+            TaskProgress taskProgress) {
+        this(readTxManager, txManager, readKvs, writeKvs, migrationTimestamp, checkpointer, executor, parallelism,
+                readBatchSizes, writeBatchBytes, maxBytesPerSecond, messageProcessor, taskProgress,
+                MIN_REMAINING_MILLIS_TO_SPLIT);
+    }
+
+    @VisibleForTesting
+    ParallelKvsMigrator(
+            TransactionManager readTxManager,
+            TransactionManager txManager,
+            KeyValueService readKvs,
+            KeyValueService writeKvs,
+            long migrationTimestamp,
+            GeneralTaskCheckpointer checkpointer,
+            ExecutorService executor,
+            int parallelism,
+            ToIntFunction<TableReference> readBatchSizes,
+            long writeBatchBytes,
+            long maxBytesPerSecond,
+            KvsMigrationMessageProcessor messageProcessor,
+            TaskProgress taskProgress,
+            long minRemainingMillisToSplit) {
+        this.readTxManager = readTxManager;
+        this.txManager = txManager;
+        this.readKvs = readKvs;
+        this.writeKvs = writeKvs;
+        this.migrationTimestamp = migrationTimestamp;
+        this.checkpointer = checkpointer;
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.readBatchSizes = readBatchSizes;
+        this.writeBatchBytes = writeBatchBytes;
+        this.bytesRateLimiter = maxBytesPerSecond > 0 ? RateLimiter.create(maxBytesPerSecond) : null;
+        this.messageProcessor = messageProcessor;
+        this.taskProgress = taskProgress;
+        this.minRemainingMillisToSplit = minRemainingMillisToSplit;
+    }
+
+    /**
+     * Migrates the given tables, returning once they have all been migrated. May only be called once.
+     */
+    void migrate(Set<TableReference> tablesToMigrate) throws InterruptedException {
+        processMessage("Migrating tables at migrationTimestamp " + migrationTimestamp, KvsMigrationMessageLevel.INFO);
+        outstandingRanges.incrementAndGet();
+        try {
+            for (TableReference table : tablesToMigrate) {
+                if (failure.get() != null) {
+                    break;
+                }
+                scheduleTable(table);
+            }
+        } finally {
+            rangeFinished();
+        }
+
+        while (!finished.await(PROGRESS_REPORT_INTERVAL_SECONDS, TimeUnit.SECONDS)) {
+            for (TableProgress table : tables) {
+                if (!table.isFinished()) {
+                    processMessage("Migration of table " + table.tableRef + " in progress: " + table.describeRates(),
+                            KvsMigrationMessageLevel.INFO);
+                }
+            }
+        }
+        if (failure.get() != null) {
+            throw Throwables.throwUncheckedException(failure.get());
+        }
+    }
+
+    private void scheduleTable(TableReference tableRef) {
+        String extraId = tableRef.getQualifiedName();
+        List<byte[]> boundaries = TableMigrator.getRangeBoundaries(getPartitioners(tableRef), PARTITIONS);
+        Map<Long, byte[]> startById = new HashMap<>();
+        for (int rangeId = 0; rangeId < boundaries.size() - 1; rangeId++) {
+            startById.put((long) rangeId, boundaries.get(rangeId));
+        }
+        checkpointer.createCheckpoints(extraId, startById);
+
+        List<MigrationRange> remainingRanges = new ArrayList<>();
+        long nextRangeId = txManager.runTaskWithRetry(tx -> {
+            remainingRanges.clear();
+            Map<Long, byte[]> endById = new HashMap<>();
+            for (int rangeId = 0; rangeId < boundaries.size() - 1; rangeId++) {
+                endById.put((long) rangeId, boundaries.get(rangeId + 1));
+            }
+            // ranges that were split have their new end recorded, and ranges split off from them only exist there
+            endById.putAll(checkpointer.getRangeEnds(extraId, tx));
+            endById.forEach((rangeId, end) -> {
+                if (checkpointer.getCheckpoint(extraId, rangeId, tx) != null) {
+                    remainingRanges.add(new MigrationRange(rangeId, end));
+                }
+            });
+            return endById.keySet().stream().mapToLong(Long::longValue).max().orElse(-1L) + 1;
+        });
+
+        if (remainingRanges.isEmpty()) {
+            processMessage("Table " + tableRef + " has already been migrated", KvsMigrationMessageLevel.INFO);
+            return;
+        }
+        processMessage("Migrating " + remainingRanges.size() + " remaining ranges of table " + tableRef,
+                KvsMigrationMessageLevel.INFO);
+        taskProgress.beginTask("Migrating table " + tableRef + "...", remainingRanges.size());
+
+        TableProgress table = new TableProgress(tableRef, readBatchSizes.applyAsInt(tableRef), nextRangeId);
+        tables.add(table);
+        try {
+            remainingRanges.forEach(range -> submit(table, range));
+        } finally {
+            tableRangeFinished(table);
+        }
+    }
+
+    private void submit(TableProgress table, MigrationRange range) {
+        outstandingRanges.incrementAndGet();
+        table.outstandingRanges.incrementAndGet();
+        queuedRanges.incrementAndGet();
+        executor.execute(PTExecutors.wrap("MigrationTask", () -> {
+            queuedRanges.decrementAndGet();
+            runningRanges.incrementAndGet();
+            try {
+                if (failure.get() == null) {
+                    migrateRange(table, range);
+                    taskProgress.subTaskComplete();
+                }
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+                finished.countDown();
+            } finally {
+                runningRanges.decrementAndGet();
+                tableRangeFinished(table);
+                rangeFinished();
+            }
+        }));
+    }
+
+    private void tableRangeFinished(TableProgress table) {
+        if (table.outstandingRanges.decrementAndGet() == 0 && failure.get() == null) {
+            taskProgress.taskComplete();
+            processMessage("Migrated table " + table.tableRef + ": " + table.describeRates(),
+                    KvsMigrationMessageLevel.INFO);
+        }
+    }
+
+    private void rangeFinished() {
+        if (outstandingRanges.decrementAndGet() == 0) {
+            finished.countDown();
+        }
+    }
+
+    private void migrateRange(TableProgress table, MigrationRange range) {
+        while (failure.get() == null) {
+            BatchResult result = txManager.runTaskWithRetry(writeT -> copyBatchFromReadTxManager(table, range, writeT));
+            table.rows.add(result.rows);
+            table.bytes.add(result.bytes);
+            if (bytesRateLimiter != null && result.bytes > 0) {
+                bytesRateLimiter.acquire(Ints.saturatedCast(result.bytes));
+            }
+            if (result.split != null) {
+                range.end = result.split.firstStart;
+                log.debug("Split range {} of table {} at {}, the remainder is range {}",
+                        SafeArg.of("rangeId", range.rangeId),
+                        LoggingArgs.tableRef(table.tableRef),
+                        SafeArg.of("splitRow", PtBytes.encodeHexString(range.end)),
+                        SafeArg.of("newRangeId", result.split.rangeId));
+                submit(table, result.split);
+            }
+            if (result.done) {
+                return;
+            }
+        }
+    }
+
+    private BatchResult copyBatchFromReadTxManager(TableProgress table, MigrationRange range, Transaction writeT) {
+        if (readTxManager == txManager) {
+            return copyBatch(table, range, writeT, writeT);
+        }
+        // read only, but need to use a write tx in case the source table has SweepStrategy.THOROUGH
+        return readTxManager.runTaskWithRetry(readT -> copyBatch(table, range, readT, writeT));
+    }
+
+    private BatchResult copyBatch(TableProgress table, MigrationRange range, Transaction readT, Transaction writeT) {
+        String extraId = table.tableRef.getQualifiedName();
+        byte[] start = checkpointer.getCheckpoint(extraId, range.rangeId, writeT);
+        if (start == null) {
+            return BatchResult.DONE;
+        }
+        if (range.firstStart == null) {
+            range.firstStart = start;
+        }
+        RangeRequest.Builder builder = RangeRequest.builder()
+                .startRowInclusive(start)
+                .endRowExclusive(range.end)
+                .batchHint(table.readBatchSize);
+        if (builder.isInvalidRange()) {
+            checkpointer.checkpoint(extraId, range.rangeId, PtBytes.EMPTY_BYTE_ARRAY, writeT);
+            return BatchResult.DONE;
+        }
+
+        Map<Cell, byte[]> writeMap = new HashMap<>();
+        MutableInt rows = new MutableInt();
+        MutableLong bytes = new MutableLong();
+        AtomicReference<byte[]> lastRow = new AtomicReference<>();
+        AbortingVisitor<List<RowResult<byte[]>>, RuntimeException> visitor = batch -> {
+            for (RowResult<byte[]> row : batch) {
+                for (Map.Entry<Cell, byte[]> cell : row.getCells()) {
+                    writeMap.put(cell.getKey(), cell.getValue());
+                    bytes.add(cell.getValue().length + Cells.getApproxSizeOfCell(cell.getKey()));
+                }
+                rows.increment();
+                if (bytes.longValue() >= writeBatchBytes) {
+                    lastRow.set(row.getRowName());
+                    return false;
+                }
+            }
+            return true;
+        };
+        readT.getRange(table.tableRef, builder.build()).batchAccept(table.readBatchSize, visitor);
+        writeToKvs(table.tableRef, writeMap);
+
+        byte[] nextRow = lastRow.get() == null || RangeRequests.isLastRowName(lastRow.get())
+                ? PtBytes.EMPTY_BYTE_ARRAY
+                : RangeRequests.nextLexicographicName(lastRow.get());
+        checkpointer.checkpoint(extraId, range.rangeId, nextRow, writeT);
+        if (nextRow.length == 0) {
+            return new BatchResult(rows.intValue(), bytes.longValue(), true, null);
+        }
+        return new BatchResult(rows.intValue(), bytes.longValue(), false, maybeSplit(table, range, nextRow, writeT));
+    }
+
+    private void writeToKvs(TableReference tableRef, Map<Cell, byte[]> writeMap) {
+        if (writeMap.isEmpty()) {
+            return;
+        }
+        try {
+            writeKvs.put(tableRef, writeMap, migrationTimestamp);
+        } catch (KeyAlreadyExistsException e) {
+            // a previous attempt at this batch wrote some of the cells
+            Multimap<Cell, Long> keys = Multimaps.forMap(
+                    Maps2.createConstantValueMap(writeMap.keySet(), migrationTimestamp));
+            writeKvs.delete(tableRef, keys);
+            writeKvs.put(tableRef, writeMap, migrationTimestamp);
+        }
+    }
+
+    /**
+     * Splits off the second half of what remains of the range, if there are idle workers to migrate it and the
+     * range's own worker would otherwise take a while to get there.
+     */
+    @Nullable
+    private MigrationRange maybeSplit(TableProgress table, MigrationRange range, byte[] nextRow, Transaction writeT) {
+        if (queuedRanges.get() > 0 || runningRanges.get() >= parallelism) {
+            return null;
+        }
+        double progressed = getPosition(nextRow) - getPosition(range.firstStart);
+        double remaining = getEndPosition(range.end) - getPosition(nextRow);
+        if (progressed <= 0
+                || range.stopwatch.elapsed(TimeUnit.MILLISECONDS) * remaining / progressed
+                        < minRemainingMillisToSplit) {
+            return null;
+        }
+        byte[] splitRow = getSplitRow(nextRow, range.end);
+        if (splitRow == null) {
+            return null;
+        }
+
+        String extraId = table.tableRef.getQualifiedName();
+        MigrationRange split = new MigrationRange(table.nextRangeId.getAndIncrement(), range.end);
+        split.firstStart = splitRow;
+        checkpointer.setRangeEnd(extraId, range.rangeId, splitRow, writeT);
+        checkpointer.checkpoint(extraId, split.rangeId, splitRow, writeT);
+        checkpointer.setRangeEnd(extraId, split.rangeId, split.end, writeT);
+        return split;
+    }
+
+    /**
+     * Returns a row roughly halfway between the given rows, judging by their first eight bytes, or null if there is no
+     * such row strictly between them. An empty end row is the end of the table.
+     */
+    @VisibleForTesting
+    @Nullable
+    static byte[] getSplitRow(byte[] startInclusive, byte[] endExclusive) {
+        long low = getPrefix(startInclusive);
+        long high = endExclusive.length == 0 ? -1L : getPrefix(endExclusive);
+        if (UnsignedLongs.compare(high, low) <= 0) {
+            return null;
+        }
+        byte[] splitRow = Longs.toByteArray(low + ((high - low) >>> 1));
+        if (UnsignedBytes.lexicographicalComparator().compare(splitRow, startInclusive) <= 0
+                || (endExclusive.length != 0
+                        && UnsignedBytes.lexicographicalComparator().compare(splitRow, endExclusive) >= 0)) {
+            return null;
+        }
+        return splitRow;
+    }
+
+    private static double getPosition(byte[] row) {
+        return UnsignedLong.fromLongBits(getPrefix(row)).doubleValue() / 0x1p64;
+    }
+
+    private static double getEndPosition(byte[] endExclusive) {
+        return endExclusive.length == 0 ? 1.0 : getPosition(endExclusive);
+    }
+
+    private static long getPrefix(byte[] row) {
+        return Longs.fromByteArray(Arrays.copyOf(row, Long.BYTES));
+    }
+
+    private List<RowNamePartitioner> getPartitioners(TableReference table) {
+        try {
+            byte[] metadata = readKvs.getMetadataForTable(table);
+            TableMetadata tableMeta = TableMetadata.BYTES_HYDRATOR.hydrateFromBytes(metadata);
+            return tableMeta.getRowMetadata().getPartitionersForRow();
+        } catch (RuntimeException e) {
+            KeyValueServiceMigratorUtils.processMessage(
+                    messageProcessor,
+                    "Could not resolve partitioners from table metadata for "
+                            + table
+                            + " this may result in a small decrease in performance migrating this table.",
+                    e,
+                    KvsMigrationMessageLevel.WARN);
+            return ImmutableList.of();
+        }
+    }
+
+    private void processMessage(String message, KvsMigrationMessageLevel level) {
+        KeyValueServiceMigratorUtils.processMessage(messageProcessor, message, level);
+    }
+
+    private static final class TableProgress {
+        private final TableReference tableRef;
+        private final int readBatchSize;
+        private final AtomicLong nextRangeId;
+        // one more than the number of unfinished ranges while ranges are still being scheduled
+        private final AtomicInteger outstandingRanges = new AtomicInteger(1);
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final Stopwatch stopwatch = Stopwatch.createStarted();
+
+        TableProgress(TableReference tableRef, int readBatchSize, long nextRangeId) {
+            this.tableRef = tableRef;
+            this.readBatchSize = readBatchSize;
+            this.nextRangeId = new AtomicLong(nextRangeId);
+        }
+
+        boolean isFinished() {
+            return outstandingRanges.get() == 0;
+        }
+
+        String describeRates() {
+            double seconds = Math.max(stopwatch.elapsed(TimeUnit.MILLISECONDS), 1L) / 1000.0;
+            return String.format("%d rows (%.0f rows/s), %d bytes (%.0f bytes/s)",
+                    rows.sum(), rows.sum() / seconds, bytes.sum(), bytes.sum() / seconds);
+        }
+    }
+
+    /**
+     * A range of a table, which is only ever migrated by one worker at a time.
+     */
+    private static final class MigrationRange {
+        private final long rangeId;
+        private final Stopwatch stopwatch = Stopwatch.createStarted();
+        private byte[] end;
+        @Nullable
+        private byte[] firstStart;
+
+        MigrationRange(long rangeId, byte[] end) {
+            this.rangeId = rangeId;
+            this.end = end;
+        }
+    }
+
+    private static final class BatchResult {
+        private static final BatchResult DONE = new BatchResult(0, 0L, true, null);
+
+        private final int rows;
+        private final long bytes;
+        private final boolean done;
+        @Nullable
+        private final MigrationRange split;
+
+        BatchResult(int rows, long bytes, boolean done, @Nullable MigrationRange split) {
+            this.rows = rows;
+            this.bytes = bytes;
+            this.done = done;
+            this.split = split;
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package com.palantir.atlasdb.sweep.metrics;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -23,7 +24,9 @@ import java.util.function.Supplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Counter;
 import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
 import com.google.common.collect.ImmutableMap;
 import com.palantir.atlasdb.AtlasDbMetricNames;
 import com.palantir.atlasdb.cleaner.KeyValueServicePuncherStore;
@@ -46,9 +49,17 @@ public class TargetedSweepMetrics {
     private static final Logger log = LoggerFactory.getLogger(TargetedSweepMetrics.class);
     private static final long ONE_WEEK = TimeUnit.DAYS.toMillis(7L);
     private final Map<SweeperStrategy, MetricsForStrategy> metricsForStrategyMap;
+    private final MetricsManager metricsManager;
+    private final Counter deleteBatchesInFlight;
+    private final Timer deleteBatchDuration;
 
     private TargetedSweepMetrics(MetricsManager metricsManager,
                 Function<Long, Long> tsToMillis, Clock clock, long millis) {
+        this.metricsManager = metricsManager;
+        deleteBatchesInFlight = metricsManager.registerOrGetCounter(
+                TargetedSweepMetrics.class, AtlasDbMetricNames.DELETE_BATCHES_IN_FLIGHT);
+        deleteBatchDuration = metricsManager.registerOrGetTimer(
+                TargetedSweepMetrics.class, AtlasDbMetricNames.DELETE_BATCH_DURATION);
         metricsForStrategyMap = ImmutableMap.of(
                 SweeperStrategy.CONSERVATIVE,
                 new MetricsForStrategy(metricsManager, AtlasDbMetricNames.TAG_CONSERVATIVE, tsToMillis, clock, millis),
@@ -111,6 +122,35 @@ public class TargetedSweepMetrics {
         getMetrics(shardStrategy).registerEntriesReadInBatch(batchSize);
     }
 
+    /**
+     * Deletes are executed on an executor shared by both strategies, so in-flight batches and their latency are
+     * tracked across strategies, to match the concurrency limit they are subject to.
+     */
+    public void registerDeleteBatchSubmitted() {
+        deleteBatchesInFlight.inc();
+    }
+
+    public void registerDeleteBatchCompleted(long durationNanos) {
+        deleteBatchesInFlight.dec();
+        deleteBatchDuration.update(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void updateBacklog(ShardAndStrategy shardStrategy, long backlog) {
+        getMetrics(shardStrategy).updateBacklog(shardStrategy.shard(), backlog);
+    }
+
+    /**
+     * Like deletes, the controller adjusting sweep batches is shared by both strategies, so its decisions are only
+     * tagged with the decision made.
+     */
+    public void registerControllerDecision(SweepControllerDecision decision) {
+        metricsManager.registerOrGetTaggedMeter(
+                TargetedSweepMetrics.class,
+                AtlasDbMetricNames.SWEEP_CONTROLLER_DECISION,
+                ImmutableMap.of(AtlasDbMetricNames.TAG_DECISION, decision.name()))
+                .mark();
+    }
+
     private MetricsForStrategy getMetrics(ShardAndStrategy shardStrategy) {
         return getMetrics(shardStrategy.strategy());
     }
@@ -130,6 +170,7 @@ public class TargetedSweepMetrics {
         private final AggregatingVersionedMetric<Long> lastSweptTs;
         private final SweepOutcomeMetrics outcomeMetrics;
         private final SlidingWindowMeanGauge batchSizeMean;
+        private final Map<Integer, CurrentValueMetric<Long>> backlogByShard = new ConcurrentHashMap<>();
 
         private MetricsForStrategy(MetricsManager manager, String strategy, Function<Long, Long> tsToMillis,
                 Clock wallClock, long recomputeMillis) {
@@ -217,5 +258,19 @@ public class TargetedSweepMetrics {
         public void registerEntriesReadInBatch(long batchSize) {
             batchSizeMean.update(batchSize);
         }
+
+        private void updateBacklog(int shard, long backlog) {
+            backlogByShard.computeIfAbsent(shard, this::registerBacklogMetric).setValue(backlog);
+        }
+
+        @SuppressWarnings("unchecked")
+        private CurrentValueMetric<Long> registerBacklogMetric(int shard) {
+            Map<String, String> shardTag = ImmutableMap.<String, String>builder()
+                    .putAll(tag)
+                    .put(AtlasDbMetricNames.TAG_SHARD, Integer.toString(shard))
+                    .build();
+            return (CurrentValueMetric<Long>) manager.registerOrGet(
+                    TargetedSweepMetrics.class, AtlasDbMetricNames.SWEEP_BACKLOG, new CurrentValueMetric<>(), shardTag);
+        }
     }
 }
@@ -0,0 +1,173 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.sweep.queue;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.palantir.atlasdb.sweep.metrics.SweepControllerDecision;
+import com.palantir.atlasdb.sweep.metrics.TargetedSweepMetrics;
+import com.palantir.atlasdb.sweep.queue.config.TargetedSweepRuntimeConfig;
+import com.palantir.atlasdb.table.description.SweepStrategy.SweeperStrategy;
+
+/**
+ * Adapts targeted sweep to the load on the key value service, when
+ * {@link TargetedSweepRuntimeConfig#adaptiveBatching()} is enabled.
+ * <p>
+ * The latencies of sweep's individual reads of the queue and deletes are smoothed, and after every iteration the
+ * number of partitions read in a batch is adjusted: it is increased by one while both latencies are below half of the
+ * target, and halved, with sweep pausing for exponentially longer, while either is above it. Shards are swept in order
+ * of their backlog, the difference between the sweep timestamp and their last swept timestamp, weighted by the time
+ * since they were last swept, so that shards with a small backlog are not starved, and shards that make no progress,
+ * for example because of a long-running transaction, are not retried at the expense of all others.
+ * <p>
+ * The backlog of each shard is exported whether or not adaptive batching is enabled.
+ */
+class AdaptiveSweepController {
+    private static final double SMOOTHING = 0.2;
+    private static final long MAX_BACK_OFF_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final int MAX_BACK_OFF_DOUBLINGS = 10;
+
+    private final Supplier<TargetedSweepRuntimeConfig> runtime;
+    private final TargetedSweepMetrics metrics;
+    private final LongSupplier clockMillis;
+    private final Map<ShardAndStrategy, ShardState> shards = new ConcurrentHashMap<>();
+
+    // all of the following are guarded by this
+    private double smoothedReadMillis = 0;
+    private double smoothedDeleteMillis = 0;
+    private int partitionsPerRead = Integer.MAX_VALUE;
+    private int consecutiveBackOffs = 0;
+    private long backOffUntilMillis = 0;
+
+    @VisibleForTesting
+    AdaptiveSweepController(
+            Supplier<TargetedSweepRuntimeConfig> runtime,
+            TargetedSweepMetrics metrics,
+            LongSupplier clockMillis) {
+        this.runtime = runtime;
+        this.metrics = metrics;
+        this.clockMillis = clockMillis;
+    }
+
+    static AdaptiveSweepController create(Supplier<TargetedSweepRuntimeConfig> runtime, TargetedSweepMetrics metrics) {
+        return new AdaptiveSweepController(runtime, metrics, System::currentTimeMillis);
+    }
+
+    /**
+     * The number of fine partitions to read in the next batch.
+     */
+    synchronized int partitionsPerRead() {
+        int maximum = runtime.get().maximumPartitionsToBatchInSingleRead();
+        return adaptive() ? Math.min(partitionsPerRead, maximum) : maximum;
+    }
+
+    synchronized boolean shouldBackOff() {
+        return adaptive() && clockMillis.getAsLong() < backOffUntilMillis;
+    }
+
+    /**
+     * Returns the shards of the given strategy, in the order in which they should be attempted.
+     */
+    List<Integer> shardsByPriority(SweeperStrategy strategy, int numShards) {
+        long now = clockMillis.getAsLong();
+        return IntStream.range(0, numShards)
+                .boxed()
+                .sorted(Comparator.comparingDouble(
+                        (Integer shard) -> priority(ShardAndStrategy.of(shard, strategy), now)).reversed())
+                .collect(Collectors.toList());
+    }
+
+    synchronized void recordReadLatency(long nanos) {
+        smoothedReadMillis = smooth(smoothedReadMillis, nanos);
+    }
+
+    synchronized void recordDeleteLatency(long nanos) {
+        smoothedDeleteMillis = smooth(smoothedDeleteMillis, nanos);
+    }
+
+    /**
+     * Records the progress of an iteration of sweep of the given shard, and adjusts batching to the latencies observed
+     * so far.
+     */
+    void recordIteration(ShardAndStrategy shardStrategy, long lastSweptTs, long sweepTs) {
+        long backlog = Math.max(0L, sweepTs - lastSweptTs - 1);
+        shards.put(shardStrategy, new ShardState(backlog, clockMillis.getAsLong()));
+        metrics.updateBacklog(shardStrategy, backlog);
+        if (adaptive()) {
+            metrics.registerControllerDecision(adjust());
+        }
+    }
+
+    private synchronized SweepControllerDecision adjust() {
+        long target = runtime.get().targetKvsLatencyMillis();
+        double latency = Math.max(smoothedReadMillis, smoothedDeleteMillis);
+        int maximum = runtime.get().maximumPartitionsToBatchInSingleRead();
+        partitionsPerRead = Math.min(partitionsPerRead, maximum);
+        if (latency > target) {
+            partitionsPerRead = Math.max(1, partitionsPerRead / 2);
+            long backOffMillis = Math.min(MAX_BACK_OFF_MILLIS,
+                    target << Math.min(consecutiveBackOffs, MAX_BACK_OFF_DOUBLINGS));
+            backOffUntilMillis = clockMillis.getAsLong() + backOffMillis;
+            consecutiveBackOffs++;
+            return SweepControllerDecision.DECREASE_BATCH_AND_BACK_OFF;
+        }
+        consecutiveBackOffs = 0;
+        if (latency < target / 2.0 && partitionsPerRead < maximum) {
+            partitionsPerRead++;
+            return SweepControllerDecision.INCREASE_BATCH;
+        }
+        return SweepControllerDecision.HOLD_BATCH;
+    }
+
+    private double priority(ShardAndStrategy shardStrategy, long now) {
+        ShardState state = shards.get(shardStrategy);
+        if (state == null) {
+            // not swept by this node yet, so we know nothing about its backlog
+            return Double.POSITIVE_INFINITY;
+        }
+        // a caught up shard still gains priority as it waits, so that it is swept again once new writes are queued
+        return (double) (state.backlog + 1) * (Math.max(0L, now - state.lastSweptMillis) + 1);
+    }
+
+    private boolean adaptive() {
+        return runtime.get().adaptiveBatching();
+    }
+
+    private static double smooth(double smoothedMillis, long nanos) {
+        double millis = nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        return smoothedMillis == 0 ? millis : SMOOTHING * millis + (1 - SMOOTHING) * smoothedMillis;
+    }
+
+    private static final class ShardState {
+        private final long backlog;
+        private final long lastSweptMillis;
+
+        private ShardState(long backlog, long lastSweptMillis) {
+            this.backlog = backlog;
+            this.lastSweptMillis = lastSweptMillis;
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package com.palantir.atlasdb.sweep.queue;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.function.IntSupplier;
 import java.util.function.Supplier;
@@ -47,16 +48,19 @@ public final class SweepQueue implements MultiTableSweepQueueWriter {
     private final Supplier<Integer> numShards;
     private final IntSupplier partitionBatchLimitSupplier;
     private final TargetedSweepMetrics metrics;
+    private final AdaptiveSweepController controller;
 
-    private SweepQueue(SweepQueueFactory factory, TargetedSweepFollower follower) {
+    private SweepQueue(SweepQueueFactory factory, TargetedSweepFollower follower, ExecutorService deleteExecutor,
+            AdaptiveSweepController controller) {
         this.progress = factory.progress;
         this.writer = factory.createWriter();
-        this.reader = factory.createReader();
-        this.deleter = factory.createDeleter(follower);
+        this.reader = factory.createReader(controller);
+        this.deleter = factory.createDeleter(follower, deleteExecutor, controller);
         this.cleaner = factory.createCleaner();
         this.numShards = factory.numShards;
         this.metrics = factory.metrics;
         this.partitionBatchLimitSupplier = factory.partitionBatchLimitSupplier;
+        this.controller = controller;
     }
 
     public static SweepQueue create(
@@ -66,10 +70,12 @@ public final class SweepQueue implements MultiTableSweepQueueWriter {
             Supplier<Integer> shardsConfig,
             TransactionService transaction,
             TargetedSweepFollower follower,
-            IntSupplier partitionBatchLimitSupplier) {
+            IntSupplier partitionBatchLimitSupplier,
+            ExecutorService deleteExecutor,
+            AdaptiveSweepController controller) {
         SweepQueueFactory factory = SweepQueueFactory.create(metrics, kvs, timelock, shardsConfig, transaction,
                 partitionBatchLimitSupplier);
-        return new SweepQueue(factory, follower);
+        return new SweepQueue(factory, follower, deleteExecutor, controller);
     }
 
     /**
@@ -109,7 +115,7 @@ public final class SweepQueue implements MultiTableSweepQueueWriter {
 
     /**
      * Sweep the next batch for the shard and strategy specified by shardStrategy, with the sweep timestamp sweepTs.
-     * After successful deletes, the persisted information about the writes is removed, and progress is updated
+     * After all deletes have succeeded, the persisted information about the writes is removed, and progress is updated
      * accordingly.
      *
      * @param shardStrategy shard and strategy to use
@@ -121,6 +127,7 @@ public final class SweepQueue implements MultiTableSweepQueueWriter {
         long lastSweptTs = progress.getLastSweptTimestamp(shardStrategy);
 
         if (lastSweptTs + 1 >= sweepTs) {
+            controller.recordIteration(shardStrategy, lastSweptTs, sweepTs);
             return false;
         }
 
@@ -149,6 +156,7 @@ public final class SweepQueue implements MultiTableSweepQueueWriter {
 
         metrics.updateNumberOfTombstones(shardStrategy, sweepBatch.writes().size());
         metrics.updateProgressForShard(shardStrategy, sweepBatch.lastSweptTimestamp());
+        controller.recordIteration(shardStrategy, sweepBatch.lastSweptTimestamp(), sweepTs);
 
         if (sweepBatch.isEmpty()) {
             metrics.registerOccurrenceOf(shardStrategy, SweepOutcome.NOTHING_TO_SWEEP);
@@ -232,12 +240,14 @@ public final class SweepQueue implements MultiTableSweepQueueWriter {
             return new SweepQueueWriter(timestamps, cells);
         }
 
-        private SweepQueueReader createReader() {
-            return new SweepQueueReader(timestamps, cells, partitionBatchLimitSupplier);
+        private SweepQueueReader createReader(AdaptiveSweepController controller) {
+            return new SweepQueueReader(timestamps, cells, partitionBatchLimitSupplier, controller);
         }
 
-        private SweepQueueDeleter createDeleter(TargetedSweepFollower follower) {
-            return new SweepQueueDeleter(kvs, follower, new DefaultTableClearer(kvs, timelock::getImmutableTimestamp));
+        private SweepQueueDeleter createDeleter(TargetedSweepFollower follower, ExecutorService deleteExecutor,
+                AdaptiveSweepController controller) {
+            return new SweepQueueDeleter(kvs, follower, new DefaultTableClearer(kvs, timelock::getImmutableTimestamp),
+                    deleteExecutor, metrics, controller);
         }
 
         private SweepQueueCleaner createCleaner() {
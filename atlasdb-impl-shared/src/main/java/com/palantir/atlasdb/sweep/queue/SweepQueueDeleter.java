@@ -15,9 +15,14 @@
  */
 package com.palantir.atlasdb.sweep.queue;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -32,6 +37,8 @@ import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.atlasdb.keyvalue.api.TimestampRangeDelete;
 import com.palantir.atlasdb.logging.LoggingArgs;
 import com.palantir.atlasdb.sweep.Sweeper;
+import com.palantir.atlasdb.sweep.metrics.TargetedSweepMetrics;
+import com.palantir.common.base.Throwables;
 
 public class SweepQueueDeleter {
     private static final Logger log = LoggerFactory.getLogger(SweepQueueDeleter.class);
@@ -39,17 +46,29 @@ public class SweepQueueDeleter {
     private final KeyValueService kvs;
     private final TargetedSweepFollower follower;
     private final TargetedSweepFilter filter;
+    private final ExecutorService deleteExecutor;
+    private final TargetedSweepMetrics metrics;
+    private final AdaptiveSweepController controller;
 
-    SweepQueueDeleter(KeyValueService kvs, TargetedSweepFollower follower,
-            TargetedSweepFilter filter) {
+    SweepQueueDeleter(KeyValueService kvs, TargetedSweepFollower follower, TargetedSweepFilter filter,
+            ExecutorService deleteExecutor, TargetedSweepMetrics metrics, AdaptiveSweepController controller) {
         this.kvs = kvs;
         this.follower = follower;
         this.filter = filter;
+        this.deleteExecutor = deleteExecutor;
+        this.metrics = metrics;
+        this.controller = controller;
     }
 
     /**
      * Executes targeted sweep, by inserting ranged tombstones corresponding to the given writes, using the sweep
      * strategy determined by the sweeper.
+     * <p>
+     * The writes are split into batches of at most {@link SweepQueueUtils#BATCH_SIZE_KVS} cells of a single table,
+     * which are submitted to the delete executor, so batches of different tables and of the same table may be deleted
+     * in parallel; the parallelism across all sweep threads is bounded by the size of the executor. This method only
+     * returns once every batch has completed, and throws if any batch failed for a table that has not been dropped, so
+     * that the caller does not record progress past writes that may not have been swept.
      *
      * @param unfilteredWrites individual writes to sweep for. Depending on the strategy, we will insert a ranged
      * tombstone for each write at either the write's timestamp - 1, or at its timestamp.
@@ -59,28 +78,63 @@ public class SweepQueueDeleter {
     public void sweep(Collection<WriteInfo> unfilteredWrites, Sweeper sweeper) {
         Collection<WriteInfo> writes = filter.filter(unfilteredWrites);
         Map<TableReference, Map<Cell, TimestampRangeDelete>> maxTimestampByCell = writesPerTable(writes, sweeper);
+        List<TableBatch> batches = new ArrayList<>();
         for (Map.Entry<TableReference, Map<Cell, TimestampRangeDelete>> entry : maxTimestampByCell.entrySet()) {
+            for (List<Cell> cells : Iterables.partition(entry.getValue().keySet(), SweepQueueUtils.BATCH_SIZE_KVS)) {
+                Map<Cell, TimestampRangeDelete> maxTimestampByCellPartition = cells.stream()
+                        .collect(Collectors.toMap(Function.identity(), entry.getValue()::get));
+                batches.add(submit(entry.getKey(), maxTimestampByCellPartition, sweeper));
+            }
+        }
+        awaitAll(batches);
+    }
+
+    private TableBatch submit(TableReference tableRef, Map<Cell, TimestampRangeDelete> maxTimestampByCell,
+            Sweeper sweeper) {
+        metrics.registerDeleteBatchSubmitted();
+        long submittedNanos = System.nanoTime();
+        Future<?> future = deleteExecutor.submit(() -> {
+            try {
+                follower.run(tableRef, maxTimestampByCell.keySet());
+                if (sweeper.shouldAddSentinels()) {
+                    kvs.addGarbageCollectionSentinelValues(tableRef, maxTimestampByCell.keySet());
+                }
+                long deleteStartNanos = System.nanoTime();
+                kvs.deleteAllTimestamps(tableRef, maxTimestampByCell);
+                controller.recordDeleteLatency(System.nanoTime() - deleteStartNanos);
+            } finally {
+                metrics.registerDeleteBatchCompleted(System.nanoTime() - submittedNanos);
+            }
+        });
+        return new TableBatch(tableRef, future);
+    }
+
+    /**
+     * Waits for every batch, even after one has failed, so that no deletes for this iteration are still running when
+     * the next one starts. The first failure for a table that has not been dropped is then rethrown.
+     */
+    private void awaitAll(List<TableBatch> batches) {
+        Throwable failure = null;
+        for (int i = 0; i < batches.size(); i++) {
+            TableBatch batch = batches.get(i);
             try {
-                Iterables.partition(entry.getValue().keySet(), SweepQueueUtils.BATCH_SIZE_KVS)
-                        .forEach(cells -> {
-                            Map<Cell, TimestampRangeDelete> maxTimestampByCellPartition = cells.stream()
-                                    .collect(Collectors.toMap(Function.identity(), entry.getValue()::get));
-                            follower.run(entry.getKey(), maxTimestampByCellPartition.keySet());
-                            if (sweeper.shouldAddSentinels()) {
-                                kvs.addGarbageCollectionSentinelValues(entry.getKey(),
-                                        maxTimestampByCellPartition.keySet());
-                            }
-                            kvs.deleteAllTimestamps(entry.getKey(), maxTimestampByCellPartition);
-                        });
-            } catch (Exception e) {
-                if (tableWasDropped(entry.getKey())) {
+                batch.future.get();
+            } catch (InterruptedException e) {
+                batches.subList(i, batches.size()).forEach(remaining -> remaining.future.cancel(true));
+                Thread.currentThread().interrupt();
+                throw Throwables.rewrapAndThrowUncheckedException(e);
+            } catch (ExecutionException e) {
+                if (tableWasDropped(batch.tableRef)) {
                     log.debug("Dropping sweeper work for table {}, which has been dropped.",
-                            LoggingArgs.tableRef(entry.getKey()), e);
-                } else {
-                    throw e;
+                            LoggingArgs.tableRef(batch.tableRef), e.getCause());
+                } else if (failure == null) {
+                    failure = e.getCause();
                 }
             }
         }
+        if (failure != null) {
+            throw Throwables.rewrapAndThrowUncheckedException(failure);
+        }
     }
 
     private boolean tableWasDropped(TableReference tableRef) {
@@ -93,4 +147,14 @@ public class SweepQueueDeleter {
                 WriteInfo::tableRef,
                 Collectors.toMap(WriteInfo::cell, write -> write.toDelete(sweeper))));
     }
+
+    private static final class TableBatch {
+        private final TableReference tableRef;
+        private final Future<?> future;
+
+        private TableBatch(TableReference tableRef, Future<?> future) {
+            this.tableRef = tableRef;
+            this.future = future;
+        }
+    }
 }
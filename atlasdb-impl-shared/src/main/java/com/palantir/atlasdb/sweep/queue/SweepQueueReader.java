@@ -22,13 +22,16 @@ class SweepQueueReader {
     private final SweepableTimestamps sweepableTimestamps;
     private final SweepableCells sweepableCells;
     private final IntSupplier maximumPartitionsInBatch;
+    private final AdaptiveSweepController controller;
 
     SweepQueueReader(SweepableTimestamps sweepableTimestamps,
             SweepableCells sweepableCells,
-            IntSupplier maximumPartitionsInBatch) {
+            IntSupplier maximumPartitionsInBatch,
+            AdaptiveSweepController controller) {
         this.sweepableTimestamps = sweepableTimestamps;
         this.sweepableCells = sweepableCells;
         this.maximumPartitionsInBatch = maximumPartitionsInBatch;
+        this.controller = controller;
     }
 
     SweepBatchWithPartitionInfo getNextBatchToSweep(ShardAndStrategy shardStrategy, long lastSweptTs, long sweepTs) {
@@ -42,8 +45,10 @@ class SweepQueueReader {
             if (!nextFinePartition.isPresent()) {
                 return accumulator.toSweepBatch();
             }
+            long startNanos = System.nanoTime();
             SweepBatch batch = sweepableCells.getBatchForPartition(
                     shardStrategy, nextFinePartition.get(), previousProgress, sweepTs);
+            controller.recordReadLatency(System.nanoTime() - startNanos);
             accumulator.accumulateBatch(batch);
             previousProgress = accumulator.getProgressTimestamp();
         }
@@ -56,7 +56,6 @@ import com.palantir.atlasdb.schema.generated.SweepableCellsTable;
 import com.palantir.atlasdb.schema.generated.SweepableCellsTable.SweepableCellsColumnValue;
 import com.palantir.atlasdb.schema.generated.SweepableCellsTable.SweepableCellsRow;
 import com.palantir.atlasdb.schema.generated.TargetedSweepTableFactory;
-import com.palantir.atlasdb.sweep.CommitTsCache;
 import com.palantir.atlasdb.sweep.metrics.TargetedSweepMetrics;
 import com.palantir.atlasdb.sweep.queue.id.SweepTableIndices;
 import com.palantir.atlasdb.transaction.impl.TransactionConstants;
@@ -65,7 +64,7 @@ import com.palantir.logsafe.SafeArg;
 
 public class SweepableCells extends SweepQueueTable {
     private final Logger log = LoggerFactory.getLogger(SweepableCells.class);
-    private final CommitTsCache commitTsCache;
+    private final WindowedCommitTsCache commitTsCache;
     private final WriteReferencePersister writeReferencePersister;
 
     private static final WriteReference DUMMY = WriteReference.of(
@@ -78,7 +77,7 @@ public class SweepableCells extends SweepQueueTable {
             TargetedSweepMetrics metrics,
             TransactionService transactionService) {
         super(kvs, TargetedSweepTableFactory.of().getSweepableCellsTable(null).getTableRef(), partitioner, metrics);
-        this.commitTsCache = CommitTsCache.create(transactionService);
+        this.commitTsCache = WindowedCommitTsCache.create(transactionService);
         this.writeReferencePersister = new WriteReferencePersister(new SweepTableIndices(kvs));
     }
 
@@ -159,10 +158,11 @@ public class SweepableCells extends SweepQueueTable {
 
     SweepBatch getBatchForPartition(ShardAndStrategy shardStrategy, long partitionFine, long minTsExclusive,
             long sweepTs) {
+        commitTsCache.evictUpTo(shardStrategy, minTsExclusive);
         SweepableCellsRow row = computeRow(partitionFine, shardStrategy);
         RowColumnRangeIterator resultIterator = getRowColumnRange(row, partitionFine, minTsExclusive, sweepTs);
         PeekingIterator<Map.Entry<Cell, Value>> peekingResultIterator = Iterators.peekingIterator(resultIterator);
-        WriteBatch writeBatch = getBatchOfWrites(row, peekingResultIterator, sweepTs);
+        WriteBatch writeBatch = getBatchOfWrites(shardStrategy, row, peekingResultIterator, sweepTs);
         Multimap<Long, WriteInfo> writesByStartTs = writeBatch.writesByStartTs;
         int entriesRead = writesByStartTs.size();
         maybeMetrics.ifPresent(metrics -> metrics.updateEntriesRead(shardStrategy, entriesRead));
@@ -186,14 +186,14 @@ public class SweepableCells extends SweepQueueTable {
             }).collect(Collectors.toList()));
     }
 
-    private WriteBatch getBatchOfWrites(SweepableCellsRow row,
+    private WriteBatch getBatchOfWrites(ShardAndStrategy shardStrategy, SweepableCellsRow row,
             PeekingIterator<Map.Entry<Cell, Value>> resultIterator, long sweepTs) {
         WriteBatch writeBatch = new WriteBatch();
         while (resultIterator.hasNext() && writeBatch.writesByStartTs.size() < SweepQueueUtils.SWEEP_BATCH_SIZE) {
             Map.Entry<Cell, Value> entry = resultIterator.next();
             SweepableCellsTable.SweepableCellsColumn col = computeColumn(entry);
             long startTs = getTimestamp(row, col);
-            if (knownToBeCommittedAfterSweepTs(startTs, sweepTs)) {
+            if (knownToBeCommittedAfterSweepTs(shardStrategy, startTs, sweepTs)) {
                 writeBatch.add(ImmutableList.of(getWriteInfo(startTs, entry.getValue())));
                 return writeBatch;
             }
@@ -249,15 +249,16 @@ public class SweepableCells extends SweepQueueTable {
 
     private TimestampsToSweep getTimestampsToSweepDescendingAndCleanupAborted(ShardAndStrategy shardStrategy,
             long minTsExclusive, long sweepTs, Multimap<Long, WriteInfo> writesByStartTs) {
-        Map<Long, Long> startToCommitTs = commitTsCache.loadBatch(writesByStartTs.keySet());
+        long[] sortedStartTimestamps = writesByStartTs.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        long[] commitTimestamps = commitTsCache.loadBatch(shardStrategy, sortedStartTimestamps);
         Map<TableReference, Multimap<Cell, Long>> cellsToDelete = new HashMap<>();
         List<Long> committedTimestamps = new ArrayList<>();
         long lastSweptTs = minTsExclusive;
         boolean processedAll = true;
 
-        List<Long> sortedStartTimestamps = startToCommitTs.keySet().stream().sorted().collect(Collectors.toList());
-        for (long startTs : sortedStartTimestamps) {
-            long commitTs = startToCommitTs.get(startTs);
+        for (int i = 0; i < sortedStartTimestamps.length; i++) {
+            long startTs = sortedStartTimestamps[i];
+            long commitTs = commitTimestamps[i];
             if (commitTs == TransactionConstants.FAILED_COMMIT_TS) {
                 lastSweptTs = startTs;
                 writesByStartTs.get(startTs)
@@ -370,8 +371,9 @@ public class SweepableCells extends SweepQueueTable {
         return row.getTimestampPartition() * SweepQueueUtils.TS_FINE_GRANULARITY + col.getTimestampModulus();
     }
 
-    private boolean knownToBeCommittedAfterSweepTs(long startTs, long sweepTs) {
-        return commitTsCache.loadIfCached(startTs).map(commitTs -> commitTs >= sweepTs).orElse(false);
+    private boolean knownToBeCommittedAfterSweepTs(ShardAndStrategy shardStrategy, long startTs, long sweepTs) {
+        long commitTs = commitTsCache.getIfCached(shardStrategy, startTs);
+        return commitTs != WindowedCommitTsCache.NOT_CACHED && commitTs >= sweepTs;
     }
 
     private int writeIndexToNumberOfDedicatedRows(long writeIndex) {
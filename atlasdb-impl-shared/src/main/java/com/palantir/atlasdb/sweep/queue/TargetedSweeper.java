@@ -18,11 +18,13 @@ package com.palantir.atlasdb.sweep.queue;
 import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,6 +33,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Stopwatch;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.palantir.atlasdb.cleaner.Follower;
 import com.palantir.atlasdb.keyvalue.api.InsufficientConsistencyException;
 import com.palantir.atlasdb.keyvalue.api.KeyValueService;
@@ -62,6 +65,7 @@ public class TargetedSweeper implements MultiTableSweepQueueWriter, BackgroundSw
     private final Supplier<TargetedSweepRuntimeConfig> runtime;
     private final List<Follower> followers;
     private final MetricsManager metricsManager;
+    private final int deleteConcurrency;
 
     private TargetedSweepMetrics metrics;
     private SweepQueue queue;
@@ -69,6 +73,8 @@ public class TargetedSweeper implements MultiTableSweepQueueWriter, BackgroundSw
     private TimelockService timeLock;
     private BackgroundSweepScheduler conservativeScheduler;
     private BackgroundSweepScheduler thoroughScheduler;
+    private ExecutorService deleteExecutor;
+    private AdaptiveSweepController controller;
 
     private volatile boolean isInitialized = false;
 
@@ -83,6 +89,7 @@ public class TargetedSweeper implements MultiTableSweepQueueWriter, BackgroundSw
         this.thoroughScheduler = new BackgroundSweepScheduler(install.thoroughThreads(),
                 SweeperStrategy.THOROUGH);
         this.followers = followers;
+        this.deleteConcurrency = install.deleteConcurrency();
     }
 
     /**
@@ -155,6 +162,8 @@ public class TargetedSweeper implements MultiTableSweepQueueWriter, BackgroundSw
         Preconditions.checkState(kvs.isInitialized(),
                 "Attempted to initialize targeted sweeper with an uninitialized backing KVS.");
         metrics = TargetedSweepMetrics.create(metricsManager, timelockService, kvs, SweepQueueUtils.REFRESH_TIME);
+        deleteExecutor = createDeleteExecutor();
+        controller = AdaptiveSweepController.create(runtime, metrics);
         queue = SweepQueue.create(
                 metrics,
                 kvs,
@@ -162,7 +171,9 @@ public class TargetedSweeper implements MultiTableSweepQueueWriter, BackgroundSw
                 Suppliers.compose(TargetedSweepRuntimeConfig::shards, runtime::get),
                 transaction,
                 follower,
-                () -> runtime.get().maximumPartitionsToBatchInSingleRead());
+                controller::partitionsPerRead,
+                deleteExecutor,
+                controller);
         timestampsSupplier = timestamps;
         timeLock = timelockService;
         isInitialized = true;
@@ -201,7 +212,7 @@ public class TargetedSweeper implements MultiTableSweepQueueWriter, BackgroundSw
         if (runtime.get().batchShardIterations()) {
             Stopwatch watch = Stopwatch.createStarted();
             boolean processNextBatch = true;
-            while (processNextBatch && runtime.get().enabled()
+            while (processNextBatch && runtime.get().enabled() && !controller.shouldBackOff()
                     && (watch.elapsed().compareTo(MAX_SHARD_DURATION) < 0)) {
                 processNextBatch = sweepNextBatch(shardAndStrategy, maxTsExclusive);
             }
@@ -214,6 +225,9 @@ public class TargetedSweeper implements MultiTableSweepQueueWriter, BackgroundSw
     public void close() {
         conservativeScheduler.close();
         thoroughScheduler.close();
+        if (deleteExecutor != null) {
+            deleteExecutor.shutdownNow();
+        }
     }
 
     @Override
@@ -221,6 +235,18 @@ public class TargetedSweeper implements MultiTableSweepQueueWriter, BackgroundSw
         close();
     }
 
+    /**
+     * With a concurrency of 1 deletes run on the calling sweep thread, as they did before deletes were parallelised.
+     * Otherwise, a single pool is shared by all sweep threads, which bounds the concurrent deletes against the KVS.
+     */
+    private ExecutorService createDeleteExecutor() {
+        if (deleteConcurrency == 1) {
+            return MoreExecutors.newDirectExecutorService();
+        }
+        return PTExecutors.newFixedThreadPool(
+                deleteConcurrency, new NamedThreadFactory("Targeted Sweep Deletes", true));
+    }
+
     private void assertInitialized() {
         if (!isInitialized) {
             throw new NotInitializedException("Targeted Sweeper");
@@ -251,7 +277,7 @@ public class TargetedSweeper implements MultiTableSweepQueueWriter, BackgroundSw
         }
 
         private void runOneIteration() {
-            if (!runtime.get().enabled()) {
+            if (!runtime.get().enabled() || controller.shouldBackOff()) {
                 return;
             }
 
@@ -274,10 +300,15 @@ public class TargetedSweeper implements MultiTableSweepQueueWriter, BackgroundSw
             }
         }
 
+        /**
+         * Shards are attempted in order of priority with adaptive batching, and in round robin order otherwise.
+         */
         private Optional<TargetedSweeperLock> tryToAcquireLockForNextShardAndStrategy() {
-            return IntStream.range(0, queue.getNumShards())
-                    .map(ignore -> getShardAndIncrement())
-                    .mapToObj(shard -> TargetedSweeperLock.tryAcquire(shard, sweepStrategy, timeLock))
+            Stream<Integer> shards = runtime.get().adaptiveBatching()
+                    ? controller.shardsByPriority(sweepStrategy, queue.getNumShards()).stream()
+                    : IntStream.range(0, queue.getNumShards()).mapToObj(ignore -> getShardAndIncrement());
+            return shards
+                    .map(shard -> TargetedSweeperLock.tryAcquire(shard, sweepStrategy, timeLock))
                     .filter(Optional::isPresent)
                     .map(Optional::get)
                     .findFirst();
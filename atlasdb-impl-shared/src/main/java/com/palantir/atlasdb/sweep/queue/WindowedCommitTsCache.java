@@ -0,0 +1,226 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.sweep.queue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.palantir.atlasdb.sweep.AbortingCommitTsLoader;
+import com.palantir.atlasdb.transaction.service.TransactionService;
+
+/**
+ * Caches the commit timestamps targeted sweep looks up, as a window of start timestamps per shard and strategy.
+ * <p>
+ * Targeted sweep reads the queue of each shard and strategy in increasing order of start timestamp, and never again
+ * needs a commit timestamp once it has swept past the start timestamp. Each window therefore keeps its start and
+ * commit timestamps in sorted primitive arrays, which are searched without allocating, and everything at or below the
+ * last swept timestamp is dropped as sweep moves on, instead of tracking recency or expiring entries. In case sweep
+ * of a shard is held up, for example by a long-running transaction, each window is also bounded in size, dropping its
+ * lowest start timestamps first.
+ */
+public final class WindowedCommitTsCache {
+    public static final long NOT_CACHED = Long.MIN_VALUE;
+    private static final int DEFAULT_MAX_ENTRIES_PER_WINDOW = 10_000;
+
+    private final AbortingCommitTsLoader loader;
+    private final int maxEntriesPerWindow;
+    private final Map<ShardAndStrategy, Window> windows = new ConcurrentHashMap<>();
+
+    @VisibleForTesting
+    WindowedCommitTsCache(AbortingCommitTsLoader loader, int maxEntriesPerWindow) {
+        this.loader = loader;
+        this.maxEntriesPerWindow = maxEntriesPerWindow;
+    }
+
+    public static WindowedCommitTsCache create(TransactionService transactionService) {
+        return new WindowedCommitTsCache(
+                new AbortingCommitTsLoader(transactionService), DEFAULT_MAX_ENTRIES_PER_WINDOW);
+    }
+
+    /**
+     * Returns the cached commit timestamp of the given start timestamp, or {@link #NOT_CACHED}.
+     */
+    public long getIfCached(ShardAndStrategy shardStrategy, long startTs) {
+        Window window = windows.get(shardStrategy);
+        return window == null ? NOT_CACHED : window.get(startTs);
+    }
+
+    /**
+     * Returns the commit timestamps of the given start timestamps, which must be sorted in increasing order, in the
+     * same order. The start timestamps missing from the window are loaded in a single batch, rolling back any that
+     * have not committed, and added to the window.
+     */
+    public long[] loadBatch(ShardAndStrategy shardStrategy, long[] startTimestamps) {
+        Window window = windows.computeIfAbsent(shardStrategy, unused -> new Window(maxEntriesPerWindow));
+        long[] commitTimestamps = new long[startTimestamps.length];
+        window.getAll(startTimestamps, commitTimestamps);
+
+        List<Long> missing = new ArrayList<>();
+        for (int i = 0; i < startTimestamps.length; i++) {
+            if (commitTimestamps[i] == NOT_CACHED) {
+                missing.add(startTimestamps[i]);
+            }
+        }
+        if (missing.isEmpty()) {
+            return commitTimestamps;
+        }
+
+        Map<Long, Long> loaded = loader.loadAll(missing);
+        long[] loadedStartTimestamps = new long[missing.size()];
+        long[] loadedCommitTimestamps = new long[missing.size()];
+        int loadedIndex = 0;
+        for (int i = 0; i < startTimestamps.length; i++) {
+            if (commitTimestamps[i] == NOT_CACHED) {
+                commitTimestamps[i] = loaded.get(startTimestamps[i]);
+                loadedStartTimestamps[loadedIndex] = startTimestamps[i];
+                loadedCommitTimestamps[loadedIndex] = commitTimestamps[i];
+                loadedIndex++;
+            }
+        }
+        window.putAll(loadedStartTimestamps, loadedCommitTimestamps);
+        return commitTimestamps;
+    }
+
+    /**
+     * Drops the commit timestamps of all start timestamps up to and including the given last swept timestamp.
+     */
+    public void evictUpTo(ShardAndStrategy shardStrategy, long lastSweptTs) {
+        Window window = windows.get(shardStrategy);
+        if (window != null) {
+            window.evictUpTo(lastSweptTs);
+        }
+    }
+
+    @VisibleForTesting
+    int size(ShardAndStrategy shardStrategy) {
+        Window window = windows.get(shardStrategy);
+        return window == null ? 0 : window.size();
+    }
+
+    private static final class Window {
+        private static final int INITIAL_CAPACITY = 64;
+
+        private final int maxEntries;
+        private long[] startTimestamps = new long[INITIAL_CAPACITY];
+        private long[] commitTimestamps = new long[INITIAL_CAPACITY];
+        private int size = 0;
+
+        private Window(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        synchronized long get(long startTs) {
+            int index = Arrays.binarySearch(startTimestamps, 0, size, startTs);
+            return index >= 0 ? commitTimestamps[index] : NOT_CACHED;
+        }
+
+        synchronized void getAll(long[] sortedStartTimestamps, long[] result) {
+            int from = 0;
+            for (int i = 0; i < sortedStartTimestamps.length; i++) {
+                int index = Arrays.binarySearch(startTimestamps, from, size, sortedStartTimestamps[i]);
+                if (index >= 0) {
+                    result[i] = commitTimestamps[index];
+                    from = index + 1;
+                } else {
+                    result[i] = NOT_CACHED;
+                    from = -index - 1;
+                }
+            }
+        }
+
+        /**
+         * Adds start timestamps that are not yet in the window. As sweep moves forwards, they usually all follow the
+         * ones already present and are appended; otherwise, the two sorted runs are merged, keeping a single entry
+         * for any start timestamp that was added concurrently.
+         */
+        synchronized void putAll(long[] sortedStartTimestamps, long[] newCommitTimestamps) {
+            int added = sortedStartTimestamps.length;
+            if (added == 0) {
+                return;
+            }
+            if (size == 0 || sortedStartTimestamps[0] > startTimestamps[size - 1]) {
+                ensureCapacity(size + added);
+                System.arraycopy(sortedStartTimestamps, 0, startTimestamps, size, added);
+                System.arraycopy(newCommitTimestamps, 0, commitTimestamps, size, added);
+                size += added;
+            } else {
+                merge(sortedStartTimestamps, newCommitTimestamps);
+            }
+            if (size > maxEntries) {
+                dropFirst(size - maxEntries);
+            }
+        }
+
+        synchronized void evictUpTo(long lastSweptTs) {
+            int index = Arrays.binarySearch(startTimestamps, 0, size, lastSweptTs);
+            dropFirst(index >= 0 ? index + 1 : -index - 1);
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private void merge(long[] sortedStartTimestamps, long[] newCommitTimestamps) {
+            int capacity = Math.max(startTimestamps.length, size + sortedStartTimestamps.length);
+            long[] mergedStartTimestamps = new long[capacity];
+            long[] mergedCommitTimestamps = new long[capacity];
+            int existing = 0;
+            int added = 0;
+            int merged = 0;
+            while (existing < size || added < sortedStartTimestamps.length) {
+                if (added == sortedStartTimestamps.length
+                        || (existing < size && startTimestamps[existing] < sortedStartTimestamps[added])) {
+                    mergedStartTimestamps[merged] = startTimestamps[existing];
+                    mergedCommitTimestamps[merged] = commitTimestamps[existing];
+                    existing++;
+                } else {
+                    if (existing < size && startTimestamps[existing] == sortedStartTimestamps[added]) {
+                        existing++;
+                    }
+                    mergedStartTimestamps[merged] = sortedStartTimestamps[added];
+                    mergedCommitTimestamps[merged] = newCommitTimestamps[added];
+                    added++;
+                }
+                merged++;
+            }
+            startTimestamps = mergedStartTimestamps;
+            commitTimestamps = mergedCommitTimestamps;
+            size = merged;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > startTimestamps.length) {
+                int newCapacity = Math.max(capacity, startTimestamps.length * 2);
+                startTimestamps = Arrays.copyOf(startTimestamps, newCapacity);
+                commitTimestamps = Arrays.copyOf(commitTimestamps, newCapacity);
+            }
+        }
+
+        private void dropFirst(int count) {
+            if (count == 0) {
+                return;
+            }
+            System.arraycopy(startTimestamps, count, startTimestamps, 0, size - count);
+            System.arraycopy(commitTimestamps, count, commitTimestamps, 0, size - count);
+            size -= count;
+        }
+    }
+}
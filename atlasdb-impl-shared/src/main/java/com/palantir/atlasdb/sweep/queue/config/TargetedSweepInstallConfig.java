@@ -74,6 +74,24 @@ public class TargetedSweepInstallConfig {
                 thoroughThreads());
     }
 
+    /**
+     * The maximum number of batches of deletes that targeted sweep executes against the key value service at once,
+     * across all background threads of both strategies. Batches of different tables, and of different cells of the
+     * same table, are then deleted in parallel up to this limit. A value of 1 retains the legacy behaviour, where each
+     * background thread deletes its batches one at a time.
+     */
+    @Value.Default
+    public int deleteConcurrency() {
+        return 1;
+    }
+
+    @Value.Check
+    void checkDeleteConcurrency() {
+        Preconditions.checkArgument(deleteConcurrency() >= 1,
+                "Targeted sweep delete concurrency must be at least 1, but is %s instead.",
+                deleteConcurrency());
+    }
+
     public static TargetedSweepInstallConfig defaultTargetedSweepConfig() {
         return ImmutableTargetedSweepInstallConfig.builder().build();
     }
@@ -75,6 +75,31 @@ public abstract class TargetedSweepRuntimeConfig {
                 maximumPartitionsToBatchInSingleRead());
     }
 
+    /**
+     * If true, targeted sweep adapts to the load on the key value service. The number of partitions read in a batch,
+     * up to {@link #maximumPartitionsToBatchInSingleRead()}, is increased while sweep's reads and deletes are well
+     * within {@link #targetKvsLatencyMillis()}, and halved, along with a pause in sweeping, whenever they exceed it.
+     * Shards are also swept in order of their backlog, rather than in turn.
+     */
+    @Value.Default
+    public boolean adaptiveBatching() {
+        return false;
+    }
+
+    /**
+     * The latency of individual reads and deletes of targeted sweep that adaptive batching aims to stay within.
+     */
+    @Value.Default
+    public long targetKvsLatencyMillis() {
+        return 200L;
+    }
+
+    @Value.Check
+    void checkTargetKvsLatency() {
+        Preconditions.checkArgument(targetKvsLatencyMillis() > 0,
+                "Target KVS latency must be positive, but found %s.", targetKvsLatencyMillis());
+    }
+
     @Value.Check
     void checkShardSize() {
         Preconditions.checkArgument(shards() >= 1 && shards() <= 256,
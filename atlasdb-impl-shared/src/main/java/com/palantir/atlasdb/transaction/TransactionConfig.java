@@ -15,11 +15,14 @@
  */
 package com.palantir.atlasdb.transaction;
 
+import java.util.Set;
+
 import org.immutables.value.Value;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.common.collect.ImmutableSet;
 import com.palantir.atlasdb.AtlasDbConstants;
 import com.palantir.atlasdb.transaction.impl.TransactionRetryStrategy;
 
@@ -43,6 +46,58 @@ public abstract class TransactionConfig {
         return TransactionRetryStrategy.Strategies.LEGACY.get();
     }
 
+    /**
+     * If positive, commit timestamps are written in groups: after writing a group of fewer than
+     * {@link #groupCommitMaxBatchSize()} commit timestamps, the next group is given up to this many milliseconds
+     * (counted from when the previous group started being written) to accumulate commits from concurrent
+     * transactions. This reduces the number of writes to the transactions table under high write concurrency, at the
+     * cost of commit latency. Only applies to the tickets encoding of the transactions table.
+     */
+    @Value.Default
+    public long groupCommitMaxWaitMillis() {
+        return 0;
+    }
+
+    /**
+     * Groups of commit timestamps at least this large are written without waiting for further commits; see
+     * {@link #groupCommitMaxWaitMillis()}.
+     */
+    @Value.Default
+    public int groupCommitMaxBatchSize() {
+        return AtlasDbConstants.DEFAULT_GROUP_COMMIT_MAX_BATCH_SIZE;
+    }
+
+    /**
+     * The number of batches a range scan fetches from the key value service ahead of the batch being post-filtered,
+     * so that reading the next batch overlaps with looking up the commit timestamps of the current one. Zero fetches
+     * each batch only once it is needed.
+     */
+    @Value.Default
+    public int getRangeReadAheadBatches() {
+        return 1;
+    }
+
+    /**
+     * Fully qualified names of tables whose write sets committing transactions record in the
+     * {@link com.palantir.atlasdb.transaction.impl.WriteSetIndex}, for use by
+     * {@link #consultWriteSetIndexOnCommit()}.
+     */
+    @Value.Default
+    public Set<String> writeSetIndexedTables() {
+        return ImmutableSet.of();
+    }
+
+    /**
+     * If true, transactions writing many cells to a table in {@link #writeSetIndexedTables()} use the write set index
+     * to skip checking for write-write conflicts on cells that no concurrently committed transaction wrote. This must
+     * only be enabled once every client writing to those tables has been recording write sets for longer than the
+     * longest transaction, as conflicts with commits that were not recorded would otherwise be missed.
+     */
+    @Value.Default
+    public boolean consultWriteSetIndexOnCommit() {
+        return false;
+    }
+
     /**
      * This value is ignored if {@link com.palantir.atlasdb.transaction.api.TransactionManager} is configured to lock
      * immutable ts by using TransactionManagers builder option.
@@ -0,0 +1,115 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.transaction.impl;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.palantir.lock.v2.LockImmutableTimestampResponse;
+import com.palantir.lock.v2.LockRequest;
+import com.palantir.lock.v2.LockResponse;
+import com.palantir.lock.v2.LockToken;
+import com.palantir.lock.v2.StartIdentifiedAtlasDbTransactionResponse;
+import com.palantir.lock.v2.TimelockService;
+import com.palantir.lock.v2.WaitForLocksRequest;
+import com.palantir.lock.v2.WaitForLocksResponse;
+import com.palantir.timestamp.TimestampRange;
+
+/**
+ * Counts the calls made to TimeLock on behalf of a single transaction, so that the number of calls per transaction
+ * can be reported.
+ */
+final class CountingTimelockService implements TimelockService {
+    private final TimelockService timelockService;
+    private final AtomicInteger calls = new AtomicInteger();
+
+    CountingTimelockService(TimelockService timelockService) {
+        this.timelockService = timelockService;
+    }
+
+    int getCallCount() {
+        return calls.get();
+    }
+
+    @Override
+    public boolean isInitialized() {
+        return timelockService.isInitialized();
+    }
+
+    @Override
+    public long getFreshTimestamp() {
+        return count(timelockService::getFreshTimestamp);
+    }
+
+    @Override
+    public TimestampRange getFreshTimestamps(int numTimestampsRequested) {
+        return count(() -> timelockService.getFreshTimestamps(numTimestampsRequested));
+    }
+
+    @Override
+    public LockImmutableTimestampResponse lockImmutableTimestamp() {
+        return count(timelockService::lockImmutableTimestamp);
+    }
+
+    @Override
+    public StartIdentifiedAtlasDbTransactionResponse startIdentifiedAtlasDbTransaction() {
+        return count(timelockService::startIdentifiedAtlasDbTransaction);
+    }
+
+    @Override
+    public long getImmutableTimestamp() {
+        return count(timelockService::getImmutableTimestamp);
+    }
+
+    @Override
+    public LockResponse lock(LockRequest request) {
+        return count(() -> timelockService.lock(request));
+    }
+
+    @Override
+    public WaitForLocksResponse waitForLocks(WaitForLocksRequest request) {
+        return count(() -> timelockService.waitForLocks(request));
+    }
+
+    @Override
+    public Set<LockToken> refreshLockLeases(Set<LockToken> tokens) {
+        return count(() -> timelockService.refreshLockLeases(tokens));
+    }
+
+    @Override
+    public Set<LockToken> unlock(Set<LockToken> tokens) {
+        return count(() -> timelockService.unlock(tokens));
+    }
+
+    @Override
+    public void tryUnlock(Set<LockToken> tokens) {
+        count(() -> {
+            timelockService.tryUnlock(tokens);
+            return null;
+        });
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return count(timelockService::currentTimeMillis);
+    }
+
+    private <T> T count(Supplier<T> method) {
+        calls.incrementAndGet();
+        return method.get();
+    }
+}
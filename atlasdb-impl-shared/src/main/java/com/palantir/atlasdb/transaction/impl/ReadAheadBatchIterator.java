@@ -0,0 +1,199 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.transaction.impl;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Fetches batches from a {@link BatchSizeIncreasingIterator} on an executor, up to {@code readAheadDepth} batches
+ * ahead of the consumer, so that fetching the next batch from the key value service overlaps with the consumer
+ * processing the current one.
+ * <p>
+ * Batches are fetched one at a time and in order. If a fetch has been scheduled but has not started running by the
+ * time the consumer needs its batch (for example, because the executor is busy), the consumer runs the fetch itself,
+ * so the consumer never waits on the executor's queue. A read ahead depth of zero fetches every batch on the
+ * consumer's thread, when it is requested.
+ */
+final class ReadAheadBatchIterator<T> {
+    private enum FetchState {
+        IDLE, SCHEDULED, RUNNING
+    }
+
+    @GuardedBy("delegate")
+    private final BatchSizeIncreasingIterator<T> delegate;
+    private final Executor executor;
+    private final int readAheadDepth;
+
+    @GuardedBy("this")
+    private final Deque<List<T>> fetched = new ArrayDeque<>();
+    @GuardedBy("this")
+    private FetchState fetchState = FetchState.IDLE;
+    @GuardedBy("this")
+    private boolean exhausted = false;
+    @GuardedBy("this")
+    private boolean closed = false;
+    @GuardedBy("this")
+    @Nullable
+    private Throwable failure = null;
+
+    ReadAheadBatchIterator(BatchSizeIncreasingIterator<T> delegate, Executor executor, int readAheadDepth) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.readAheadDepth = readAheadDepth;
+    }
+
+    /**
+     * Returns the next batch, which is empty once the underlying iterator has been exhausted.
+     */
+    List<T> getBatch() {
+        List<T> batch = takeFetchedBatch();
+        scheduleFetchIfNeeded();
+        return batch;
+    }
+
+    void markNumResultsNotDeleted(int resultsInBatch) {
+        synchronized (delegate) {
+            delegate.markNumResultsNotDeleted(resultsInBatch);
+        }
+    }
+
+    void close() {
+        synchronized (this) {
+            closed = true;
+            fetched.clear();
+        }
+        // waits for an in-progress fetch, if any
+        synchronized (delegate) {
+            delegate.close();
+        }
+    }
+
+    private List<T> takeFetchedBatch() {
+        while (true) {
+            synchronized (this) {
+                if (!fetched.isEmpty()) {
+                    return fetched.remove();
+                }
+                if (failure != null) {
+                    Throwables.throwIfUnchecked(failure);
+                    throw new RuntimeException(failure);
+                }
+                if (exhausted || closed) {
+                    return ImmutableList.of();
+                }
+                if (fetchState == FetchState.RUNNING) {
+                    awaitFetch();
+                    continue;
+                }
+                // Claim the fetch, even if it is scheduled, so that we don't wait for the executor to run it.
+                fetchState = FetchState.RUNNING;
+            }
+            fetch();
+        }
+    }
+
+    @GuardedBy("this")
+    private void awaitFetch() {
+        boolean interrupted = false;
+        while (fetchState == FetchState.RUNNING) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                // the fetch will complete regardless, so wait for it
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void scheduleFetchIfNeeded() {
+        synchronized (this) {
+            if (fetchState != FetchState.IDLE
+                    || exhausted
+                    || closed
+                    || failure != null
+                    || fetched.size() >= readAheadDepth) {
+                return;
+            }
+            fetchState = FetchState.SCHEDULED;
+        }
+        try {
+            executor.execute(this::runScheduledFetch);
+        } catch (RejectedExecutionException e) {
+            // the consumer will fetch the batch itself
+            synchronized (this) {
+                if (fetchState == FetchState.SCHEDULED) {
+                    fetchState = FetchState.IDLE;
+                }
+            }
+        }
+    }
+
+    private void runScheduledFetch() {
+        synchronized (this) {
+            if (fetchState != FetchState.SCHEDULED) {
+                // the consumer got here first
+                return;
+            }
+            fetchState = FetchState.RUNNING;
+        }
+        fetch();
+        scheduleFetchIfNeeded();
+    }
+
+    /**
+     * Must only be called by the thread that moved the fetch state to {@link FetchState#RUNNING}.
+     */
+    private void fetch() {
+        try {
+            List<T> batch;
+            synchronized (delegate) {
+                batch = isClosed() ? ImmutableList.of() : delegate.getBatch();
+            }
+            synchronized (this) {
+                if (!closed) {
+                    fetched.add(batch);
+                }
+                exhausted = batch.isEmpty();
+                fetchState = FetchState.IDLE;
+                notifyAll();
+            }
+        } catch (RuntimeException | Error e) {
+            synchronized (this) {
+                failure = e;
+                fetchState = FetchState.IDLE;
+                notifyAll();
+            }
+        }
+    }
+
+    private synchronized boolean isClosed() {
+        return closed;
+    }
+}
@@ -146,7 +146,8 @@ public class SerializableTransaction extends SnapshotTransaction {
                                    ExecutorService deleteExecutor,
                                    boolean validateLocksOnReads,
                                    Supplier<TransactionConfig> transactionConfig,
-                                   ConflictTracer conflictTracer) {
+                                   ConflictTracer conflictTracer,
+                                   WriteSetIndex writeSetIndex) {
         super(metricsManager,
               keyValueService,
               timelockService,
@@ -170,7 +171,8 @@ public class SerializableTransaction extends SnapshotTransaction {
               deleteExecutor,
               validateLocksOnReads,
               transactionConfig,
-              conflictTracer);
+              conflictTracer,
+              writeSetIndex);
     }
 
     @Override
@@ -183,6 +185,20 @@ public class SerializableTransaction extends SnapshotTransaction {
         return ret;
     }
 
+    @Override
+    @Idempotent
+    public ListenableFuture<SortedMap<byte[], RowResult<byte[]>>> getRowsAsync(
+            TableReference tableRef,
+            Iterable<byte[]> rows,
+            ColumnSelection columnSelection) {
+        return Futures.transform(super.getRowsAsync(tableRef, rows, columnSelection),
+                ret -> {
+                    markRowsRead(tableRef, rows, columnSelection, ret.values());
+                    return ret;
+                },
+                MoreExecutors.directExecutor());
+    }
+
     @Override
     public Map<byte[], BatchingVisitable<Map.Entry<Cell, byte[]>>> getRowsColumnRange(
             TableReference tableRef,
@@ -790,7 +806,8 @@ public class SerializableTransaction extends SnapshotTransaction {
                 deleteExecutor,
                 validateLocksOnReads,
                 transactionConfig,
-                conflictTracer) {
+                conflictTracer,
+                writeSetIndex) {
             @Override
             protected ListenableFuture<Map<Long, Long>> getCommitTimestamps(
                     TableReference tableRef,
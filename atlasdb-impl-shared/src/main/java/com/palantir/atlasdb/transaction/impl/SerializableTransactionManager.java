@@ -509,11 +509,12 @@ public class SerializableTransactionManager extends SnapshotTransactionManager {
     protected Transaction createTransaction(long immutableTimestamp,
             Supplier<Long> startTimestampSupplier,
             LockToken immutableTsLock,
-            PreCommitCondition preCommitCondition) {
+            PreCommitCondition preCommitCondition,
+            TimelockService transactionTimelockService) {
         return new SerializableTransaction(
                 metricsManager,
                 keyValueService,
-                timelockService,
+                transactionTimelockService,
                 lockWatchManager,
                 transactionService,
                 cleaner,
@@ -534,7 +535,8 @@ public class SerializableTransactionManager extends SnapshotTransactionManager {
                 deleteExecutor,
                 validateLocksOnReads,
                 transactionConfig,
-                conflictTracer);
+                conflictTracer,
+                writeSetIndex);
     }
 
     @VisibleForTesting
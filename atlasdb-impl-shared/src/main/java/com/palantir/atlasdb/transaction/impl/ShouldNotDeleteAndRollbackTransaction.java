@@ -103,7 +103,8 @@ public class ShouldNotDeleteAndRollbackTransaction extends SnapshotTransaction {
                 IGNORING_EXECUTOR,
                 true,
                 transactionConfig,
-                ConflictTracer.NO_OP);
+                ConflictTracer.NO_OP,
+                WriteSetIndex.create(keyValueService));
     }
 
     @Override
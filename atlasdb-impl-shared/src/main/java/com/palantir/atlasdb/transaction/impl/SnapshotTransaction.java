@@ -57,6 +57,7 @@ import com.google.common.base.Functions;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.FluentIterable;
@@ -74,6 +75,7 @@ import com.google.common.collect.Multimaps;
 import com.google.common.collect.Ordering;
 import com.google.common.collect.PeekingIterator;
 import com.google.common.collect.Sets;
+import com.google.common.primitives.Longs;
 import com.google.common.primitives.UnsignedBytes;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -122,6 +124,7 @@ import com.palantir.atlasdb.transaction.api.TransactionFailedException;
 import com.palantir.atlasdb.transaction.api.TransactionFailedRetriableException;
 import com.palantir.atlasdb.transaction.api.TransactionLockAcquisitionTimeoutException;
 import com.palantir.atlasdb.transaction.api.TransactionLockTimeoutException;
+import com.palantir.atlasdb.transaction.api.TransactionLockWatchingCacheView;
 import com.palantir.atlasdb.transaction.api.TransactionReadSentinelBehavior;
 import com.palantir.atlasdb.transaction.impl.metrics.TransactionOutcomeMetrics;
 import com.palantir.atlasdb.transaction.service.AsyncTransactionService;
@@ -182,6 +185,7 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
     private static final Logger constraintLogger = LoggerFactory.getLogger("dualschema.constraints");
 
     private static final int BATCH_SIZE_GET_FIRST_PAGE = 1000;
+    private static final int MIN_CELLS_TO_CONSULT_WRITE_SET_INDEX = 1000;
 
     private enum State {
         UNCOMMITTED,
@@ -215,6 +219,7 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
     protected final ConcurrentMap<TableReference, ConcurrentNavigableMap<Cell, byte[]>> writesByTable =
             Maps.newConcurrentMap();
     protected final TransactionConflictDetectionManager conflictDetectionManager;
+    private final ConflictDetectionManager tableConflictDetectionManager;
     private final AtomicLong byteCount = new AtomicLong();
 
     private final AtlasDbConstraintCheckingMode constraintCheckingMode;
@@ -237,6 +242,8 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
     protected final TransactionOutcomeMetrics transactionOutcomeMetrics;
     protected final boolean validateLocksOnReads;
     protected final Supplier<TransactionConfig> transactionConfig;
+    protected final WriteSetIndex writeSetIndex;
+    private final Supplier<TransactionLockWatchingCacheView> lockWatchingCacheView;
 
     protected volatile boolean hasReads;
 
@@ -269,7 +276,8 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
             ExecutorService deleteExecutor,
             boolean validateLocksOnReads,
             Supplier<TransactionConfig> transactionConfig,
-            ConflictTracer conflictTracer) {
+            ConflictTracer conflictTracer,
+            WriteSetIndex writeSetIndex) {
         this.metricsManager = metricsManager;
         this.lockWatchManager = lockWatchManager;
         this.conflictTracer = conflictTracer;
@@ -282,6 +290,7 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
         this.cleaner = cleaner;
         this.startTimestamp = startTimeStamp;
         this.conflictDetectionManager = new TransactionConflictDetectionManager(conflictDetectionManager);
+        this.tableConflictDetectionManager = conflictDetectionManager;
         this.sweepStrategyManager = sweepStrategyManager;
         this.immutableTimestamp = immutableTimestamp;
         this.immutableTimestampLock = immutableTimestampLock;
@@ -299,6 +308,8 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
         this.transactionOutcomeMetrics = TransactionOutcomeMetrics.create(metricsManager);
         this.validateLocksOnReads = validateLocksOnReads;
         this.transactionConfig = transactionConfig;
+        this.writeSetIndex = writeSetIndex;
+        this.lockWatchingCacheView = Suppliers.memoize(() -> lockWatchManager.getCacheView(getStartTimestamp()));
     }
 
     @Override
@@ -365,6 +376,61 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
         return results;
     }
 
+    @Override
+    @Idempotent
+    public ListenableFuture<SortedMap<byte[], RowResult<byte[]>>> getRowsAsync(
+            TableReference tableRef,
+            Iterable<byte[]> rows,
+            ColumnSelection columnSelection) {
+        Timer.Context timer = getTimer("getRowsAsync").time();
+        checkGetPreconditions(tableRef);
+        if (Iterables.isEmpty(rows)) {
+            return Futures.immediateFuture(AbstractTransaction.EMPTY_SORTED_ROWS);
+        }
+        hasReads = true;
+        ImmutableSortedMap.Builder<Cell, byte[]> localWrites = ImmutableSortedMap.naturalOrder();
+        SortedMap<Cell, byte[]> writes = writesByTable.get(tableRef);
+        if (writes != null) {
+            for (byte[] row : rows) {
+                extractLocalWritesForRow(localWrites, writes, row, columnSelection);
+            }
+        }
+        ImmutableSortedMap<Cell, byte[]> localResults = localWrites.build();
+
+        ListenableFuture<Collection<Map.Entry<Cell, byte[]>>> postFilteredResults = Futures.transformAsync(
+                keyValueService.getRowsAsync(tableRef, rows, columnSelection, getStartTimestamp()),
+                rawResults -> {
+                    // We don't need to do work postFiltering if we have a write locally.
+                    Map<Cell, Value> remoteResults = Maps.newHashMap(rawResults);
+                    remoteResults.keySet().removeAll(localResults.keySet());
+                    return getWithPostFilteringAsync(
+                            tableRef,
+                            remoteResults,
+                            Value.GET_VALUE,
+                            keyValueService,
+                            defaultTransactionService);
+                },
+                MoreExecutors.directExecutor());
+
+        return Futures.transform(postFilteredResults,
+                postFiltered -> {
+                    Map<Cell, byte[]> collected = ImmutableMap.<Cell, byte[]>builder()
+                            .putAll(localResults)
+                            .putAll(postFiltered)
+                            .build();
+                    SortedMap<byte[], RowResult<byte[]>> results = RowResults.viewOfSortedMap(
+                            Cells.breakCellsUpByRow(removeEmptyColumns(collected, tableRef)));
+                    long getRowsMillis = TimeUnit.NANOSECONDS.toMillis(timer.stop());
+                    if (perfLogger.isDebugEnabled()) {
+                        perfLogger.debug("getRowsAsync({}, {} rows) found {} rows, took {} ms",
+                                tableRef, Iterables.size(rows), results.size(), getRowsMillis);
+                    }
+                    validatePreCommitRequirementsOnReadIfNecessary(tableRef, getStartTimestamp());
+                    return results;
+                },
+                MoreExecutors.directExecutor());
+    }
+
     @Override
     public Map<byte[], BatchingVisitable<Map.Entry<Cell, byte[]>>> getRowsColumnRange(
             TableReference tableRef,
@@ -705,7 +771,11 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
             }
         }
 
-        // We don't need to read any cells that were written locally.
+        if (isLockWatchCacheable(tableRef)) {
+            result.putAll(lockWatchingCacheView.get().readCached(tableRef, Sets.difference(cells, result.keySet())));
+        }
+
+        // We don't need to read any cells that were written locally or are cached.
         return Futures.transform(
                 getFromKeyValueService(
                         tableRef,
@@ -713,6 +783,9 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
                         asyncKeyValueService,
                         asyncTransactionService),
                 fromKeyValueService -> {
+                    if (isLockWatchCacheable(tableRef)) {
+                        lockWatchingCacheView.get().tryCacheNewValuesRead(tableRef, fromKeyValueService);
+                    }
                     result.putAll(fromKeyValueService);
 
                     long getMillis = TimeUnit.NANOSECONDS.toMillis(timer.stop());
@@ -1110,8 +1183,12 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
             Function<Value, T> transformer) {
         RowRangeBatchProvider batchProvider =
                 new RowRangeBatchProvider(keyValueService, tableRef, range, getStartTimestamp());
-        BatchSizeIncreasingIterator<RowResult<Value>> results =
+        BatchSizeIncreasingIterator<RowResult<Value>> batchIterator =
                 new BatchSizeIncreasingIterator<>(batchProvider, preFilterBatchSize, null);
+        // Fetch the next batches while this one is post-filtered, unless the caller only wants a single row.
+        int readAheadDepth = preFilterBatchSize == 1 ? 0 : transactionConfig.get().getRangeReadAheadBatches();
+        ReadAheadBatchIterator<RowResult<Value>> results =
+                new ReadAheadBatchIterator<>(batchIterator, getRangesExecutor, readAheadDepth);
         Iterator<Iterator<RowResult<T>>> batchedPostFiltered = new AbstractIterator<Iterator<RowResult<T>>>() {
             @Override
             protected Iterator<RowResult<T>> computeNext() {
@@ -1686,6 +1763,11 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
                 // might well cost more.
                 timedAndTraced("microsForPunch", () -> cleaner.punch(commitTimestamp));
 
+                // Record what we wrote to indexed tables, so that transactions checking for write-write conflicts
+                // can use the index. This must happen before the lock check: a transaction that acquires our commit
+                // locks after they expire can then only miss this commit if we go on to fail the lock check.
+                timedAndTraced("commitRecordWriteSets", () -> recordWriteSets(commitTimestamp));
+
                 // Serializable transactions need to check their reads haven't changed, by reading again at
                 // commitTs + 1. This must happen before the lock check for thorough tables, because the lock check
                 // verifies the immutable timestamp hasn't moved forward - thorough sweep might sweep a conflict out
@@ -1702,6 +1784,9 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
 
                 timedAndTraced("commitPutCommitTs",
                         () -> putCommitTimestamp(commitTimestamp, commitLocksToken, transactionService));
+                if (!transactionConfig.get().writeSetIndexedTables().isEmpty()) {
+                    writeSetIndex.maybePrune(immutableTimestamp, deleteExecutor);
+                }
 
                 long microsSinceCreation = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis() - timeCreated);
                 getTimer("commitTotalTimeSinceTxCreation").update(microsSinceCreation, TimeUnit.MICROSECONDS);
@@ -1727,6 +1812,20 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
         }
     }
 
+    private void recordWriteSets(long commitTimestamp) {
+        Set<String> indexedTables = transactionConfig.get().writeSetIndexedTables();
+        if (indexedTables.isEmpty()) {
+            return;
+        }
+        Map<TableReference, Set<Cell>> cellsByIndexedTable = Maps.newHashMap();
+        writesByTable.forEach((tableRef, writes) -> {
+            if (indexedTables.contains(tableRef.getQualifiedName()) && !writes.isEmpty()) {
+                cellsByIndexedTable.put(tableRef, writes.keySet());
+            }
+        });
+        writeSetIndex.record(commitTimestamp, cellsByIndexedTable);
+    }
+
     protected void throwIfReadWriteConflictForSerializable(long commitTimestamp) {
         // This is for overriding to get serializable transactions
     }
@@ -1739,6 +1838,17 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
         return hasReads;
     }
 
+    /**
+     * Values may only be served from the lock watching cache if every writer to the table takes out cell or row locks
+     * on commit; otherwise the cache would not learn about those writes. We deliberately consult the table's conflict
+     * handler rather than this transaction's, as the latter would fix the handler for the rest of the transaction.
+     */
+    private boolean isLockWatchCacheable(TableReference tableRef) {
+        ConflictHandler conflictHandler = tableConflictDetectionManager.get(tableRef);
+        return conflictHandler != null
+                && (conflictHandler.lockCellsForConflicts() || conflictHandler.lockRowsForConflicts());
+    }
+
     protected ConflictHandler getConflictHandlerForTable(TableReference tableRef) {
         return com.google.common.base.Preconditions.checkNotNull(conflictDetectionManager.get(tableRef),
             "Not a valid table for this transaction. Make sure this table name exists or has a valid namespace: %s",
@@ -1823,7 +1933,9 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
         }
         Set<CellConflict> spanningWrites = Sets.newHashSet();
         Set<CellConflict> dominatingWrites = Sets.newHashSet();
-        Map<Cell, Long> keysToLoad = Maps.asMap(writes.keySet(), Functions.constant(Long.MAX_VALUE));
+        Map<Cell, Long> keysToLoad = Maps.asMap(
+                getCellsToCheckForWriteWriteConflicts(tableRef, writes.keySet()),
+                Functions.constant(Long.MAX_VALUE));
         while (!keysToLoad.isEmpty()) {
             keysToLoad = detectWriteAlreadyCommittedInternal(
                     tableRef,
@@ -1844,6 +1956,22 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
         }
     }
 
+    /**
+     * Narrows down the cells to check for write-write conflicts using the write set index, when the transaction
+     * writes enough cells to the table for that to be cheaper than checking all of them.
+     */
+    private Set<Cell> getCellsToCheckForWriteWriteConflicts(TableReference tableRef, Set<Cell> cells) {
+        TransactionConfig config = transactionConfig.get();
+        if (!config.consultWriteSetIndexOnCommit()
+                || cells.size() < MIN_CELLS_TO_CONSULT_WRITE_SET_INDEX
+                || !config.writeSetIndexedTables().contains(tableRef.getQualifiedName())) {
+            return cells;
+        }
+        return timedAndTraced("commitConsultWriteSetIndex",
+                () -> writeSetIndex.getCellsPossiblyWrittenAfter(tableRef, getStartTimestamp(), cells)
+                        .orElse(cells));
+    }
+
     /**
      * This will throw if we have a value changed conflict.  This means that either we changed the
      * value and anyone did a write after our start timestamp, or we just touched the value (put the
@@ -2206,14 +2334,17 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
         if (Iterables.isEmpty(startTimestamps)) {
             return Futures.immediateFuture(ImmutableMap.of());
         }
+        long[] distinctStartTimestamps = Longs.toArray(ImmutableSet.copyOf(startTimestamps));
+        long[] cachedCommitTimestamps = new long[distinctStartTimestamps.length];
+        timestampValidationReadCache.getCommitTimestampsIfPresent(distinctStartTimestamps, cachedCommitTimestamps);
+
         Map<Long, Long> startToCommitTimestamps = Maps.newHashMap();
         Set<Long> gets = Sets.newHashSet();
-        for (Long startTs : startTimestamps) {
-            Long cached = timestampValidationReadCache.getCommitTimestampIfPresent(startTs);
-            if (cached != null) {
-                startToCommitTimestamps.put(startTs, cached);
+        for (int i = 0; i < distinctStartTimestamps.length; i++) {
+            if (cachedCommitTimestamps[i] != TimestampCache.NO_COMMIT_TIMESTAMP) {
+                startToCommitTimestamps.put(distinctStartTimestamps[i], cachedCommitTimestamps[i]);
             } else {
-                gets.add(startTs);
+                gets.add(distinctStartTimestamps[i]);
             }
         }
 
@@ -2236,14 +2367,22 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
 
         return Futures.transform(loadCommitTimestamps(asyncTransactionService, gets),
                 rawResults -> {
+                    long[] loadedStartTimestamps = new long[rawResults.size()];
+                    long[] loadedCommitTimestamps = new long[rawResults.size()];
+                    int loaded = 0;
                     for (Map.Entry<Long, Long> e : rawResults.entrySet()) {
                         if (e.getValue() != null) {
                             Long startTs = e.getKey();
                             Long commitTs = e.getValue();
                             startToCommitTimestamps.put(startTs, commitTs);
-                            timestampValidationReadCache.putAlreadyCommittedTransaction(startTs, commitTs);
+                            loadedStartTimestamps[loaded] = startTs;
+                            loadedCommitTimestamps[loaded] = commitTs;
+                            loaded++;
                         }
                     }
+                    timestampValidationReadCache.putAlreadyCommittedTransactions(
+                            Arrays.copyOf(loadedStartTimestamps, loaded),
+                            Arrays.copyOf(loadedCommitTimestamps, loaded));
                     return startToCommitTimestamps;
                 },
                 MoreExecutors.directExecutor());
@@ -21,6 +21,7 @@ import java.util.Optional;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -58,6 +59,8 @@ import com.palantir.atlasdb.transaction.api.TransactionTask;
 import com.palantir.atlasdb.transaction.service.TransactionService;
 import com.palantir.atlasdb.util.MetricsManager;
 import com.palantir.common.base.Throwables;
+import com.palantir.common.concurrent.NamedThreadFactory;
+import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.lock.LockService;
 import com.palantir.lock.v2.LockToken;
 import com.palantir.lock.v2.StartIdentifiedAtlasDbTransactionResponse;
@@ -71,6 +74,7 @@ import com.palantir.timestamp.TimestampService;
     private static final Logger log = LoggerFactory.getLogger(SnapshotTransactionManager.class);
 
     private static final int NUM_RETRIES = 10;
+    private static final long IMMUTABLE_TS_REFRESH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
 
     final MetricsManager metricsManager;
     final KeyValueService keyValueService;
@@ -83,6 +87,10 @@ import com.palantir.timestamp.TimestampService;
     final SweepStrategyManager sweepStrategyManager;
     final Supplier<AtlasDbConstraintCheckingMode> constraintModeSupplier;
     final AtomicLong recentImmutableTs = new AtomicLong(-1L);
+    private final AtomicLong recentImmutableTsUpdatedNanos = new AtomicLong(System.nanoTime());
+    private final AtomicBoolean refreshingImmutableTs = new AtomicBoolean(false);
+    private final ExecutorService immutableTsRefresher =
+            PTExecutors.newSingleThreadExecutor(new NamedThreadFactory("immutable-timestamp-refresher", true));
     final Cleaner cleaner;
     final boolean allowHiddenTableAccess;
     final ExecutorService getRangesExecutor;
@@ -94,6 +102,7 @@ import com.palantir.timestamp.TimestampService;
     final List<Runnable> closingCallbacks;
     final AtomicBoolean isClosed;
     private final ConflictTracer conflictTracer;
+    final WriteSetIndex writeSetIndex;
 
     protected SnapshotTransactionManager(
             MetricsManager metricsManager,
@@ -139,6 +148,7 @@ import com.palantir.timestamp.TimestampService;
         this.validateLocksOnReads = validateLocksOnReads;
         this.transactionConfig = transactionConfig;
         this.conflictTracer = conflictTracer;
+        this.writeSetIndex = WriteSetIndex.create(keyValueService);
     }
 
     @Override
@@ -163,8 +173,9 @@ import com.palantir.timestamp.TimestampService;
 
     @Override
     public TransactionAndImmutableTsLock setupRunTaskWithConditionThrowOnConflict(PreCommitCondition condition) {
+        CountingTimelockService transactionTimelockService = new CountingTimelockService(timelockService);
         StartIdentifiedAtlasDbTransactionResponse transactionResponse
-                = timelockService.startIdentifiedAtlasDbTransaction();
+                = transactionTimelockService.startIdentifiedAtlasDbTransaction();
         try {
             LockToken immutableTsLock = transactionResponse.immutableTimestamp().getLock();
             long immutableTs = transactionResponse.immutableTimestamp().getImmutableTimestamp();
@@ -178,10 +189,12 @@ import com.palantir.timestamp.TimestampService;
                     immutableTs,
                     startTimestampSupplier,
                     immutableTsLock,
-                    condition);
+                    condition,
+                    transactionTimelockService);
             return TransactionAndImmutableTsLock.of(transaction, immutableTsLock);
         } catch (Throwable e) {
-            timelockService.tryUnlock(ImmutableSet.of(transactionResponse.immutableTimestamp().getLock()));
+            transactionTimelockService.tryUnlock(
+                    ImmutableSet.of(transactionResponse.immutableTimestamp().getLock()));
             throw Throwables.rewrapAndThrowUncheckedException(e);
         }
     }
@@ -193,15 +206,18 @@ import com.palantir.timestamp.TimestampService;
         Timer postTaskTimer = getTimer("finishTask");
         Timer.Context postTaskContext;
 
-        TransactionTask<T, E> wrappedTask = wrapTaskIfNecessary(task, txAndLock.immutableTsLock());
-
         Transaction tx = txAndLock.transaction();
+        TimelockService transactionTimelockService = extractSnapshotTransaction(tx).timelockService;
+        TransactionTask<T, E> wrappedTask =
+                wrapTaskIfNecessary(task, txAndLock.immutableTsLock(), transactionTimelockService);
+
         T result;
         try {
             result = runTaskThrowOnConflict(wrappedTask, tx);
         } finally {
             postTaskContext = postTaskTimer.time();
-            timelockService.tryUnlock(ImmutableSet.of(txAndLock.immutableTsLock()));
+            transactionTimelockService.tryUnlock(ImmutableSet.of(txAndLock.immutableTsLock()));
+            updateTimelockCallsPerTransaction("timelockCallsPerReadWriteTransaction", transactionTimelockService);
         }
         scrubForAggressiveHardDelete(extractSnapshotTransaction(tx));
         postTaskContext.stop();
@@ -219,9 +235,9 @@ import com.palantir.timestamp.TimestampService;
     }
 
     private <T, E extends Exception> TransactionTask<T, E> wrapTaskIfNecessary(
-            TransactionTask<T, E> task, LockToken immutableTsLock) {
+            TransactionTask<T, E> task, LockToken immutableTsLock, TimelockService transactionTimelockService) {
         if (taskWrappingIsNecessary()) {
-            return new LockCheckingTransactionTask<>(task, timelockService, immutableTsLock);
+            return new LockCheckingTransactionTask<>(task, transactionTimelockService, immutableTsLock);
         }
         return task;
     }
@@ -234,11 +250,12 @@ import com.palantir.timestamp.TimestampService;
             long immutableTimestamp,
             Supplier<Long> startTimestampSupplier,
             LockToken immutableTsLock,
-            PreCommitCondition condition) {
+            PreCommitCondition condition,
+            TimelockService transactionTimelockService) {
         return new SnapshotTransaction(
                 metricsManager,
                 keyValueService,
-                timelockService,
+                transactionTimelockService,
                 lockWatchManager,
                 transactionService,
                 cleaner,
@@ -259,7 +276,8 @@ import com.palantir.timestamp.TimestampService;
                 deleteExecutor,
                 validateLocksOnReads,
                 transactionConfig,
-                conflictTracer);
+                conflictTracer,
+                writeSetIndex);
     }
 
     @Override
@@ -276,14 +294,15 @@ import com.palantir.timestamp.TimestampService;
             C condition, ConditionAwareTransactionTask<T, C, E> task) throws E {
         checkOpen();
         long immutableTs = getApproximateImmutableTimestamp();
+        CountingTimelockService transactionTimelockService = new CountingTimelockService(timelockService);
         SnapshotTransaction transaction = new SnapshotTransaction(
                 metricsManager,
                 keyValueService,
-                timelockService,
+                transactionTimelockService,
                 lockWatchManager,
                 transactionService,
                 NoOpCleaner.INSTANCE,
-                getStartTimestampSupplier(),
+                getStartTimestampSupplier(transactionTimelockService),
                 conflictDetectionManager,
                 sweepStrategyManager,
                 immutableTs,
@@ -300,12 +319,14 @@ import com.palantir.timestamp.TimestampService;
                 deleteExecutor,
                 validateLocksOnReads,
                 transactionConfig,
-                conflictTracer);
+                conflictTracer,
+                writeSetIndex);
         try {
             return runTaskThrowOnConflict(txn -> task.execute(txn, condition),
                     new ReadTransaction(transaction, sweepStrategyManager));
         } finally {
             condition.cleanup();
+            updateTimelockCallsPerTransaction("timelockCallsPerReadOnlyTransaction", transactionTimelockService);
         }
     }
 
@@ -338,6 +359,7 @@ import com.palantir.timestamp.TimestampService;
             shutdownRunner.shutdownSafely(keyValueService::close);
             shutdownRunner.shutdownSafely(() -> shutdownExecutor(deleteExecutor));
             shutdownRunner.shutdownSafely(() -> shutdownExecutor(getRangesExecutor));
+            shutdownRunner.shutdownSafely(() -> shutdownExecutor(immutableTsRefresher));
             shutdownRunner.shutdownSafely(this::closeLockServiceIfPossible);
 
             for (Runnable callback : Lists.reverse(closingCallbacks)) {
@@ -375,9 +397,9 @@ import com.palantir.timestamp.TimestampService;
         }
     }
 
-    private Supplier<Long> getStartTimestampSupplier() {
+    private Supplier<Long> getStartTimestampSupplier(TimelockService transactionTimelockService) {
         return Suppliers.memoize(() -> {
-            long freshTimestamp = timelockService.getFreshTimestamp();
+            long freshTimestamp = transactionTimelockService.getFreshTimestamp();
             cleaner.punch(freshTimestamp);
             return freshTimestamp;
         });
@@ -402,14 +424,37 @@ import com.palantir.timestamp.TimestampService;
      * This will always return a valid ImmutableTimestamp, but it may be slightly out of date.
      * <p>
      * This method is used to optimize the perf of read only transactions because getting a new immutableTs requires
-     * 2 extra remote calls which we can skip.
+     * 2 extra remote calls which we can skip. It never calls TimeLock itself: if no immutable timestamp has been seen
+     * recently, one is fetched in the background, and until then a lower bound that may be as low as zero is
+     * returned. A lower bound is always safe for read only transactions, which can only read tables that are swept
+     * conservatively, if at all; a stale one only means they wait for more possibly uncommitted writes.
      */
     private long getApproximateImmutableTimestamp() {
-        long recentTs = recentImmutableTs.get();
-        if (recentTs >= 0) {
-            return recentTs;
+        if (System.nanoTime() - recentImmutableTsUpdatedNanos.get() > IMMUTABLE_TS_REFRESH_INTERVAL_NANOS
+                || recentImmutableTs.get() < 0) {
+            refreshImmutableTimestampAsync();
+        }
+        return Math.max(recentImmutableTs.get(), 0L);
+    }
+
+    private void refreshImmutableTimestampAsync() {
+        if (!refreshingImmutableTs.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            immutableTsRefresher.execute(() -> {
+                try {
+                    getImmutableTimestamp();
+                } catch (Throwable t) {
+                    log.info("Failed to refresh the immutable timestamp used by read only transactions.", t);
+                } finally {
+                    refreshingImmutableTs.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the transaction manager is closing
+            refreshingImmutableTs.set(false);
         }
-        return getImmutableTimestamp();
     }
 
     @Override
@@ -421,6 +466,7 @@ import com.palantir.timestamp.TimestampService;
 
     private void recordImmutableTimestamp(long immutableTs) {
         recentImmutableTs.updateAndGet(current -> Math.max(current, immutableTs));
+        recentImmutableTsUpdatedNanos.set(System.nanoTime());
     }
 
     @Override
@@ -485,6 +531,13 @@ import com.palantir.timestamp.TimestampService;
         return metricsManager.registerOrGetTimer(SnapshotTransactionManager.class, name);
     }
 
+    private void updateTimelockCallsPerTransaction(String name, TimelockService transactionTimelockService) {
+        if (transactionTimelockService instanceof CountingTimelockService) {
+            metricsManager.registerOrGetHistogram(SnapshotTransactionManager.class, name)
+                    .update(((CountingTimelockService) transactionTimelockService).getCallCount());
+        }
+    }
+
     private static SnapshotTransaction extractSnapshotTransaction(Transaction transaction) {
         if (transaction instanceof SnapshotTransaction) {
             return (SnapshotTransaction) transaction;
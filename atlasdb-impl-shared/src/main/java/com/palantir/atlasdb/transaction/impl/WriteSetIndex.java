@@ -0,0 +1,193 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.transaction.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnel;
+import com.palantir.atlasdb.AtlasDbConstants;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
+import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.api.RangeRequest;
+import com.palantir.atlasdb.keyvalue.api.RowResult;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.keyvalue.api.Value;
+import com.palantir.common.base.ClosableIterator;
+import com.palantir.common.base.Throwables;
+import com.palantir.logsafe.SafeArg;
+
+/**
+ * An index of the cells written by recently committed transactions, which lets a committing transaction rule out
+ * write-write conflicts for most of its cells without reading the latest timestamp of each of them.
+ * <p>
+ * Before putting its commit timestamp, a transaction writing to an indexed table records a Bloom filter of the cells
+ * it wrote to that table, in a row keyed by its commit timestamp. A conflicting transaction is one that committed
+ * after our start timestamp, and since we check for conflicts while holding the commit locks of our cells, any such
+ * transaction has either already recorded its write set or will fail its own lock check. So only the cells that
+ * might be in a filter recorded after our start timestamp need the full check; if there are too many such filters to
+ * be worth reading, the index is not used at all.
+ * <p>
+ * The index is only complete if every transaction that writes to a table records its write set, so callers must only
+ * consult the index for a table once all clients that write to it have been recording for longer than the longest
+ * transaction. Filters of transactions that committed before the immutable timestamp are no longer needed by any
+ * transaction that can still commit, and are periodically deleted.
+ */
+public final class WriteSetIndex {
+    private static final Logger log = LoggerFactory.getLogger(WriteSetIndex.class);
+
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+    private static final int MAX_FILTERS_TO_READ = 1_000;
+    private static final long PRUNE_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final Funnel<Cell> CELL_FUNNEL = (cell, into) -> into
+            .putInt(cell.getRowName().length)
+            .putBytes(cell.getRowName())
+            .putBytes(cell.getColumnName());
+
+    private final KeyValueService keyValueService;
+    private final Supplier<Void> tableCreator;
+    private final LongSupplier nanoClock;
+    private final AtomicLong nextPruneNanos;
+
+    @VisibleForTesting
+    WriteSetIndex(KeyValueService keyValueService, LongSupplier nanoClock) {
+        this.keyValueService = keyValueService;
+        this.tableCreator = Suppliers.memoize(() -> {
+            keyValueService.createTable(
+                    AtlasDbConstants.WRITE_SET_INDEX_TABLE, AtlasDbConstants.GENERIC_TABLE_METADATA);
+            return null;
+        });
+        this.nanoClock = nanoClock;
+        this.nextPruneNanos = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    public static WriteSetIndex create(KeyValueService keyValueService) {
+        return new WriteSetIndex(keyValueService, System::nanoTime);
+    }
+
+    /**
+     * Records the cells written to each of the given tables by the transaction committing at the given timestamp.
+     */
+    public void record(long commitTimestamp, Map<TableReference, ? extends Set<Cell>> cellsByTable) {
+        if (cellsByTable.isEmpty()) {
+            return;
+        }
+        tableCreator.get();
+        Map<Cell, byte[]> filters = cellsByTable.entrySet().stream()
+                .filter(entry -> !entry.getValue().isEmpty())
+                .collect(Collectors.toMap(
+                        entry -> Cell.create(PtBytes.toBytes(commitTimestamp), columnName(entry.getKey())),
+                        entry -> serialize(entry.getValue())));
+        keyValueService.put(AtlasDbConstants.WRITE_SET_INDEX_TABLE, filters, AtlasDbConstants.TRANSACTION_TS);
+    }
+
+    /**
+     * Returns the subset of the given cells of the table that may have been written by a transaction that committed
+     * after the given start timestamp, or empty if the index cannot cheaply tell.
+     */
+    public Optional<Set<Cell>> getCellsPossiblyWrittenAfter(TableReference tableRef, long startTimestamp,
+            Set<Cell> cells) {
+        tableCreator.get();
+        List<BloomFilter<Cell>> filters = new ArrayList<>();
+        RangeRequest range = RangeRequest.builder()
+                .startRowInclusive(PtBytes.toBytes(startTimestamp + 1))
+                .retainColumns(ColumnSelection.create(ImmutableList.of(columnName(tableRef))))
+                .build();
+        try (ClosableIterator<RowResult<Value>> rows = keyValueService.getRange(
+                AtlasDbConstants.WRITE_SET_INDEX_TABLE, range, Long.MAX_VALUE)) {
+            while (rows.hasNext()) {
+                for (Value value : rows.next().getColumns().values()) {
+                    if (filters.size() == MAX_FILTERS_TO_READ) {
+                        return Optional.empty();
+                    }
+                    filters.add(deserialize(value.getContents()));
+                }
+            }
+        }
+        return Optional.of(cells.stream()
+                .filter(cell -> filters.stream().anyMatch(filter -> filter.mightContain(cell)))
+                .collect(Collectors.toSet()));
+    }
+
+    /**
+     * Deletes, at most once a minute, the write sets of transactions that committed before the given immutable
+     * timestamp.
+     */
+    public void maybePrune(long immutableTimestamp, Executor executor) {
+        long now = nanoClock.getAsLong();
+        long nextPrune = nextPruneNanos.get();
+        if (now - nextPrune < 0 || !nextPruneNanos.compareAndSet(nextPrune, now + PRUNE_INTERVAL_NANOS)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                tableCreator.get();
+                keyValueService.deleteRange(AtlasDbConstants.WRITE_SET_INDEX_TABLE, RangeRequest.builder()
+                        .endRowExclusive(PtBytes.toBytes(immutableTimestamp))
+                        .build());
+            } catch (Throwable t) {
+                log.info("Failed to prune the write set index up to timestamp {}. This will be retried.",
+                        SafeArg.of("immutableTimestamp", immutableTimestamp), t);
+            }
+        });
+    }
+
+    private static byte[] columnName(TableReference tableRef) {
+        return PtBytes.toBytes(tableRef.getQualifiedName());
+    }
+
+    private static byte[] serialize(Set<Cell> cells) {
+        BloomFilter<Cell> filter = BloomFilter.create(CELL_FUNNEL, cells.size(), FALSE_POSITIVE_PROBABILITY);
+        cells.forEach(filter::put);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            filter.writeTo(bytes);
+        } catch (IOException e) {
+            throw Throwables.rewrapAndThrowUncheckedException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static BloomFilter<Cell> deserialize(byte[] bytes) {
+        try {
+            return BloomFilter.readFrom(new ByteArrayInputStream(bytes), CELL_FUNNEL);
+        } catch (IOException e) {
+            throw Throwables.rewrapAndThrowUncheckedException(e);
+        }
+    }
+}
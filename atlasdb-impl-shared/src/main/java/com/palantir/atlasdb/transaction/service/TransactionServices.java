@@ -16,6 +16,7 @@
 package com.palantir.atlasdb.transaction.service;
 
 import java.util.Map;
+import java.util.function.Supplier;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.Futures;
@@ -27,11 +28,13 @@ import com.palantir.atlasdb.internalschema.TransactionSchemaManager;
 import com.palantir.atlasdb.internalschema.persistence.CoordinationServices;
 import com.palantir.atlasdb.keyvalue.api.CheckAndSetCompatibility;
 import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.transaction.TransactionConfig;
 import com.palantir.atlasdb.transaction.impl.TransactionConstants;
 import com.palantir.atlasdb.util.MetricsManager;
 import com.palantir.atlasdb.util.MetricsManagers;
 import com.palantir.logsafe.exceptions.SafeIllegalStateException;
 import com.palantir.timestamp.TimestampService;
+import com.palantir.tritium.metrics.registry.TaggedMetricRegistry;
 
 public final class TransactionServices {
     private TransactionServices() {
@@ -41,14 +44,35 @@ public final class TransactionServices {
     public static TransactionService createTransactionService(
             KeyValueService keyValueService, TransactionSchemaManager transactionSchemaManager) {
         if (keyValueService.getCheckAndSetCompatibility() == CheckAndSetCompatibility.SUPPORTED_DETAIL_ON_FAILURE) {
-            return createSplitKeyTransactionService(keyValueService, transactionSchemaManager);
+            return createSplitKeyTransactionService(
+                    keyValueService, transactionSchemaManager, createV2TransactionService(keyValueService));
+        }
+        return createV1TransactionService(keyValueService);
+    }
+
+    /**
+     * As {@link #createTransactionService(KeyValueService, TransactionSchemaManager)}, but commit timestamps for the
+     * tickets encoding are written in groups as configured by {@link TransactionConfig#groupCommitMaxWaitMillis()}.
+     */
+    public static TransactionService createTransactionService(
+            KeyValueService keyValueService,
+            TransactionSchemaManager transactionSchemaManager,
+            Supplier<TransactionConfig> transactionConfig,
+            TaggedMetricRegistry metricRegistry) {
+        if (keyValueService.getCheckAndSetCompatibility() == CheckAndSetCompatibility.SUPPORTED_DETAIL_ON_FAILURE) {
+            return createSplitKeyTransactionService(
+                    keyValueService,
+                    transactionSchemaManager,
+                    new PreStartHandlingTransactionService(WriteBatchingTransactionService.createWithGroupCommit(
+                            SimpleTransactionService.createV2(keyValueService), transactionConfig, metricRegistry)));
         }
         return createV1TransactionService(keyValueService);
     }
 
     private static TransactionService createSplitKeyTransactionService(
             KeyValueService keyValueService,
-            TransactionSchemaManager transactionSchemaManager) {
+            TransactionSchemaManager transactionSchemaManager,
+            TransactionService v2TransactionService) {
         // TODO (jkong): Is there a way to disallow DIRECT -> V2 transaction service in the map?
         return new PreStartHandlingTransactionService(
                 new SplitKeyDelegatingTransactionService<>(
@@ -57,7 +81,7 @@ public final class TransactionServices {
                                 TransactionConstants.DIRECT_ENCODING_TRANSACTIONS_SCHEMA_VERSION,
                                 createV1TransactionService(keyValueService),
                                 TransactionConstants.TICKETS_ENCODING_TRANSACTIONS_SCHEMA_VERSION,
-                                createV2TransactionService(keyValueService))));
+                                v2TransactionService)));
     }
 
     public static TransactionService createV1TransactionService(KeyValueService keyValueService) {
@@ -16,24 +16,36 @@
 
 package com.palantir.atlasdb.transaction.service;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 
 import org.immutables.value.Value;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.MultimapBuilder;
 import com.google.common.collect.Multimaps;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.palantir.atlasdb.autobatch.Autobatchers;
 import com.palantir.atlasdb.autobatch.BatchElement;
@@ -41,12 +53,16 @@ import com.palantir.atlasdb.autobatch.DisruptorAutobatcher;
 import com.palantir.atlasdb.futures.AtlasFutures;
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.KeyAlreadyExistsException;
+import com.palantir.atlasdb.transaction.TransactionConfig;
+import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.common.streams.KeyedStream;
 import com.palantir.lock.v2.TimelockService;
 import com.palantir.logsafe.Preconditions;
 import com.palantir.logsafe.SafeArg;
 import com.palantir.logsafe.UnsafeArg;
 import com.palantir.logsafe.exceptions.SafeIllegalStateException;
+import com.palantir.tritium.metrics.registry.MetricName;
+import com.palantir.tritium.metrics.registry.TaggedMetricRegistry;
 
 /**
  * This class coalesces write (that is, put-unless-exists) requests to an underlying {@link EncodingTransactionService},
@@ -54,17 +70,29 @@ import com.palantir.logsafe.exceptions.SafeIllegalStateException;
  *
  * Delegates are expected to throw {@link KeyAlreadyExistsException}s that have meaningful values for
  * {@link KeyAlreadyExistsException#getExistingKeys()}.
+ *
+ * Services created with {@link #createWithGroupCommit(EncodingTransactionService, Supplier, TaggedMetricRegistry)}
+ * can additionally group commits, trading commit latency for fewer and larger writes; see {@link GroupCommitter}.
  */
 public final class WriteBatchingTransactionService implements TransactionService {
     private static final Logger log = LoggerFactory.getLogger(WriteBatchingTransactionService.class);
+    private static final MetricName GROUP_COMMIT_BATCH_SIZE = constructMetricName("groupCommitBatchSize");
+    private static final MetricName GROUP_COMMIT_WAIT_MICROS = constructMetricName("groupCommitWaitMicros");
 
     private final EncodingTransactionService delegate;
     private final DisruptorAutobatcher<TimestampPair, Void> autobatcher;
+    @Nullable private final GroupCommitter groupCommitter;
+    @Nullable private final Histogram commitWaitMicros;
 
     private WriteBatchingTransactionService(
-            EncodingTransactionService delegate, DisruptorAutobatcher<TimestampPair, Void> autobatcher) {
+            EncodingTransactionService delegate,
+            DisruptorAutobatcher<TimestampPair, Void> autobatcher,
+            @Nullable GroupCommitter groupCommitter,
+            @Nullable Histogram commitWaitMicros) {
         this.delegate = delegate;
         this.autobatcher = autobatcher;
+        this.groupCommitter = groupCommitter;
+        this.commitWaitMicros = commitWaitMicros;
     }
 
     public static TransactionService create(EncodingTransactionService delegate) {
@@ -72,7 +100,28 @@ public final class WriteBatchingTransactionService implements TransactionService
                 .<TimestampPair, Void>independent(elements -> processBatch(delegate, elements))
                 .safeLoggablePurpose("write-batching-transaction-service")
                 .build();
-        return new WriteBatchingTransactionService(delegate, autobatcher);
+        return new WriteBatchingTransactionService(delegate, autobatcher, null, null);
+    }
+
+    /**
+     * Creates a service that groups commits while {@link TransactionConfig#groupCommitMaxWaitMillis()} is positive,
+     * recording the size of each group and how long each commit waited for its group to be written.
+     */
+    public static TransactionService createWithGroupCommit(
+            EncodingTransactionService delegate,
+            Supplier<TransactionConfig> transactionConfig,
+            TaggedMetricRegistry metricRegistry) {
+        GroupCommitter groupCommitter = new GroupCommitter(
+                delegate,
+                transactionConfig,
+                metricRegistry.histogram(GROUP_COMMIT_BATCH_SIZE),
+                PTExecutors.newCachedThreadPool("group-commit-transaction-service-rows"));
+        DisruptorAutobatcher<TimestampPair, Void> autobatcher = Autobatchers
+                .<TimestampPair, Void>independent(groupCommitter::processBatch)
+                .safeLoggablePurpose("group-commit-transaction-service")
+                .build();
+        return new WriteBatchingTransactionService(
+                delegate, autobatcher, groupCommitter, metricRegistry.histogram(GROUP_COMMIT_WAIT_MICROS));
     }
 
     @CheckForNull
@@ -98,12 +147,22 @@ public final class WriteBatchingTransactionService implements TransactionService
 
     @Override
     public void putUnlessExists(long startTimestamp, long commitTimestamp) throws KeyAlreadyExistsException {
-        AtlasFutures.getUnchecked(autobatcher.apply(TimestampPair.of(startTimestamp, commitTimestamp)));
+        long startNanos = System.nanoTime();
+        try {
+            AtlasFutures.getUnchecked(autobatcher.apply(TimestampPair.of(startTimestamp, commitTimestamp)));
+        } finally {
+            if (commitWaitMicros != null) {
+                commitWaitMicros.update(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+            }
+        }
     }
 
     @Override
     public void close() {
         autobatcher.close();
+        if (groupCommitter != null) {
+            groupCommitter.close();
+        }
         delegate.close();
     }
 
@@ -315,6 +374,117 @@ public final class WriteBatchingTransactionService implements TransactionService
         return result;
     }
 
+    private static MetricName constructMetricName(String metricSuffix) {
+        return MetricName.builder()
+                .safeName(MetricRegistry.name(WriteBatchingTransactionService.class, metricSuffix))
+                .build();
+    }
+
+    /**
+     * Groups commits from concurrent transactions. The autobatcher already coalesces the commits that arrive while a
+     * batch is being written; after writing a batch smaller than {@link TransactionConfig#groupCommitMaxBatchSize()},
+     * this additionally waits until {@link TransactionConfig#groupCommitMaxWaitMillis()} have passed since the batch
+     * was picked up, so that the next batch can accumulate more commits. Callers of the batch just written do not
+     * wait for this.
+     *
+     * Each batch is split by the row of the transactions table its start timestamps are stored in, and each row is
+     * written with a separate put-unless-exists, so that a conflict in one row (which is a single check-and-set for
+     * key value services that support it) does not affect the outcome or retries of the other rows. The rows are
+     * written concurrently, and the commits of each row complete as soon as that row has been written; the next batch
+     * is only picked up once every row of this one has been written.
+     *
+     * Grouping is disabled while the maximum wait is zero, in which case batches are processed as by
+     * {@link WriteBatchingTransactionService#processBatch(EncodingTransactionService, List)}.
+     */
+    @VisibleForTesting
+    static final class GroupCommitter implements AutoCloseable {
+        private final EncodingTransactionService delegate;
+        private final Supplier<TransactionConfig> transactionConfig;
+        private final Histogram batchSize;
+        private final ExecutorService rowWriteExecutor;
+
+        GroupCommitter(
+                EncodingTransactionService delegate,
+                Supplier<TransactionConfig> transactionConfig,
+                Histogram batchSize,
+                ExecutorService rowWriteExecutor) {
+            this.delegate = delegate;
+            this.transactionConfig = transactionConfig;
+            this.batchSize = batchSize;
+            this.rowWriteExecutor = rowWriteExecutor;
+        }
+
+        void processBatch(List<BatchElement<TimestampPair, Void>> batchElements) {
+            long startNanos = System.nanoTime();
+            TransactionConfig config = transactionConfig.get();
+            batchSize.update(batchElements.size());
+            if (config.groupCommitMaxWaitMillis() <= 0) {
+                WriteBatchingTransactionService.processBatch(delegate, batchElements);
+                return;
+            }
+
+            writeRows(partitionByRow(batchElements));
+
+            if (batchElements.size() < config.groupCommitMaxBatchSize()) {
+                waitForNextGroup(startNanos, config.groupCommitMaxWaitMillis());
+            }
+        }
+
+        @Override
+        public void close() {
+            rowWriteExecutor.shutdown();
+        }
+
+        private void writeRows(Collection<List<BatchElement<TimestampPair, Void>>> partitions) {
+            if (partitions.size() == 1) {
+                writeRow(Iterables.getOnlyElement(partitions));
+                return;
+            }
+
+            List<Future<?>> rowWrites = new ArrayList<>(partitions.size());
+            for (List<BatchElement<TimestampPair, Void>> partition : partitions) {
+                try {
+                    rowWrites.add(rowWriteExecutor.submit(() -> writeRow(partition)));
+                } catch (RejectedExecutionException e) {
+                    failRow(partition, e);
+                }
+            }
+            rowWrites.forEach(Futures::getUnchecked);
+        }
+
+        private void writeRow(List<BatchElement<TimestampPair, Void>> partition) {
+            try {
+                WriteBatchingTransactionService.processBatch(delegate, partition);
+            } catch (RuntimeException e) {
+                failRow(partition, e);
+            }
+        }
+
+        private static void failRow(List<BatchElement<TimestampPair, Void>> partition, Throwable throwable) {
+            partition.forEach(element -> element.result().setException(throwable));
+        }
+
+        private Collection<List<BatchElement<TimestampPair, Void>>> partitionByRow(
+                List<BatchElement<TimestampPair, Void>> batchElements) {
+            return batchElements.stream()
+                    .collect(Collectors.groupingBy(element -> ByteBuffer.wrap(delegate.getEncodingStrategy()
+                            .encodeStartTimestampAsCell(element.argument().startTimestamp())
+                            .getRowName())))
+                    .values();
+        }
+
+        private static void waitForNextGroup(long startNanos, long maxWaitMillis) {
+            long remainingNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis) - (System.nanoTime() - startNanos);
+            if (remainingNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(remainingNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
     @Value.Immutable
     interface TimestampPair {
         @Value.Parameter
@@ -35,6 +35,17 @@ public class InMemoryAtlasDbConfigTest {
         assertThat(CONFIG_1.hashCode()).isEqualTo(CONFIG_2.hashCode());
     }
 
+    @Test
+    public void configsWithDifferentEnginesAreNotEqual() {
+        assertThat(CONFIG_1).isNotEqualTo(new InMemoryAtlasDbConfig(InMemoryAtlasDbConfig.Engine.INDEXED));
+    }
+
+    @Test
+    public void engineDefaultsToDefault() {
+        assertThat(CONFIG_1.engine()).isEqualTo(InMemoryAtlasDbConfig.Engine.DEFAULT);
+        assertThat(new InMemoryAtlasDbConfig(null)).isEqualTo(CONFIG_1);
+    }
+
     @Test
     public void inMemoryConfigNotEqualToOtherKeyValueServiceConfig() {
         KeyValueServiceConfigHelper otherKvsConfig = () -> "FooDB";
@@ -23,7 +23,10 @@ import java.util.Optional;
 import org.junit.Test;
 
 import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.impl.InMemoryKeyValueService;
+import com.palantir.atlasdb.keyvalue.impl.IndexedInMemoryKeyValueService;
 import com.palantir.atlasdb.spi.AtlasDbFactory;
+import com.palantir.atlasdb.spi.KeyValueServiceConfig;
 import com.palantir.timestamp.TimestampService;
 
 public class InMemoryAtlasDbFactoryTest {
@@ -43,6 +46,18 @@ public class InMemoryAtlasDbFactoryTest {
         assertThat(kvs.getAllTableNames()).isEmpty();
     }
 
+    @Test
+    public void createsDefaultEngineUnlessConfiguredOtherwise() {
+        assertThat(createRawKeyValueService(new InMemoryAtlasDbConfig(), false))
+                .isInstanceOf(InMemoryKeyValueService.class);
+    }
+
+    @Test
+    public void createsIndexedEngineIfConfigured() {
+        KeyValueServiceConfig config = new InMemoryAtlasDbConfig(InMemoryAtlasDbConfig.Engine.INDEXED);
+        assertThat(createRawKeyValueService(config, false)).isInstanceOf(IndexedInMemoryKeyValueService.class);
+    }
+
     @Test
     public void syncInitTimestampServiceSynchronous() {
         TimestampService timestampService = factory.createManagedTimestampService(null, Optional.empty(), false);
@@ -59,9 +74,13 @@ public class InMemoryAtlasDbFactoryTest {
     }
 
     private KeyValueService createRawKeyValueService(boolean initializeAsync) {
+        return createRawKeyValueService(null, initializeAsync);
+    }
+
+    private KeyValueService createRawKeyValueService(KeyValueServiceConfig config, boolean initializeAsync) {
         return factory.createRawKeyValueService(
                 null,
-                null,
+                config,
                 Optional::empty,
                 null,
                 Optional.empty(),
@@ -0,0 +1,63 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.schema;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import com.google.common.primitives.Longs;
+import com.google.common.primitives.UnsignedBytes;
+import com.palantir.atlasdb.encoding.PtBytes;
+
+public class ParallelKvsMigratorTest {
+    @Test
+    public void splitsHalfwayBetweenRows() {
+        assertThat(ParallelKvsMigrator.getSplitRow(Longs.toByteArray(100), Longs.toByteArray(200)))
+                .isEqualTo(Longs.toByteArray(150));
+    }
+
+    @Test
+    public void splitsHalfwayToTheEndOfTheTable() {
+        assertThat(ParallelKvsMigrator.getSplitRow(PtBytes.EMPTY_BYTE_ARRAY, PtBytes.EMPTY_BYTE_ARRAY))
+                .isEqualTo(Longs.toByteArray(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void splitRowIsStrictlyBetweenRowsOfDifferentLengths() {
+        byte[] start = {1, 2};
+        byte[] end = {1, 2, 0, 0, 0, 0, 1, 0, 5};
+
+        byte[] splitRow = ParallelKvsMigrator.getSplitRow(start, end);
+
+        assertThat(UnsignedBytes.lexicographicalComparator().compare(start, splitRow)).isNegative();
+        assertThat(UnsignedBytes.lexicographicalComparator().compare(splitRow, end)).isNegative();
+    }
+
+    @Test
+    public void doesNotSplitRowsThatOnlyDifferAfterTheirPrefix() {
+        byte[] start = {1, 2, 3, 4, 5, 6, 7, 8, 9};
+        byte[] end = {1, 2, 3, 4, 5, 6, 7, 8, 10};
+
+        assertThat(ParallelKvsMigrator.getSplitRow(start, end)).isNull();
+    }
+
+    @Test
+    public void doesNotSplitAdjacentPrefixes() {
+        assertThat(ParallelKvsMigrator.getSplitRow(Longs.toByteArray(100), Longs.toByteArray(101))).isNull();
+    }
+}
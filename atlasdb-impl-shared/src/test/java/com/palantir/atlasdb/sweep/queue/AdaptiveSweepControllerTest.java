@@ -0,0 +1,151 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.sweep.queue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import com.palantir.atlasdb.sweep.metrics.SweepControllerDecision;
+import com.palantir.atlasdb.sweep.metrics.TargetedSweepMetrics;
+import com.palantir.atlasdb.sweep.queue.config.ImmutableTargetedSweepRuntimeConfig;
+import com.palantir.atlasdb.sweep.queue.config.TargetedSweepRuntimeConfig;
+import com.palantir.atlasdb.table.description.SweepStrategy.SweeperStrategy;
+
+public class AdaptiveSweepControllerTest {
+    private static final ShardAndStrategy SHARD = ShardAndStrategy.conservative(0);
+    private static final int MAX_PARTITIONS = 8;
+    private static final long TARGET_MILLIS = 100L;
+
+    private final TargetedSweepMetrics metrics = mock(TargetedSweepMetrics.class);
+    private final AtomicLong clock = new AtomicLong(1_000L);
+    private TargetedSweepRuntimeConfig runtime = runtime(true);
+    private final AdaptiveSweepController controller = new AdaptiveSweepController(() -> runtime, metrics, clock::get);
+
+    @Test
+    public void usesConfiguredPartitionsWhenNotAdaptive() {
+        runtime = runtime(false);
+        controller.recordReadLatency(millis(10 * TARGET_MILLIS));
+        controller.recordIteration(SHARD, 10L, 100L);
+
+        assertThat(controller.partitionsPerRead()).isEqualTo(MAX_PARTITIONS);
+        assertThat(controller.shouldBackOff()).isFalse();
+        verify(metrics).updateBacklog(SHARD, 89L);
+        verify(metrics, never()).registerControllerDecision(any());
+    }
+
+    @Test
+    public void halvesPartitionsAndBacksOffWhenLatencyExceedsTarget() {
+        controller.recordDeleteLatency(millis(2 * TARGET_MILLIS));
+        controller.recordIteration(SHARD, 10L, 100L);
+
+        assertThat(controller.partitionsPerRead()).isEqualTo(MAX_PARTITIONS / 2);
+        assertThat(controller.shouldBackOff()).isTrue();
+        verify(metrics).registerControllerDecision(SweepControllerDecision.DECREASE_BATCH_AND_BACK_OFF);
+
+        clock.addAndGet(TARGET_MILLIS);
+        assertThat(controller.shouldBackOff()).isFalse();
+    }
+
+    @Test
+    public void backsOffForLongerWhileLatencyRemainsAboveTarget() {
+        controller.recordReadLatency(millis(2 * TARGET_MILLIS));
+        controller.recordIteration(SHARD, 10L, 100L);
+        controller.recordIteration(SHARD, 10L, 100L);
+        controller.recordIteration(SHARD, 10L, 100L);
+        controller.recordIteration(SHARD, 10L, 100L);
+
+        assertThat(controller.partitionsPerRead()).isEqualTo(1);
+        clock.addAndGet(7 * TARGET_MILLIS);
+        assertThat(controller.shouldBackOff()).isTrue();
+        clock.addAndGet(TARGET_MILLIS);
+        assertThat(controller.shouldBackOff()).isFalse();
+    }
+
+    @Test
+    public void increasesPartitionsOnlyWhileLatencyIsWellBelowTarget() {
+        controller.recordReadLatency(millis(2 * TARGET_MILLIS));
+        controller.recordIteration(SHARD, 10L, 100L);
+        controller.recordIteration(SHARD, 10L, 100L);
+        assertThat(controller.partitionsPerRead()).isEqualTo(2);
+
+        for (int i = 0; i < 20; i++) {
+            controller.recordReadLatency(millis(TARGET_MILLIS * 3 / 4));
+        }
+        controller.recordIteration(SHARD, 10L, 100L);
+        assertThat(controller.partitionsPerRead()).isEqualTo(2);
+        verify(metrics).registerControllerDecision(SweepControllerDecision.HOLD_BATCH);
+
+        for (int i = 0; i < 20; i++) {
+            controller.recordReadLatency(millis(1L));
+        }
+        controller.recordIteration(SHARD, 10L, 100L);
+        assertThat(controller.partitionsPerRead()).isEqualTo(3);
+        verify(metrics).registerControllerDecision(SweepControllerDecision.INCREASE_BATCH);
+    }
+
+    @Test
+    public void prioritisesUnknownShardsAndThenShardsWithMoreBacklog() {
+        clock.set(0L);
+        controller.recordIteration(ShardAndStrategy.conservative(0), 100L, 200L);
+        controller.recordIteration(ShardAndStrategy.conservative(1), 100L, 1_000L);
+        controller.recordIteration(ShardAndStrategy.conservative(2), 100L, 101L);
+
+        assertThat(controller.shardsByPriority(SweeperStrategy.CONSERVATIVE, 4)).containsExactly(3, 1, 0, 2);
+    }
+
+    @Test
+    public void prioritisesShardsThatHaveWaitedLonger() {
+        clock.set(0L);
+        controller.recordIteration(ShardAndStrategy.thorough(0), 100L, 200L);
+        clock.set(1_000L);
+        controller.recordIteration(ShardAndStrategy.thorough(1), 100L, 1_000L);
+
+        assertThat(controller.shardsByPriority(SweeperStrategy.THOROUGH, 2)).containsExactly(0, 1);
+    }
+
+    @Test
+    public void eventuallyPrioritisesShardsWithNoBacklog() {
+        clock.set(0L);
+        controller.recordIteration(ShardAndStrategy.conservative(0), 100L, 101L);
+        controller.recordIteration(ShardAndStrategy.conservative(1), 100L, 1_000L);
+        assertThat(controller.shardsByPriority(SweeperStrategy.CONSERVATIVE, 2)).containsExactly(1, 0);
+
+        clock.set(1_000L);
+        controller.recordIteration(ShardAndStrategy.conservative(1), 100L, 1_000L);
+        assertThat(controller.shardsByPriority(SweeperStrategy.CONSERVATIVE, 2)).containsExactly(0, 1);
+    }
+
+    private static TargetedSweepRuntimeConfig runtime(boolean adaptive) {
+        return ImmutableTargetedSweepRuntimeConfig.builder()
+                .adaptiveBatching(adaptive)
+                .targetKvsLatencyMillis(TARGET_MILLIS)
+                .maximumPartitionsToBatchInSingleRead(MAX_PARTITIONS)
+                .build();
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.sweep.queue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import com.palantir.atlasdb.AtlasDbMetricNames;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.sweep.Sweeper;
+import com.palantir.atlasdb.sweep.metrics.TargetedSweepMetrics;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.lock.v2.TimelockService;
+
+public class SweepQueueDeleterTest extends AbstractSweepQueueTest {
+    private static final int BATCHES_PER_TABLE = 3;
+
+    private ExecutorService executor;
+    private SweepQueueDeleter deleter;
+
+    @Before
+    @Override
+    public void setup() {
+        super.setup();
+        executor = PTExecutors.newFixedThreadPool(4);
+        TargetedSweepMetrics metrics = TargetedSweepMetrics.create(
+                metricsManager, mock(TimelockService.class), spiedKvs, Long.MAX_VALUE);
+        deleter = new SweepQueueDeleter(spiedKvs, mock(TargetedSweepFollower.class), writes -> writes,
+                executor, metrics, mock(AdaptiveSweepController.class));
+    }
+
+    @After
+    @Override
+    public void tearDown() {
+        MoreExecutors.shutdownAndAwaitTermination(executor, 10, TimeUnit.SECONDS);
+        super.tearDown();
+    }
+
+    @Test
+    public void deletesEachBatchOfEachTable() {
+        deleter.sweep(writesToTables(TABLE_CONS, TABLE_THOR), Sweeper.CONSERVATIVE);
+
+        verify(spiedKvs, times(BATCHES_PER_TABLE)).deleteAllTimestamps(eq(TABLE_CONS), anyMap());
+        verify(spiedKvs, times(BATCHES_PER_TABLE)).deleteAllTimestamps(eq(TABLE_THOR), anyMap());
+        verify(spiedKvs, times(2 * BATCHES_PER_TABLE)).addGarbageCollectionSentinelValues(any(), any());
+        assertThat(metricsManager.getRegistry()
+                .counter(TargetedSweepMetrics.class.getName() + "." + AtlasDbMetricNames.DELETE_BATCHES_IN_FLIGHT)
+                .getCount()).isZero();
+        assertThat(metricsManager.getRegistry()
+                .timer(TargetedSweepMetrics.class.getName() + "." + AtlasDbMetricNames.DELETE_BATCH_DURATION)
+                .getCount()).isEqualTo(2 * BATCHES_PER_TABLE);
+    }
+
+    @Test
+    public void throwsOnlyAfterAllBatchesHaveCompleted() {
+        RuntimeException failure = new RuntimeException("delete failed");
+        doThrow(failure).when(spiedKvs).deleteAllTimestamps(eq(TABLE_CONS), anyMap());
+
+        assertThatThrownBy(() -> deleter.sweep(writesToTables(TABLE_CONS, TABLE_THOR), Sweeper.THOROUGH))
+                .hasMessage(failure.getMessage());
+        verify(spiedKvs, times(BATCHES_PER_TABLE)).deleteAllTimestamps(eq(TABLE_CONS), anyMap());
+        verify(spiedKvs, times(BATCHES_PER_TABLE)).deleteAllTimestamps(eq(TABLE_THOR), anyMap());
+    }
+
+    @Test
+    public void ignoresFailuresForDroppedTables() {
+        spiedKvs.dropTable(TABLE_CONS);
+        doThrow(new RuntimeException("table dropped")).when(spiedKvs).deleteAllTimestamps(eq(TABLE_CONS), anyMap());
+
+        deleter.sweep(writesToTables(TABLE_CONS, TABLE_THOR), Sweeper.THOROUGH);
+        verify(spiedKvs, times(BATCHES_PER_TABLE)).deleteAllTimestamps(eq(TABLE_THOR), anyMap());
+    }
+
+    private static List<WriteInfo> writesToTables(TableReference... tableRefs) {
+        List<WriteInfo> writes = new ArrayList<>();
+        for (TableReference tableRef : tableRefs) {
+            for (long i = 0; i < BATCHES_PER_TABLE * SweepQueueUtils.BATCH_SIZE_KVS; i++) {
+                writes.add(WriteInfo.write(tableRef, getCellWithFixedHash(i), TS));
+            }
+        }
+        return writes;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.sweep.queue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.palantir.atlasdb.sweep.AbortingCommitTsLoader;
+import com.palantir.atlasdb.transaction.impl.TransactionConstants;
+import com.palantir.atlasdb.transaction.service.TransactionService;
+
+public class WindowedCommitTsCacheTest {
+    private static final ShardAndStrategy SHARD = ShardAndStrategy.conservative(0);
+    private static final ShardAndStrategy OTHER_SHARD = ShardAndStrategy.thorough(0);
+    private static final long COMMIT_OFFSET = 5L;
+
+    private final TransactionService transactionService = mock(TransactionService.class);
+    private final AtomicInteger batchesLoaded = new AtomicInteger();
+    private final WindowedCommitTsCache cache = new WindowedCommitTsCache(
+            new AbortingCommitTsLoader(transactionService), 10);
+
+    @Before
+    public void setup() {
+        when(transactionService.get(anyLong())).thenAnswer(invocation ->
+                (long) invocation.getArgument(0) + COMMIT_OFFSET);
+        when(transactionService.get(anyIterable())).thenAnswer(invocation -> {
+            batchesLoaded.incrementAndGet();
+            return committed(invocation.getArgument(0), startTs -> true);
+        });
+    }
+
+    @Test
+    public void loadsMissingTimestampsInOneBatch() {
+        assertThat(cache.loadBatch(SHARD, new long[] {1L, 2L, 3L})).containsExactly(6L, 7L, 8L);
+        assertThat(batchesLoaded).hasValue(1);
+
+        assertThat(cache.getIfCached(SHARD, 2L)).isEqualTo(7L);
+        assertThat(cache.getIfCached(SHARD, 4L)).isEqualTo(WindowedCommitTsCache.NOT_CACHED);
+        assertThat(cache.getIfCached(OTHER_SHARD, 2L)).isEqualTo(WindowedCommitTsCache.NOT_CACHED);
+    }
+
+    @Test
+    public void onlyLoadsTimestampsThatAreNotCached() {
+        cache.loadBatch(SHARD, new long[] {2L, 4L});
+        assertThat(cache.loadBatch(SHARD, new long[] {1L, 2L, 3L, 4L, 5L})).containsExactly(6L, 7L, 8L, 9L, 10L);
+
+        verify(transactionService).get(eq(ImmutableList.of(1L, 3L, 5L)));
+        assertThat(cache.loadBatch(SHARD, new long[] {1L, 3L, 5L})).containsExactly(6L, 8L, 10L);
+        assertThat(batchesLoaded).hasValue(2);
+        assertThat(cache.size(SHARD)).isEqualTo(5);
+    }
+
+    @Test
+    public void evictsTimestampsUpToLastSwept() {
+        cache.loadBatch(SHARD, new long[] {1L, 2L, 3L, 4L});
+        cache.evictUpTo(SHARD, 2L);
+
+        assertThat(cache.size(SHARD)).isEqualTo(2);
+        assertThat(cache.getIfCached(SHARD, 2L)).isEqualTo(WindowedCommitTsCache.NOT_CACHED);
+        assertThat(cache.getIfCached(SHARD, 3L)).isEqualTo(8L);
+    }
+
+    @Test
+    public void dropsLowestTimestampsWhenFull() {
+        cache.loadBatch(SHARD, new long[] {1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L});
+        cache.loadBatch(SHARD, new long[] {9L, 10L, 11L, 12L});
+
+        assertThat(cache.size(SHARD)).isEqualTo(10);
+        assertThat(cache.getIfCached(SHARD, 2L)).isEqualTo(WindowedCommitTsCache.NOT_CACHED);
+        assertThat(cache.getIfCached(SHARD, 3L)).isEqualTo(8L);
+        assertThat(cache.getIfCached(SHARD, 12L)).isEqualTo(17L);
+    }
+
+    @Test
+    public void rollsBackTransactionsThatHaveNotCommitted() {
+        when(transactionService.get(anyIterable())).thenAnswer(invocation ->
+                committed(invocation.getArgument(0), startTs -> startTs != 2L));
+        when(transactionService.get(2L)).thenReturn(null, TransactionConstants.FAILED_COMMIT_TS);
+
+        assertThat(cache.loadBatch(SHARD, new long[] {1L, 2L}))
+                .containsExactly(6L, TransactionConstants.FAILED_COMMIT_TS);
+        verify(transactionService, times(1)).putUnlessExists(2L, TransactionConstants.FAILED_COMMIT_TS);
+    }
+
+    private static Map<Long, Long> committed(Iterable<Long> startTimestamps, LongPredicate isCommitted) {
+        return StreamSupport.stream(startTimestamps.spliterator(), false)
+                .filter(isCommitted::test)
+                .collect(Collectors.toMap(Function.identity(), startTs -> startTs + COMMIT_OFFSET));
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.transaction.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.annotation.Nullable;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.primitives.Ints;
+import com.palantir.common.base.ClosableIterator;
+import com.palantir.common.base.ClosableIterators;
+
+public class ReadAheadBatchIteratorTest {
+    private static final int NUM_VALUES = 100;
+    private static final int BATCH_SIZE = 10;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private final IntegerBatchProvider batchProvider = new IntegerBatchProvider(NUM_VALUES);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void returnsAllBatchesInOrder() {
+        ReadAheadBatchIterator<Integer> iterator = createIterator(executor, 2);
+
+        assertThat(readAll(iterator)).isEqualTo(allValues());
+        assertThat(iterator.getBatch()).isEmpty();
+    }
+
+    @Test
+    public void fetchesOnConsumerThreadIfExecutorDoesNotRunFetches() {
+        AtomicInteger scheduledFetches = new AtomicInteger();
+        ReadAheadBatchIterator<Integer> iterator = createIterator(unused -> scheduledFetches.incrementAndGet(), 1);
+
+        assertThat(readAll(iterator)).isEqualTo(allValues());
+        assertThat(scheduledFetches).hasPositiveValue();
+    }
+
+    @Test
+    public void doesNotScheduleFetchesWithZeroReadAheadDepth() {
+        ReadAheadBatchIterator<Integer> iterator = createIterator(unused -> {
+            throw new AssertionError("Should not schedule fetches");
+        }, 0);
+
+        assertThat(readAll(iterator)).isEqualTo(allValues());
+    }
+
+    @Test
+    public void propagatesFailuresFromScheduledFetches() {
+        batchProvider.failAfter(2 * BATCH_SIZE);
+        ReadAheadBatchIterator<Integer> iterator = createIterator(executor, 2);
+
+        assertThat(iterator.getBatch()).hasSize(BATCH_SIZE);
+        iterator.markNumResultsNotDeleted(BATCH_SIZE);
+        assertThat(iterator.getBatch()).hasSize(BATCH_SIZE);
+        iterator.markNumResultsNotDeleted(BATCH_SIZE);
+        assertThatThrownBy(iterator::getBatch).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void returnsNoMoreBatchesOnceClosed() {
+        ReadAheadBatchIterator<Integer> iterator = createIterator(executor, 2);
+
+        assertThat(iterator.getBatch()).hasSize(BATCH_SIZE);
+        iterator.close();
+
+        assertThat(iterator.getBatch()).isEmpty();
+    }
+
+    private ReadAheadBatchIterator<Integer> createIterator(Executor fetchExecutor, int depth) {
+        return new ReadAheadBatchIterator<>(
+                new BatchSizeIncreasingIterator<>(batchProvider, BATCH_SIZE, null), fetchExecutor, depth);
+    }
+
+    private static List<Integer> readAll(ReadAheadBatchIterator<Integer> iterator) {
+        List<Integer> values = new ArrayList<>();
+        for (List<Integer> batch = iterator.getBatch(); !batch.isEmpty(); batch = iterator.getBatch()) {
+            values.addAll(batch);
+            iterator.markNumResultsNotDeleted(batch.size());
+        }
+        return values;
+    }
+
+    private static List<Integer> allValues() {
+        return IntStream.range(0, NUM_VALUES).boxed().collect(Collectors.toList());
+    }
+
+    /**
+     * Provides the integers from zero up to the given bound, using the last integer of a batch as its token.
+     */
+    private static final class IntegerBatchProvider implements BatchProvider<Integer> {
+        private final int bound;
+        private volatile int failAfter = Integer.MAX_VALUE;
+
+        IntegerBatchProvider(int bound) {
+            this.bound = bound;
+        }
+
+        void failAfter(int value) {
+            failAfter = value;
+        }
+
+        @Override
+        public ClosableIterator<Integer> getBatch(int batchSize, @Nullable byte[] lastToken) {
+            // like a range scan, the batch size is only a hint
+            int start = lastToken == null ? 0 : Ints.fromByteArray(lastToken) + 1;
+            return ClosableIterators.wrap(IntStream.range(start, bound)
+                    .peek(value -> {
+                        if (value >= failAfter) {
+                            throw new IllegalStateException("Failed to read value");
+                        }
+                    })
+                    .iterator());
+        }
+
+        @Override
+        public boolean hasNext(byte[] lastToken) {
+            return Ints.fromByteArray(lastToken) + 1 < bound;
+        }
+
+        @Override
+        public byte[] getLastToken(List<Integer> batch) {
+            return Ints.toByteArray(batch.get(batch.size() - 1));
+        }
+    }
+}
@@ -37,6 +37,7 @@ import java.util.concurrent.Executors;
 import org.junit.Test;
 import org.mockito.InOrder;
 
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
 import com.palantir.atlasdb.cache.DefaultTimestampCache;
 import com.palantir.atlasdb.cleaner.api.Cleaner;
@@ -46,6 +47,7 @@ import com.palantir.atlasdb.keyvalue.api.watch.NoOpLockWatchManager;
 import com.palantir.atlasdb.sweep.queue.MultiTableSweepQueueWriter;
 import com.palantir.atlasdb.transaction.ImmutableTransactionConfig;
 import com.palantir.atlasdb.transaction.api.AtlasDbConstraintCheckingMode;
+import com.palantir.atlasdb.transaction.api.Transaction;
 import com.palantir.atlasdb.transaction.service.TransactionService;
 import com.palantir.atlasdb.util.MetricsManager;
 import com.palantir.atlasdb.util.MetricsManagers;
@@ -63,6 +65,8 @@ public class SnapshotTransactionManagerTest {
             SnapshotTransactionManager.class.getCanonicalName() + ".setupTask";
     private static final String FINISH_TASK_METRIC_NAME =
             SnapshotTransactionManager.class.getCanonicalName() + ".finishTask";
+    private static final String READ_ONLY_TIMELOCK_CALLS_METRIC_NAME =
+            SnapshotTransactionManager.class.getCanonicalName() + ".timelockCallsPerReadOnlyTransaction";
 
     private final CloseableLockService closeableLockService = mock(CloseableLockService.class);
     private final Cleaner cleaner = mock(Cleaner.class);
@@ -240,6 +244,26 @@ public class SnapshotTransactionManagerTest {
         verify(timelockService, never()).startIdentifiedAtlasDbTransaction();
     }
 
+    @Test
+    public void readOnlyTransactionsOnlyCallTimelockForTheirStartTimestamp() {
+        TimelockService timelockService =
+                spy(new LegacyTimelockService(timestampService, closeableLockService, LockClient.of("lock")));
+        SnapshotTransactionManager transactionManager = createSnapshotTransactionManager(timelockService, false);
+
+        long startTimestamp = transactionManager.runTaskReadOnly(Transaction::getTimestamp);
+        verify(timelockService).getFreshTimestamp();
+        verify(timelockService, never()).lockImmutableTimestamp();
+        verify(timelockService, never()).refreshLockLeases(any());
+        verify(timelockService, never()).unlock(any());
+        verify(timelockService, never()).tryUnlock(any());
+        assertThat(startTimestamp).isPositive();
+
+        Histogram timelockCalls = metricsManager.getRegistry().getHistograms()
+                .get(READ_ONLY_TIMELOCK_CALLS_METRIC_NAME);
+        assertThat(timelockCalls.getCount()).isEqualTo(1);
+        assertThat(timelockCalls.getSnapshot().getMax()).isEqualTo(1);
+    }
+
     private SnapshotTransactionManager createSnapshotTransactionManager(
             TimelockService timelockService, boolean grabImmutableTsLockOnReads) {
         return new SnapshotTransactionManager(
@@ -0,0 +1,103 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.transaction.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.keyvalue.impl.InMemoryKeyValueService;
+
+public class WriteSetIndexTest {
+    private static final TableReference TABLE = TableReference.createFromFullyQualifiedName("test.table");
+    private static final TableReference OTHER_TABLE = TableReference.createFromFullyQualifiedName("test.other");
+    private static final Set<Cell> CELLS = cells(0, 100);
+
+    private final KeyValueService kvs = new InMemoryKeyValueService(false);
+    private final AtomicLong clock = new AtomicLong();
+    private final WriteSetIndex index = new WriteSetIndex(kvs, clock::get);
+
+    @Test
+    public void noCellsPossiblyWrittenIfNothingRecorded() {
+        assertThat(index.getCellsPossiblyWrittenAfter(TABLE, 10L, CELLS)).contains(ImmutableSet.of());
+    }
+
+    @Test
+    public void returnsCellsRecordedAfterStartTimestamp() {
+        index.record(20L, ImmutableMap.of(TABLE, cells(50, 60)));
+
+        Optional<Set<Cell>> possiblyWritten = index.getCellsPossiblyWrittenAfter(TABLE, 10L, CELLS);
+        assertThat(possiblyWritten).isPresent();
+        assertThat(possiblyWritten.get()).containsAll(cells(50, 60));
+        assertThat(possiblyWritten.get().size()).isLessThan(CELLS.size() / 2);
+    }
+
+    @Test
+    public void ignoresWriteSetsOfOtherTablesAndEarlierCommits() {
+        index.record(5L, ImmutableMap.of(TABLE, CELLS));
+        index.record(10L, ImmutableMap.of(TABLE, CELLS));
+        index.record(20L, ImmutableMap.of(OTHER_TABLE, CELLS));
+
+        assertThat(index.getCellsPossiblyWrittenAfter(TABLE, 10L, CELLS)).contains(ImmutableSet.of());
+    }
+
+    @Test
+    public void givesUpIfTooManyWriteSetsWereRecorded() {
+        for (long commitTs = 11L; commitTs <= 1_011L; commitTs++) {
+            index.record(commitTs, ImmutableMap.of(TABLE, cells(0, 1)));
+        }
+
+        assertThat(index.getCellsPossiblyWrittenAfter(TABLE, 10L, CELLS)).isEmpty();
+    }
+
+    @Test
+    public void prunesWriteSetsBeforeImmutableTimestampAtMostOnceAMinute() {
+        index.record(5L, ImmutableMap.of(TABLE, CELLS));
+        index.record(20L, ImmutableMap.of(TABLE, cells(0, 1)));
+
+        index.maybePrune(10L, MoreExecutors.directExecutor());
+        assertThat(index.getCellsPossiblyWrittenAfter(TABLE, 0L, CELLS).get().size()).isLessThan(CELLS.size() / 2);
+
+        index.record(6L, ImmutableMap.of(TABLE, CELLS));
+        index.maybePrune(10L, MoreExecutors.directExecutor());
+        assertThat(index.getCellsPossiblyWrittenAfter(TABLE, 0L, CELLS)).contains(CELLS);
+
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        index.maybePrune(10L, MoreExecutors.directExecutor());
+        assertThat(index.getCellsPossiblyWrittenAfter(TABLE, 0L, CELLS).get().size()).isLessThan(CELLS.size() / 2);
+    }
+
+    private static Set<Cell> cells(int fromInclusive, int toExclusive) {
+        return IntStream.range(fromInclusive, toExclusive)
+                .mapToObj(index -> Cell.create(PtBytes.toBytes("row" + index), PtBytes.toBytes("col")))
+                .collect(Collectors.toSet());
+    }
+}
@@ -22,6 +22,7 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
@@ -31,7 +32,11 @@ import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -41,6 +46,8 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.SlidingWindowReservoir;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.palantir.atlasdb.autobatch.BatchElement;
@@ -48,8 +55,12 @@ import com.palantir.atlasdb.autobatch.DisruptorAutobatcher;
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.KeyAlreadyExistsException;
 import com.palantir.atlasdb.keyvalue.impl.InMemoryKeyValueService;
+import com.palantir.atlasdb.transaction.ImmutableTransactionConfig;
+import com.palantir.atlasdb.transaction.TransactionConfig;
+import com.palantir.atlasdb.transaction.encoding.TicketsEncodingStrategy;
 import com.palantir.atlasdb.transaction.encoding.V1EncodingStrategy;
 import com.palantir.common.annotation.Output;
+import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.logsafe.exceptions.SafeIllegalStateException;
 
 public class WriteBatchingTransactionServiceTest {
@@ -58,6 +69,7 @@ public class WriteBatchingTransactionServiceTest {
     private final EncodingTransactionService mockTransactionService = mock(EncodingTransactionService.class);
     private final TransactionService writeBatchingTransactionService = WriteBatchingTransactionService.create(
             mockTransactionService);
+    private final ExecutorService executor = PTExecutors.newCachedThreadPool("write-batching-transaction-service-test");
 
     @Before
     public void setUp() {
@@ -69,6 +81,11 @@ public class WriteBatchingTransactionServiceTest {
         verifyNoMoreInteractions(mockTransactionService);
     }
 
+    @After
+    public void shutDownExecutor() {
+        executor.shutdownNow();
+    }
+
     @Test
     public void getsValuesFromUnderlying() {
         when(mockTransactionService.get(anyLong())).thenReturn(5L);
@@ -250,6 +267,90 @@ public class WriteBatchingTransactionServiceTest {
         assertThat(failureCount).hasValue(numFailingRequests);
     }
 
+    @Test
+    public void groupCommitWritesEachRowSeparately() {
+        when(mockTransactionService.getEncodingStrategy()).thenReturn(TicketsEncodingStrategy.INSTANCE);
+        TestTransactionBatchElement first = TestTransactionBatchElement.of(1L, 100L);
+        TestTransactionBatchElement sameRowAsFirst =
+                TestTransactionBatchElement.of(1L + TicketsEncodingStrategy.ROWS_PER_QUANTUM, 200L);
+        TestTransactionBatchElement otherRow = TestTransactionBatchElement.of(2L, 300L);
+
+        createGroupCommitter(1L).processBatch(ImmutableList.of(first, sameRowAsFirst, otherRow));
+
+        verify(mockTransactionService).putUnlessExistsMultiple(
+                ImmutableMap.of(1L, 100L, 1L + TicketsEncodingStrategy.ROWS_PER_QUANTUM, 200L));
+        verify(mockTransactionService).putUnlessExistsMultiple(ImmutableMap.of(2L, 300L));
+        verify(mockTransactionService, atLeastOnce()).getEncodingStrategy();
+        assertThatCode(() -> first.result().get()).doesNotThrowAnyException();
+        assertThatCode(() -> sameRowAsFirst.result().get()).doesNotThrowAnyException();
+        assertThatCode(() -> otherRow.result().get()).doesNotThrowAnyException();
+    }
+
+    @Test
+    public void groupCommitFailuresInOneRowDoNotAffectOtherRows() {
+        when(mockTransactionService.getEncodingStrategy()).thenReturn(TicketsEncodingStrategy.INSTANCE);
+        KeyAlreadyExistsException keyAlreadyExistsException = new KeyAlreadyExistsException("boo", ImmutableList.of(
+                TicketsEncodingStrategy.INSTANCE.encodeStartTimestampAsCell(2L)));
+        doThrow(keyAlreadyExistsException)
+                .when(mockTransactionService)
+                .putUnlessExistsMultiple(ImmutableMap.of(2L, 200L));
+        TestTransactionBatchElement elementNotExisting = TestTransactionBatchElement.of(1L, 100L);
+        TestTransactionBatchElement elementAlreadyExisting = TestTransactionBatchElement.of(2L, 200L);
+
+        createGroupCommitter(1L).processBatch(ImmutableList.of(elementNotExisting, elementAlreadyExisting));
+
+        verify(mockTransactionService).putUnlessExistsMultiple(ImmutableMap.of(1L, 100L));
+        verify(mockTransactionService).putUnlessExistsMultiple(ImmutableMap.of(2L, 200L));
+        verify(mockTransactionService, atLeastOnce()).getEncodingStrategy();
+        assertThatCode(() -> elementNotExisting.result().get()).doesNotThrowAnyException();
+        assertThatThrownBy(() -> elementAlreadyExisting.result().get()).hasCause(keyAlreadyExistsException);
+    }
+
+    @Test
+    public void groupCommitCompletesEachRowOnceItIsWritten() throws Exception {
+        when(mockTransactionService.getEncodingStrategy()).thenReturn(TicketsEncodingStrategy.INSTANCE);
+        CountDownLatch slowRowReleased = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            slowRowReleased.await();
+            return null;
+        }).when(mockTransactionService).putUnlessExistsMultiple(ImmutableMap.of(1L, 100L));
+        TestTransactionBatchElement slowRow = TestTransactionBatchElement.of(1L, 100L);
+        TestTransactionBatchElement fastRow = TestTransactionBatchElement.of(2L, 200L);
+
+        Future<?> batch = executor.submit(
+                () -> createGroupCommitter(1L).processBatch(ImmutableList.of(slowRow, fastRow)));
+
+        assertThatCode(() -> fastRow.result().get(10, TimeUnit.SECONDS)).doesNotThrowAnyException();
+        assertThat(slowRow.result().isDone()).isFalse();
+        assertThat(batch.isDone()).isFalse();
+
+        slowRowReleased.countDown();
+        batch.get(10, TimeUnit.SECONDS);
+        assertThatCode(() -> slowRow.result().get()).doesNotThrowAnyException();
+        verify(mockTransactionService).putUnlessExistsMultiple(ImmutableMap.of(1L, 100L));
+        verify(mockTransactionService).putUnlessExistsMultiple(ImmutableMap.of(2L, 200L));
+        verify(mockTransactionService, atLeastOnce()).getEncodingStrategy();
+    }
+
+    @Test
+    public void groupCommitWritesWholeBatchWhenDisabled() {
+        when(mockTransactionService.getEncodingStrategy()).thenReturn(TicketsEncodingStrategy.INSTANCE);
+
+        createGroupCommitter(0L).processBatch(ImmutableList.of(
+                TestTransactionBatchElement.of(1L, 100L),
+                TestTransactionBatchElement.of(2L, 200L)));
+
+        verify(mockTransactionService).putUnlessExistsMultiple(ImmutableMap.of(1L, 100L, 2L, 200L));
+    }
+
+    private WriteBatchingTransactionService.GroupCommitter createGroupCommitter(long maxWaitMillis) {
+        TransactionConfig config = ImmutableTransactionConfig.builder()
+                .groupCommitMaxWaitMillis(maxWaitMillis)
+                .build();
+        return new WriteBatchingTransactionService.GroupCommitter(
+                mockTransactionService, () -> config, new Histogram(new SlidingWindowReservoir(1)), executor);
+    }
+
     private static void getResultsTrackingOutcomes(
             List<BatchElement<WriteBatchingTransactionService.TimestampPair, Void>> batchedRequest,
             @Output AtomicInteger successCount,
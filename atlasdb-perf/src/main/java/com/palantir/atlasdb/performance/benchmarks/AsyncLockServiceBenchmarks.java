@@ -0,0 +1,124 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.performance.benchmarks;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableSet;
+import com.palantir.atlasdb.timelock.lock.AsyncLockService;
+import com.palantir.atlasdb.timelock.lock.AsyncResult;
+import com.palantir.atlasdb.timelock.lock.Leased;
+import com.palantir.atlasdb.timelock.lock.LockLog;
+import com.palantir.atlasdb.timelock.lock.TimeLimit;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.lock.LockDescriptor;
+import com.palantir.lock.StringLockDescriptor;
+import com.palantir.lock.v2.LockToken;
+
+/**
+ * Measures lock throughput for a contended, read-heavy workload, where each request locks a few descriptors out of a
+ * small pool. Readers take out shared locks in {@link #readHeavyWithSharedLocks()}, and exclusive locks in
+ * {@link #readHeavyWithExclusiveLocks()}, which serves as the baseline.
+ */
+@Measurement(iterations = 5, time = 5)
+@Warmup(iterations = 3, time = 2)
+@Fork(value = 1)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AsyncLockServiceBenchmarks {
+    private static final int NUM_DESCRIPTORS = 16;
+    private static final int DESCRIPTORS_PER_REQUEST = 4;
+    private static final int WRITE_PERCENTAGE = 5;
+    private static final TimeLimit TIMEOUT = TimeLimit.of(TimeUnit.SECONDS.toMillis(30));
+    private static final List<LockDescriptor> DESCRIPTORS = IntStream.range(0, NUM_DESCRIPTORS)
+            .mapToObj(index -> StringLockDescriptor.of("lock-" + index))
+            .collect(Collectors.toList());
+
+    private AsyncLockService lockService;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        lockService = AsyncLockService.createDefault(
+                new LockLog(new MetricRegistry(), () -> Long.MAX_VALUE),
+                PTExecutors.newSingleThreadScheduledExecutor(),
+                PTExecutors.newSingleThreadScheduledExecutor());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        lockService.close();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public LockToken readHeavyWithSharedLocks() {
+        return lockAndUnlock(true);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public LockToken readHeavyWithExclusiveLocks() {
+        return lockAndUnlock(false);
+    }
+
+    private LockToken lockAndUnlock(boolean readersUseSharedLocks) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Set<LockDescriptor> descriptors = random.ints(0, NUM_DESCRIPTORS)
+                .distinct()
+                .limit(DESCRIPTORS_PER_REQUEST)
+                .mapToObj(DESCRIPTORS::get)
+                .collect(Collectors.toSet());
+        boolean isWriter = random.nextInt(100) < WRITE_PERCENTAGE;
+
+        AsyncResult<Leased<LockToken>> result = isWriter || !readersUseSharedLocks
+                ? lockService.lock(UUID.randomUUID(), descriptors, TIMEOUT)
+                : lockService.lock(UUID.randomUUID(), ImmutableSet.of(), descriptors, TIMEOUT);
+        LockToken token = await(result).value();
+        lockService.unlock(token);
+        return token;
+    }
+
+    private static <T> T await(AsyncResult<T> result) {
+        CompletableFuture<Void> completion = new CompletableFuture<>();
+        result.onComplete(() -> completion.complete(null));
+        completion.join();
+        return result.get();
+    }
+}
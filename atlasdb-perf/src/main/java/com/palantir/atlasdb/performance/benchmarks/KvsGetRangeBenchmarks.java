@@ -17,6 +17,7 @@ package com.palantir.atlasdb.performance.benchmarks;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -31,6 +32,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.primitives.Ints;
+import com.palantir.atlasdb.futures.AtlasFutures;
 import com.palantir.atlasdb.keyvalue.api.RangeRequest;
 import com.palantir.atlasdb.keyvalue.api.RowResult;
 import com.palantir.atlasdb.keyvalue.api.Value;
@@ -58,6 +60,23 @@ public class KvsGetRangeBenchmarks {
         return result;
     }
 
+    private Object getSingleRangeAsyncInner(ConsecutiveNarrowTable table, int sliceSize) {
+        RangeRequest request = Iterables.getOnlyElement(table.getRangeRequests(1, sliceSize, false));
+        int startRow = Ints.fromByteArray(request.getStartInclusive());
+        TokenBackedBasicResultsPage<RowResult<Value>, byte[]> result = AtlasFutures.getUnchecked(
+                table.getKvs().getFirstBatchForRangeAsync(table.getTableRef(), request, Long.MAX_VALUE));
+        Preconditions.checkState(!result.moreResultsAvailable(), "The range should fit in one page");
+        List<RowResult<Value>> list = result.getResults();
+        Preconditions.checkState(list.size() == sliceSize, "List size %s != %s", sliceSize, list.size());
+        list.forEach(rowResult -> {
+            byte[] rowName = rowResult.getRowName();
+            int rowNumber = Ints.fromByteArray(rowName);
+            Preconditions.checkState(rowNumber - startRow < sliceSize, "Start Row %s, row number %s, sliceSize %s",
+                    startRow, rowNumber, sliceSize);
+        });
+        return result;
+    }
+
     private Object getMultiRangeInner(ConsecutiveNarrowTable table) {
         Iterable<RangeRequest> requests = table.getRangeRequests(1000, 1, false);
         Map<RangeRequest, TokenBackedBasicResultsPage<RowResult<Value>, byte[]>> results =
@@ -118,6 +137,22 @@ public class KvsGetRangeBenchmarks {
     }
 
 
+    @Benchmark
+    @Threads(1)
+    @Warmup(time = 1, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 5, timeUnit = TimeUnit.SECONDS)
+    public Object getSingleRangeAsync(ConsecutiveNarrowTable.CleanNarrowTable table) {
+        return getSingleRangeAsyncInner(table, 1);
+    }
+
+    @Benchmark
+    @Threads(1)
+    @Warmup(time = 2, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 10, timeUnit = TimeUnit.SECONDS)
+    public Object getSingleLargeRangeAsync(ConsecutiveNarrowTable.CleanNarrowTable table) {
+        return getSingleRangeAsyncInner(table, 1000);
+    }
+
     @Benchmark
     @Threads(1)
     @Warmup(time = 5, timeUnit = TimeUnit.SECONDS)
@@ -25,6 +25,7 @@ import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Warmup;
 
 import com.google.common.base.Preconditions;
+import com.palantir.atlasdb.futures.AtlasFutures;
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
 import com.palantir.atlasdb.keyvalue.api.Value;
@@ -47,4 +48,20 @@ public class KvsGetRowsBenchmarks {
                 "Should be %s rows, but were: %s", table.getRowList().size(), result.size());
         return result;
     }
+
+    @Benchmark
+    @Threads(1)
+    @Warmup(time = 5)
+    @Measurement(time = 40)
+    public Object getManyRowsWithGetRowsAsync(ConsecutiveNarrowTable.CleanNarrowTable table) {
+        Map<Cell, Value> result = AtlasFutures.getUnchecked(table.getKvs().getRowsAsync(
+                table.getTableRef(),
+                table.getRowList(),
+                ColumnSelection.all(),
+                Long.MAX_VALUE
+        ));
+        Preconditions.checkState(result.size() == table.getRowList().size(),
+                "Should be %s rows, but were: %s", table.getRowList().size(), result.size());
+        return result;
+    }
 }
@@ -0,0 +1,123 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.performance.benchmarks;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.palantir.lock.LockDescriptor;
+import com.palantir.lock.StringLockDescriptor;
+import com.palantir.lock.client.LockWatchEventCacheImpl;
+import com.palantir.lock.v2.LockToken;
+import com.palantir.lock.watch.IdentifiedVersion;
+import com.palantir.lock.watch.ImmutableIdentifiedVersion;
+import com.palantir.lock.watch.LockEvent;
+import com.palantir.lock.watch.LockWatchEventCache;
+import com.palantir.lock.watch.LockWatchReferences;
+import com.palantir.lock.watch.LockWatchStateUpdate;
+import com.palantir.lock.watch.TransactionsLockWatchEvents;
+import com.palantir.lock.watch.UnlockEvent;
+
+/**
+ * Measures the {@link LockWatchEventCacheImpl} with 10,000 transactions in flight. Transactions are started in
+ * batches, each of which observes a lock and an unlock event, and the events of a random transaction are requested
+ * from a version a little behind the one it started at, as a value cache catching up would.
+ */
+@Measurement(iterations = 5, time = 5)
+@Warmup(iterations = 3, time = 2)
+@Fork(value = 1)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LockWatchEventCacheBenchmarks {
+    private static final UUID LOG_ID = UUID.randomUUID();
+    private static final int TRANSACTIONS = 10_000;
+    private static final int TRANSACTIONS_PER_BATCH = 10;
+    private static final int EVENTS_PER_BATCH = 2;
+    private static final long VERSIONS_BEHIND = 100;
+    private static final LockDescriptor DESCRIPTOR = StringLockDescriptor.of("lock");
+    private static final LockToken LOCK_TOKEN = LockToken.of(UUID.randomUUID());
+
+    private LockWatchEventCache cache;
+    private long nextStartTs;
+    private long version;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        cache = LockWatchEventCacheImpl.create();
+        cache.processUpdate(LockWatchStateUpdate.snapshot(LOG_ID, 0L, ImmutableSet.of(),
+                ImmutableSet.of(LockWatchReferences.entireTable("benchmark.table"))));
+        nextStartTs = 0;
+        version = 0;
+        while (nextStartTs < TRANSACTIONS) {
+            startBatch();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public IdentifiedVersion startTransactions() {
+        return startBatch();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public TransactionsLockWatchEvents getEventsForTransaction() {
+        long startTs = ThreadLocalRandom.current().nextLong(TRANSACTIONS);
+        long startVersion = versionOfStartTs(startTs);
+        return cache.getEventsForTransactions(ImmutableSet.of(startTs), ImmutableIdentifiedVersion.of(
+                LOG_ID, Optional.of(Math.max(0L, startVersion - VERSIONS_BEHIND))));
+    }
+
+    private synchronized IdentifiedVersion startBatch() {
+        long lockSequence = version + 1;
+        long unlockSequence = version + 2;
+        version += EVENTS_PER_BATCH;
+        Set<Long> startTimestamps = LongStream.range(nextStartTs, nextStartTs + TRANSACTIONS_PER_BATCH)
+                .boxed()
+                .collect(Collectors.toSet());
+        nextStartTs += TRANSACTIONS_PER_BATCH;
+        return cache.processStartTransactionsUpdate(startTimestamps, LockWatchStateUpdate.success(LOG_ID, version,
+                ImmutableList.of(
+                        LockEvent.builder(ImmutableSet.of(DESCRIPTOR), LOCK_TOKEN).build(lockSequence),
+                        UnlockEvent.builder(ImmutableSet.of(DESCRIPTOR)).build(unlockSequence))));
+    }
+
+    private static long versionOfStartTs(long startTs) {
+        return (startTs / TRANSACTIONS_PER_BATCH + 1) * EVENTS_PER_BATCH;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.performance.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.Ints;
+import com.palantir.atlasdb.cache.DefaultLockWatchingCache;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.performance.benchmarks.table.ConsecutiveNarrowTable;
+import com.palantir.atlasdb.performance.benchmarks.table.Tables;
+import com.palantir.atlasdb.transaction.api.LockWatchingCache;
+import com.palantir.atlasdb.transaction.api.TransactionLockWatchingCacheView;
+import com.palantir.atlasdb.util.MetricsManagers;
+import com.palantir.lock.watch.LockWatchReferences;
+import com.palantir.lock.watch.LockWatchStateUpdate;
+
+/**
+ * Compares reading a small, hot set of cells through a {@link LockWatchingCache} against the uncached read path.
+ * The cache is fed a synthetic lock watch snapshot watching the whole table, and no further events.
+ */
+@State(Scope.Benchmark)
+public class LockWatchingCacheBenchmarks {
+    private static final int HOT_CELLS_SIZE = 1000;
+    private static final long MAX_CACHE_SIZE_IN_BYTES = 10_000_000L;
+    private static final UUID LOG_ID = UUID.randomUUID();
+    private static final long LOCK_WATCH_VERSION = 1L;
+    private static final Set<Cell> HOT_CELLS = IntStream.range(0, HOT_CELLS_SIZE)
+            .mapToObj(index -> Cell.create(Ints.toByteArray(index), Tables.COLUMN_NAME_IN_BYTES.array()))
+            .collect(Collectors.toSet());
+
+    private LockWatchingCache cache;
+
+    @Setup(Level.Trial)
+    public void setup(ConsecutiveNarrowTable.CleanNarrowTable table) {
+        TableReference tableRef = table.getTableRef();
+        cache = DefaultLockWatchingCache.create(
+                MetricsManagers.createForTests(), ImmutableMap.of(tableRef, MAX_CACHE_SIZE_IN_BYTES));
+        cache.processUpdate(LockWatchStateUpdate.snapshot(LOG_ID, LOCK_WATCH_VERSION, ImmutableSet.of(),
+                ImmutableSet.of(LockWatchReferences.entireTable(tableRef.getQualifiedName()))));
+    }
+
+    @Benchmark
+    @Threads(1)
+    @Warmup(time = 1, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 5, timeUnit = TimeUnit.SECONDS)
+    public Object getHotCellsUncached(ConsecutiveNarrowTable.CleanNarrowTable table) {
+        return table.getTransactionManager().runTaskThrowOnConflict(txn -> {
+            Map<Cell, byte[]> result = txn.get(table.getTableRef(), HOT_CELLS);
+            return checkAllCellsRead(result);
+        });
+    }
+
+    @Benchmark
+    @Threads(1)
+    @Warmup(time = 1, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 5, timeUnit = TimeUnit.SECONDS)
+    public Object getHotCellsCached(ConsecutiveNarrowTable.CleanNarrowTable table) {
+        TableReference tableRef = table.getTableRef();
+        return table.getTransactionManager().runTaskThrowOnConflict(txn -> {
+            TransactionLockWatchingCacheView view = cache.getView(txn.getTimestamp(),
+                    LockWatchStateUpdate.success(LOG_ID, LOCK_WATCH_VERSION, ImmutableList.of()));
+            Map<Cell, byte[]> result = new HashMap<>(view.readCached(tableRef, HOT_CELLS));
+            Set<Cell> misses = Sets.difference(HOT_CELLS, result.keySet()).immutableCopy();
+            if (!misses.isEmpty()) {
+                Map<Cell, byte[]> fromKvs = txn.get(tableRef, misses);
+                view.tryCacheNewValuesRead(tableRef, fromKvs);
+                result.putAll(fromKvs);
+            }
+            return checkAllCellsRead(result);
+        });
+    }
+
+    private static Map<Cell, byte[]> checkAllCellsRead(Map<Cell, byte[]> result) {
+        Preconditions.checkState(result.size() == HOT_CELLS_SIZE,
+                "expected %s cells, found %s cells", HOT_CELLS_SIZE, result.size());
+        return result;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.performance.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.palantir.paxos.BooleanPaxosResponse;
+import com.palantir.paxos.ImmutablePaxosStorageParameters;
+import com.palantir.paxos.PaxosAcceptor;
+import com.palantir.paxos.PaxosAcceptorImpl;
+import com.palantir.paxos.PaxosProposal;
+import com.palantir.paxos.PaxosProposalId;
+import com.palantir.paxos.PaxosValue;
+
+/**
+ * Compares the throughput of a {@link PaxosAcceptor} persisting its state to a file per round with one appending to a
+ * segmented log, with concurrent proposers each preparing and accepting a new sequence number, as a timestamp bound
+ * or leadership proposer would. Every prepare and accept is synced to disk, so this depends heavily on the disk.
+ */
+@Measurement(iterations = 5, time = 5)
+@Warmup(iterations = 3, time = 2)
+@Fork(value = 1)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PaxosAcceptorBenchmarks {
+    private static final String PROPOSER = UUID.randomUUID().toString();
+    private static final byte[] DATA = new byte[8];
+
+    @Param({"file", "segmented"})
+    private String log;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private File directory;
+    private PaxosAcceptor acceptor;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("paxos-acceptor-benchmark").toFile();
+        acceptor = PaxosAcceptorImpl.newAcceptor(ImmutablePaxosStorageParameters.builder()
+                .fileBasedLogDirectory(directory.getAbsolutePath())
+                .useSegmentedLog(log.equals("segmented"))
+                .build());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public BooleanPaxosResponse prepareAndAccept() {
+        long seq = sequence.incrementAndGet();
+        PaxosProposalId id = new PaxosProposalId(seq, PROPOSER);
+        acceptor.prepare(seq, id);
+        return acceptor.accept(seq, new PaxosProposal(id, new PaxosValue(PROPOSER, seq, DATA)));
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.performance.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.palantir.paxos.PaxosStateLog;
+import com.palantir.paxos.PaxosStateLogImpl;
+import com.palantir.paxos.PaxosValue;
+import com.palantir.paxos.SqliteConnections;
+import com.palantir.paxos.SqlitePaxosStateLog;
+import com.palantir.paxos.SqlitePaxosStateStore;
+
+/**
+ * Compares writing rounds to the paxos state logs of many namespaces at once, as a TimeLock server with many clients
+ * does, when each namespace has a directory of files ({@link PaxosStateLogImpl}), a table of a shared SQLite
+ * database ({@link SqlitePaxosStateLog}), or a key prefix in the single table of a {@link SqlitePaxosStateStore}.
+ * Both SQLite logs use the database in write-ahead logging mode, as otherwise concurrent writes to the per-table log
+ * fail rather than wait for each other.
+ */
+@Measurement(iterations = 5, time = 5)
+@Warmup(iterations = 3, time = 2)
+@Fork(value = 1)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PaxosStateLogBenchmarks {
+    private static final int NAMESPACES = 100;
+    private static final byte[] DATA = new byte[8];
+
+    @Param({"file", "sqlite", "shared-sqlite"})
+    private String log;
+
+    private final List<PaxosStateLog<PaxosValue>> logs = new ArrayList<>();
+    private final List<AtomicLong> sequences = new ArrayList<>();
+    private File directory;
+    private SqlitePaxosStateStore store;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("paxos-state-log-benchmark").toFile();
+        String databasePath = new File(directory, "paxos.db").getAbsolutePath();
+        Supplier<Connection> connections = SqliteConnections.createWalModeSqliteDatabase(databasePath);
+        if (log.equals("shared-sqlite")) {
+            store = SqlitePaxosStateStore.create(databasePath);
+        }
+        for (int i = 0; i < NAMESPACES; i++) {
+            logs.add(createLog("namespace" + i, connections));
+            sequences.add(new AtomicLong());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (store != null) {
+            store.close();
+        }
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public long writeRound() {
+        int namespace = ThreadLocalRandom.current().nextInt(NAMESPACES);
+        long seq = sequences.get(namespace).incrementAndGet();
+        logs.get(namespace).writeRound(seq, new PaxosValue("leader", seq, DATA));
+        return seq;
+    }
+
+    private PaxosStateLog<PaxosValue> createLog(String namespace, Supplier<Connection> connections) {
+        switch (log) {
+            case "file":
+                return new PaxosStateLogImpl<>(new File(directory, namespace).getAbsolutePath());
+            case "sqlite":
+                return SqlitePaxosStateLog.create(namespace, connections);
+            case "shared-sqlite":
+                return store.stateLog(namespace);
+            default:
+                throw new IllegalArgumentException("Unknown log " + log);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.performance.benchmarks;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.palantir.atlasdb.sweep.CommitTsCache;
+import com.palantir.atlasdb.sweep.queue.ShardAndStrategy;
+import com.palantir.atlasdb.sweep.queue.WindowedCommitTsCache;
+import com.palantir.atlasdb.transaction.service.TransactionService;
+
+/**
+ * Compares the commit timestamp lookups of targeted sweep through the Caffeine backed {@link CommitTsCache} with
+ * those through {@link WindowedCommitTsCache}, in cells per second, with one cell written by each transaction. Each
+ * invocation sweeps the next batch of start timestamps of a shard, which overlaps the previous batch by a quarter, as
+ * when sweep stops at a transaction that committed after the sweep timestamp and re-reads from there. Commit
+ * timestamps are computed rather than read from a key value service, so that only the caches are measured.
+ */
+@Measurement(iterations = 5, time = 5)
+@Warmup(iterations = 3, time = 2)
+@Fork(value = 1)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SweepCommitTsCacheBenchmarks {
+    private static final int SHARDS = 8;
+    private static final int BATCH_SIZE = 1_000;
+    private static final int OVERLAP = BATCH_SIZE / 4;
+    private static final long COMMIT_OFFSET = 10L;
+
+    @Param({"caffeine", "windowed"})
+    private String implementation;
+
+    private CommitTsCache commitTsCache;
+    private WindowedCommitTsCache windowedCommitTsCache;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        TransactionService transactionService = new CommittedTransactionService();
+        commitTsCache = CommitTsCache.create(transactionService);
+        windowedCommitTsCache = WindowedCommitTsCache.create(transactionService);
+    }
+
+    @Benchmark
+    @Threads(SHARDS)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public Object sweepBatch(ShardState state) {
+        long[] startTimestamps = state.nextBatch();
+        if (implementation.equals("caffeine")) {
+            return commitTsCache.loadBatch(Arrays.stream(startTimestamps).boxed().collect(Collectors.toList()));
+        }
+        windowedCommitTsCache.evictUpTo(state.shardStrategy, startTimestamps[0] - 1);
+        return windowedCommitTsCache.loadBatch(state.shardStrategy, startTimestamps);
+    }
+
+    /**
+     * Each thread sweeps its own shard, whose start timestamps are those congruent to the shard modulo the number of
+     * shards.
+     */
+    @State(Scope.Thread)
+    public static class ShardState {
+        private static final AtomicInteger NEXT_SHARD = new AtomicInteger();
+
+        private int shard;
+        private ShardAndStrategy shardStrategy;
+        private long cursor;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            shard = NEXT_SHARD.getAndIncrement() % SHARDS;
+            shardStrategy = ShardAndStrategy.conservative(shard);
+            cursor = 0;
+        }
+
+        long[] nextBatch() {
+            long first = cursor;
+            cursor += (long) (BATCH_SIZE - OVERLAP) * SHARDS;
+            return LongStream.range(0, BATCH_SIZE).map(index -> first + index * SHARDS + shard).toArray();
+        }
+    }
+
+    private static final class CommittedTransactionService implements TransactionService {
+        @Override
+        public Long get(long startTimestamp) {
+            return startTimestamp + COMMIT_OFFSET;
+        }
+
+        @Override
+        public Map<Long, Long> get(Iterable<Long> startTimestamps) {
+            return StreamSupport.stream(startTimestamps.spliterator(), false)
+                    .collect(Collectors.toMap(startTs -> startTs, startTs -> startTs + COMMIT_OFFSET));
+        }
+
+        @Override
+        public ListenableFuture<Long> getAsync(long startTimestamp) {
+            return Futures.immediateFuture(get(startTimestamp));
+        }
+
+        @Override
+        public ListenableFuture<Map<Long, Long>> getAsync(Iterable<Long> startTimestamps) {
+            return Futures.immediateFuture(get(startTimestamps));
+        }
+
+        @Override
+        public void putUnlessExists(long startTimestamp, long commitTimestamp) {
+            throw new UnsupportedOperationException("All transactions have committed");
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+    }
+}
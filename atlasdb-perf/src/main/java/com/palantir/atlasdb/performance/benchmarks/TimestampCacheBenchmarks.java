@@ -0,0 +1,101 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.performance.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.codahale.metrics.MetricRegistry;
+import com.palantir.atlasdb.cache.DefaultTimestampCache;
+import com.palantir.atlasdb.cache.PrimitiveTimestampCache;
+import com.palantir.atlasdb.cache.TimestampCache;
+
+/**
+ * Compares the Caffeine backed {@link DefaultTimestampCache} with {@link PrimitiveTimestampCache}, looking up batches
+ * of start timestamps the way post-filtering does. Three quarters of the looked up timestamps are cached, and
+ * {@link #putAndGetBatch()} additionally caches the missing ones, causing evictions once the cache is full.
+ */
+@Measurement(iterations = 5, time = 5)
+@Warmup(iterations = 3, time = 2)
+@Fork(value = 1)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TimestampCacheBenchmarks {
+    private static final long CACHE_SIZE = 1_000_000L;
+    private static final int BATCH_SIZE = 1_000;
+    private static final long COMMIT_OFFSET = 10L;
+
+    @Param({"caffeine", "primitive"})
+    private String implementation;
+
+    private TimestampCache cache;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        cache = implementation.equals("caffeine")
+                ? new DefaultTimestampCache(new MetricRegistry(), () -> CACHE_SIZE)
+                : new PrimitiveTimestampCache(new MetricRegistry(), () -> CACHE_SIZE);
+        for (long startTimestamp = 0; startTimestamp < CACHE_SIZE * 3 / 4; startTimestamp++) {
+            cache.putAlreadyCommittedTransaction(startTimestamp, startTimestamp + COMMIT_OFFSET);
+        }
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long[] getBatch() {
+        long[] startTimestamps = randomStartTimestamps();
+        long[] commitTimestamps = new long[BATCH_SIZE];
+        cache.getCommitTimestampsIfPresent(startTimestamps, commitTimestamps);
+        return commitTimestamps;
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long[] putAndGetBatch() {
+        long[] startTimestamps = randomStartTimestamps();
+        long[] commitTimestamps = new long[BATCH_SIZE];
+        cache.getCommitTimestampsIfPresent(startTimestamps, commitTimestamps);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            commitTimestamps[i] = startTimestamps[i] + COMMIT_OFFSET;
+        }
+        cache.putAlreadyCommittedTransactions(startTimestamps, commitTimestamps);
+        return commitTimestamps;
+    }
+
+    private static long[] randomStartTimestamps() {
+        long[] startTimestamps = new long[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            startTimestamps[i] = ThreadLocalRandom.current().nextLong(CACHE_SIZE);
+        }
+        return startTimestamps;
+    }
+}
@@ -30,6 +30,7 @@ import org.openjdk.jmh.annotations.Warmup;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Iterables;
 import com.google.common.primitives.Ints;
+import com.palantir.atlasdb.futures.AtlasFutures;
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.RangeRequest;
 import com.palantir.atlasdb.keyvalue.api.RowResult;
@@ -66,6 +67,17 @@ public class TransactionGetBenchmarks {
         });
     }
 
+    private Map<Cell, byte[]> getCellsAsyncInner(ConsecutiveNarrowTable table) {
+        final int getCellsSize = 1000;
+        return table.getTransactionManager().runTaskThrowOnConflict(txn -> {
+            Set<Cell> request = table.getCellsRequest(getCellsSize);
+            Map<Cell, byte[]> result = AtlasFutures.getUnchecked(txn.getAsync(table.getTableRef(), request));
+            Preconditions.checkState(result.size() == getCellsSize,
+                    "expected %s cells, found %s cells", getCellsSize, result.size());
+            return result;
+        });
+    }
+
     private List<RowResult<byte[]>> getSingleRowWithRangeQueryInner(final ConsecutiveNarrowTable table) {
         return table.getTransactionManager().runTaskThrowOnConflict(txn -> {
             RangeRequest request = Iterables.getOnlyElement(table.getRangeRequests(1, 1, false));
@@ -123,6 +135,22 @@ public class TransactionGetBenchmarks {
         return getCellsInner(table);
     }
 
+    @Benchmark
+    @Threads(1)
+    @Warmup(time = 1, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 5, timeUnit = TimeUnit.SECONDS)
+    public Object getCellsAsync(ConsecutiveNarrowTable.CleanNarrowTable table) {
+        return getCellsAsyncInner(table);
+    }
+
+    @Benchmark
+    @Threads(1)
+    @Warmup(time = 2, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 10, timeUnit = TimeUnit.SECONDS)
+    public Object getCellsAsyncDirty(ConsecutiveNarrowTable.DirtyNarrowTable table) {
+        return getCellsAsyncInner(table);
+    }
+
 
     @Benchmark
     @Threads(1)
@@ -0,0 +1,109 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.performance.benchmarks;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableMap;
+import com.palantir.atlasdb.AtlasDbConstants;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.keyvalue.impl.InMemoryKeyValueService;
+import com.palantir.atlasdb.transaction.impl.WriteSetIndex;
+
+/**
+ * Compares the two ways a committing transaction can find the cells it writes that may have been written by a
+ * concurrently committed transaction: reading the latest timestamp of every cell, and consulting the
+ * {@link WriteSetIndex}. Transactions that committed after the start of the committing transaction wrote disjoint
+ * cells of the same table, so the index rules out nearly all cells. The key value service is in memory, so this
+ * measures the cost of the checks themselves rather than of round trips to a database, which favour the index further.
+ */
+@Measurement(iterations = 5, time = 5)
+@Warmup(iterations = 3, time = 2)
+@Fork(value = 1)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WriteWriteConflictCheckBenchmarks {
+    private static final TableReference TABLE = TableReference.createFromFullyQualifiedName("benchmarks.conflicts");
+    private static final long START_TIMESTAMP = 100L;
+    private static final int CONCURRENT_COMMITS = 10;
+    private static final int CELLS_PER_CONCURRENT_COMMIT = 1_000;
+
+    @Param({"10000", "100000"})
+    private int numCells;
+
+    private KeyValueService kvs;
+    private WriteSetIndex writeSetIndex;
+    private Set<Cell> cells;
+    private Map<Cell, Long> cellsAtMaxTimestamp;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        kvs = new InMemoryKeyValueService(false);
+        kvs.createTable(TABLE, AtlasDbConstants.GENERIC_TABLE_METADATA);
+        writeSetIndex = WriteSetIndex.create(kvs);
+
+        cells = cells(0, numCells);
+        cellsAtMaxTimestamp = cells.stream().collect(Collectors.toMap(Function.identity(), unused -> Long.MAX_VALUE));
+        kvs.put(TABLE,
+                cells.stream().collect(Collectors.toMap(Function.identity(), unused -> PtBytes.EMPTY_BYTE_ARRAY)),
+                START_TIMESTAMP - 1);
+
+        for (int commit = 0; commit < CONCURRENT_COMMITS; commit++) {
+            int firstCell = numCells + commit * CELLS_PER_CONCURRENT_COMMIT;
+            writeSetIndex.record(START_TIMESTAMP + 1 + commit,
+                    ImmutableMap.of(TABLE, cells(firstCell, firstCell + CELLS_PER_CONCURRENT_COMMIT)));
+        }
+    }
+
+    @Benchmark
+    public Object latestTimestampOfEveryCell() {
+        return kvs.getLatestTimestamps(TABLE, cellsAtMaxTimestamp);
+    }
+
+    @Benchmark
+    public Object consultWriteSetIndex() {
+        return writeSetIndex.getCellsPossiblyWrittenAfter(TABLE, START_TIMESTAMP, cells);
+    }
+
+    private static Set<Cell> cells(int fromInclusive, int toExclusive) {
+        return IntStream.range(fromInclusive, toExclusive)
+                .mapToObj(index -> Cell.create(PtBytes.toBytes("row" + index), PtBytes.toBytes("col")))
+                .collect(Collectors.toSet());
+    }
+}
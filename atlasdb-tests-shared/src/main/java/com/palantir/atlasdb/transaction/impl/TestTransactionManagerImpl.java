@@ -45,6 +45,7 @@ import com.palantir.lock.LockClient;
 import com.palantir.lock.LockService;
 import com.palantir.lock.impl.LegacyTimelockService;
 import com.palantir.lock.v2.LockToken;
+import com.palantir.lock.v2.TimelockService;
 import com.palantir.timestamp.TimestampManagementService;
 import com.palantir.timestamp.TimestampService;
 
@@ -204,7 +205,8 @@ public class TestTransactionManagerImpl extends SerializableTransactionManager i
                         deleteExecutor,
                         validateLocksOnReads,
                         () -> TRANSACTION_CONFIG,
-                        ConflictTracer.NO_OP),
+                        ConflictTracer.NO_OP,
+                        writeSetIndex),
                 pathTypeTracker);
     }
 
@@ -213,13 +215,14 @@ public class TestTransactionManagerImpl extends SerializableTransactionManager i
             long immutableTimestamp,
             Supplier<Long> startTimestampSupplier,
             LockToken immutableTsLock,
-            PreCommitCondition preCommitCondition) {
+            PreCommitCondition preCommitCondition,
+            TimelockService transactionTimelockService) {
         PathTypeTracker pathTypeTracker = PathTypeTrackers.constructSynchronousTracker();
         return transactionWrapper.apply(
                 new SerializableTransaction(
                         metricsManager,
                         keyValueServiceWrapper.apply(keyValueService, pathTypeTracker),
-                        timelockService,
+                        transactionTimelockService,
                         lockWatchManager,
                         transactionService,
                         cleaner,
@@ -240,7 +243,8 @@ public class TestTransactionManagerImpl extends SerializableTransactionManager i
                         deleteExecutor,
                         validateLocksOnReads,
                         transactionConfig,
-                        ConflictTracer.NO_OP),
+                        ConflictTracer.NO_OP,
+                        writeSetIndex),
                 pathTypeTracker);
     }
 
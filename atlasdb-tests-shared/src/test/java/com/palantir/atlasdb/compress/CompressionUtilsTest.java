@@ -19,6 +19,8 @@ import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
 import org.junit.Test;
@@ -26,6 +28,8 @@ import org.junit.Test;
 import com.palantir.atlasdb.table.description.ColumnValueDescription.Compression;
 
 public class CompressionUtilsTest {
+    private static final String DICTIONARY = "compression/test-dictionary.txt";
+
     @Test
     public void testCompressAndDecompress() {
         byte[] original = new byte[] { 1, 1, 1, 1, 1, 1, 1, 1, 1, 1 };
@@ -41,6 +45,93 @@ public class CompressionUtilsTest {
         assertArrayEquals(original, decompressed);
     }
 
+    @Test
+    public void testCompressAndDecompressWithLz4AndZstd() {
+        byte[] original = new byte[1024];
+        for (Compression compression : Arrays.asList(Compression.LZ4, Compression.ZSTD)) {
+            byte[] compressed = CompressionUtils.compress(original, compression);
+            assertTrue(compressed.length < original.length);
+            byte[] decompressed = CompressionUtils.decompress(compressed, compression);
+            assertArrayEquals(original, decompressed);
+        }
+    }
+
+    @Test
+    public void testCompressAndDecompressEmptyValues() {
+        byte[] original = new byte[0];
+        for (Compression compression : Compression.values()) {
+            byte[] compressed = CompressionUtils.compress(original, compression);
+            assertArrayEquals(original, CompressionUtils.decompress(compressed, compression));
+        }
+    }
+
+    @Test
+    public void testCompressAndDecompressWithZstdDictionary() {
+        byte[] original = ("{\"id\":\"1\",\"name\":\"foo\",\"type\":\"document\",\"createdBy\":\"bar\","
+                + "\"properties\":{\"title\":\"baz\",\"description\":\"\"}}").getBytes(StandardCharsets.UTF_8);
+
+        byte[] compressed = CompressionUtils.compress(original, Compression.ZSTD, DICTIONARY);
+        assertTrue(compressed.length < CompressionUtils.compress(original, Compression.ZSTD).length);
+        byte[] decompressed = CompressionUtils.decompress(compressed, Compression.ZSTD, DICTIONARY);
+        assertArrayEquals(original, decompressed);
+    }
+
+    @Test
+    public void testDecompressIntoReusableBuffer() {
+        byte[] original = new byte[] { 1, 2, 3, 1, 2, 3, 1, 2, 3, 1, 2, 3 };
+        ByteBuffer reusableBuffer = ByteBuffer.allocate(64);
+        for (Compression compression : Compression.values()) {
+            CompressionCodec codec = CompressionCodecs.forCompression(compression);
+            ByteBuffer decompressed = codec.decompress(codec.compress(original), reusableBuffer);
+            assertTrue(decompressed == reusableBuffer);
+            byte[] actual = new byte[decompressed.remaining()];
+            decompressed.get(actual);
+            assertArrayEquals(original, actual);
+        }
+    }
+
+    @Test
+    public void testDecompressExceptionWithLz4AndZstd() {
+        byte[] compressed = new byte[] { 1, 2, 3 };  // invalid
+        for (Compression compression : Arrays.asList(Compression.LZ4, Compression.ZSTD)) {
+            boolean threwIllegalArgumentException = false;
+            try {
+                CompressionUtils.decompress(compressed, compression);
+            } catch (IllegalArgumentException e) {
+                threwIllegalArgumentException = true;
+            }
+            assertTrue(threwIllegalArgumentException);
+        }
+    }
+
+    @Test
+    public void testDecompressIntoThreadsReusableBuffer() {
+        byte[] first = "first value".getBytes(StandardCharsets.UTF_8);
+        byte[] second = "second".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer firstDecompressed = CompressionUtils.decompressIntoReusableBuffer(
+                CompressionUtils.compress(first, Compression.LZ4), Compression.LZ4);
+        assertArrayEquals(first, Arrays.copyOf(firstDecompressed.array(), firstDecompressed.limit()));
+        ByteBuffer secondDecompressed = CompressionUtils.decompressIntoReusableBuffer(
+                CompressionUtils.compress(second, Compression.LZ4), Compression.LZ4);
+        assertTrue(secondDecompressed == firstDecompressed);
+        assertArrayEquals(second, Arrays.copyOf(secondDecompressed.array(), secondDecompressed.limit()));
+    }
+
+    @Test
+    public void testDecompressExceptionWithInvalidLz4Length() {
+        byte[] negativeLength = new byte[] { -1, -1, -1, -1, 0 };
+        byte[] tooLongForBlock = new byte[] { 0x40, 0, 0, 0, 0 };
+        for (byte[] compressed : Arrays.asList(negativeLength, tooLongForBlock)) {
+            boolean threwIllegalArgumentException = false;
+            try {
+                CompressionUtils.decompress(compressed, Compression.LZ4);
+            } catch (IllegalArgumentException e) {
+                threwIllegalArgumentException = true;
+            }
+            assertTrue(threwIllegalArgumentException);
+        }
+    }
+
     @Test
     public void testCompressAndDecompressWithSnappy() {
         byte[] original = new byte[1024];
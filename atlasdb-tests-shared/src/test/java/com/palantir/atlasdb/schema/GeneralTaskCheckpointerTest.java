@@ -15,9 +15,37 @@
  */
 package com.palantir.atlasdb.schema;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.palantir.atlasdb.encoding.PtBytes;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 
 public class GeneralTaskCheckpointerTest extends AbstractTaskCheckpointerTest {
+    @Test
+    public void recordsRangeEnds() {
+        GeneralTaskCheckpointer generalCheckpointer = (GeneralTaskCheckpointer) checkpointer;
+        generalCheckpointer.createCheckpoints("t1", ImmutableMap.of(0L, PtBytes.EMPTY_BYTE_ARRAY));
+        generalCheckpointer.createCheckpoints("t2", ImmutableMap.of(0L, PtBytes.EMPTY_BYTE_ARRAY));
+
+        txManager.runTaskWithRetry(txn -> {
+            generalCheckpointer.setRangeEnd("t1", 0L, new byte[] {5}, txn);
+            generalCheckpointer.checkpoint("t1", 7L, new byte[] {5}, txn);
+            generalCheckpointer.setRangeEnd("t1", 7L, PtBytes.EMPTY_BYTE_ARRAY, txn);
+            generalCheckpointer.setRangeEnd("t2", 3L, new byte[] {6}, txn);
+            return null;
+        });
+
+        Map<Long, byte[]> ends = txManager.runTaskWithRetry(txn -> generalCheckpointer.getRangeEnds("t1", txn));
+        assertThat(ends).containsOnlyKeys(0L, 7L);
+        assertThat(ends.get(0L)).isEqualTo(new byte[] {5});
+        assertThat(ends.get(7L)).isEmpty();
+    }
+
     @Override
     protected AbstractTaskCheckpointer getCheckpointer() {
         return new GeneralTaskCheckpointer(
@@ -0,0 +1,191 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.schema;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Longs;
+import com.google.common.primitives.UnsignedLongs;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.palantir.atlasdb.AtlasDbConstants;
+import com.palantir.atlasdb.AtlasDbTestCase;
+import com.palantir.atlasdb.cache.DefaultTimestampCache;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.keyvalue.api.Value;
+import com.palantir.atlasdb.keyvalue.impl.ForwardingKeyValueService;
+import com.palantir.atlasdb.keyvalue.impl.InMemoryKeyValueService;
+import com.palantir.atlasdb.sweep.queue.MultiTableSweepQueueWriter;
+import com.palantir.atlasdb.transaction.impl.ConflictDetectionManagers;
+import com.palantir.atlasdb.transaction.impl.SweepStrategyManagers;
+import com.palantir.atlasdb.transaction.impl.TestTransactionManagerImpl;
+import com.palantir.common.concurrent.PTExecutors;
+
+public class ParallelKvsMigratorSplittingTest extends AtlasDbTestCase {
+    private static final TableReference TABLE = TableReference.createFromFullyQualifiedName("test.table");
+    private static final TableReference CHECKPOINT_TABLE = TableReference.createWithEmptyNamespace("checkpoint");
+    private static final byte[] COLUMN = PtBytes.toBytes("c");
+    private static final int PARTITIONS = 256;
+    private static final int ROWS = 500;
+    private static final int PARALLELISM = 4;
+
+    private final CountingKeyValueService writeKvs = new CountingKeyValueService(new InMemoryKeyValueService(false));
+    private final Map<Cell, byte[]> values = new HashMap<>();
+    private TestTransactionManagerImpl writeTxManager;
+    private GeneralTaskCheckpointer checkpointer;
+    private long migrationTimestamp;
+
+    @Before
+    public void setUpMigration() {
+        keyValueService.createTable(TABLE, AtlasDbConstants.GENERIC_TABLE_METADATA);
+        writeKvs.createTable(TABLE, AtlasDbConstants.GENERIC_TABLE_METADATA);
+        writeTxManager = new TestTransactionManagerImpl(
+                metricsManager,
+                writeKvs,
+                timestampService,
+                timestampService,
+                lockClient,
+                lockService,
+                transactionService,
+                ConflictDetectionManagers.createWithNoConflictDetection(),
+                SweepStrategyManagers.completelyConservative(),
+                DefaultTimestampCache.createForTests(),
+                MultiTableSweepQueueWriter.NO_OP,
+                MoreExecutors.newDirectExecutorService());
+        checkpointer = new GeneralTaskCheckpointer(CHECKPOINT_TABLE, writeKvs, writeTxManager);
+
+        // all rows are in the last of the initial ranges, which can only keep up with the other workers by splitting
+        List<byte[]> boundaries = TableMigrator.getRangeBoundaries(ImmutableList.of(), PARTITIONS);
+        long firstRow = Longs.fromByteArray(Arrays.copyOf(boundaries.get(boundaries.size() - 2), Long.BYTES));
+        long rowSpacing = UnsignedLongs.divide(-1L - firstRow, ROWS);
+        for (int row = 0; row < ROWS; row++) {
+            values.put(Cell.create(Longs.toByteArray(firstRow + row * rowSpacing), COLUMN), PtBytes.toBytes(row));
+        }
+        txManager.runTaskWithRetry(txn -> {
+            txn.put(TABLE, values);
+            return null;
+        });
+        migrationTimestamp = timestampService.getFreshTimestamp();
+    }
+
+    @Test
+    public void splitsLargeRangesAndMigratesEveryCellOnce() throws InterruptedException {
+        migrate();
+
+        assertThat(getRangeEnds()).isNotEmpty();
+        assertMigratedExactlyOnce();
+    }
+
+    @Test
+    public void resumesSplitRangesAndMigratesEveryCellOnce() throws InterruptedException {
+        writeKvs.failAfterPuts(ROWS * 3 / 4);
+        assertThatThrownBy(this::migrate).hasStackTraceContaining("Injected failure");
+        assertThat(getRangeEnds()).isNotEmpty();
+        assertThat(writeKvs.putsByCell.size()).isLessThan(ROWS);
+
+        writeKvs.failAfterPuts(Integer.MAX_VALUE);
+        migrate();
+
+        assertMigratedExactlyOnce();
+    }
+
+    private void migrate() throws InterruptedException {
+        ExecutorService executor = PTExecutors.newFixedThreadPool(PARALLELISM);
+        try {
+            new ParallelKvsMigrator(
+                    txManager,
+                    writeTxManager,
+                    keyValueService,
+                    writeKvs,
+                    migrationTimestamp,
+                    checkpointer,
+                    executor,
+                    PARALLELISM,
+                    unused -> 100,
+                    1L,
+                    0L,
+                    (message, level) -> { },
+                    new NullTaskProgress(),
+                    0L).migrate(ImmutableSet.of(TABLE));
+        } finally {
+            // workers finish their current batch after another worker fails
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private Map<Long, byte[]> getRangeEnds() {
+        return writeTxManager.runTaskReadOnly(txn -> checkpointer.getRangeEnds(TABLE.getQualifiedName(), txn));
+    }
+
+    private void assertMigratedExactlyOnce() {
+        assertThat(writeKvs.putsByCell).isEqualTo(Maps.toMap(values.keySet(), unused -> 1));
+        Map<Cell, Value> migrated = writeKvs.get(TABLE, Maps.toMap(values.keySet(), unused -> Long.MAX_VALUE));
+        values.forEach((cell, value) -> assertThat(migrated.get(cell).getContents()).isEqualTo(value));
+    }
+
+    private static final class CountingKeyValueService extends ForwardingKeyValueService {
+        private final KeyValueService delegate;
+        private final ConcurrentMap<Cell, Integer> putsByCell = new ConcurrentHashMap<>();
+        private final AtomicInteger remainingPuts = new AtomicInteger(Integer.MAX_VALUE);
+
+        CountingKeyValueService(KeyValueService delegate) {
+            this.delegate = delegate;
+        }
+
+        void failAfterPuts(int puts) {
+            remainingPuts.set(puts);
+        }
+
+        @Override
+        public KeyValueService delegate() {
+            return delegate;
+        }
+
+        @Override
+        public void put(TableReference tableRef, Map<Cell, byte[]> cells, long timestamp) {
+            if (!tableRef.equals(TABLE)) {
+                delegate.put(tableRef, cells, timestamp);
+                return;
+            }
+            if (remainingPuts.getAndDecrement() <= 0) {
+                throw new RuntimeException("Injected failure");
+            }
+            delegate.put(tableRef, cells, timestamp);
+            cells.keySet().forEach(cell -> putsByCell.merge(cell, 1, Integer::sum));
+        }
+    }
+}
@@ -48,6 +48,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletionService;
@@ -90,6 +91,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimaps;
 import com.google.common.collect.Ordering;
+import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
@@ -424,7 +426,8 @@ public class SnapshotTransactionTest extends AtlasDbTestCase {
                         MoreExecutors.newDirectExecutorService(),
                         true,
                         () -> transactionConfig,
-                        ConflictTracer.NO_OP),
+                        ConflictTracer.NO_OP,
+                        WriteSetIndex.create(kvMock)),
                 pathTypeTracker);
         try {
             snapshot.get(TABLE, ImmutableSet.of(cell));
@@ -496,7 +499,8 @@ public class SnapshotTransactionTest extends AtlasDbTestCase {
                         MoreExecutors.newDirectExecutorService(),
                         true,
                         () -> transactionConfig,
-                        ConflictTracer.NO_OP),
+                        ConflictTracer.NO_OP,
+                        WriteSetIndex.create(keyValueService)),
                 pathTypeTracker);
         snapshot.delete(TABLE, ImmutableSet.of(cell));
         snapshot.commit();
@@ -677,6 +681,35 @@ public class SnapshotTransactionTest extends AtlasDbTestCase {
         assertThat(rowResult2.getColumns(), hasEntry(row1Column2.getColumnName(), row1Column2Value));
     }
 
+    @Test
+    public void testGetRowsAsyncCombinesStoredValuesAndLocalWrites() {
+        byte[] row1 = PtBytes.toBytes("row1");
+        byte[] row2 = PtBytes.toBytes("row2");
+        Cell row1Column1 = Cell.create(row1, PtBytes.toBytes("column1"));
+        Cell row1Column2 = Cell.create(row1, PtBytes.toBytes("column2"));
+        Cell row2Column1 = Cell.create(row2, PtBytes.toBytes("column1"));
+        byte[] storedValue = BigInteger.valueOf(1).toByteArray();
+        byte[] localValue = BigInteger.valueOf(2).toByteArray();
+
+        serializableTxManager.runTaskWithRetry(tx -> {
+            tx.put(TABLE, ImmutableMap.of(
+                    row1Column1, storedValue,
+                    row1Column2, storedValue,
+                    row2Column1, storedValue));
+            return null;
+        });
+
+        Transaction snapshotTx = serializableTxManager.createNewTransaction();
+        snapshotTx.put(TABLE, ImmutableMap.of(row1Column2, localValue));
+        snapshotTx.delete(TABLE, ImmutableSet.of(row2Column1));
+
+        SortedMap<byte[], RowResult<byte[]>> rowResults = AtlasFutures.getUnchecked(
+                snapshotTx.getRowsAsync(TABLE, ImmutableList.of(row1, row2), ColumnSelection.all()));
+        assertThat(rowResults.keySet(), not(hasItem(row2)));
+        assertThat(rowResults.get(row1).getColumns(), hasEntry(row1Column1.getColumnName(), storedValue));
+        assertThat(rowResults.get(row1).getColumns(), hasEntry(row1Column2.getColumnName(), localValue));
+    }
+
     @Test
     public void testTransactionWriteWriteConflicts() throws Exception {
         // This test creates various types of conflicting writes and makes sure that write-write
@@ -1498,6 +1531,82 @@ public class SnapshotTransactionTest extends AtlasDbTestCase {
 
     }
 
+    @Test
+    public void detectsWriteWriteConflictsWhenConsultingWriteSetIndex() {
+        setTransactionConfig(ImmutableTransactionConfig.builder()
+                .writeSetIndexedTables(ImmutableSet.of(TABLE.getQualifiedName()))
+                .consultWriteSetIndexOnCommit(true)
+                .build());
+        TimelockService timelockService = new LegacyTimelockService(timestampService, lockService, lockClient);
+        LockImmutableTimestampResponse res = timelockService.lockImmutableTimestamp();
+        long transactionTs = timelockService.getFreshTimestamp();
+        Transaction transaction = getSnapshotTransactionWith(
+                timelockService, () -> transactionTs, res, PreCommitConditions.NO_OP);
+        Map<Cell, byte[]> writes = cellsToWriteForWriteSetIndex();
+        transaction.put(TABLE, writes);
+
+        long concurrentTs = timelockService.getFreshTimestamp();
+        Transaction concurrent = getSnapshotTransactionWith(
+                timelockService, () -> concurrentTs, res, PreCommitConditions.NO_OP);
+        concurrent.put(TABLE, ImmutableMap.of(Iterables.get(writes.keySet(), 500), PtBytes.toBytes("theirs")));
+        concurrent.commit();
+
+        assertThatExceptionOfType(TransactionConflictException.class).isThrownBy(transaction::commit);
+        timelockService.unlock(ImmutableSet.of(res.getLock()));
+    }
+
+    @Test
+    public void skipsWriteWriteConflictChecksForCellsNotConcurrentlyWritten() {
+        setTransactionConfig(ImmutableTransactionConfig.builder()
+                .writeSetIndexedTables(ImmutableSet.of(TABLE.getQualifiedName()))
+                .consultWriteSetIndexOnCommit(true)
+                .build());
+        Set<Cell> checkedCells = Sets.newConcurrentHashSet();
+        KeyValueService recordingKvs = new AutoDelegate_KeyValueService() {
+            @Override
+            public KeyValueService delegate() {
+                return keyValueService;
+            }
+
+            @Override
+            public Map<Cell, Long> getLatestTimestamps(TableReference tableRef, Map<Cell, Long> timestampByCell) {
+                if (tableRef.equals(TABLE)) {
+                    checkedCells.addAll(timestampByCell.keySet());
+                }
+                return delegate().getLatestTimestamps(tableRef, timestampByCell);
+            }
+        };
+        TimelockService timelockService = new LegacyTimelockService(timestampService, lockService, lockClient);
+        LockImmutableTimestampResponse res = timelockService.lockImmutableTimestamp();
+        long transactionTs = timelockService.getFreshTimestamp();
+        Transaction transaction = getSnapshotTransactionWith(
+                recordingKvs, timelockService, () -> transactionTs, res, PreCommitConditions.NO_OP, true);
+        Map<Cell, byte[]> writes = cellsToWriteForWriteSetIndex();
+        transaction.put(TABLE, writes);
+
+        Cell concurrentlyWritten = Cell.create(PtBytes.toBytes("otherRow"), PtBytes.toBytes("column1"));
+        long concurrentTs = timelockService.getFreshTimestamp();
+        Transaction concurrent = getSnapshotTransactionWith(
+                timelockService, () -> concurrentTs, res, PreCommitConditions.NO_OP);
+        concurrent.put(TABLE, ImmutableMap.of(concurrentlyWritten, PtBytes.toBytes("theirs")));
+        concurrent.commit();
+
+        transaction.commit();
+        timelockService.unlock(ImmutableSet.of(res.getLock()));
+
+        // only the false positives of the concurrent transaction's filter are checked
+        Assertions.assertThat(writes.keySet()).containsAll(checkedCells);
+        Assertions.assertThat(checkedCells.size()).isLessThan(writes.size() / 10);
+    }
+
+    private static Map<Cell, byte[]> cellsToWriteForWriteSetIndex() {
+        ImmutableMap.Builder<Cell, byte[]> writes = ImmutableMap.builder();
+        for (int i = 0; i < 1_000; i++) {
+            writes.put(Cell.create(PtBytes.toBytes("row" + i), PtBytes.toBytes("column1")), PtBytes.toBytes("ours"));
+        }
+        return writes.build();
+    }
+
     private void setTransactionConfig(TransactionConfig config) {
         transactionConfig = config;
     }
@@ -1521,11 +1630,27 @@ public class SnapshotTransactionTest extends AtlasDbTestCase {
             LockImmutableTimestampResponse lockImmutableTimestampResponse,
             PreCommitCondition preCommitCondition,
             boolean validateLocksOnReads) {
+        return getSnapshotTransactionWith(
+                keyValueService,
+                timelockService,
+                startTs,
+                lockImmutableTimestampResponse,
+                preCommitCondition,
+                validateLocksOnReads);
+    }
+
+    private Transaction getSnapshotTransactionWith(
+            KeyValueService kvs,
+            TimelockService timelockService,
+            Supplier<Long> startTs,
+            LockImmutableTimestampResponse lockImmutableTimestampResponse,
+            PreCommitCondition preCommitCondition,
+            boolean validateLocksOnReads) {
         PathTypeTracker pathTypeTracker = PathTypeTrackers.constructSynchronousTracker();
         return transactionWrapper.apply(
                 new SnapshotTransaction(
                         metricsManager,
-                        keyValueServiceWrapper.apply(keyValueService, pathTypeTracker),
+                        keyValueServiceWrapper.apply(kvs, pathTypeTracker),
                         timelockService,
                         NoOpLockWatchManager.INSTANCE,
                         transactionService,
@@ -1548,7 +1673,8 @@ public class SnapshotTransactionTest extends AtlasDbTestCase {
                         MoreExecutors.newDirectExecutorService(),
                         validateLocksOnReads,
                         () -> transactionConfig,
-                        ConflictTracer.NO_OP),
+                        ConflictTracer.NO_OP,
+                        WriteSetIndex.create(keyValueService)),
                 pathTypeTracker);
     }
 
@@ -28,19 +28,27 @@ public final class PaxosAcceptorImpl implements PaxosAcceptor {
     private static final Logger logger = LoggerFactory.getLogger(PaxosAcceptorImpl.class);
 
     public static PaxosAcceptor newAcceptor(String logDir) {
-        PaxosStateLog<PaxosAcceptorState> log = new PaxosStateLogImpl<>(logDir);
-        return new PaxosAcceptorImpl(
-                new ConcurrentSkipListMap<>(),
-                log,
-                log.getGreatestLogEntry());
+        return newAcceptor(new PaxosStateLogImpl<>(logDir));
     }
 
     public static PaxosAcceptor newAcceptor(PaxosStorageParameters storageParameters) {
         String logDirectory = storageParameters.fileBasedLogDirectory()
                 .orElseThrow(() -> new SafeIllegalStateException("We currently need to have file-based storage"));
+        if (storageParameters.useSegmentedLog()) {
+            return newAcceptor(
+                    SegmentedPaxosStateLog.createMigratingFrom(logDirectory, PaxosAcceptorState.BYTES_HYDRATOR));
+        }
+        SegmentedPaxosStateLog.rollBackMigration(logDirectory, PaxosAcceptorState.BYTES_HYDRATOR);
         return newAcceptor(logDirectory);
     }
 
+    private static PaxosAcceptor newAcceptor(PaxosStateLog<PaxosAcceptorState> log) {
+        return new PaxosAcceptorImpl(
+                new ConcurrentSkipListMap<>(),
+                log,
+                log.getGreatestLogEntry());
+    }
+
     private final ConcurrentSkipListMap<Long, PaxosAcceptorState> state;
     private final PaxosStateLog<PaxosAcceptorState> log;
     private final long greatestInLogAtStartup;
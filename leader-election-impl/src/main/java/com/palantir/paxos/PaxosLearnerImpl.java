@@ -40,7 +40,23 @@ public final class PaxosLearnerImpl implements PaxosLearner {
     }
 
     public static PaxosLearner newLearner(String logDir, PaxosKnowledgeEventRecorder eventRecorder) {
-        PaxosStateLogImpl<PaxosValue> log = new PaxosStateLogImpl<>(logDir);
+        return newLearner(new PaxosStateLogImpl<>(logDir), eventRecorder);
+    }
+
+    public static PaxosLearner newLearner(
+            PaxosStorageParameters storageParameters, PaxosKnowledgeEventRecorder eventRecorder) {
+        String logDirectory = storageParameters.fileBasedLogDirectory()
+                .orElseThrow(() -> new SafeIllegalStateException("We currently need to have file-based storage"));
+        if (storageParameters.useSegmentedLog()) {
+            return newLearner(
+                    SegmentedPaxosStateLog.createMigratingFrom(logDirectory, PaxosValue.BYTES_HYDRATOR),
+                    eventRecorder);
+        }
+        SegmentedPaxosStateLog.rollBackMigration(logDirectory, PaxosValue.BYTES_HYDRATOR);
+        return newLearner(logDirectory, eventRecorder);
+    }
+
+    private static PaxosLearner newLearner(PaxosStateLog<PaxosValue> log, PaxosKnowledgeEventRecorder eventRecorder) {
         ConcurrentSkipListMap<Long, PaxosValue> state = new ConcurrentSkipListMap<>();
 
         byte[] greatestValidValue = PaxosStateLogs.getGreatestValidLogEntry(log);
@@ -52,13 +68,6 @@ public final class PaxosLearnerImpl implements PaxosLearner {
         return new PaxosLearnerImpl(state, log, eventRecorder);
     }
 
-    public static PaxosLearner newLearner(
-            PaxosStorageParameters storageParameters, PaxosKnowledgeEventRecorder eventRecorder) {
-        String logDirectory = storageParameters.fileBasedLogDirectory()
-                .orElseThrow(() -> new SafeIllegalStateException("We currently need to have file-based storage"));
-        return newLearner(logDirectory, eventRecorder);
-    }
-
     final SortedMap<Long, PaxosValue> state;
     final PaxosStateLog<PaxosValue> log;
     final PaxosKnowledgeEventRecorder eventRecorder;
@@ -27,6 +27,16 @@ public interface PaxosStorageParameters {
     Optional<String> fileBasedLogDirectory();
     Optional<String> databaseNamespace();
 
+    /**
+     * If true, the file-based log is kept in a {@link SegmentedPaxosStateLog}, migrating any rounds written by
+     * {@link PaxosStateLogImpl} the first time it is opened. If false, any segmented log left by an earlier migration
+     * is rolled back into the file-based log before it is opened.
+     */
+    @Value.Default
+    default boolean useSegmentedLog() {
+        return false;
+    }
+
     @Value.Check
     default void check() {
         Preconditions.checkState(fileBasedLogDirectory().isPresent() || databaseNamespace().isPresent(),
@@ -0,0 +1,680 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.paxos;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.palantir.common.base.Throwables;
+import com.palantir.common.persist.Persistable;
+import com.palantir.logsafe.SafeArg;
+import com.palantir.logsafe.UnsafeArg;
+
+/**
+ * A {@link PaxosStateLog} that appends rounds to a small number of segment files, rather than writing each round to a
+ * file of its own like {@link PaxosStateLogImpl}.
+ * <p>
+ * Every record is checksummed, and a record torn by a crash at the end of the log is discarded when the log is
+ * opened. Writers share fsyncs: a writer that finds an fsync in progress waits for it, and the next fsync then covers
+ * every record appended in the meantime. An in-memory index maps each sequence number to the location of its latest
+ * record, and truncation drops the oldest segments once all of their rounds have been truncated. Truncations are
+ * themselves recorded in the log, so that truncated rounds stay truncated across restarts.
+ * <p>
+ * Like {@link PaxosStateLogImpl}, the least log entry is {@link PaxosAcceptor#NO_LOG_ENTRY} until the log is first
+ * truncated, truncation never removes the greatest log entry, and a round is not overwritten by a round of an older
+ * {@link Versionable#getVersion() version}. Versions are not persisted, so the version of a round read back from disk
+ * is the version it hydrates to.
+ */
+public final class SegmentedPaxosStateLog<V extends Persistable & Versionable> implements PaxosStateLog<V>, Closeable {
+    private static final Logger log = LoggerFactory.getLogger(SegmentedPaxosStateLog.class);
+
+    @VisibleForTesting
+    static final String SEGMENT_DIRECTORY = "segments";
+    private static final String SEGMENT_SUFFIX = ".segment";
+    private static final String MIGRATION_SUFFIX = ".migrating";
+    private static final String ROLLBACK_SUFFIX = ".rolled-back";
+    private static final long DEFAULT_SEGMENT_SIZE_BYTES = 64 * 1024 * 1024;
+
+    private static final byte ROUND = 1;
+    private static final byte TRUNCATION = 2;
+    // type, sequence number, payload length and checksum
+    private static final int HEADER_BYTES = Byte.BYTES + Long.BYTES + Integer.BYTES + Integer.BYTES;
+
+    private final File directory;
+    private final long segmentSizeBytes;
+    private final Persistable.Hydrator<V> hydrator;
+    private final NavigableMap<Long, Location> index = new ConcurrentSkipListMap<>();
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    // held for reading while using a segment's channel, and for writing while dropping segments
+    private final ReadWriteLock segmentsLock = new ReentrantReadWriteLock();
+    private final NavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    @GuardedBy("appendLock")
+    private Segment activeSegment;
+    @GuardedBy("appendLock")
+    private long appendedRecords = 0;
+    private volatile long truncatedUpTo = PaxosAcceptor.NO_LOG_ENTRY;
+    private volatile boolean truncated = false;
+
+    private final Object syncMonitor = new Object();
+    @GuardedBy("syncMonitor")
+    private long syncedRecords = 0;
+    @GuardedBy("syncMonitor")
+    private boolean syncing = false;
+
+    private SegmentedPaxosStateLog(File directory, long segmentSizeBytes, Persistable.Hydrator<V> hydrator) {
+        this.directory = directory;
+        this.segmentSizeBytes = segmentSizeBytes;
+        this.hydrator = hydrator;
+    }
+
+    /**
+     * Opens the segmented log in the given directory, creating it if it does not exist.
+     */
+    public static <V extends Persistable & Versionable> SegmentedPaxosStateLog<V> create(
+            String path, Persistable.Hydrator<V> hydrator) {
+        return create(new File(path), DEFAULT_SEGMENT_SIZE_BYTES, hydrator);
+    }
+
+    /**
+     * Opens the segmented log kept alongside the file-per-round log of {@link PaxosStateLogImpl} in the given
+     * directory. If there is no segmented log yet, it is first populated with the rounds of the file-per-round log.
+     * The migration is atomic: a migration interrupted by a crash is started afresh the next time the log is opened.
+     * <p>
+     * Rounds written after the migration are only written to the segmented log, so the file-per-round log must not be
+     * opened again until {@link #rollBackMigration} has copied them back.
+     */
+    public static <V extends Persistable & Versionable> SegmentedPaxosStateLog<V> createMigratingFrom(
+            String legacyLogPath, Persistable.Hydrator<V> hydrator) {
+        return createMigratingFrom(legacyLogPath, hydrator, DEFAULT_SEGMENT_SIZE_BYTES);
+    }
+
+    @VisibleForTesting
+    static <V extends Persistable & Versionable> SegmentedPaxosStateLog<V> createMigratingFrom(
+            String legacyLogPath, Persistable.Hydrator<V> hydrator, long segmentSizeBytes) {
+        File segmentDirectory = new File(legacyLogPath, SEGMENT_DIRECTORY);
+        if (!segmentDirectory.exists()) {
+            migrate(legacyLogPath, segmentDirectory, hydrator, segmentSizeBytes);
+        }
+        return create(segmentDirectory, segmentSizeBytes, hydrator);
+    }
+
+    /**
+     * Undoes {@link #createMigratingFrom}: if there is a segmented log in the given directory, its rounds and its
+     * truncation are copied back to the file-per-round log of {@link PaxosStateLogImpl}, and the segmented log is then
+     * removed, so that migrating again later picks up the rounds written to the file-per-round log in the meantime.
+     * This must be called before the file-per-round log is opened in a directory that may have been migrated.
+     * <p>
+     * Rounds are only removed from the segmented log once they are durable in the file-per-round log, so a rollback
+     * interrupted by a crash is started afresh the next time.
+     */
+    public static <V extends Persistable & Versionable> void rollBackMigration(
+            String legacyLogPath, Persistable.Hydrator<V> hydrator) {
+        File segmentDirectory = new File(legacyLogPath, SEGMENT_DIRECTORY);
+        File rollbackDirectory = new File(legacyLogPath, SEGMENT_DIRECTORY + ROLLBACK_SUFFIX);
+        try {
+            if (segmentDirectory.exists()) {
+                PaxosStateLog<V> legacyLog = new PaxosStateLogImpl<>(legacyLogPath);
+                try (SegmentedPaxosStateLog<V> segmented =
+                        create(segmentDirectory, DEFAULT_SEGMENT_SIZE_BYTES, hydrator)) {
+                    long least = segmented.getLeastLogEntry();
+                    log.info("Rolling back paxos rounds {} to {} from segments to files in {}",
+                            SafeArg.of("least", least),
+                            SafeArg.of("greatest", segmented.getGreatestLogEntry()),
+                            UnsafeArg.of("path", legacyLogPath));
+
+                    for (long seq : segmented.index.keySet()) {
+                        legacyLog.writeRound(seq, hydrator.hydrateFromBytes(segmented.readRound(seq)));
+                    }
+                    if (least != PaxosAcceptor.NO_LOG_ENTRY) {
+                        legacyLog.truncate(least - 1);
+                    }
+                }
+                Files.move(segmentDirectory.toPath(), rollbackDirectory.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                syncDirectory(new File(legacyLogPath));
+            }
+            // also left behind by a rollback that stopped before removing the segments
+            FileUtils.deleteDirectory(rollbackDirectory);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to roll back the migration of the paxos log in " + legacyLogPath, e);
+        }
+    }
+
+    @VisibleForTesting
+    static <V extends Persistable & Versionable> SegmentedPaxosStateLog<V> create(
+            File directory, long segmentSizeBytes, Persistable.Hydrator<V> hydrator) {
+        SegmentedPaxosStateLog<V> stateLog = new SegmentedPaxosStateLog<>(directory, segmentSizeBytes, hydrator);
+        try {
+            stateLog.open();
+        } catch (IOException e) {
+            stateLog.close();
+            throw new RuntimeException("IO problem related to the path " + directory.getAbsolutePath(), e);
+        }
+        return stateLog;
+    }
+
+    private static <V extends Persistable & Versionable> void migrate(
+            String legacyLogPath, File segmentDirectory, Persistable.Hydrator<V> hydrator, long segmentSizeBytes) {
+        PaxosStateLog<?> legacyLog = new PaxosStateLogImpl<>(legacyLogPath);
+        File migrationDirectory = new File(legacyLogPath, SEGMENT_DIRECTORY + MIGRATION_SUFFIX);
+        try {
+            // left behind by a migration that did not complete, or a rollback that did not remove the old segments
+            FileUtils.deleteDirectory(migrationDirectory);
+            FileUtils.deleteDirectory(new File(legacyLogPath, SEGMENT_DIRECTORY + ROLLBACK_SUFFIX));
+            long least = legacyLog.getLeastLogEntry();
+            long greatest = legacyLog.getGreatestLogEntry();
+            log.info("Migrating paxos rounds {} to {} from files to segments in {}",
+                    SafeArg.of("least", least),
+                    SafeArg.of("greatest", greatest),
+                    UnsafeArg.of("path", legacyLogPath));
+
+            try (SegmentedPaxosStateLog<V> migrated = create(migrationDirectory, segmentSizeBytes, hydrator)) {
+                for (long seq = Math.max(least, 0); seq <= greatest; seq++) {
+                    // a corrupt round throws, as treating it as missing could lose a promise
+                    byte[] bytes = legacyLog.readRound(seq);
+                    if (bytes != null) {
+                        migrated.append(ImmutableList.of(PendingRecord.round(seq, bytes, migrated.versionOf(bytes))));
+                    }
+                }
+                if (least != PaxosAcceptor.NO_LOG_ENTRY) {
+                    migrated.append(ImmutableList.of(PendingRecord.truncation(least - 1)));
+                }
+                migrated.sync();
+            }
+            Files.move(migrationDirectory.toPath(), segmentDirectory.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory(new File(legacyLogPath));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to migrate the paxos log in " + legacyLogPath, e);
+        }
+    }
+
+    @Override
+    public void writeRound(long seq, V round) {
+        awaitSync(append(ImmutableList.of(PendingRecord.round(seq, round.persistToBytes(), round.getVersion()))));
+    }
+
+    /**
+     * Appends all of the given rounds before syncing once.
+     */
+    @Override
+    public void writeBatchOfRounds(Iterable<PaxosRound<V>> rounds) {
+        List<PendingRecord> records = new ArrayList<>();
+        for (PaxosRound<V> round : rounds) {
+            records.add(PendingRecord.round(round.sequence(), round.valueBytes(), round.value().getVersion()));
+        }
+        awaitSync(append(records));
+    }
+
+    @Override
+    public byte[] readRound(long seq) throws IOException {
+        segmentsLock.readLock().lock();
+        try {
+            Location location = index.get(seq);
+            if (location == null) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + location.length);
+            readFully(location.segment.channel, buffer, location.offset);
+            buffer.flip();
+            Record record = Record.decode(buffer);
+            if (record == null || record.type != ROUND || record.seq != seq) {
+                log.error("Problem reading paxos state for sequence {} in segment {}",
+                        SafeArg.of("sequence", seq),
+                        UnsafeArg.of("path", location.segment.file.getAbsolutePath()));
+                throw new CorruptLogFileException();
+            }
+            return record.payload;
+        } finally {
+            segmentsLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long getLeastLogEntry() {
+        if (!truncated) {
+            return PaxosAcceptor.NO_LOG_ENTRY;
+        }
+        Map.Entry<Long, Location> least = index.firstEntry();
+        return least == null ? PaxosAcceptor.NO_LOG_ENTRY : least.getKey();
+    }
+
+    @Override
+    public long getGreatestLogEntry() {
+        Map.Entry<Long, Location> greatest = index.lastEntry();
+        return greatest == null ? PaxosAcceptor.NO_LOG_ENTRY : greatest.getKey();
+    }
+
+    @Override
+    public void truncate(long toDeleteInclusive) {
+        long greatestLogEntry = getGreatestLogEntry();
+        // We never want to remove our most recent entry
+        long cutoff = greatestLogEntry >= 0 ? Math.min(greatestLogEntry - 1, toDeleteInclusive) : toDeleteInclusive;
+
+        // the truncation must be durable before any segment is dropped, or a crash could resurrect older rounds
+        awaitSync(append(ImmutableList.of(PendingRecord.truncation(cutoff))));
+        dropTruncatedSegments();
+    }
+
+    @Override
+    public void close() {
+        appendLock.lock();
+        segmentsLock.writeLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                closeQuietly(segment);
+            }
+            segments.clear();
+        } finally {
+            segmentsLock.writeLock().unlock();
+            appendLock.unlock();
+        }
+    }
+
+    @VisibleForTesting
+    int getSegmentCount() {
+        return segments.size();
+    }
+
+    private void open() throws IOException {
+        FileUtils.forceMkdir(directory);
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        long[] segmentIds = files == null ? new long[0] : Arrays.stream(files)
+                .mapToLong(file -> Long.parseLong(file.getName().substring(0,
+                        file.getName().length() - SEGMENT_SUFFIX.length())))
+                .sorted()
+                .toArray();
+
+        appendLock.lock();
+        try {
+            for (int i = 0; i < segmentIds.length; i++) {
+                Segment segment = openSegment(segmentIds[i]);
+                segments.put(segment.id, segment);
+                recover(segment, i == segmentIds.length - 1);
+            }
+            if (segments.isEmpty()) {
+                Segment segment = openSegment(0);
+                segments.put(segment.id, segment);
+                syncDirectory(directory);
+            }
+            activeSegment = segments.lastEntry().getValue();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Reads the records of the given segment into the index. A record that is incomplete or fails its checksum ends
+     * the segment if this is the last segment, as it is where a crash interrupted a write, and it is cut off. Earlier
+     * segments were synced before the next segment was written, so such a record in them is corruption; skipping it
+     * would forget promises and accepted values that followed it, so recovery fails instead.
+     */
+    @GuardedBy("appendLock")
+    private void recover(Segment segment, boolean last) throws IOException {
+        long size = segment.channel.size();
+        long offset = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (offset < size) {
+            Record record = null;
+            if (size - offset >= HEADER_BYTES) {
+                header.clear();
+                readFully(segment.channel, header, offset);
+                int length = header.getInt(Byte.BYTES + Long.BYTES);
+                if (length >= 0 && length <= size - offset - HEADER_BYTES) {
+                    ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + length);
+                    readFully(segment.channel, buffer, offset);
+                    buffer.flip();
+                    record = Record.decode(buffer);
+                }
+            }
+            if (record == null) {
+                if (last) {
+                    log.warn("Discarding an incomplete paxos log record at offset {} of {}, most likely written when "
+                                    + "the process stopped unexpectedly",
+                            SafeArg.of("offset", offset),
+                            UnsafeArg.of("path", segment.file.getAbsolutePath()));
+                    segment.channel.truncate(offset);
+                    segment.channel.force(true);
+                    break;
+                }
+                log.error("Found a corrupt paxos log record at offset {} of {}",
+                        SafeArg.of("offset", offset),
+                        UnsafeArg.of("path", segment.file.getAbsolutePath()));
+                throw new CorruptLogFileException();
+            }
+            apply(segment, offset, record, record.type == ROUND ? versionOf(record.payload) : 0);
+            offset += HEADER_BYTES + record.payload.length;
+        }
+        segment.size = offset;
+    }
+
+    private long versionOf(byte[] payload) {
+        return hydrator.hydrateFromBytes(payload).getVersion();
+    }
+
+    @GuardedBy("appendLock")
+    private void apply(Segment segment, long offset, Record record, long version) {
+        if (record.type == ROUND) {
+            index.put(record.seq, new Location(segment, offset, record.payload.length, version));
+            segment.greatestSeq = Math.max(segment.greatestSeq, record.seq);
+        } else {
+            index.headMap(record.seq, true).clear();
+            truncatedUpTo = Math.max(truncatedUpTo, record.seq);
+            truncated = true;
+        }
+    }
+
+    /**
+     * Appends the given records to the active segment, rolling over to a new segment if it is full, and returns the
+     * number of records that must be synced for them to be durable.
+     */
+    private long append(List<PendingRecord> records) {
+        appendLock.lock();
+        try {
+            for (PendingRecord pending : records) {
+                if (pending.type == ROUND) {
+                    Location latest = index.get(pending.seq);
+                    // reject old state
+                    if (latest != null && pending.version < latest.version) {
+                        continue;
+                    }
+                }
+                ByteBuffer encoded = pending.encode();
+                if (activeSegment.size > 0 && activeSegment.size + encoded.remaining() > segmentSizeBytes) {
+                    rollSegment();
+                }
+                long offset = activeSegment.size;
+                writeFully(activeSegment.channel, encoded, offset);
+                activeSegment.size += HEADER_BYTES + pending.payload.length;
+                apply(activeSegment, offset, new Record(pending.type, pending.seq, pending.payload), pending.version);
+                appendedRecords++;
+            }
+            return appendedRecords;
+        } catch (IOException e) {
+            log.error("problem writing paxos state", e);
+            throw Throwables.throwUncheckedException(e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @GuardedBy("appendLock")
+    private void rollSegment() throws IOException {
+        // make sure everything in the full segment is durable, as syncs only cover the active segment
+        activeSegment.channel.force(false);
+        Segment next = openSegment(activeSegment.id + 1);
+        segments.put(next.id, next);
+        activeSegment = next;
+        syncDirectory(directory);
+    }
+
+    /**
+     * Waits until the given number of appended records are durable, syncing them if no other writer is.
+     */
+    private void awaitSync(long syncTarget) {
+        synchronized (syncMonitor) {
+            boolean interrupted = false;
+            while (syncing && syncedRecords < syncTarget) {
+                try {
+                    syncMonitor.wait();
+                } catch (InterruptedException e) {
+                    // the sync will complete regardless, so wait for it
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (syncedRecords >= syncTarget) {
+                return;
+            }
+            syncing = true;
+        }
+
+        long synced = 0;
+        try {
+            synced = sync();
+        } catch (IOException e) {
+            log.error("problem syncing paxos state", e);
+            throw Throwables.throwUncheckedException(e);
+        } finally {
+            synchronized (syncMonitor) {
+                syncedRecords = Math.max(syncedRecords, synced);
+                syncing = false;
+                syncMonitor.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Syncs the active segment, and returns the number of appended records that are now durable.
+     */
+    private long sync() throws IOException {
+        Segment segment;
+        long appended;
+        appendLock.lock();
+        try {
+            segment = activeSegment;
+            appended = appendedRecords;
+        } finally {
+            appendLock.unlock();
+        }
+        segmentsLock.readLock().lock();
+        try {
+            segment.channel.force(false);
+        } finally {
+            segmentsLock.readLock().unlock();
+        }
+        return appended;
+    }
+
+    /**
+     * Drops the oldest segments, for as long as all of their rounds have been truncated. Only ever dropping the oldest
+     * segments ensures that the record of the latest truncation survives, as it is newer than any dropped round.
+     */
+    private void dropTruncatedSegments() {
+        List<Segment> dropped = new ArrayList<>();
+        appendLock.lock();
+        try {
+            for (Segment segment : segments.values()) {
+                if (segment == activeSegment || segment.greatestSeq > truncatedUpTo) {
+                    break;
+                }
+                dropped.add(segment);
+            }
+            if (dropped.isEmpty()) {
+                return;
+            }
+            segmentsLock.writeLock().lock();
+            try {
+                for (Segment segment : dropped) {
+                    segments.remove(segment.id);
+                    closeQuietly(segment);
+                    if (!segment.file.delete()) {
+                        log.warn("failed to delete log segment {}",
+                                UnsafeArg.of("path", segment.file.getAbsolutePath()));
+                    }
+                }
+            } finally {
+                segmentsLock.writeLock().unlock();
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private Segment openSegment(long id) throws IOException {
+        File file = new File(directory, String.format("%020d%s", id, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new Segment(id, file, channel);
+    }
+
+    private static void syncDirectory(File directory) {
+        // not supported on all platforms, and only needed to make the creation of new files durable where it is
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("Could not sync directory {}", UnsafeArg.of("path", directory.getAbsolutePath()), e);
+        }
+    }
+
+    private static void closeQuietly(Segment segment) {
+        try {
+            segment.channel.close();
+        } catch (IOException e) {
+            log.warn("failed to close log segment {}", UnsafeArg.of("path", segment.file.getAbsolutePath()), e);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset);
+            if (read < 0) {
+                throw new CorruptLogFileException();
+            }
+            offset += read;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+    }
+
+    private static int checksum(byte type, long seq, byte[] payload) {
+        CRC32 crc = new CRC32();
+        ByteBuffer header = ByteBuffer.allocate(Byte.BYTES + Long.BYTES + Integer.BYTES);
+        header.put(type).putLong(seq).putInt(payload.length);
+        crc.update(header.array());
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static final class Segment {
+        final long id;
+        final File file;
+        final FileChannel channel;
+        // only accessed while holding the append lock
+        long size = 0;
+        long greatestSeq = PaxosAcceptor.NO_LOG_ENTRY;
+
+        Segment(long id, File file, FileChannel channel) {
+            this.id = id;
+            this.file = file;
+            this.channel = channel;
+        }
+    }
+
+    private static final class Location {
+        final Segment segment;
+        final long offset;
+        final int length;
+        final long version;
+
+        Location(Segment segment, long offset, int length, long version) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.version = version;
+        }
+    }
+
+    private static class Record {
+        final byte type;
+        final long seq;
+        final byte[] payload;
+
+        Record(byte type, long seq, byte[] payload) {
+            this.type = type;
+            this.seq = seq;
+            this.payload = payload;
+        }
+
+        ByteBuffer encode() {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+            buffer.put(type).putLong(seq).putInt(payload.length).putInt(checksum(type, seq, payload)).put(payload);
+            buffer.flip();
+            return buffer;
+        }
+
+        /**
+         * Returns the record in the given buffer, or null if it is incomplete or fails its checksum.
+         */
+        @Nullable
+        static Record decode(ByteBuffer buffer) {
+            if (buffer.remaining() < HEADER_BYTES) {
+                return null;
+            }
+            byte type = buffer.get();
+            long seq = buffer.getLong();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if ((type != ROUND && type != TRUNCATION) || length < 0 || length > buffer.remaining()) {
+                return null;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            return checksum == checksum(type, seq, payload) ? new Record(type, seq, payload) : null;
+        }
+    }
+
+    private static final class PendingRecord extends Record {
+        final long version;
+
+        private PendingRecord(byte type, long seq, byte[] payload, long version) {
+            super(type, seq, payload);
+            this.version = version;
+        }
+
+        static PendingRecord round(long seq, byte[] payload, long version) {
+            return new PendingRecord(ROUND, seq, payload, version);
+        }
+
+        static PendingRecord truncation(long seq) {
+            // truncations are not compared by version
+            return new PendingRecord(TRUNCATION, seq, new byte[0], 0);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.paxos;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Supplier;
+
+import org.jdbi.v3.core.ConnectionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
+
+/**
+ * A fixed size pool of connections to a SQLite database, which are opened up front and only closed when the pool is.
+ * Connections are handed out in turn, and callers block until one is returned if all of them are in use.
+ */
+final class SqliteConnectionPool implements ConnectionFactory, Closeable {
+    private static final Logger log = LoggerFactory.getLogger(SqliteConnectionPool.class);
+
+    private final List<Connection> connections;
+    private final BlockingQueue<Connection> available;
+    private volatile boolean closed = false;
+
+    private SqliteConnectionPool(List<Connection> connections) {
+        this.connections = connections;
+        this.available = new ArrayBlockingQueue<>(connections.size(), false, connections);
+    }
+
+    static SqliteConnectionPool create(Supplier<Connection> connectionSupplier, int size) {
+        Preconditions.checkArgument(size > 0, "The pool must have at least one connection", SafeArg.of("size", size));
+        List<Connection> connections = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            connections.add(connectionSupplier.get());
+        }
+        return new SqliteConnectionPool(connections);
+    }
+
+    @Override
+    public Connection openConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("The connection pool has been closed");
+        }
+        try {
+            return available.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+    }
+
+    @Override
+    public void closeConnection(Connection connection) {
+        available.add(connection);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (Connection connection : connections) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.warn("Failed to close a SQLite connection", e);
+            }
+        }
+    }
+}
@@ -19,6 +19,7 @@ package com.palantir.paxos;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.function.Supplier;
 
 /**
@@ -40,4 +41,32 @@ public final class SqliteConnections {
             }
         };
     }
+
+    /**
+     * Creates connections to a database in write-ahead logging mode, so that readers don't block the writer or each
+     * other. Every commit is still synced to disk, as paxos state must survive a crash.
+     */
+    public static Supplier<Connection> createWalModeSqliteDatabase(String path) {
+        Supplier<Connection> connectionSupplier = createSqliteDatabase(path);
+        return () -> {
+            Connection connection = connectionSupplier.get();
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA journal_mode = WAL");
+                statement.execute("PRAGMA synchronous = FULL");
+                statement.execute("PRAGMA busy_timeout = 30000");
+                return connection;
+            } catch (SQLException e) {
+                closeQuietly(connection);
+                throw new RuntimeException(e);
+            }
+        };
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            // we are already failing
+        }
+    }
 }
@@ -0,0 +1,205 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.paxos;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.mapper.immutables.JdbiImmutables;
+import org.jdbi.v3.sqlobject.SingleValue;
+import org.jdbi.v3.sqlobject.SqlObjectPlugin;
+import org.jdbi.v3.sqlobject.customizer.Bind;
+import org.jdbi.v3.sqlobject.customizer.BindPojo;
+import org.jdbi.v3.sqlobject.statement.SqlBatch;
+import org.jdbi.v3.sqlobject.statement.SqlQuery;
+import org.jdbi.v3.sqlobject.statement.SqlUpdate;
+
+import com.google.common.collect.ImmutableList;
+import com.palantir.atlasdb.autobatch.Autobatchers;
+import com.palantir.atlasdb.autobatch.BatchElement;
+import com.palantir.atlasdb.autobatch.DisruptorAutobatcher;
+import com.palantir.common.base.Throwables;
+import com.palantir.common.persist.Persistable;
+
+/**
+ * Keeps the paxos state logs of any number of namespaces in a single table of a SQLite database, in contrast to
+ * {@link SqlitePaxosStateLog}, which uses a table per namespace.
+ * <p>
+ * Writes from all namespaces are queued to a single writer, which commits everything queued since its last commit in
+ * one transaction, so that concurrent writes share the cost of syncing to disk. The database is in write-ahead
+ * logging mode, so reads are served concurrently from a small pool of connections, and don't wait for the writer.
+ * <p>
+ * There should only be one store per database file.
+ */
+public final class SqlitePaxosStateStore implements Closeable {
+    private static final int DEFAULT_READER_CONNECTIONS = 4;
+
+    private final SqliteConnectionPool writerConnection;
+    private final SqliteConnectionPool readerConnections;
+    private final Jdbi writerJdbi;
+    private final Jdbi readerJdbi;
+    private final DisruptorAutobatcher<PendingWrite, Void> writer;
+
+    private SqlitePaxosStateStore(SqliteConnectionPool writerConnection, SqliteConnectionPool readerConnections) {
+        this.writerConnection = writerConnection;
+        this.readerConnections = readerConnections;
+        this.writerJdbi = createJdbi(writerConnection);
+        this.readerJdbi = createJdbi(readerConnections);
+        this.writer = Autobatchers.<PendingWrite, Void>independent(this::processBatch)
+                .safeLoggablePurpose("sqlite-paxos-state-store")
+                .build();
+    }
+
+    public static SqlitePaxosStateStore create(String path) {
+        return create(SqliteConnections.createWalModeSqliteDatabase(path), DEFAULT_READER_CONNECTIONS);
+    }
+
+    public static SqlitePaxosStateStore create(Supplier<Connection> connectionSupplier, int readerConnections) {
+        SqliteConnectionPool writerConnection = SqliteConnectionPool.create(connectionSupplier, 1);
+        SqliteConnectionPool readerConnectionPool = SqliteConnectionPool.create(connectionSupplier, readerConnections);
+        SqlitePaxosStateStore store = new SqlitePaxosStateStore(writerConnection, readerConnectionPool);
+        store.initialize();
+        return store;
+    }
+
+    /**
+     * Returns the log of the given namespace. Logs of the same namespace share their state.
+     */
+    public <V extends Persistable & Versionable> PaxosStateLog<V> stateLog(String namespace) {
+        return new NamespacedStateLog<>(namespace);
+    }
+
+    @Override
+    public void close() {
+        writer.close();
+        writerConnection.close();
+        readerConnections.close();
+    }
+
+    private void initialize() {
+        writerJdbi.useExtension(Queries.class, Queries::createTable);
+    }
+
+    private void processBatch(List<BatchElement<PendingWrite, Void>> batch) {
+        try {
+            writerJdbi.useTransaction(handle -> {
+                Queries queries = handle.attach(Queries.class);
+                batch.forEach(element -> element.argument().applyTo(queries));
+            });
+            batch.forEach(element -> element.result().set(null));
+        } catch (RuntimeException | Error e) {
+            batch.forEach(element -> element.result().setException(e));
+        }
+    }
+
+    private void write(PendingWrite pendingWrite) {
+        try {
+            writer.apply(pendingWrite).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Throwables.rewrapAndThrowUncheckedException(e);
+        } catch (ExecutionException e) {
+            throw Throwables.rewrapAndThrowUncheckedException(e.getCause());
+        }
+    }
+
+    private <T> T read(Function<Queries, T> call) {
+        return readerJdbi.withExtension(Queries.class, call::apply);
+    }
+
+    private static Jdbi createJdbi(SqliteConnectionPool connections) {
+        Jdbi jdbi = Jdbi.create(connections).installPlugin(new SqlObjectPlugin());
+        jdbi.getConfig(JdbiImmutables.class).registerImmutable(PaxosRound.class);
+        return jdbi;
+    }
+
+    private final class NamespacedStateLog<V extends Persistable & Versionable> implements PaxosStateLog<V> {
+        private final String namespace;
+
+        NamespacedStateLog(String namespace) {
+            this.namespace = namespace;
+        }
+
+        @Override
+        public void writeRound(long seq, V round) {
+            write(queries -> queries.writeRound(namespace, seq, round.persistToBytes()));
+        }
+
+        @Override
+        public void writeBatchOfRounds(Iterable<PaxosRound<V>> rounds) {
+            List<PaxosRound<V>> roundsToWrite = ImmutableList.copyOf(rounds);
+            write(queries -> queries.writeBatchOfRounds(namespace, roundsToWrite));
+        }
+
+        @Override
+        public byte[] readRound(long seq) {
+            return read(queries -> queries.readRound(namespace, seq));
+        }
+
+        @Override
+        public long getLeastLogEntry() {
+            return read(queries -> queries.getLeastLogEntry(namespace)).orElse(PaxosAcceptor.NO_LOG_ENTRY);
+        }
+
+        @Override
+        public long getGreatestLogEntry() {
+            return read(queries -> queries.getGreatestLogEntry(namespace)).orElse(PaxosAcceptor.NO_LOG_ENTRY);
+        }
+
+        @Override
+        public void truncate(long toDeleteInclusive) {
+            write(queries -> queries.truncate(namespace, toDeleteInclusive));
+        }
+    }
+
+    private interface PendingWrite {
+        void applyTo(Queries queries);
+    }
+
+    public interface Queries {
+        @SqlUpdate("CREATE TABLE IF NOT EXISTS paxos_state (namespace TEXT NOT NULL, seq BIGINT NOT NULL, val BLOB, "
+                + "PRIMARY KEY (namespace, seq)) WITHOUT ROWID")
+        boolean createTable();
+
+        @SqlUpdate("INSERT OR REPLACE INTO paxos_state (namespace, seq, val) VALUES (:namespace, :seq, :value)")
+        boolean writeRound(@Bind("namespace") String namespace, @Bind("seq") long seq, @Bind("value") byte[] value);
+
+        @SqlQuery("SELECT val FROM paxos_state WHERE namespace = :namespace AND seq = :seq")
+        @SingleValue
+        byte[] readRound(@Bind("namespace") String namespace, @Bind("seq") long seq);
+
+        @SqlQuery("SELECT MIN(seq) FROM paxos_state WHERE namespace = :namespace")
+        OptionalLong getLeastLogEntry(@Bind("namespace") String namespace);
+
+        @SqlQuery("SELECT MAX(seq) FROM paxos_state WHERE namespace = :namespace")
+        OptionalLong getGreatestLogEntry(@Bind("namespace") String namespace);
+
+        @SqlUpdate("DELETE FROM paxos_state WHERE namespace = :namespace AND seq <= :seq")
+        boolean truncate(@Bind("namespace") String namespace, @Bind("seq") long seq);
+
+        @SqlBatch("INSERT OR REPLACE INTO paxos_state (namespace, seq, val) "
+                + "VALUES (:namespace, :round.sequence, :round.valueBytes)")
+        <V extends Persistable & Versionable> boolean[] writeBatchOfRounds(@Bind("namespace") String namespace,
+                @BindPojo("round") Iterable<PaxosRound<V>> rounds);
+    }
+}
@@ -0,0 +1,327 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.paxos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+public class SegmentedPaxosStateLogTest {
+    private static final long SMALL_SEGMENT_SIZE_BYTES = 1024;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private File directory;
+    private SegmentedPaxosStateLog<PaxosValue> stateLog;
+
+    @Before
+    public void setup() {
+        directory = new File(tempFolder.getRoot(), "log");
+        stateLog = SegmentedPaxosStateLog.create(directory, SMALL_SEGMENT_SIZE_BYTES, PaxosValue.BYTES_HYDRATOR);
+    }
+
+    @After
+    public void tearDown() {
+        stateLog.close();
+    }
+
+    @Test
+    public void readingNonExistentRoundReturnsNull() throws IOException {
+        assertThat(stateLog.readRound(10L)).isNull();
+    }
+
+    @Test
+    public void canWriteAndRetrieveAValue() throws IOException {
+        PaxosValue paxosValue = writeValueForRound(12L);
+        assertThat(readValueForRound(12L)).isEqualTo(paxosValue);
+    }
+
+    @Test
+    public void canOverwriteSequences() throws IOException {
+        writeValueForRound(5L);
+        PaxosValue newEntry = writeValueForRound(5L);
+        assertThat(readValueForRound(5L)).isEqualTo(newEntry);
+    }
+
+    @Test
+    public void returnsDefaultValueForExtremesWhenNoEntries() {
+        assertThat(stateLog.getLeastLogEntry()).isEqualTo(PaxosAcceptor.NO_LOG_ENTRY);
+        assertThat(stateLog.getGreatestLogEntry()).isEqualTo(PaxosAcceptor.NO_LOG_ENTRY);
+    }
+
+    @Test
+    public void canGetGreatestLogEntry() {
+        writeValueForRound(15L);
+        writeValueForRound(19L);
+        writeValueForRound(17L);
+
+        assertThat(stateLog.getGreatestLogEntry()).isEqualTo(19L);
+    }
+
+    @Test
+    public void truncationRemovesRoundsButNotTheGreatestLogEntry() throws IOException {
+        writeValueForRound(5L);
+        writeValueForRound(7L);
+        writeValueForRound(9L);
+
+        stateLog.truncate(7L);
+        assertThat(stateLog.getLeastLogEntry()).isEqualTo(9L);
+        assertThat(stateLog.readRound(5L)).isNull();
+
+        stateLog.truncate(20L);
+        assertThat(stateLog.getLeastLogEntry()).isEqualTo(9L);
+        assertThat(stateLog.getGreatestLogEntry()).isEqualTo(9L);
+    }
+
+    @Test
+    public void rollsOverSegmentsAndDropsTruncatedOnes() throws IOException {
+        List<PaxosValue> values = writeValuesForRounds(0L, 100L);
+        int segments = stateLog.getSegmentCount();
+        assertThat(segments).isGreaterThan(2);
+
+        stateLog.truncate(90L);
+        assertThat(stateLog.getSegmentCount()).isLessThan(segments);
+        for (long round = 91L; round < 100L; round++) {
+            assertThat(readValueForRound(round)).isEqualTo(values.get((int) round));
+        }
+    }
+
+    @Test
+    public void recoversRoundsAndTruncationsOnReopen() throws IOException {
+        List<PaxosValue> values = writeValuesForRounds(0L, 50L);
+        stateLog.truncate(9L);
+
+        reopen();
+        assertThat(stateLog.getLeastLogEntry()).isEqualTo(10L);
+        assertThat(stateLog.getGreatestLogEntry()).isEqualTo(49L);
+        assertThat(stateLog.readRound(5L)).isNull();
+        for (long round = 10L; round < 50L; round++) {
+            assertThat(readValueForRound(round)).isEqualTo(values.get((int) round));
+        }
+    }
+
+    @Test
+    public void discardsTornRecordAtTheEndOfTheLog() throws IOException {
+        PaxosValue value = writeValueForRound(1L);
+        writeValueForRound(2L);
+        stateLog.close();
+
+        File lastSegment = lastSegment(directory);
+        try (RandomAccessFile file = new RandomAccessFile(lastSegment, "rw")) {
+            file.setLength(file.length() - 1);
+        }
+
+        reopen();
+        assertThat(stateLog.getGreatestLogEntry()).isEqualTo(1L);
+        assertThat(readValueForRound(1L)).isEqualTo(value);
+
+        PaxosValue rewritten = writeValueForRound(2L);
+        reopen();
+        assertThat(readValueForRound(2L)).isEqualTo(rewritten);
+    }
+
+    @Test
+    public void failsToOpenWhenARecordInAnEarlierSegmentIsCorrupt() throws IOException {
+        writeValuesForRounds(0L, 100L);
+        assertThat(stateLog.getSegmentCount()).isGreaterThan(2);
+        stateLog.close();
+
+        File[] segments = directory.listFiles();
+        Arrays.sort(segments);
+        try (RandomAccessFile file = new RandomAccessFile(segments[0], "rw")) {
+            long middle = file.length() / 2;
+            file.seek(middle);
+            int corrupted = file.read() ^ 0xFF;
+            file.seek(middle);
+            file.write(corrupted);
+        }
+
+        assertThatThrownBy(() -> SegmentedPaxosStateLog.create(
+                directory, SMALL_SEGMENT_SIZE_BYTES, PaxosValue.BYTES_HYDRATOR))
+                .hasCauseInstanceOf(PaxosStateLog.CorruptLogFileException.class);
+    }
+
+    @Test
+    public void migratesRoundsFromFilePerRoundLog() throws IOException {
+        String legacyPath = new File(tempFolder.getRoot(), "legacy").getPath();
+        PaxosStateLog<PaxosValue> legacyLog = new PaxosStateLogImpl<>(legacyPath);
+        List<PaxosValue> values = LongStream.range(0L, 10L)
+                .mapToObj(SegmentedPaxosStateLogTest::valueForRound)
+                .collect(Collectors.toList());
+        values.forEach(value -> legacyLog.writeRound(value.getRound(), value));
+        legacyLog.truncate(3L);
+
+        try (SegmentedPaxosStateLog<PaxosValue> migrated = migrate(legacyPath)) {
+            assertThat(migrated.getLeastLogEntry()).isEqualTo(legacyLog.getLeastLogEntry());
+            assertThat(migrated.getGreatestLogEntry()).isEqualTo(legacyLog.getGreatestLogEntry());
+            assertThat(migrated.readRound(3L)).isNull();
+            for (long round = 4L; round < 10L; round++) {
+                assertThat(migrated.readRound(round)).isEqualTo(legacyLog.readRound(round));
+            }
+            migrated.writeRound(10L, valueForRound(10L));
+        }
+
+        // the legacy log is left alone, and is not migrated again
+        assertThat(new PaxosStateLogImpl<PaxosValue>(legacyPath).getGreatestLogEntry()).isEqualTo(9L);
+        try (SegmentedPaxosStateLog<PaxosValue> reopened = migrate(legacyPath)) {
+            assertThat(reopened.getGreatestLogEntry()).isEqualTo(10L);
+        }
+    }
+
+    @Test
+    public void keepsRoundsWrittenWhileSwitchingBetweenLogs() throws IOException {
+        String legacyPath = new File(tempFolder.getRoot(), "legacy").getPath();
+        PaxosValue writtenToFiles = valueForRound(0L);
+        new PaxosStateLogImpl<PaxosValue>(legacyPath).writeRound(0L, writtenToFiles);
+
+        PaxosValue writtenToSegments = valueForRound(1L);
+        try (SegmentedPaxosStateLog<PaxosValue> migrated = migrate(legacyPath)) {
+            migrated.writeRound(1L, writtenToSegments);
+            migrated.writeRound(2L, valueForRound(2L));
+            migrated.truncate(0L);
+        }
+
+        SegmentedPaxosStateLog.rollBackMigration(legacyPath, PaxosValue.BYTES_HYDRATOR);
+        assertThat(new File(legacyPath, SegmentedPaxosStateLog.SEGMENT_DIRECTORY)).doesNotExist();
+        PaxosStateLog<PaxosValue> rolledBack = new PaxosStateLogImpl<>(legacyPath);
+        assertThat(rolledBack.getLeastLogEntry()).isEqualTo(1L);
+        assertThat(rolledBack.readRound(1L)).isEqualTo(writtenToSegments.persistToBytes());
+        PaxosValue writtenToFilesAgain = valueForRound(3L);
+        rolledBack.writeRound(3L, writtenToFilesAgain);
+
+        try (SegmentedPaxosStateLog<PaxosValue> migratedAgain = migrate(legacyPath)) {
+            assertThat(migratedAgain.getLeastLogEntry()).isEqualTo(1L);
+            assertThat(migratedAgain.readRound(0L)).isNull();
+            assertThat(migratedAgain.readRound(1L)).isEqualTo(writtenToSegments.persistToBytes());
+            assertThat(migratedAgain.readRound(3L)).isEqualTo(writtenToFilesAgain.persistToBytes());
+        }
+    }
+
+    @Test
+    public void rollingBackWithoutSegmentsLeavesFilePerRoundLogAlone() throws IOException {
+        String legacyPath = new File(tempFolder.getRoot(), "legacy").getPath();
+        PaxosValue value = valueForRound(5L);
+        new PaxosStateLogImpl<PaxosValue>(legacyPath).writeRound(5L, value);
+
+        SegmentedPaxosStateLog.rollBackMigration(legacyPath, PaxosValue.BYTES_HYDRATOR);
+
+        assertThat(new PaxosStateLogImpl<PaxosValue>(legacyPath).readRound(5L)).isEqualTo(value.persistToBytes());
+    }
+
+    @Test
+    public void rejectsOlderVersionsOfARound() throws IOException {
+        File acceptorDirectory = new File(tempFolder.getRoot(), "acceptor");
+        PaxosAcceptorState older = PaxosAcceptorState.newState(new PaxosProposalId(1L, "someProposer"));
+        PaxosAcceptorState newer = older.withPromise(new PaxosProposalId(2L, "someProposer"));
+        try (SegmentedPaxosStateLog<PaxosAcceptorState> acceptorLog = SegmentedPaxosStateLog.create(
+                acceptorDirectory, SMALL_SEGMENT_SIZE_BYTES, PaxosAcceptorState.BYTES_HYDRATOR)) {
+            acceptorLog.writeRound(1L, newer);
+            acceptorLog.writeRound(1L, older);
+            assertThat(acceptorLog.readRound(1L)).isEqualTo(newer.persistToBytes());
+        }
+
+        // a round read back from disk has the version it hydrates to, so it can be built upon after restarting
+        try (SegmentedPaxosStateLog<PaxosAcceptorState> acceptorLog = SegmentedPaxosStateLog.create(
+                acceptorDirectory, SMALL_SEGMENT_SIZE_BYTES, PaxosAcceptorState.BYTES_HYDRATOR)) {
+            PaxosAcceptorState recovered = PaxosAcceptorState.BYTES_HYDRATOR.hydrateFromBytes(
+                    acceptorLog.readRound(1L));
+            PaxosAcceptorState promised = recovered.withPromise(new PaxosProposalId(3L, "someProposer"));
+            acceptorLog.writeRound(1L, promised);
+            assertThat(acceptorLog.readRound(1L)).isEqualTo(promised.persistToBytes());
+        }
+    }
+
+    @Test
+    public void concurrentWritesAreAllDurable() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<PaxosValue>> futures = LongStream.range(0L, 200L)
+                    .mapToObj(round -> executor.submit(() -> writeValueForRound(round)))
+                    .collect(Collectors.toList());
+            for (Future<PaxosValue> future : futures) {
+                future.get();
+            }
+        } finally {
+            MoreExecutors.shutdownAndAwaitTermination(executor, 10, TimeUnit.SECONDS);
+        }
+
+        reopen();
+        assertThat(stateLog.getGreatestLogEntry()).isEqualTo(199L);
+        for (long round = 0L; round < 200L; round++) {
+            assertThat(readValueForRound(round).getRound()).isEqualTo(round);
+        }
+    }
+
+    private void reopen() {
+        stateLog.close();
+        stateLog = SegmentedPaxosStateLog.create(directory, SMALL_SEGMENT_SIZE_BYTES, PaxosValue.BYTES_HYDRATOR);
+    }
+
+    private static SegmentedPaxosStateLog<PaxosValue> migrate(String legacyPath) {
+        return SegmentedPaxosStateLog.createMigratingFrom(
+                legacyPath, PaxosValue.BYTES_HYDRATOR, SMALL_SEGMENT_SIZE_BYTES);
+    }
+
+    private List<PaxosValue> writeValuesForRounds(long fromInclusive, long toExclusive) {
+        return LongStream.range(fromInclusive, toExclusive)
+                .mapToObj(this::writeValueForRound)
+                .collect(Collectors.toList());
+    }
+
+    private PaxosValue writeValueForRound(long round) {
+        PaxosValue paxosValue = valueForRound(round);
+        stateLog.writeRound(round, paxosValue);
+        return paxosValue;
+    }
+
+    private PaxosValue readValueForRound(long round) throws IOException {
+        return PaxosValue.BYTES_HYDRATOR.hydrateFromBytes(stateLog.readRound(round));
+    }
+
+    private static File lastSegment(File directory) {
+        File[] segments = directory.listFiles();
+        Arrays.sort(segments);
+        return segments[segments.length - 1];
+    }
+
+    private static PaxosValue valueForRound(long round) {
+        byte[] bytes = new byte[16];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        return new PaxosValue("someLeader", round, bytes);
+    }
+}
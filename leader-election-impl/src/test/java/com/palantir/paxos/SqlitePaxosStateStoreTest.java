@@ -0,0 +1,183 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.paxos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import com.palantir.common.streams.KeyedStream;
+
+public class SqlitePaxosStateStoreTest {
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private static final String LOG_NAMESPACE_1 = "tom";
+    private static final String LOG_NAMESPACE_2 = "two";
+
+    private String path;
+    private SqlitePaxosStateStore store;
+    private PaxosStateLog<PaxosValue> stateLog;
+
+    @Before
+    public void setup() {
+        path = tempFolder.getRoot().toPath().resolve("test.db").toString();
+        store = SqlitePaxosStateStore.create(path);
+        stateLog = store.stateLog(LOG_NAMESPACE_1);
+    }
+
+    @After
+    public void tearDown() {
+        store.close();
+    }
+
+    @Test
+    public void readingNonExistentRoundReturnsNull() throws IOException {
+        assertThat(stateLog.readRound(10L)).isNull();
+    }
+
+    @Test
+    public void canWriteAndRetrieveAValue() throws IOException {
+        long round = 12L;
+        PaxosValue paxosValue = writeValueForRound(round);
+        assertThat(PaxosValue.BYTES_HYDRATOR.hydrateFromBytes(stateLog.readRound(round))).isEqualTo(paxosValue);
+    }
+
+    @Test
+    public void canWriteAndRetrieveBatch() throws IOException {
+        List<PaxosRound<PaxosValue>> inputs = KeyedStream.of(LongStream.rangeClosed(5L, 10L).boxed())
+                .map(SqlitePaxosStateStoreTest::valueForRound)
+                .map((seq, val) -> ImmutablePaxosRound.<PaxosValue>builder().sequence(seq).value(val).build())
+                .values()
+                .collect(Collectors.toList());
+        stateLog.writeBatchOfRounds(inputs);
+        for (PaxosRound<PaxosValue> round : inputs) {
+            assertThat(PaxosValue.BYTES_HYDRATOR.hydrateFromBytes(stateLog.readRound(round.sequence())))
+                    .isEqualTo(round.value());
+        }
+    }
+
+    @Test
+    public void canOverwriteSequences() throws IOException {
+        writeValueForRound(5L);
+        PaxosValue newEntry = writeValueForRound(5L);
+        assertThat(PaxosValue.BYTES_HYDRATOR.hydrateFromBytes(stateLog.readRound(5L))).isEqualTo(newEntry);
+    }
+
+    @Test
+    public void returnsDefaultValueForExtremesWhenNoEntries() {
+        assertThat(stateLog.getLeastLogEntry()).isEqualTo(PaxosAcceptor.NO_LOG_ENTRY);
+        assertThat(stateLog.getGreatestLogEntry()).isEqualTo(PaxosAcceptor.NO_LOG_ENTRY);
+    }
+
+    @Test
+    public void canGetExtremeLogEntries() {
+        writeValueForRound(7L);
+        writeValueForRound(5L);
+        writeValueForRound(9L);
+
+        assertThat(stateLog.getLeastLogEntry()).isEqualTo(5L);
+        assertThat(stateLog.getGreatestLogEntry()).isEqualTo(9L);
+    }
+
+    @Test
+    public void canTruncateInclusive() {
+        writeValueForRound(5L);
+        writeValueForRound(7L);
+        writeValueForRound(9L);
+        writeValueForRound(1L);
+
+        stateLog.truncate(7L);
+        assertThat(stateLog.getLeastLogEntry()).isEqualTo(9L);
+    }
+
+    @Test
+    public void valuesAreDistinguishedAcrossLogNamespaces() throws IOException {
+        PaxosStateLog<PaxosValue> otherLog = store.stateLog(LOG_NAMESPACE_2);
+        writeValueForRound(1L);
+        otherLog.writeRound(3L, valueForRound(3L));
+        otherLog.truncate(3L);
+
+        assertThat(stateLog.readRound(1L)).isNotNull();
+        assertThat(otherLog.readRound(1L)).isNull();
+        assertThat(otherLog.getGreatestLogEntry()).isEqualTo(PaxosAcceptor.NO_LOG_ENTRY);
+    }
+
+    @Test
+    public void roundsSurviveReopeningTheStore() throws IOException {
+        PaxosValue value = writeValueForRound(1L);
+        store.close();
+
+        store = SqlitePaxosStateStore.create(path);
+        assertThat(PaxosValue.BYTES_HYDRATOR.hydrateFromBytes(store.stateLog(LOG_NAMESPACE_1).readRound(1L)))
+                .isEqualTo(value);
+    }
+
+    @Test
+    public void concurrentWritesToManyNamespacesAreAllApplied() throws Exception {
+        int namespaces = 20;
+        long rounds = 50L;
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> futures = IntStream.range(0, namespaces)
+                    .boxed()
+                    .flatMap(namespace -> LongStream.range(0L, rounds).mapToObj(round -> executor.submit(() ->
+                            store.<PaxosValue>stateLog("namespace" + namespace)
+                                    .writeRound(round, valueForRound(round)))))
+                    .collect(Collectors.toList());
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            MoreExecutors.shutdownAndAwaitTermination(executor, 10, TimeUnit.SECONDS);
+        }
+
+        for (int namespace = 0; namespace < namespaces; namespace++) {
+            PaxosStateLog<PaxosValue> log = store.stateLog("namespace" + namespace);
+            assertThat(log.getLeastLogEntry()).isEqualTo(0L);
+            assertThat(log.getGreatestLogEntry()).isEqualTo(rounds - 1);
+        }
+    }
+
+    private PaxosValue writeValueForRound(long round) {
+        PaxosValue paxosValue = valueForRound(round);
+        stateLog.writeRound(round, paxosValue);
+        return paxosValue;
+    }
+
+    private static PaxosValue valueForRound(long round) {
+        byte[] bytes = new byte[16];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        return new PaxosValue("someLeader", round, bytes);
+    }
+}
@@ -22,6 +22,7 @@ import org.immutables.value.Value;
 
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.common.collect.ImmutableSet;
 import com.palantir.lock.LockDescriptor;
 import com.palantir.logsafe.Preconditions;
 
@@ -39,6 +40,15 @@ public interface LockRequest {
     @Value.Parameter
     Optional<String> getClientDescription();
 
+    /**
+     * Descriptors to be held in shared mode. Shared holders of a descriptor do not block each other, but do block (and
+     * are blocked by) exclusive holders. Descriptors also present in {@link #getLockDescriptors()} are held exclusively.
+     */
+    @Value.Default
+    default Set<LockDescriptor> getSharedLockDescriptors() {
+        return ImmutableSet.of();
+    }
+
     static LockRequest of(Set<LockDescriptor> lockDescriptors, long acquireTimeoutMs) {
         return ImmutableLockRequest.of(
                 lockDescriptors,
@@ -37,6 +37,7 @@ public final class ConjureLockRequests {
     public static ConjureLockRequest toConjure(LockRequest request) {
         return ConjureLockRequest.builder()
                 .lockDescriptors(toConjure(request.getLockDescriptors()))
+                .sharedLockDescriptors(toConjure(request.getSharedLockDescriptors()))
                 .clientDescription(request.getClientDescription())
                 .requestId(UUID.randomUUID())
                 .acquireTimeoutMs(Ints.checkedCast(request.getAcquireTimeoutMs()))
@@ -23,6 +23,7 @@ import org.immutables.value.Value;
 
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.common.collect.ImmutableSet;
 import com.palantir.lock.LockDescriptor;
 import com.palantir.lock.v2.LockRequest;
 
@@ -43,6 +44,11 @@ public interface IdentifiedLockRequest {
     @Value.Parameter
     Optional<String> getClientDescription();
 
+    @Value.Default
+    default Set<LockDescriptor> getSharedLockDescriptors() {
+        return ImmutableSet.of();
+    }
+
     static IdentifiedLockRequest of(Set<LockDescriptor> lockDescriptors, long acquireTimeoutMs) {
         return ImmutableIdentifiedLockRequest.of(
                 UUID.randomUUID(),
@@ -61,13 +67,13 @@ public interface IdentifiedLockRequest {
     }
 
     static IdentifiedLockRequest from(LockRequest lockRequest) {
-        if (lockRequest.getClientDescription().isPresent()) {
-            return of(
-                    lockRequest.getLockDescriptors(),
-                    lockRequest.getAcquireTimeoutMs(),
-                    lockRequest.getClientDescription().get());
-        }
-        return of(lockRequest.getLockDescriptors(), lockRequest.getAcquireTimeoutMs());
+        return ImmutableIdentifiedLockRequest.builder()
+                .requestId(UUID.randomUUID())
+                .lockDescriptors(lockRequest.getLockDescriptors())
+                .sharedLockDescriptors(lockRequest.getSharedLockDescriptors())
+                .acquireTimeoutMs(lockRequest.getAcquireTimeoutMs())
+                .clientDescription(lockRequest.getClientDescription())
+                .build();
     }
 
 }
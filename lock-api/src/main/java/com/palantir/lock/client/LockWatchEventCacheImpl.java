@@ -0,0 +1,278 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.lock.client;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.palantir.lock.LockDescriptor;
+import com.palantir.lock.watch.IdentifiedVersion;
+import com.palantir.lock.watch.ImmutableIdentifiedVersion;
+import com.palantir.lock.watch.LockEvent;
+import com.palantir.lock.watch.LockWatchCreatedEvent;
+import com.palantir.lock.watch.LockWatchEvent;
+import com.palantir.lock.watch.LockWatchEventCache;
+import com.palantir.lock.watch.LockWatchReferences.LockWatchReference;
+import com.palantir.lock.watch.LockWatchStateUpdate;
+import com.palantir.lock.watch.TransactionsLockWatchEvents;
+import com.palantir.lock.watch.UnlockEvent;
+import com.palantir.logsafe.Preconditions;
+
+/**
+ * Caches the lock watch events received when starting transactions, along with the version each transaction started
+ * at, so that the events a set of transactions observed can be computed locally.
+ * <p>
+ * Events are kept in order of sequence, so that the events between two versions are found in time proportional to
+ * their number. Events that precede the versions of all tracked transactions are folded into a snapshot of the locked
+ * descriptors and lock watches, which is used to reseed callers that are too far behind. Memory is bounded: only the
+ * most recently started transactions are tracked, and once too many events are cached the oldest are folded into the
+ * snapshot, even if some tracked transaction still needs them.
+ */
+public final class LockWatchEventCacheImpl implements LockWatchEventCache {
+    private static final int DEFAULT_MAX_TRACKED_TRANSACTIONS = 100_000;
+    private static final int DEFAULT_MIN_EVENTS = 1_000;
+    private static final int DEFAULT_MAX_EVENTS = 100_000;
+    private static final UUID UNKNOWN_LOG_ID = new UUID(0L, 0L);
+
+    private final int maxTrackedTransactions;
+    private final int minEvents;
+    private final int maxEvents;
+
+    // all of the following are guarded by this
+    private final NavigableMap<Long, LockWatchEvent> events = new TreeMap<>();
+    private final NavigableMap<Long, Long> startTimestampToVersion = new TreeMap<>();
+    private final NavigableMap<Long, Integer> transactionsByVersion = new TreeMap<>();
+    private final Set<LockDescriptor> compactedLocked = new HashSet<>();
+    private final Set<LockWatchReference> compactedWatches = new HashSet<>();
+    private long compactedVersion = Long.MIN_VALUE;
+    private UUID logId = UNKNOWN_LOG_ID;
+    private Optional<Long> version = Optional.empty();
+
+    @VisibleForTesting
+    LockWatchEventCacheImpl(int maxTrackedTransactions, int minEvents, int maxEvents) {
+        Preconditions.checkArgument(minEvents <= maxEvents, "minEvents must not exceed maxEvents");
+        this.maxTrackedTransactions = maxTrackedTransactions;
+        this.minEvents = minEvents;
+        this.maxEvents = maxEvents;
+    }
+
+    public static LockWatchEventCache create() {
+        return new LockWatchEventCacheImpl(DEFAULT_MAX_TRACKED_TRANSACTIONS, DEFAULT_MIN_EVENTS, DEFAULT_MAX_EVENTS);
+    }
+
+    @Override
+    public synchronized IdentifiedVersion lastKnownVersion() {
+        return ImmutableIdentifiedVersion.of(logId, version);
+    }
+
+    @Override
+    public synchronized IdentifiedVersion processStartTransactionsUpdate(
+            Set<Long> startTimestamps,
+            LockWatchStateUpdate update) {
+        Optional<Long> startVersion = apply(update);
+        startVersion.ifPresent(startedAt -> startTimestamps.forEach(startTs -> track(startTs, startedAt)));
+        compact();
+        return lastKnownVersion();
+    }
+
+    @Override
+    public synchronized void processUpdate(LockWatchStateUpdate update) {
+        apply(update);
+        compact();
+    }
+
+    /**
+     * Returns the events between the given version and the latest version any of the given transactions started at.
+     * Transactions that are not tracked, for example because they started before the last snapshot, are left out of
+     * the result. If the events needed have already been compacted, or the given version is from a different lock
+     * watch log, a snapshot of the latest known state is returned instead.
+     */
+    @Override
+    public synchronized TransactionsLockWatchEvents getEventsForTransactions(
+            Set<Long> startTimestamps,
+            IdentifiedVersion fromVersion) {
+        Map<Long, Long> startTsToSequence = new HashMap<>();
+        long toVersion = Long.MIN_VALUE;
+        for (Long startTs : startTimestamps) {
+            Long startVersion = startTimestampToVersion.get(startTs);
+            if (startVersion != null) {
+                startTsToSequence.put(startTs, startVersion);
+                toVersion = Math.max(toVersion, startVersion);
+            }
+        }
+        if (startTsToSequence.isEmpty()) {
+            return TransactionsLockWatchEvents.success(ImmutableList.of(), ImmutableMap.of());
+        }
+
+        if (!fromVersion.id().equals(logId)
+                || !fromVersion.version().isPresent()
+                || fromVersion.version().get() < compactedVersion) {
+            return TransactionsLockWatchEvents.failure(snapshot());
+        }
+        long from = fromVersion.version().get();
+        return TransactionsLockWatchEvents.success(
+                from < toVersion ? ImmutableList.copyOf(events.subMap(from, false, toVersion, true).values())
+                        : ImmutableList.of(),
+                startTsToSequence);
+    }
+
+    @VisibleForTesting
+    synchronized int eventCount() {
+        return events.size();
+    }
+
+    @VisibleForTesting
+    synchronized int trackedTransactionCount() {
+        return startTimestampToVersion.size();
+    }
+
+    /**
+     * Applies the given update, and returns the version it brought the cache to, if it could be applied.
+     */
+    private Optional<Long> apply(LockWatchStateUpdate update) {
+        return update.accept(new LockWatchStateUpdate.Visitor<Optional<Long>>() {
+            @Override
+            public Optional<Long> visit(LockWatchStateUpdate.Failed failed) {
+                reset(UNKNOWN_LOG_ID, Optional.empty());
+                return Optional.empty();
+            }
+
+            @Override
+            public Optional<Long> visit(LockWatchStateUpdate.Success success) {
+                return applySuccess(success);
+            }
+
+            @Override
+            public Optional<Long> visit(LockWatchStateUpdate.Snapshot snapshot) {
+                reset(snapshot.logId(), Optional.of(snapshot.lastKnownVersion()));
+                compactedLocked.addAll(snapshot.locked());
+                compactedWatches.addAll(snapshot.lockWatches());
+                return version;
+            }
+        });
+    }
+
+    private Optional<Long> applySuccess(LockWatchStateUpdate.Success success) {
+        if (!success.logId().equals(logId) || !version.isPresent()) {
+            // we can't tell which events we've missed, so wait for a snapshot
+            reset(UNKNOWN_LOG_ID, Optional.empty());
+            return Optional.empty();
+        }
+        long current = version.get();
+        for (LockWatchEvent event : success.events()) {
+            if (event.sequence() <= current) {
+                // already applied as part of a concurrent update
+                continue;
+            }
+            if (event.sequence() != current + 1) {
+                reset(UNKNOWN_LOG_ID, Optional.empty());
+                return Optional.empty();
+            }
+            events.put(event.sequence(), event);
+            current = event.sequence();
+        }
+        version = Optional.of(Math.max(current, success.lastKnownVersion()));
+        return Optional.of(success.lastKnownVersion());
+    }
+
+    private void reset(UUID newLogId, Optional<Long> newVersion) {
+        events.clear();
+        startTimestampToVersion.clear();
+        transactionsByVersion.clear();
+        compactedLocked.clear();
+        compactedWatches.clear();
+        compactedVersion = newVersion.orElse(Long.MIN_VALUE);
+        logId = newLogId;
+        version = newVersion;
+    }
+
+    private void track(long startTs, long startVersion) {
+        Long previousVersion = startTimestampToVersion.put(startTs, startVersion);
+        if (previousVersion != null) {
+            untrackVersion(previousVersion);
+        }
+        transactionsByVersion.merge(startVersion, 1, Integer::sum);
+        while (startTimestampToVersion.size() > maxTrackedTransactions) {
+            untrackVersion(startTimestampToVersion.pollFirstEntry().getValue());
+        }
+    }
+
+    private void untrackVersion(long startVersion) {
+        transactionsByVersion.computeIfPresent(startVersion, (unused, count) -> count == 1 ? null : count - 1);
+    }
+
+    /**
+     * Folds events into the compacted snapshot, while there are more than the minimum number of events and no tracked
+     * transaction needs the oldest of them, or there are more than the maximum number.
+     */
+    private void compact() {
+        long oldestNeededVersion = transactionsByVersion.isEmpty()
+                ? version.orElse(Long.MIN_VALUE)
+                : transactionsByVersion.firstKey();
+        while (events.size() > maxEvents
+                || (events.size() > minEvents && events.firstKey() <= oldestNeededVersion)) {
+            Map.Entry<Long, LockWatchEvent> oldest = events.pollFirstEntry();
+            applyEvent(oldest.getValue(), compactedLocked, compactedWatches);
+            compactedVersion = oldest.getKey();
+        }
+    }
+
+    /**
+     * Returns a snapshot at the latest known version, by folding the cached events into a copy of the compacted
+     * snapshot. This is only needed by callers that have fallen behind, so it is not kept up to date eagerly.
+     */
+    private LockWatchStateUpdate.Snapshot snapshot() {
+        Set<LockDescriptor> locked = new HashSet<>(compactedLocked);
+        Set<LockWatchReference> watches = new HashSet<>(compactedWatches);
+        events.values().forEach(event -> applyEvent(event, locked, watches));
+        return LockWatchStateUpdate.snapshot(
+                logId, version.orElse(compactedVersion), ImmutableSet.copyOf(locked), ImmutableSet.copyOf(watches));
+    }
+
+    private static void applyEvent(LockWatchEvent event, Set<LockDescriptor> locked, Set<LockWatchReference> watches) {
+        event.accept(new LockWatchEvent.Visitor<Void>() {
+            @Override
+            public Void visit(LockEvent lockEvent) {
+                locked.addAll(lockEvent.lockDescriptors());
+                return null;
+            }
+
+            @Override
+            public Void visit(UnlockEvent unlockEvent) {
+                locked.removeAll(unlockEvent.lockDescriptors());
+                return null;
+            }
+
+            @Override
+            public Void visit(LockWatchCreatedEvent lockWatchCreatedEvent) {
+                watches.addAll(lockWatchCreatedEvent.references());
+                locked.addAll(lockWatchCreatedEvent.lockDescriptors());
+                return null;
+            }
+        });
+    }
+}
@@ -16,6 +16,7 @@
 
 package com.palantir.lock.client;
 
+import java.util.Optional;
 import java.util.Set;
 
 import com.palantir.atlasdb.timelock.api.ConjureGetFreshTimestampsRequest;
@@ -42,10 +43,11 @@ public final class RemoteTimelockServiceAdapter implements TimelockService, Auto
 
     private RemoteTimelockServiceAdapter(NamespacedTimelockRpcClient rpcClient,
             NamespacedConjureTimelockService conjureTimelockService,
-            LockWatchEventCache lockWatchEventCache) {
+            LockWatchEventCache lockWatchEventCache,
+            Optional<StartTransactionPrefetchConfig> prefetchConfig) {
         this.rpcClient = rpcClient;
         this.lockLeaseService = LockLeaseService.create(conjureTimelockService);
-        this.transactionStarter = TransactionStarter.create(lockLeaseService, lockWatchEventCache);
+        this.transactionStarter = TransactionStarter.create(lockLeaseService, lockWatchEventCache, prefetchConfig);
         this.conjureTimelockService = conjureTimelockService;
     }
 
@@ -53,7 +55,15 @@ public final class RemoteTimelockServiceAdapter implements TimelockService, Auto
             NamespacedTimelockRpcClient rpcClient,
             NamespacedConjureTimelockService conjureClient,
             LockWatchEventCache lockWatchEventCache) {
-        return new RemoteTimelockServiceAdapter(rpcClient, conjureClient, lockWatchEventCache);
+        return create(rpcClient, conjureClient, lockWatchEventCache, Optional.empty());
+    }
+
+    public static RemoteTimelockServiceAdapter create(
+            NamespacedTimelockRpcClient rpcClient,
+            NamespacedConjureTimelockService conjureClient,
+            LockWatchEventCache lockWatchEventCache,
+            Optional<StartTransactionPrefetchConfig> prefetchConfig) {
+        return new RemoteTimelockServiceAdapter(rpcClient, conjureClient, lockWatchEventCache, prefetchConfig);
     }
 
     public static RemoteTimelockServiceAdapter create(
@@ -76,6 +86,8 @@ public final class RemoteTimelockServiceAdapter implements TimelockService, Auto
     public TimestampRange getFreshTimestamps(int numTimestampsRequested) {
         ConjureGetFreshTimestampsResponse response =
                 conjureTimelockService.getFreshTimestamps(ConjureGetFreshTimestampsRequest.of(numTimestampsRequested));
+        // commit timestamps are fresh timestamps, so this keeps transactions started later after this client's commits
+        transactionStarter.observeTimestamp(response.getInclusiveUpper());
         return TimestampRange.createInclusiveRange(response.getInclusiveLower(), response.getInclusiveUpper());
     }
 
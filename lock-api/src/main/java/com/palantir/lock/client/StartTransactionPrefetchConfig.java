@@ -0,0 +1,71 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.lock.client;
+
+import org.immutables.value.Value;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
+
+/**
+ * Configures a reserve of transactions that are started against TimeLock ahead of being needed.
+ * <p>
+ * A transaction taken from the reserve has a start timestamp that may have been issued up to {@link #maxAgeMillis()}
+ * before the transaction was started, so it may not observe writes of transactions that committed in that interval.
+ * Only services that can tolerate this, typically those with many short read-only transactions, should enable it.
+ */
+@JsonDeserialize(as = ImmutableStartTransactionPrefetchConfig.class)
+@JsonSerialize(as = ImmutableStartTransactionPrefetchConfig.class)
+@Value.Immutable
+public abstract class StartTransactionPrefetchConfig {
+    /**
+     * Transactions are discarded well before the lease on their immutable timestamp lock could expire on the server,
+     * as it is not refreshed while they are in the reserve.
+     */
+    private static final long MAX_AGE_LIMIT_MILLIS = 5_000L;
+    private static final int RESERVE_SIZE_LIMIT = 256;
+
+    /**
+     * The number of started transactions the reserve is refilled to.
+     */
+    @Value.Default
+    public int reserveSize() {
+        return 16;
+    }
+
+    /**
+     * The time after which a transaction in the reserve is discarded, rather than handed out.
+     */
+    @Value.Default
+    public long maxAgeMillis() {
+        return 250L;
+    }
+
+    @Value.Check
+    void check() {
+        Preconditions.checkArgument(reserveSize() > 0 && reserveSize() <= RESERVE_SIZE_LIMIT,
+                "Reserve size must be between 1 and the limit.",
+                SafeArg.of("reserveSize", reserveSize()),
+                SafeArg.of("limit", RESERVE_SIZE_LIMIT));
+        Preconditions.checkArgument(maxAgeMillis() > 0 && maxAgeMillis() <= MAX_AGE_LIMIT_MILLIS,
+                "Max age must be positive and at most the limit.",
+                SafeArg.of("maxAgeMillis", maxAgeMillis()),
+                SafeArg.of("limitMillis", MAX_AGE_LIMIT_MILLIS));
+    }
+}
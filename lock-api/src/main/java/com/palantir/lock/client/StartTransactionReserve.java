@@ -0,0 +1,298 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.lock.client;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.codahale.metrics.Timer;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.palantir.atlasdb.timelock.api.ConjureStartTransactionsResponse;
+import com.palantir.common.concurrent.NamedThreadFactory;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.lock.v2.LeadershipId;
+import com.palantir.lock.v2.LockToken;
+import com.palantir.lock.v2.StartIdentifiedAtlasDbTransactionResponse;
+import com.palantir.lock.watch.LockWatchEventCache;
+import com.palantir.logsafe.SafeArg;
+import com.palantir.tritium.metrics.registry.MetricName;
+import com.palantir.tritium.metrics.registry.SharedTaggedMetricRegistries;
+import com.palantir.tritium.metrics.registry.TaggedMetricRegistry;
+
+/**
+ * A bounded reserve of transactions that have already been started against TimeLock, which is refilled in the
+ * background, so that callers can usually start a transaction without waiting for a round trip.
+ * <p>
+ * Each refill starts a batch of transactions in a single call, so the transactions of a batch share one immutable
+ * timestamp lock, and their start timestamps are registered with the lock watch event cache at the version of that
+ * call, as when they are started on demand. The lock is not refreshed while transactions are in the reserve, so they
+ * are discarded, and their shares of the lock released, once they are older than the configured maximum age. Since
+ * the locks of a previous leader are lost, all transactions are also discarded as soon as a refill observes a new
+ * leader; any handed out before that fail when their immutable timestamp lock is next checked, as usual.
+ * <p>
+ * A reserved start timestamp may be older than timestamps this client has since been given, such as the commit
+ * timestamp of one of its transactions. A transaction started with it would not see that commit, so transactions in
+ * the reserve are also discarded once a greater timestamp has been observed, and this client reads its own writes.
+ */
+final class StartTransactionReserve implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(StartTransactionReserve.class);
+
+    private static final MetricName RESERVE_SIZE = constructMetricName("reserveSize");
+    private static final MetricName RESERVE_HIT = constructMetricName("reserveHit");
+    private static final MetricName RESERVE_MISS = constructMetricName("reserveMiss");
+    private static final MetricName RESERVE_HIT_RATE = constructMetricName("reserveHitRate");
+    private static final MetricName REFILL_LATENCY = constructMetricName("refillLatency");
+    private static final MetricName DISCARDED = constructMetricName("discarded");
+
+    private final LockLeaseService lockLeaseService;
+    private final LockWatchEventCache lockWatchEventCache;
+    private final Consumer<Set<LockToken>> unlocker;
+    private final ExecutorService executor;
+    private final LongSupplier nanoClock;
+    private final int reserveSize;
+    private final long maxAgeNanos;
+    private final AtomicBoolean refilling = new AtomicBoolean();
+    private final Meter hits;
+    private final Meter misses;
+    private final Meter discarded;
+    private final Timer refillLatency;
+
+    @GuardedBy("this")
+    private final Deque<ReservedTransaction> reserve = new ArrayDeque<>();
+
+    @GuardedBy("this")
+    private Optional<LeadershipId> leadershipId = Optional.empty();
+
+    @GuardedBy("this")
+    private long greatestObservedTimestamp = Long.MIN_VALUE;
+
+    @GuardedBy("this")
+    private boolean closed = false;
+
+    @VisibleForTesting
+    StartTransactionReserve(
+            LockLeaseService lockLeaseService,
+            LockWatchEventCache lockWatchEventCache,
+            Consumer<Set<LockToken>> unlocker,
+            StartTransactionPrefetchConfig config,
+            ExecutorService executor,
+            LongSupplier nanoClock,
+            TaggedMetricRegistry metricRegistry) {
+        this.lockLeaseService = lockLeaseService;
+        this.lockWatchEventCache = lockWatchEventCache;
+        this.unlocker = unlocker;
+        this.executor = executor;
+        this.nanoClock = nanoClock;
+        this.reserveSize = config.reserveSize();
+        this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(config.maxAgeMillis());
+        this.hits = metricRegistry.meter(RESERVE_HIT);
+        this.misses = metricRegistry.meter(RESERVE_MISS);
+        this.discarded = metricRegistry.meter(DISCARDED);
+        this.refillLatency = metricRegistry.timer(REFILL_LATENCY);
+        metricRegistry.gauge(RESERVE_SIZE, this::size);
+        metricRegistry.gauge(RESERVE_HIT_RATE, new RatioGauge() {
+            @Override
+            protected Ratio getRatio() {
+                return Ratio.of(hits.getOneMinuteRate(), hits.getOneMinuteRate() + misses.getOneMinuteRate());
+            }
+        });
+    }
+
+    static StartTransactionReserve create(
+            LockLeaseService lockLeaseService,
+            LockWatchEventCache lockWatchEventCache,
+            Consumer<Set<LockToken>> unlocker,
+            StartTransactionPrefetchConfig config) {
+        StartTransactionReserve reserve = new StartTransactionReserve(
+                lockLeaseService,
+                lockWatchEventCache,
+                unlocker,
+                config,
+                PTExecutors.newSingleThreadExecutor(new NamedThreadFactory("start-transaction-reserve", true)),
+                System::nanoTime,
+                SharedTaggedMetricRegistries.getSingleton());
+        reserve.maybeRefill();
+        return reserve;
+    }
+
+    /**
+     * Takes the oldest transaction in the reserve that has neither expired nor been overtaken by an observed timestamp,
+     * if there is one, and triggers a refill if the reserve is no longer full.
+     */
+    Optional<StartIdentifiedAtlasDbTransactionResponse> poll() {
+        List<ReservedTransaction> expired = new ArrayList<>();
+        Optional<ReservedTransaction> taken;
+        synchronized (this) {
+            long now = nanoClock.getAsLong();
+            // refills are appended in order, so the reserve is ordered by both age and start timestamp
+            while (!reserve.isEmpty() && isStale(reserve.peekFirst(), now)) {
+                expired.add(reserve.pollFirst());
+            }
+            taken = Optional.ofNullable(reserve.pollFirst());
+        }
+        (taken.isPresent() ? hits : misses).mark();
+        discardAsync(expired);
+        maybeRefill();
+        return taken.map(reserved -> reserved.response);
+    }
+
+    /**
+     * Records that this client has been given the given timestamp, so that no transaction starting before it is
+     * handed out afterwards.
+     */
+    synchronized void observeTimestamp(long timestamp) {
+        greatestObservedTimestamp = Math.max(greatestObservedTimestamp, timestamp);
+    }
+
+    @Override
+    public void close() {
+        List<ReservedTransaction> remaining;
+        synchronized (this) {
+            closed = true;
+            remaining = drain();
+        }
+        discardAsync(remaining);
+        MoreExecutors.shutdownAndAwaitTermination(executor, 1, TimeUnit.SECONDS);
+    }
+
+    @VisibleForTesting
+    synchronized int size() {
+        return reserve.size();
+    }
+
+    private void maybeRefill() {
+        if (size() < reserveSize && refilling.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::refill);
+            } catch (Throwable t) {
+                // the executor has been shut down
+                refilling.set(false);
+            }
+        }
+    }
+
+    private void refill() {
+        try {
+            int needed = reserveSize - size();
+            if (needed <= 0) {
+                return;
+            }
+            // the lease and start timestamps are granted after this, so ages measured from here are conservative
+            long startedNanos = nanoClock.getAsLong();
+            ConjureStartTransactionsResponse response =
+                    TransactionStarter.startTransactions(lockLeaseService, lockWatchEventCache, needed);
+            refillLatency.update(nanoClock.getAsLong() - startedNanos, TimeUnit.NANOSECONDS);
+
+            LeadershipId newLeadershipId = response.getLease().leaderTime().id();
+            List<ReservedTransaction> started = TransactionStarter.split(response).stream()
+                    .map(startResponse -> new ReservedTransaction(startResponse, startedNanos))
+                    .collect(Collectors.toList());
+            List<ReservedTransaction> toDiscard = new ArrayList<>();
+            synchronized (this) {
+                if (!leadershipId.equals(Optional.of(newLeadershipId))) {
+                    toDiscard.addAll(drain());
+                    leadershipId = Optional.of(newLeadershipId);
+                }
+                if (closed) {
+                    toDiscard.addAll(started);
+                } else {
+                    reserve.addAll(started);
+                }
+            }
+            discard(toDiscard);
+        } catch (Throwable t) {
+            log.info("Failed to refill the reserve of started transactions. Transactions will be started on demand "
+                    + "until a refill succeeds.", t);
+        } finally {
+            refilling.set(false);
+        }
+    }
+
+    @GuardedBy("this")
+    private boolean isStale(ReservedTransaction reserved, long now) {
+        return now - reserved.startedNanos > maxAgeNanos
+                || reserved.response.startTimestampAndPartition().timestamp() < greatestObservedTimestamp;
+    }
+
+    @GuardedBy("this")
+    private List<ReservedTransaction> drain() {
+        List<ReservedTransaction> drained = new ArrayList<>(reserve);
+        reserve.clear();
+        return drained;
+    }
+
+    private void discardAsync(List<ReservedTransaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        try {
+            executor.execute(() -> discard(transactions));
+        } catch (Throwable t) {
+            discard(transactions);
+        }
+    }
+
+    private void discard(List<ReservedTransaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        discarded.mark(transactions.size());
+        try {
+            unlocker.accept(transactions.stream()
+                    .map(reserved -> reserved.response.immutableTimestamp().getLock())
+                    .collect(Collectors.toSet()));
+        } catch (Throwable t) {
+            log.info("Failed to release the immutable timestamp locks of {} discarded transactions. They will "
+                    + "eventually expire on their own.", SafeArg.of("numDiscarded", transactions.size()), t);
+        }
+    }
+
+    private static MetricName constructMetricName(String metricSuffix) {
+        return MetricName.builder()
+                .safeName(MetricRegistry.name(StartTransactionReserve.class, metricSuffix))
+                .build();
+    }
+
+    private static final class ReservedTransaction {
+        private final StartIdentifiedAtlasDbTransactionResponse response;
+        private final long startedNanos;
+
+        private ReservedTransaction(StartIdentifiedAtlasDbTransactionResponse response, long startedNanos) {
+            this.response = response;
+            this.startedNanos = startedNanos;
+        }
+    }
+}
@@ -48,28 +48,49 @@ import com.palantir.lock.watch.LockWatchEventCache;
  *
  * Callers of this class should use {@link #unlock(Set)} and {@link #refreshLockLeases(Set)} for returned lock tokens,
  * rather than directly calling delegate lock service.
+ *
+ * If prefetching is configured, transactions are taken from a {@link StartTransactionReserve} when it has any, and
+ * only started on demand otherwise.
  */
 final class TransactionStarter implements AutoCloseable {
     private final DisruptorAutobatcher<Void, StartIdentifiedAtlasDbTransactionResponse> autobatcher;
     private final LockLeaseService lockLeaseService;
+    private final Optional<StartTransactionReserve> reserve;
 
     private TransactionStarter(
             DisruptorAutobatcher<Void, StartIdentifiedAtlasDbTransactionResponse> autobatcher,
-            LockLeaseService lockLeaseService) {
+            LockLeaseService lockLeaseService,
+            LockWatchEventCache lockWatchEventCache,
+            Optional<StartTransactionPrefetchConfig> prefetchConfig) {
         this.autobatcher = autobatcher;
         this.lockLeaseService = lockLeaseService;
+        this.reserve = prefetchConfig.map(config ->
+                StartTransactionReserve.create(lockLeaseService, lockWatchEventCache, this::unlock, config));
     }
 
     static TransactionStarter create(LockLeaseService lockLeaseService, LockWatchEventCache lockWatchEventCache) {
+        return create(lockLeaseService, lockWatchEventCache, Optional.empty());
+    }
+
+    static TransactionStarter create(
+            LockLeaseService lockLeaseService,
+            LockWatchEventCache lockWatchEventCache,
+            Optional<StartTransactionPrefetchConfig> prefetchConfig) {
         DisruptorAutobatcher<Void, StartIdentifiedAtlasDbTransactionResponse> autobatcher = Autobatchers
                 .independent(consumer(lockLeaseService, lockWatchEventCache))
                 .safeLoggablePurpose("transaction-starter")
                 .build();
         return new TransactionStarter(autobatcher,
-                lockLeaseService);
+                lockLeaseService,
+                lockWatchEventCache,
+                prefetchConfig);
     }
 
     StartIdentifiedAtlasDbTransactionResponse startIdentifiedAtlasDbTransaction() {
+        Optional<StartIdentifiedAtlasDbTransactionResponse> reserved = reserve.flatMap(StartTransactionReserve::poll);
+        if (reserved.isPresent()) {
+            return reserved.get();
+        }
         try {
             return autobatcher.apply(null).get();
         } catch (ExecutionException e) {
@@ -79,6 +100,13 @@ final class TransactionStarter implements AutoCloseable {
         }
     }
 
+    /**
+     * Records a timestamp this client has been given, so that transactions started afterwards start after it.
+     */
+    void observeTimestamp(long timestamp) {
+        reserve.ifPresent(startTransactionReserve -> startTransactionReserve.observeTimestamp(timestamp));
+    }
+
     Set<LockToken> refreshLockLeases(Set<LockToken> tokens) {
         Set<LockTokenShare> lockTokenShares = filterLockTokenShares(tokens);
         Set<LockToken> lockTokens = filterOutTokenShares(tokens);
@@ -134,6 +162,7 @@ final class TransactionStarter implements AutoCloseable {
 
     @Override
     public void close() {
+        reserve.ifPresent(StartTransactionReserve::close);
         autobatcher.close();
     }
 
@@ -158,17 +187,30 @@ final class TransactionStarter implements AutoCloseable {
             int numberOfTransactions) {
         List<StartIdentifiedAtlasDbTransactionResponse> result = new ArrayList<>();
         while (result.size() < numberOfTransactions) {
-            ConjureStartTransactionsResponse response = lockLeaseService.startTransactionsWithWatches(
-                    lockWatchEventCache.lastKnownVersion().version(), numberOfTransactions - result.size());
-            lockWatchEventCache.processStartTransactionsUpdate(
-                    response.getTimestamps().stream().boxed().collect(Collectors.toSet()),
-                    response.getLockWatchUpdate());
+            ConjureStartTransactionsResponse response = startTransactions(
+                    lockLeaseService, lockWatchEventCache, numberOfTransactions - result.size());
             result.addAll(split(response));
         }
         return result;
     }
 
-    private static List<StartIdentifiedAtlasDbTransactionResponse> split(ConjureStartTransactionsResponse response) {
+    /**
+     * Starts up to the given number of transactions in a single call, and registers their start timestamps with the
+     * lock watch event cache.
+     */
+    static ConjureStartTransactionsResponse startTransactions(
+            LockLeaseService lockLeaseService,
+            LockWatchEventCache lockWatchEventCache,
+            int numberOfTransactions) {
+        ConjureStartTransactionsResponse response = lockLeaseService.startTransactionsWithWatches(
+                lockWatchEventCache.lastKnownVersion().version(), numberOfTransactions);
+        lockWatchEventCache.processStartTransactionsUpdate(
+                response.getTimestamps().stream().boxed().collect(Collectors.toSet()),
+                response.getLockWatchUpdate());
+        return response;
+    }
+
+    static List<StartIdentifiedAtlasDbTransactionResponse> split(ConjureStartTransactionsResponse response) {
         PartitionedTimestamps partitionedTimestamps = response.getTimestamps();
         int partition = partitionedTimestamps.partition();
 
@@ -0,0 +1,189 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.lock.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.palantir.lock.LockDescriptor;
+import com.palantir.lock.StringLockDescriptor;
+import com.palantir.lock.v2.LockToken;
+import com.palantir.lock.watch.IdentifiedVersion;
+import com.palantir.lock.watch.ImmutableIdentifiedVersion;
+import com.palantir.lock.watch.LockEvent;
+import com.palantir.lock.watch.LockWatchEvent;
+import com.palantir.lock.watch.LockWatchReferences;
+import com.palantir.lock.watch.LockWatchStateUpdate;
+import com.palantir.lock.watch.TransactionsLockWatchEvents;
+import com.palantir.lock.watch.UnlockEvent;
+
+public class LockWatchEventCacheImplTest {
+    private static final UUID LOG_ID = UUID.randomUUID();
+    private static final LockDescriptor DESCRIPTOR = StringLockDescriptor.of("lock");
+    private static final LockDescriptor OTHER_DESCRIPTOR = StringLockDescriptor.of("other-lock");
+    private static final LockWatchReferences.LockWatchReference REFERENCE = LockWatchReferences.entireTable("t.table");
+    private static final LockWatchStateUpdate.Snapshot SNAPSHOT = LockWatchStateUpdate.snapshot(
+            LOG_ID, 0L, ImmutableSet.of(), ImmutableSet.of(REFERENCE));
+
+    private final LockWatchEventCacheImpl cache = new LockWatchEventCacheImpl(100, 2, 10);
+
+    @Test
+    public void tracksVersionsAcrossSuccessfulUpdates() {
+        assertThat(cache.lastKnownVersion().version()).isEmpty();
+
+        cache.processStartTransactionsUpdate(ImmutableSet.of(1L), SNAPSHOT);
+        IdentifiedVersion version = cache.processStartTransactionsUpdate(
+                ImmutableSet.of(2L), success(lock(1L, DESCRIPTOR), unlock(2L, DESCRIPTOR)));
+
+        assertThat(version).isEqualTo(ImmutableIdentifiedVersion.of(LOG_ID, Optional.of(2L)));
+    }
+
+    @Test
+    public void returnsEventsBetweenVersionAndLatestTransaction() {
+        cache.processStartTransactionsUpdate(ImmutableSet.of(1L), SNAPSHOT);
+        cache.processStartTransactionsUpdate(ImmutableSet.of(2L, 3L), success(lock(1L, DESCRIPTOR)));
+        cache.processStartTransactionsUpdate(ImmutableSet.of(4L), success(unlock(2L, DESCRIPTOR)));
+
+        TransactionsLockWatchEvents.Events events = assertSuccess(
+                cache.getEventsForTransactions(ImmutableSet.of(1L, 2L), version(0L)));
+        assertThat(events.events()).containsExactly(lock(1L, DESCRIPTOR));
+        assertThat(events.startTsToSequence()).isEqualTo(ImmutableMap.of(1L, 0L, 2L, 1L));
+
+        events = assertSuccess(cache.getEventsForTransactions(ImmutableSet.of(4L), version(1L)));
+        assertThat(events.events()).containsExactly(unlock(2L, DESCRIPTOR));
+        assertThat(events.startTsToSequence()).isEqualTo(ImmutableMap.of(4L, 2L));
+    }
+
+    @Test
+    public void leavesOutUnknownTransactions() {
+        cache.processStartTransactionsUpdate(ImmutableSet.of(1L), SNAPSHOT);
+
+        TransactionsLockWatchEvents.Events events = assertSuccess(
+                cache.getEventsForTransactions(ImmutableSet.of(1L, 5L), version(0L)));
+        assertThat(events.events()).isEmpty();
+        assertThat(events.startTsToSequence()).isEqualTo(ImmutableMap.of(1L, 0L));
+
+        events = assertSuccess(cache.getEventsForTransactions(ImmutableSet.of(5L), version(0L)));
+        assertThat(events.startTsToSequence()).isEmpty();
+    }
+
+    @Test
+    public void returnsSnapshotForVersionFromDifferentLog() {
+        cache.processStartTransactionsUpdate(ImmutableSet.of(1L), SNAPSHOT);
+        cache.processStartTransactionsUpdate(ImmutableSet.of(2L), success(lock(1L, DESCRIPTOR)));
+
+        LockWatchStateUpdate.Snapshot snapshot = assertForcedSnapshot(cache.getEventsForTransactions(
+                ImmutableSet.of(2L), ImmutableIdentifiedVersion.of(UUID.randomUUID(), Optional.of(0L))));
+        assertThat(snapshot.lastKnownVersion()).isEqualTo(1L);
+        assertThat(snapshot.locked()).containsExactly(DESCRIPTOR);
+        assertThat(snapshot.lockWatches()).containsExactly(REFERENCE);
+    }
+
+    @Test
+    public void compactsEventsNoTransactionNeedsAndSnapshotsCallersThatAreBehind() {
+        cache.processStartTransactionsUpdate(ImmutableSet.of(1L), SNAPSHOT);
+        cache.processStartTransactionsUpdate(ImmutableSet.of(2L), success(
+                lock(1L, DESCRIPTOR), lock(2L, OTHER_DESCRIPTOR), unlock(3L, DESCRIPTOR), lock(4L, DESCRIPTOR)));
+        // only 100 transactions are tracked, so the two earliest are evicted
+        cache.processStartTransactionsUpdate(
+                LongStream.range(3L, 103L).boxed().collect(Collectors.toSet()), success());
+
+        assertThat(cache.trackedTransactionCount()).isEqualTo(100);
+        assertThat(cache.eventCount()).isEqualTo(2);
+
+        TransactionsLockWatchEvents.Events events = assertSuccess(
+                cache.getEventsForTransactions(ImmutableSet.of(3L), version(2L)));
+        assertThat(events.events()).containsExactly(unlock(3L, DESCRIPTOR), lock(4L, DESCRIPTOR));
+
+        LockWatchStateUpdate.Snapshot snapshot = assertForcedSnapshot(
+                cache.getEventsForTransactions(ImmutableSet.of(3L), version(1L)));
+        assertThat(snapshot.lastKnownVersion()).isEqualTo(4L);
+        assertThat(snapshot.locked()).containsExactlyInAnyOrder(DESCRIPTOR, OTHER_DESCRIPTOR);
+    }
+
+    @Test
+    public void boundsEventsEvenIfTransactionsNeedThem() {
+        cache.processStartTransactionsUpdate(ImmutableSet.of(1L), SNAPSHOT);
+        List<LockWatchEvent> burst = LongStream.rangeClosed(1L, 50L)
+                .mapToObj(sequence -> sequence % 2 == 1 ? lock(sequence, DESCRIPTOR) : unlock(sequence, DESCRIPTOR))
+                .collect(Collectors.toList());
+        cache.processUpdate(LockWatchStateUpdate.success(LOG_ID, 50L, burst));
+
+        assertThat(cache.eventCount()).isEqualTo(10);
+        assertThat(cache.lastKnownVersion().version()).contains(50L);
+    }
+
+    @Test
+    public void waitsForSnapshotAfterMissingEvents() {
+        cache.processStartTransactionsUpdate(ImmutableSet.of(1L), SNAPSHOT);
+        cache.processStartTransactionsUpdate(ImmutableSet.of(2L), success(lock(2L, DESCRIPTOR)));
+
+        assertThat(cache.lastKnownVersion().version()).isEmpty();
+        assertThat(cache.trackedTransactionCount()).isZero();
+        assertThat(assertSuccess(cache.getEventsForTransactions(ImmutableSet.of(1L, 2L), version(0L)))
+                .startTsToSequence()).isEmpty();
+    }
+
+    @Test
+    public void resetsOnFailedUpdate() {
+        cache.processStartTransactionsUpdate(ImmutableSet.of(1L), SNAPSHOT);
+        cache.processUpdate(LockWatchStateUpdate.failed(LOG_ID));
+
+        assertThat(cache.lastKnownVersion().version()).isEmpty();
+        assertThat(cache.trackedTransactionCount()).isZero();
+    }
+
+    private static TransactionsLockWatchEvents.Events assertSuccess(TransactionsLockWatchEvents result) {
+        assertThat(result).isInstanceOf(TransactionsLockWatchEvents.Events.class);
+        return (TransactionsLockWatchEvents.Events) result;
+    }
+
+    private static LockWatchStateUpdate.Snapshot assertForcedSnapshot(TransactionsLockWatchEvents result) {
+        assertThat(result).isInstanceOf(TransactionsLockWatchEvents.ForcedSnapshot.class);
+        return ((TransactionsLockWatchEvents.ForcedSnapshot) result).snapshot();
+    }
+
+    private static IdentifiedVersion version(long version) {
+        return ImmutableIdentifiedVersion.of(LOG_ID, Optional.of(version));
+    }
+
+    private LockWatchStateUpdate success(LockWatchEvent... events) {
+        long version = cache.lastKnownVersion().version().orElse(0L);
+        for (LockWatchEvent event : events) {
+            version = Math.max(version, event.sequence());
+        }
+        return LockWatchStateUpdate.success(LOG_ID, version, ImmutableList.copyOf(events));
+    }
+
+    private static LockWatchEvent lock(long sequence, LockDescriptor descriptor) {
+        return LockEvent.builder(ImmutableSet.of(descriptor), LockToken.of(new UUID(0L, sequence))).build(sequence);
+    }
+
+    private static LockWatchEvent unlock(long sequence, LockDescriptor descriptor) {
+        return UnlockEvent.builder(ImmutableSet.of(descriptor)).build(sequence);
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.lock.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.palantir.atlasdb.timelock.api.ConjureStartTransactionsResponse;
+import com.palantir.common.time.NanoTime;
+import com.palantir.lock.v2.ImmutablePartitionedTimestamps;
+import com.palantir.lock.v2.LeaderTime;
+import com.palantir.lock.v2.LeadershipId;
+import com.palantir.lock.v2.Lease;
+import com.palantir.lock.v2.LockImmutableTimestampResponse;
+import com.palantir.lock.v2.LockToken;
+import com.palantir.lock.v2.StartIdentifiedAtlasDbTransactionResponse;
+import com.palantir.lock.watch.LockWatchStateUpdate;
+import com.palantir.lock.watch.NoOpLockWatchEventCache;
+import com.palantir.tritium.metrics.registry.DefaultTaggedMetricRegistry;
+
+public class StartTransactionReserveTest {
+    private static final int RESERVE_SIZE = 4;
+    private static final long MAX_AGE_MILLIS = 100L;
+    private static final LockWatchStateUpdate UPDATE =
+            LockWatchStateUpdate.success(UUID.randomUUID(), 1, ImmutableList.of());
+
+    private final LockLeaseService lockLeaseService = mock(LockLeaseService.class);
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLong nextTimestamp = new AtomicLong(1L);
+    private final List<Set<LockToken>> unlocked = new ArrayList<>();
+    private LeadershipId leadershipId = LeadershipId.random();
+    private StartTransactionReserve reserve;
+
+    @Before
+    public void before() {
+        when(lockLeaseService.startTransactionsWithWatches(any(), anyInt())).thenAnswer(invocation ->
+                response(invocation.getArgument(1)));
+        reserve = new StartTransactionReserve(
+                lockLeaseService,
+                NoOpLockWatchEventCache.INSTANCE,
+                unlocked::add,
+                ImmutableStartTransactionPrefetchConfig.builder()
+                        .reserveSize(RESERVE_SIZE)
+                        .maxAgeMillis(MAX_AGE_MILLIS)
+                        .build(),
+                MoreExecutors.newDirectExecutorService(),
+                clock::get,
+                new DefaultTaggedMetricRegistry());
+    }
+
+    @Test
+    public void startsTransactionsOnDemandUntilTheReserveIsFilled() {
+        assertThat(reserve.poll()).isEmpty();
+        assertThat(reserve.size()).isEqualTo(RESERVE_SIZE);
+
+        assertThat(startTimestamp(reserve.poll())).isEqualTo(1L);
+        assertThat(startTimestamp(reserve.poll())).isEqualTo(2L);
+        assertThat(reserve.size()).isEqualTo(RESERVE_SIZE);
+        verify(lockLeaseService).startTransactionsWithWatches(Optional.empty(), RESERVE_SIZE);
+        assertThat(unlocked).isEmpty();
+    }
+
+    @Test
+    public void discardsExpiredTransactions() {
+        reserve.poll();
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(MAX_AGE_MILLIS + 1));
+
+        assertThat(reserve.poll()).isEmpty();
+        assertThat(unlocked).hasSize(1);
+        assertThat(unlocked.get(0)).hasSize(RESERVE_SIZE);
+        assertThat(startTimestamp(reserve.poll())).isEqualTo(RESERVE_SIZE + 1L);
+    }
+
+    @Test
+    public void discardsTransactionsStartingBeforeAnObservedTimestamp() {
+        reserve.poll();
+        // e.g. the commit timestamp of a transaction of this client, taken after the reserve was filled
+        reserve.observeTimestamp(nextTimestamp.getAndIncrement());
+
+        assertThat(reserve.poll()).isEmpty();
+        assertThat(unlocked).hasSize(1);
+        assertThat(unlocked.get(0)).hasSize(RESERVE_SIZE);
+        assertThat(startTimestamp(reserve.poll())).isEqualTo(RESERVE_SIZE + 2L);
+    }
+
+    @Test
+    public void discardsReserveWhenLeaderChanges() {
+        reserve.poll();
+        leadershipId = LeadershipId.random();
+
+        assertThat(startTimestamp(reserve.poll())).isEqualTo(1L);
+        assertThat(unlocked).hasSize(1);
+        assertThat(unlocked.get(0)).hasSize(RESERVE_SIZE - 1);
+        assertThat(reserve.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void releasesReserveOnClose() {
+        reserve.poll();
+        reserve.close();
+
+        assertThat(unlocked).hasSize(1);
+        assertThat(unlocked.get(0)).hasSize(RESERVE_SIZE);
+        assertThat(reserve.size()).isZero();
+    }
+
+    private ConjureStartTransactionsResponse response(int count) {
+        long start = nextTimestamp.getAndAdd(count);
+        return ConjureStartTransactionsResponse.builder()
+                .immutableTimestamp(LockImmutableTimestampResponse.of(0L, LockToken.of(UUID.randomUUID())))
+                .timestamps(ImmutablePartitionedTimestamps.builder()
+                        .start(start)
+                        .count(count)
+                        .interval(1)
+                        .build())
+                .lease(Lease.of(LeaderTime.of(leadershipId, NanoTime.createForTests(1L)), Duration.ofSeconds(1L)))
+                .lockWatchUpdate(UPDATE)
+                .build();
+    }
+
+    private static long startTimestamp(Optional<StartIdentifiedAtlasDbTransactionResponse> response) {
+        assertThat(response).isPresent();
+        return response.get().startTimestampAndPartition().timestamp();
+    }
+}
@@ -149,7 +149,8 @@ public class LegacyTimelockService implements TimelockService {
     }
 
     private com.palantir.lock.LockRequest toLegacyLockRequest(LockRequest request) {
-        SortedMap<LockDescriptor, LockMode> locks = buildLockMap(request.getLockDescriptors(), LockMode.WRITE);
+        SortedMap<LockDescriptor, LockMode> locks = buildLockMap(request.getSharedLockDescriptors(), LockMode.READ);
+        locks.putAll(buildLockMap(request.getLockDescriptors(), LockMode.WRITE));
         return com.palantir.lock.LockRequest.builder(locks)
                 .blockForAtMost(SimpleTimeDuration.of(request.getAcquireTimeoutMs(), TimeUnit.MILLISECONDS))
                 .build();
@@ -57,7 +57,8 @@ public abstract class LeadershipContextFactory implements
                 useCase(),
                 install().dataDirectory(),
                 leaderUuid(),
-                install().install().paxos().canCreateNewClients());
+                install().install().paxos().canCreateNewClients(),
+                install().install().paxos().useSegmentedLog());
     }
 
     @Value.Derived
@@ -187,7 +187,8 @@ public final class PaxosResourcesFactory {
                 PaxosUseCase.TIMESTAMP,
                 install.dataDirectory(),
                 install.nodeUuid(),
-                install.install().paxos().canCreateNewClients());
+                install.install().paxos().canCreateNewClients(),
+                install.install().paxos().useSegmentedLog());
 
         NetworkClientFactories batchClientFactories = ImmutableBatchingNetworkClientFactories.builder()
                 .useCase(PaxosUseCase.TIMESTAMP)
@@ -248,6 +249,12 @@ public final class PaxosResourcesFactory {
                             combinedNetworkClientFactories.learner().create(client),
                             paxosRuntime.get().maximumWaitBeforeProposalMs()),
                     client);
+            if (paxosRuntime.get().timestampPaxos().extendBoundInBackground()) {
+                return PersistentTimestampServiceImpl.createExtendingUpperLimitInBackground(
+                        boundStore,
+                        sharedExecutor,
+                        timelockMetrics.clientScopedMetrics().metricRegistryForClient(client));
+            }
             return PersistentTimestampServiceImpl.create(boundStore);
         };
 
@@ -55,6 +55,17 @@ public interface PaxosInstallConfiguration {
         return true;
     }
 
+    /**
+     * If true, paxos rounds are appended to segment files rather than written to a file per round. Existing rounds
+     * are copied into the segments the first time each log is opened. New rounds are only written to the segments,
+     * so when this is switched off again, the segments are copied back to a file per round and then removed.
+     */
+    @JsonProperty("use-segmented-log")
+    @Value.Default
+    default boolean useSegmentedLog() {
+        return false;
+    }
+
     enum PaxosLeaderMode {
         SINGLE_LEADER,
         LEADER_PER_CLIENT,
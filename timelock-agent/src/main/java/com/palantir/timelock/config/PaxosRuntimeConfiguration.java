@@ -97,6 +97,16 @@ public interface PaxosRuntimeConfiguration {
             return false;
         }
 
+        /**
+         * Whether to extend the persisted timestamp bound in the background, before it runs out, rather than when a
+         * request for timestamps crosses it. Only read when a client's timestamp service is created.
+         */
+        @Value.Default
+        @JsonProperty("extend-bound-in-background")
+        default boolean extendBoundInBackground() {
+            return false;
+        }
+
         static TimestampPaxosConfig defaultConfig() {
             return ImmutableTimestampPaxosConfig.builder().build();
         }
@@ -25,6 +25,7 @@ import org.slf4j.LoggerFactory;
 
 import com.codahale.metrics.InstrumentedScheduledExecutorService;
 import com.google.common.base.Suppliers;
+import com.palantir.atlasdb.AtlasDbMetricNames;
 import com.palantir.atlasdb.debug.LockDiagnosticConfig;
 import com.palantir.atlasdb.timelock.AsyncTimelockResource;
 import com.palantir.atlasdb.timelock.AsyncTimelockService;
@@ -41,6 +42,8 @@ import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.lock.LockService;
 import com.palantir.logsafe.SafeArg;
 import com.palantir.timestamp.ManagedTimestampService;
+import com.palantir.tritium.metrics.registry.DefaultTaggedMetricRegistry;
+import com.palantir.tritium.metrics.registry.TaggedMetricRegistry;
 
 public class AsyncTimeLockServicesCreator implements TimeLockServicesCreator {
     private static final Logger log = LoggerFactory.getLogger(AsyncTimeLockServicesCreator.class);
@@ -103,11 +106,15 @@ public class AsyncTimeLockServicesCreator implements TimeLockServicesCreator {
                 PTExecutors.newSingleThreadScheduledExecutor(
                         new NamedThreadFactory("async-lock-timeouts-" + client, true)),
                 metricsManager.getRegistry(), "async-lock-timeouts");
+        TaggedMetricRegistry lockServiceMetrics = new DefaultTaggedMetricRegistry();
+        metricsManager.getTaggedRegistry()
+                .addMetrics(AtlasDbMetricNames.TAG_CLIENT, client.value(), lockServiceMetrics);
         return new AsyncTimelockServiceImpl(
                 AsyncLockService.createDefault(
                         maybeEnhancedLockLog,
                         reaperExecutor,
-                        timeoutExecutor
+                        timeoutExecutor,
+                        lockServiceMetrics
                 ),
                 timestampServiceSupplier.get(),
                 maybeEnhancedLockLog);
@@ -104,6 +104,7 @@ public class AsyncTimelockServiceImpl implements AsyncTimelockService {
         AsyncResult<Leased<LockToken>> result = lockService.lock(
                 request.getRequestId(),
                 request.getLockDescriptors(),
+                request.getSharedLockDescriptors(),
                 TimeLimit.of(request.getAcquireTimeoutMs()));
         lockLog.registerRequest(request, result);
         SettableFuture<LockResponseV2> response = SettableFuture.create();
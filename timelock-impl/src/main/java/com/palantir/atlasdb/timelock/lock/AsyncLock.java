@@ -31,4 +31,12 @@ public interface AsyncLock {
 
     LockDescriptor getDescriptor();
 
+    /**
+     * Whether this lock is acquired in shared mode. Shared holders never modify what the descriptor protects, and so
+     * are not reported to lock watches.
+     */
+    default boolean isShared() {
+        return false;
+    }
+
 }
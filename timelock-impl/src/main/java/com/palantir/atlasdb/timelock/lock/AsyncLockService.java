@@ -34,6 +34,8 @@ import com.palantir.lock.LockDescriptor;
 import com.palantir.lock.v2.LeaderTime;
 import com.palantir.lock.v2.LockToken;
 import com.palantir.lock.v2.RefreshLockResponseV2;
+import com.palantir.tritium.metrics.registry.DefaultTaggedMetricRegistry;
+import com.palantir.tritium.metrics.registry.TaggedMetricRegistry;
 
 public class AsyncLockService implements Closeable {
 
@@ -63,10 +65,22 @@ public class AsyncLockService implements Closeable {
             LockLog lockLog,
             ScheduledExecutorService reaperExecutor,
             ScheduledExecutorService timeoutExecutor) {
+        return createDefault(lockLog, reaperExecutor, timeoutExecutor, new DefaultTaggedMetricRegistry());
+    }
+
+    /**
+     * As {@link #createDefault(LockLog, ScheduledExecutorService, ScheduledExecutorService)}, additionally reporting
+     * metrics about held locks and the lock reaper to the given registry.
+     */
+    public static AsyncLockService createDefault(
+            LockLog lockLog,
+            ScheduledExecutorService reaperExecutor,
+            ScheduledExecutorService timeoutExecutor,
+            TaggedMetricRegistry metricRegistry) {
 
         LeaderClock clock = LeaderClock.create();
 
-        HeldLocksCollection heldLocks = HeldLocksCollection.create(clock);
+        HeldLocksCollection heldLocks = HeldLocksCollection.create(clock, metricRegistry);
         LockWatchingService lockWatchingService = new LockWatchingServiceImpl(heldLocks);
         LockAcquirer lockAcquirer = new LockAcquirer(lockLog, timeoutExecutor, clock, lockWatchingService);
 
@@ -123,6 +137,20 @@ public class AsyncLockService implements Closeable {
                 () -> acquireLocks(requestId, lockDescriptors, timeout));
     }
 
+    /**
+     * Acquires the given descriptors, holding those in {@code sharedLockDescriptors} in shared mode. Descriptors present
+     * in both sets are acquired exclusively.
+     */
+    public AsyncResult<Leased<LockToken>> lock(UUID requestId, Set<LockDescriptor> lockDescriptors,
+            Set<LockDescriptor> sharedLockDescriptors, TimeLimit timeout) {
+        if (sharedLockDescriptors.isEmpty()) {
+            return lock(requestId, lockDescriptors, timeout);
+        }
+        return heldLocks.getExistingOrAcquire(
+                requestId,
+                () -> acquireLocks(requestId, lockDescriptors, sharedLockDescriptors, timeout));
+    }
+
     public AsyncResult<Leased<LockToken>> lockImmutableTimestamp(UUID requestId, long timestamp) {
         AsyncResult<Leased<LockToken>> immutableTimestampLockResult = heldLocks.getExistingOrAcquire(
                 requestId,
@@ -148,6 +176,12 @@ public class AsyncLockService implements Closeable {
         return lockAcquirer.acquireLocks(requestId, orderedLocks, timeout);
     }
 
+    private AsyncResult<HeldLocks> acquireLocks(UUID requestId, Set<LockDescriptor> lockDescriptors,
+            Set<LockDescriptor> sharedLockDescriptors, TimeLimit timeout) {
+        OrderedLocks orderedLocks = locks.getAll(lockDescriptors, sharedLockDescriptors);
+        return lockAcquirer.acquireLocks(requestId, orderedLocks, timeout);
+    }
+
     private AsyncResult<Void> awaitLocks(UUID requestId, Set<LockDescriptor> lockDescriptors,
             TimeLimit timeout) {
         OrderedLocks orderedLocks = locks.getAll(lockDescriptors);
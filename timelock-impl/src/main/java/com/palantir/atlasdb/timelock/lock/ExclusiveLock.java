@@ -15,27 +15,42 @@
  */
 package com.palantir.atlasdb.timelock.lock;
 
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 
 import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.NotThreadSafe;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import com.palantir.atlasdb.timelock.util.LoggableIllegalStateException;
 import com.palantir.lock.LockDescriptor;
 import com.palantir.logsafe.SafeArg;
 
+/**
+ * A lock on a single {@link LockDescriptor}, which may be held either by a single exclusive holder, or by any number of
+ * shared holders through the view returned by {@link #shared()}.
+ *
+ * Requests are granted strictly in FIFO order: a shared request queued behind an exclusive request is not granted
+ * until the exclusive request has been granted and released, even if the lock is currently only held in shared mode.
+ * This ensures that exclusive requests are not starved by a constant stream of shared requests. Requests to wait until
+ * the lock is available only wait for exclusive holders, as they do not conflict with shared holders.
+ */
 public class ExclusiveLock implements AsyncLock {
 
     private final LockDescriptor descriptor;
+    private final AsyncLock sharedLock = new SharedLock();
 
     @GuardedBy("this")
     private final LockRequestQueue queue = new LockRequestQueue();
     @GuardedBy("this")
     private UUID currentHolder = null;
+    @GuardedBy("this")
+    private final Set<UUID> sharedHolders = new HashSet<>();
 
     public ExclusiveLock(LockDescriptor descriptor) {
         this.descriptor = descriptor;
@@ -43,12 +58,12 @@ public class ExclusiveLock implements AsyncLock {
 
     @Override
     public synchronized AsyncResult<Void> lock(UUID requestId) {
-        return submit(new LockRequest(requestId, false));
+        return submit(new LockRequest(requestId, false, false));
     }
 
     @Override
     public synchronized AsyncResult<Void> waitUntilAvailable(UUID requestId) {
-        return submit(new LockRequest(requestId, true));
+        return submit(new LockRequest(requestId, true, true));
     }
 
     @Override
@@ -56,12 +71,16 @@ public class ExclusiveLock implements AsyncLock {
         if (Objects.equals(requestId, currentHolder)) {
             currentHolder = null;
             processQueue();
+        } else if (sharedHolders.remove(requestId)) {
+            processQueue();
         }
     }
 
     @Override
     public synchronized void timeout(UUID requestId) {
         queue.timeoutAndRemoveIfStillQueued(requestId);
+        // a timed out exclusive request at the head of the queue may have been blocking shared requests behind it
+        processQueue();
     }
 
     @Override
@@ -69,11 +88,28 @@ public class ExclusiveLock implements AsyncLock {
         return descriptor;
     }
 
+    /**
+     * Returns a view of this lock that acquires it in shared mode. Unlocking or timing out a request through either
+     * view has the same effect, as request ids identify the holder regardless of mode.
+     */
+    public AsyncLock shared() {
+        return sharedLock;
+    }
+
     @VisibleForTesting
     synchronized UUID getCurrentHolder() {
         return currentHolder;
     }
 
+    @VisibleForTesting
+    synchronized Set<UUID> getSharedHolders() {
+        return ImmutableSet.copyOf(sharedHolders);
+    }
+
+    private synchronized AsyncResult<Void> lockShared(UUID requestId) {
+        return submit(new LockRequest(requestId, true, false));
+    }
+
     @GuardedBy("this")
     private AsyncResult<Void> submit(LockRequest request) {
         queue.enqueue(request);
@@ -84,24 +120,67 @@ public class ExclusiveLock implements AsyncLock {
 
     @GuardedBy("this")
     private void processQueue() {
-        while (!queue.isEmpty() && currentHolder == null) {
+        while (!queue.isEmpty() && canBeGranted(queue.peek())) {
             LockRequest head = queue.dequeue();
 
             if (!head.releaseImmediately) {
-                currentHolder = head.requestId;
+                if (head.shared) {
+                    sharedHolders.add(head.requestId);
+                } else {
+                    currentHolder = head.requestId;
+                }
             }
 
             head.result.complete(null);
         }
     }
 
+    @GuardedBy("this")
+    private boolean canBeGranted(LockRequest request) {
+        return currentHolder == null && (request.shared || sharedHolders.isEmpty());
+    }
+
+    private class SharedLock implements AsyncLock {
+        @Override
+        public AsyncResult<Void> lock(UUID requestId) {
+            return lockShared(requestId);
+        }
+
+        @Override
+        public AsyncResult<Void> waitUntilAvailable(UUID requestId) {
+            return ExclusiveLock.this.waitUntilAvailable(requestId);
+        }
+
+        @Override
+        public void unlock(UUID requestId) {
+            ExclusiveLock.this.unlock(requestId);
+        }
+
+        @Override
+        public void timeout(UUID requestId) {
+            ExclusiveLock.this.timeout(requestId);
+        }
+
+        @Override
+        public LockDescriptor getDescriptor() {
+            return descriptor;
+        }
+
+        @Override
+        public boolean isShared() {
+            return true;
+        }
+    }
+
     private static class LockRequest {
         private final AsyncResult<Void> result = new AsyncResult<>();
         private final UUID requestId;
+        private final boolean shared;
         private final boolean releaseImmediately;
 
-        LockRequest(UUID requestId, boolean releaseImmediately) {
+        LockRequest(UUID requestId, boolean shared, boolean releaseImmediately) {
             this.requestId = requestId;
+            this.shared = shared;
             this.releaseImmediately = releaseImmediately;
         }
     }
@@ -126,6 +205,10 @@ public class ExclusiveLock implements AsyncLock {
             return queue.isEmpty();
         }
 
+        public LockRequest peek() {
+            return queue.values().iterator().next();
+        }
+
         public LockRequest dequeue() {
             return queue.remove(queue.keySet().iterator().next());
         }
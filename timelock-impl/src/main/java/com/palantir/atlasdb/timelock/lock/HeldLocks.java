@@ -38,6 +38,8 @@ public class HeldLocks {
     private final LeaseExpirationTimer expirationTimer;
     private final LockWatchingService lockWatchingService;
     private final Supplier<Set<LockDescriptor>> descriptors = Suppliers.memoize(this::getLockDescriptors);
+    private final Supplier<Set<LockDescriptor>> exclusiveDescriptors =
+            Suppliers.memoize(this::getExclusiveLockDescriptors);
 
     @GuardedBy("this")
     private boolean isUnlocked = false;
@@ -61,7 +63,7 @@ public class HeldLocks {
     }
 
     private void registerLock() {
-        lockWatchingService.registerLock(descriptors.get(), token);
+        lockWatchingService.registerLock(exclusiveDescriptors.get(), token);
     }
 
     /**
@@ -99,7 +101,7 @@ public class HeldLocks {
             return false;
         }
         isUnlocked = true;
-        lockWatchingService.registerUnlock(descriptors.get());
+        lockWatchingService.registerUnlock(exclusiveDescriptors.get());
 
         for (AsyncLock lock : acquiredLocks) {
             lock.unlock(token.getRequestId());
@@ -130,4 +132,11 @@ public class HeldLocks {
                 .collect(Collectors.toSet());
     }
 
+    private Set<LockDescriptor> getExclusiveLockDescriptors() {
+        return acquiredLocks.stream()
+                .filter(lock -> !lock.isShared())
+                .map(AsyncLock::getDescriptor)
+                .collect(Collectors.toSet());
+    }
+
 }
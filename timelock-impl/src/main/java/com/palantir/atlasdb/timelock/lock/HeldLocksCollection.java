@@ -15,14 +15,25 @@
  */
 package com.palantir.atlasdb.timelock.lock;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentMap;
-import java.util.function.Predicate;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import javax.annotation.concurrent.GuardedBy;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.palantir.common.time.NanoTime;
@@ -30,45 +41,91 @@ import com.palantir.leader.NotCurrentLeaderException;
 import com.palantir.lock.v2.LeaderTime;
 import com.palantir.lock.v2.Lease;
 import com.palantir.lock.v2.LockToken;
+import com.palantir.tritium.metrics.registry.DefaultTaggedMetricRegistry;
+import com.palantir.tritium.metrics.registry.MetricName;
+import com.palantir.tritium.metrics.registry.TaggedMetricRegistry;
 
+/**
+ * Tracks lock requests by request id, and reaps held locks whose lease has expired.
+ *
+ * Held locks are additionally tracked in a number of stripes, each ordered by last refresh time, so that the reaper
+ * only has to look at the locks that have actually expired, rather than at every held lock. Requests that failed or
+ * timed out are dropped by the reaper without being ordered.
+ */
 public class HeldLocksCollection {
+    private static final int NUM_STRIPES = 64;
+    private static final MetricName HELD_LOCKS = MetricName.builder().safeName("lock.held-locks").build();
+    private static final MetricName REAPER_TIME = MetricName.builder().safeName("lock.reaper-time").build();
+
     @VisibleForTesting
     final ConcurrentMap<UUID, AsyncResult<HeldLocks>> heldLocksById = Maps.newConcurrentMap();
 
+    private final ExpiryStripe[] stripes = new ExpiryStripe[NUM_STRIPES];
     private final LeaderClock leaderClock;
+    private final Timer reaperTimer;
 
     @VisibleForTesting
     HeldLocksCollection(LeaderClock leaderClock) {
+        this(leaderClock, new DefaultTaggedMetricRegistry());
+    }
+
+    private HeldLocksCollection(LeaderClock leaderClock, TaggedMetricRegistry metricRegistry) {
         this.leaderClock = leaderClock;
+        for (int i = 0; i < NUM_STRIPES; i++) {
+            stripes[i] = new ExpiryStripe();
+        }
+        this.reaperTimer = metricRegistry.timer(REAPER_TIME);
+        metricRegistry.gauge(HELD_LOCKS, (Gauge<Integer>) heldLocksById::size);
     }
 
     public static HeldLocksCollection create(LeaderClock leaderClock) {
         return new HeldLocksCollection(leaderClock);
     }
 
+    public static HeldLocksCollection create(LeaderClock leaderClock, TaggedMetricRegistry metricRegistry) {
+        return new HeldLocksCollection(leaderClock, metricRegistry);
+    }
+
     public AsyncResult<Leased<LockToken>> getExistingOrAcquire(
             UUID requestId,
             Supplier<AsyncResult<HeldLocks>> lockAcquirer) {
         return heldLocksById.computeIfAbsent(
-                requestId, ignored -> lockAcquirer.get())
+                requestId, ignored -> acquireAndTrack(requestId, lockAcquirer))
                 .map(this::createLeasableLockToken);
     }
 
     public Set<LockToken> unlock(Set<LockToken> tokens) {
-        Set<LockToken> unlocked = filter(tokens, HeldLocks::unlockExplicitly);
+        Set<LockToken> unlocked = filter(tokens, (requestId, heldLocks) -> heldLocks.unlockExplicitly());
         for (LockToken token : unlocked) {
-            heldLocksById.remove(token.getRequestId());
+            UUID requestId = token.getRequestId();
+            stripeFor(requestId).untrack(requestId);
+            heldLocksById.remove(requestId);
         }
         return unlocked;
     }
 
     public Leased<Set<LockToken>> refresh(Set<LockToken> tokens) {
         Lease lease = leaseWithStart(leaderClock.time());
-        return Leased.of(filter(tokens, HeldLocks::refresh), lease);
+        return Leased.of(filter(tokens, this::refresh), lease);
     }
 
     public void removeExpired() {
-        heldLocksById.values().removeIf(this::shouldRemove);
+        long startTime = System.nanoTime();
+        NanoTime now = leaderClock.time().currentTime();
+        for (ExpiryStripe stripe : stripes) {
+            for (UUID requestId : stripe.drainUnsuccessful()) {
+                heldLocksById.remove(requestId);
+            }
+            for (Map.Entry<UUID, HeldLocks> candidate : stripe.pollExpired(now)) {
+                if (candidate.getValue().unlockIfExpired()) {
+                    heldLocksById.remove(candidate.getKey());
+                } else {
+                    // refreshed after we polled it
+                    stripe.track(candidate.getKey(), candidate.getValue());
+                }
+            }
+        }
+        reaperTimer.update(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
     }
 
     public void failAllOutstandingRequestsWithNotCurrentLeaderException() {
@@ -83,6 +140,29 @@ public class HeldLocksCollection {
                 .collect(Collectors.toSet());
     }
 
+    private AsyncResult<HeldLocks> acquireAndTrack(UUID requestId, Supplier<AsyncResult<HeldLocks>> lockAcquirer) {
+        AsyncResult<HeldLocks> result = lockAcquirer.get();
+        // This may run synchronously inside a synchronized method on AsyncLock, or inside #computeIfAbsent. This is
+        // safe because stripes never call out while holding their monitor.
+        result.onComplete(() -> {
+            if (result.isCompletedSuccessfully()) {
+                stripeFor(requestId).track(requestId, result.get());
+            } else {
+                stripeFor(requestId).markUnsuccessful(requestId);
+            }
+        });
+        return result;
+    }
+
+    private boolean refresh(UUID requestId, HeldLocks heldLocks) {
+        if (!heldLocks.refresh()) {
+            return false;
+        }
+        // Concurrent refreshes may reorder the stripe slightly; this only delays reaping until the next run.
+        stripeFor(requestId).touch(requestId);
+        return true;
+    }
+
     private Leased<LockToken> createLeasableLockToken(HeldLocks heldLocks) {
         return Leased.of(heldLocks.getToken(), leaseWithStart(heldLocks.lastRefreshTime()));
     }
@@ -95,22 +175,92 @@ public class HeldLocksCollection {
         return Lease.of(leaderTime, LockLeaseContract.CLIENT_LEASE_TIMEOUT);
     }
 
-    private boolean shouldRemove(AsyncResult<HeldLocks> lockResult) {
-        return lockResult.isFailed()
-                || lockResult.isTimedOut()
-                || lockResult.test(HeldLocks::unlockIfExpired);
+    private ExpiryStripe stripeFor(UUID requestId) {
+        return stripes[Math.floorMod(requestId.hashCode(), NUM_STRIPES)];
     }
 
-    private Set<LockToken> filter(Set<LockToken> tokens, Predicate<HeldLocks> predicate) {
-        Set<LockToken> filtered = Sets.newHashSetWithExpectedSize(tokens.size());
+    /**
+     * Returns the subset of tokens that are held and satisfy the predicate. In the common case where all of them do,
+     * the given set is returned as is, rather than copied.
+     */
+    private Set<LockToken> filter(Set<LockToken> tokens, BiPredicate<UUID, HeldLocks> predicate) {
+        Set<LockToken> filtered = null;
+        int numTested = 0;
 
         for (LockToken token : tokens) {
-            AsyncResult<HeldLocks> lockResult = heldLocksById.get(token.getRequestId());
-            if (lockResult != null && lockResult.test(predicate)) {
-                filtered.add(token);
+            boolean matches = test(token.getRequestId(), predicate);
+            if (filtered != null) {
+                if (matches) {
+                    filtered.add(token);
+                }
+            } else if (!matches) {
+                filtered = Sets.newHashSetWithExpectedSize(tokens.size());
+                Iterables.addAll(filtered, Iterables.limit(tokens, numTested));
+            }
+            numTested++;
+        }
+
+        return filtered == null ? tokens : filtered;
+    }
+
+    private boolean test(UUID requestId, BiPredicate<UUID, HeldLocks> predicate) {
+        AsyncResult<HeldLocks> lockResult = heldLocksById.get(requestId);
+        return lockResult != null && lockResult.test(heldLocks -> predicate.test(requestId, heldLocks));
+    }
+
+    private static final class ExpiryStripe {
+        @GuardedBy("this")
+        private final LinkedHashMap<UUID, HeldLocks> heldLocksByLastRefresh = new LinkedHashMap<>(16, 0.75f, true);
+        @GuardedBy("this")
+        private List<UUID> unsuccessfulRequests = new ArrayList<>();
+
+        synchronized void track(UUID requestId, HeldLocks heldLocks) {
+            heldLocksByLastRefresh.put(requestId, heldLocks);
+        }
+
+        /**
+         * Moves the request to the back of the expiry order, if it is tracked. Does not allocate.
+         */
+        synchronized void touch(UUID requestId) {
+            heldLocksByLastRefresh.get(requestId);
+        }
+
+        synchronized void untrack(UUID requestId) {
+            heldLocksByLastRefresh.remove(requestId);
+        }
+
+        synchronized void markUnsuccessful(UUID requestId) {
+            unsuccessfulRequests.add(requestId);
+        }
+
+        synchronized List<UUID> drainUnsuccessful() {
+            if (unsuccessfulRequests.isEmpty()) {
+                return unsuccessfulRequests;
             }
+            List<UUID> drained = unsuccessfulRequests;
+            unsuccessfulRequests = new ArrayList<>();
+            return drained;
         }
 
-        return filtered;
+        /**
+         * Removes and returns the requests at the front of the expiry order whose lease has expired at {@code now}.
+         */
+        synchronized List<Map.Entry<UUID, HeldLocks>> pollExpired(NanoTime now) {
+            List<Map.Entry<UUID, HeldLocks>> expired = new ArrayList<>();
+            Iterator<Map.Entry<UUID, HeldLocks>> iterator = heldLocksByLastRefresh.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<UUID, HeldLocks> next = iterator.next();
+                if (!isExpired(next.getValue(), now)) {
+                    break;
+                }
+                expired.add(next);
+                iterator.remove();
+            }
+            return expired;
+        }
+
+        private static boolean isExpired(HeldLocks heldLocks, NanoTime now) {
+            return heldLocks.lastRefreshTime().plus(LockLeaseContract.SERVER_LEASE_TIMEOUT).isBefore(now);
+        }
     }
 }
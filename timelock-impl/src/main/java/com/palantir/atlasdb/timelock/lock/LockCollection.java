@@ -23,11 +23,12 @@ import java.util.Set;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import com.palantir.lock.LockDescriptor;
 
 public class LockCollection {
 
-    private final LoadingCache<LockDescriptor, AsyncLock> locksById;
+    private final LoadingCache<LockDescriptor, ExclusiveLock> locksById;
 
     public LockCollection() {
         locksById = Caffeine.newBuilder()
@@ -46,13 +47,30 @@ public class LockCollection {
         return OrderedLocks.fromOrderedList(locks);
     }
 
+    /**
+     * Returns the locks for the given descriptors, in a consistent global order. Locks for descriptors in
+     * {@code sharedDescriptors} are acquired in shared mode, unless they are also present in
+     * {@code exclusiveDescriptors}.
+     */
+    public OrderedLocks getAll(Set<LockDescriptor> exclusiveDescriptors, Set<LockDescriptor> sharedDescriptors) {
+        List<LockDescriptor> orderedDescriptors = sort(Sets.union(exclusiveDescriptors, sharedDescriptors));
+
+        List<AsyncLock> locks = Lists.newArrayListWithExpectedSize(orderedDescriptors.size());
+        for (LockDescriptor descriptor : orderedDescriptors) {
+            ExclusiveLock lock = getLock(descriptor);
+            locks.add(exclusiveDescriptors.contains(descriptor) ? lock : lock.shared());
+        }
+
+        return OrderedLocks.fromOrderedList(locks);
+    }
+
     private static List<LockDescriptor> sort(Set<LockDescriptor> descriptors) {
         List<LockDescriptor> orderedDescriptors = Lists.newArrayList(descriptors);
         orderedDescriptors.sort(Comparator.naturalOrder());
         return orderedDescriptors;
     }
 
-    private AsyncLock getLock(LockDescriptor descriptor) {
+    private ExclusiveLock getLock(LockDescriptor descriptor) {
         return locksById.get(descriptor);
     }
 
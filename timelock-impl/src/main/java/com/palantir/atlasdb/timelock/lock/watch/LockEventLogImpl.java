@@ -95,7 +95,8 @@ public class LockEventLogImpl implements LockEventLog {
     }
 
     /**
-     * Iterates through all currently held locks and returns the set of all locks matching the watched ranges.
+     * Iterates through all currently held locks and returns the set of all exclusively held locks matching the watched
+     * ranges. Shared locks are not reported, as they are not logged as lock or unlock events either.
      *
      * Note that the set of held locks can be modified during the execution of this method. Therefore, this method is
      * NOT guaranteed to return a consistent snapshot of the world. If the given set of ranges is being watched, i.e.,
@@ -106,7 +107,9 @@ public class LockEventLogImpl implements LockEventLog {
      */
     private Set<LockDescriptor> calculateOpenLocks(RangeSet<LockDescriptor> watchedRanges) {
         return heldLocksCollection.locksHeld().stream()
-                .flatMap(locksHeld -> locksHeld.getLocks().stream().map(AsyncLock::getDescriptor))
+                .flatMap(locksHeld -> locksHeld.getLocks().stream())
+                .filter(lock -> !lock.isShared())
+                .map(AsyncLock::getDescriptor)
                 .filter(watchedRanges::contains)
                 .collect(Collectors.toSet());
     }
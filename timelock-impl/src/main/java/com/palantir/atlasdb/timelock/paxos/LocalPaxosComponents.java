@@ -51,12 +51,22 @@ public class LocalPaxosComponents {
     private final Supplier<BatchPaxosLearner> memoizedBatchLearner;
     private final Supplier<BatchPingableLeader> memoizedBatchPingableLeader;
     private final boolean canCreateNewClients;
+    private final boolean useSegmentedLog;
 
     LocalPaxosComponents(TimelockPaxosMetrics metrics,
             PaxosUseCase paxosUseCase,
             Path baseLogDirectory,
             UUID leaderUuid,
             boolean canCreateNewClients) {
+        this(metrics, paxosUseCase, baseLogDirectory, leaderUuid, canCreateNewClients, false);
+    }
+
+    LocalPaxosComponents(TimelockPaxosMetrics metrics,
+            PaxosUseCase paxosUseCase,
+            Path baseLogDirectory,
+            UUID leaderUuid,
+            boolean canCreateNewClients,
+            boolean useSegmentedLog) {
         this.metrics = metrics;
         this.paxosUseCase = paxosUseCase;
         this.baseLogDirectory = baseLogDirectory;
@@ -65,6 +75,7 @@ public class LocalPaxosComponents {
         this.memoizedBatchLearner = Suppliers.memoize(this::createBatchLearner);
         this.memoizedBatchPingableLeader = Suppliers.memoize(this::createBatchPingableLeader);
         this.canCreateNewClients = canCreateNewClients;
+        this.useSegmentedLog = useSegmentedLog;
     }
 
     public PaxosAcceptor acceptor(Client client) {
@@ -113,6 +124,7 @@ public class LocalPaxosComponents {
                 ImmutablePaxosStorageParameters.builder()
                         .fileBasedLogDirectory(learnerLogDir.toString())
                         .databaseNamespace(learnerNamespace)
+                        .useSegmentedLog(useSegmentedLog)
                         .build(),
                 PaxosKnowledgeEventRecorder.NO_OP);
 
@@ -123,6 +135,7 @@ public class LocalPaxosComponents {
                 ImmutablePaxosStorageParameters.builder()
                         .fileBasedLogDirectory(acceptorLogDir.toString())
                         .databaseNamespace(acceptorNamespace)
+                        .useSegmentedLog(useSegmentedLog)
                         .build());
 
         PingableLeader localPingableLeader = new LocalPingableLeader(learner, leaderUuid);
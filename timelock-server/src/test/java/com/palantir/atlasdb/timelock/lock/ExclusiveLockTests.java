@@ -222,6 +222,95 @@ public class ExclusiveLockTests {
         assertThat(request2.isCompletedSuccessfully()).isTrue();
     }
 
+    @Test
+    public void sharedLockCanBeHeldByMultipleRequests() {
+        lockSharedSynchronously(REQUEST_1);
+        lockSharedSynchronously(REQUEST_2);
+
+        assertThat(lock.getSharedHolders()).containsExactlyInAnyOrder(REQUEST_1, REQUEST_2);
+    }
+
+    @Test
+    public void sharedLockBlocksExclusiveLock() {
+        lockSharedSynchronously(REQUEST_1);
+        AsyncResult<Void> exclusiveRequest = lockAsync(REQUEST_2);
+
+        assertThat(exclusiveRequest.isComplete()).isFalse();
+
+        unlock(REQUEST_1);
+
+        assertThat(exclusiveRequest.isCompletedSuccessfully()).isTrue();
+        assertThat(lock.getCurrentHolder()).isEqualTo(REQUEST_2);
+    }
+
+    @Test
+    public void exclusiveLockBlocksSharedLock() {
+        lockSynchronously(REQUEST_1);
+        AsyncResult<Void> sharedRequest = lockSharedAsync(REQUEST_2);
+
+        assertThat(sharedRequest.isComplete()).isFalse();
+
+        unlock(REQUEST_1);
+
+        assertThat(sharedRequest.isCompletedSuccessfully()).isTrue();
+    }
+
+    @Test
+    public void allQueuedSharedRequestsAreGrantedTogether() {
+        lockSynchronously(REQUEST_1);
+        AsyncResult<Void> request2 = lockSharedAsync(REQUEST_2);
+        AsyncResult<Void> request3 = lockSharedAsync(REQUEST_3);
+
+        unlock(REQUEST_1);
+
+        assertThat(request2.isCompletedSuccessfully()).isTrue();
+        assertThat(request3.isCompletedSuccessfully()).isTrue();
+    }
+
+    @Test
+    public void sharedRequestsDoNotOvertakeQueuedExclusiveRequest() {
+        lockSharedSynchronously(REQUEST_1);
+        AsyncResult<Void> exclusiveRequest = lockAsync(REQUEST_2);
+        AsyncResult<Void> sharedRequest = lockSharedAsync(REQUEST_3);
+
+        assertThat(sharedRequest.isComplete()).isFalse();
+
+        unlock(REQUEST_1);
+        assertThat(exclusiveRequest.isCompletedSuccessfully()).isTrue();
+        assertThat(sharedRequest.isComplete()).isFalse();
+
+        unlock(REQUEST_2);
+        assertThat(sharedRequest.isCompletedSuccessfully()).isTrue();
+    }
+
+    @Test
+    public void timingOutQueuedExclusiveRequestUnblocksSharedRequestsBehindIt() {
+        lockSharedSynchronously(REQUEST_1);
+        AsyncResult<Void> exclusiveRequest = lockAsync(REQUEST_2);
+        AsyncResult<Void> sharedRequest = lockSharedAsync(REQUEST_3);
+
+        lock.timeout(REQUEST_2);
+
+        assertThat(exclusiveRequest.isTimedOut()).isTrue();
+        assertThat(sharedRequest.isCompletedSuccessfully()).isTrue();
+    }
+
+    @Test
+    public void waitUntilAvailableDoesNotWaitForSharedHolders() {
+        lockSharedSynchronously(REQUEST_1);
+
+        AsyncResult<Void> result = waitUntilAvailableAsync(REQUEST_2);
+
+        assertThat(result.isCompletedSuccessfully()).isTrue();
+    }
+
+    @Test
+    public void sharedViewReportsItselfAsShared() {
+        assertThat(lock.isShared()).isFalse();
+        assertThat(lock.shared().isShared()).isTrue();
+        assertThat(lock.shared().getDescriptor()).isEqualTo(LOCK_DESCRIPTOR);
+    }
+
     private AsyncResult<Void> waitUntilAvailableAsync(UUID request) {
         return lock.waitUntilAvailable(request);
     }
@@ -238,6 +327,14 @@ public class ExclusiveLockTests {
         return lock.lock(requestId);
     }
 
+    private void lockSharedSynchronously(UUID requestId) {
+        lockSharedAsync(requestId).get();
+    }
+
+    private AsyncResult<Void> lockSharedAsync(UUID requestId) {
+        return lock.shared().lock(requestId);
+    }
+
     private void unlock(UUID requestId) {
         lock.unlock(requestId);
     }
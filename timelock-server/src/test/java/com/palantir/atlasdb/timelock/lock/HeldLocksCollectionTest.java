@@ -17,6 +17,7 @@ package com.palantir.atlasdb.timelock.lock;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -88,12 +89,36 @@ public class HeldLocksCollectionTest {
 
         assertThat(heldLocksCollection.heldLocksById.size()).isEqualTo(3);
 
+        advance(LockLeaseContract.SERVER_LEASE_TIMEOUT.plus(Duration.ofNanos(1)));
         heldLocksCollection.removeExpired();
 
         assertThat(heldLocksCollection.heldLocksById.size()).isEqualTo(1);
         assertThat(heldLocksCollection.heldLocksById.keySet().iterator().next()).isEqualTo(nonExpiredRequest);
     }
 
+    @Test
+    public void doesNotCheckRequestsWhoseLeaseCannotHaveExpired() {
+        HeldLocks heldLocks = heldLocksForMockedRequest(
+                mocked -> when(mocked.unlockIfExpired()).thenReturn(true));
+
+        heldLocksCollection.removeExpired();
+
+        verify(heldLocks, never()).unlockIfExpired();
+        assertThat(heldLocksCollection.heldLocksById.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void refreshedRequestsAreNotReaped() {
+        setTime(123);
+        LockToken token = lockSync(REQUEST_ID);
+
+        advance(LockLeaseContract.SERVER_LEASE_TIMEOUT);
+        heldLocksCollection.refresh(ImmutableSet.of(token));
+        advance(Duration.ofNanos(1));
+
+        assertLocked(REQUEST_ID);
+    }
+
     @Test
     public void removesTimedOutRequests() {
         mockTimedOutRequest();
@@ -338,8 +363,14 @@ public class HeldLocksCollectionTest {
     }
 
     private LockToken mockHeldLocksForNewRequest(Consumer<HeldLocks> mockApplier) {
+        HeldLocks heldLocks = heldLocksForMockedRequest(mockApplier);
+        return heldLocks.getToken();
+    }
+
+    private HeldLocks heldLocksForMockedRequest(Consumer<HeldLocks> mockApplier) {
         LockToken request = LockToken.of(UUID.randomUUID());
         HeldLocks heldLocks = mock(HeldLocks.class);
+        when(heldLocks.getToken()).thenReturn(request);
         mockApplier.accept(heldLocks);
         when(heldLocks.lastRefreshTime()).thenReturn(time.get());
 
@@ -348,6 +379,6 @@ public class HeldLocksCollectionTest {
         heldLocksCollection.getExistingOrAcquire(request.getRequestId(),
                 () -> completedResult);
 
-        return request;
+        return heldLocks;
     }
 }
@@ -29,6 +29,7 @@ import org.junit.Test;
 
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.palantir.atlasdb.timelock.lock.watch.LockWatchingService;
 import com.palantir.lock.LockDescriptor;
 import com.palantir.lock.StringLockDescriptor;
@@ -93,6 +94,22 @@ public class HeldLocksTest {
         assertFalse(heldLocks.unlockIfExpired());
     }
 
+    @Test
+    public void onlyExclusiveLocksAreReportedToLockWatches() {
+        LockDescriptor exclusiveDescriptor = StringLockDescriptor.of("exclusive");
+        LockDescriptor sharedDescriptor = StringLockDescriptor.of("shared");
+        ExclusiveLock exclusiveLock = new ExclusiveLock(exclusiveDescriptor);
+        AsyncLock sharedLock = new ExclusiveLock(sharedDescriptor).shared();
+        LockWatchingService lockWatchingService = mock(LockWatchingService.class);
+
+        HeldLocks locks = HeldLocks.create(new LockLog(new MetricRegistry(), () -> 2L),
+                ImmutableList.of(exclusiveLock, sharedLock), REQUEST_ID, LeaderClock.create(), lockWatchingService);
+        locks.unlockExplicitly();
+
+        verify(lockWatchingService).registerLock(ImmutableSet.of(exclusiveDescriptor), locks.getToken());
+        verify(lockWatchingService).registerUnlock(ImmutableSet.of(exclusiveDescriptor));
+    }
+
     @Test
     public void refreshRefreshesExpirationTimer() {
         heldLocks.refresh();
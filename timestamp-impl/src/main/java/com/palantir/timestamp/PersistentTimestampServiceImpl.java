@@ -15,6 +15,9 @@
  */
 package com.palantir.timestamp;
 
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
 import javax.annotation.concurrent.ThreadSafe;
 
 import org.slf4j.Logger;
@@ -25,6 +28,7 @@ import com.google.common.base.Preconditions;
 import com.palantir.async.initializer.AsyncInitializer;
 import com.palantir.atlasdb.AtlasDbConstants;
 import com.palantir.logsafe.SafeArg;
+import com.palantir.tritium.metrics.registry.TaggedMetricRegistry;
 
 @ThreadSafe
 public class PersistentTimestampServiceImpl implements PersistentTimestampService {
@@ -50,6 +54,7 @@ public class PersistentTimestampServiceImpl implements PersistentTimestampServic
     private static final int MAX_TIMESTAMPS_PER_REQUEST = 10_000;
 
     private ErrorCheckingTimestampBoundStore store;
+    private Function<TimestampBoundStore, PersistentUpperLimit> upperLimitFactory;
     private PersistentTimestamp timestamp;
     private final InitializingWrapper wrapper = new InitializingWrapper();
 
@@ -67,7 +72,28 @@ public class PersistentTimestampServiceImpl implements PersistentTimestampServic
 
     public static PersistentTimestampService create(ErrorCheckingTimestampBoundStore store,
             boolean initializeAsync) {
-        PersistentTimestampServiceImpl service = new PersistentTimestampServiceImpl(store);
+        return create(store, PersistentUpperLimit::new, initializeAsync);
+    }
+
+    /**
+     * Creates a timestamp service that extends the upper limit on the given executor before it runs out, rather than
+     * when it does; see {@link PersistentUpperLimit#extendingInBackground}.
+     */
+    public static PersistentTimestampService createExtendingUpperLimitInBackground(
+            TimestampBoundStore store,
+            Executor backgroundExecutor,
+            TaggedMetricRegistry metricRegistry) {
+        return create(
+                new ErrorCheckingTimestampBoundStore(store),
+                boundStore -> PersistentUpperLimit.extendingInBackground(
+                        boundStore, backgroundExecutor, metricRegistry),
+                AtlasDbConstants.DEFAULT_INITIALIZE_ASYNC);
+    }
+
+    private static PersistentTimestampService create(ErrorCheckingTimestampBoundStore store,
+            Function<TimestampBoundStore, PersistentUpperLimit> upperLimitFactory,
+            boolean initializeAsync) {
+        PersistentTimestampServiceImpl service = new PersistentTimestampServiceImpl(store, upperLimitFactory);
         service.wrapper.initialize(initializeAsync);
         return service.wrapper.isInitialized() ? service : service.wrapper;
     }
@@ -77,13 +103,15 @@ public class PersistentTimestampServiceImpl implements PersistentTimestampServic
         this.timestamp = timestamp;
     }
 
-    private PersistentTimestampServiceImpl(ErrorCheckingTimestampBoundStore store) {
+    private PersistentTimestampServiceImpl(ErrorCheckingTimestampBoundStore store,
+            Function<TimestampBoundStore, PersistentUpperLimit> upperLimitFactory) {
         this.store = store;
+        this.upperLimitFactory = upperLimitFactory;
     }
 
     private void tryInitialize() {
         long latestTimestamp = store.getUpperLimit();
-        PersistentUpperLimit upperLimit = new PersistentUpperLimit(store);
+        PersistentUpperLimit upperLimit = upperLimitFactory.apply(store);
         timestamp = new PersistentTimestamp(upperLimit, latestTimestamp);
     }
 
@@ -15,23 +15,92 @@
  */
 package com.palantir.timestamp;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
+import com.palantir.logsafe.SafeArg;
+import com.palantir.tritium.metrics.registry.DefaultTaggedMetricRegistry;
+import com.palantir.tritium.metrics.registry.MetricName;
+import com.palantir.tritium.metrics.registry.TaggedMetricRegistry;
 
+/**
+ * Keeps track of the persisted upper limit of the timestamps that may be handed out, and increases it as needed.
+ * <p>
+ * By default, the limit is increased synchronously, by whichever caller first needs timestamps beyond it, and with a
+ * fixed buffer. If created with {@link #extendingInBackground}, the limit is instead increased on the given executor
+ * as soon as less than half of the buffer remains, and the buffer grows with the rate at which timestamps are handed
+ * out, so that callers only block if the background extension falls behind.
+ */
 public class PersistentUpperLimit {
+    private static final Logger log = LoggerFactory.getLogger(PersistentUpperLimit.class);
 
     /**
      * Some internal atlas clients have behavior tied to this value and will need to
-     * be updated if the value changes.
+     * be updated if the value changes. The buffer used when extending in the background is never smaller.
      */
     @VisibleForTesting
     static final long BUFFER = 1_000_000;
+    @VisibleForTesting
+    static final long MAX_BUFFER = 100 * BUFFER;
+    /**
+     * When extending in the background, the buffer is sized to last this long at the recently observed rate.
+     */
+    @VisibleForTesting
+    static final long TARGET_BUFFER_DURATION_SECONDS = 60;
 
     private volatile long currentLimit;
     private final TimestampBoundStore store;
+    @Nullable
+    private final Executor backgroundExecutor;
+    private final LongSupplier nanoClock;
+    private final AtomicBoolean backgroundExtensionScheduled = new AtomicBoolean(false);
+    private final Timer extensionTimer;
+    private final Meter blockedRequests;
+
+    private volatile long buffer = BUFFER;
+    @GuardedBy("this")
+    private long lastExtensionTimestamp;
+    @GuardedBy("this")
+    private long lastExtensionNanos;
 
     public PersistentUpperLimit(TimestampBoundStore boundStore) {
+        this(boundStore, null, new DefaultTaggedMetricRegistry(), System::nanoTime);
+    }
+
+    @VisibleForTesting
+    PersistentUpperLimit(
+            TimestampBoundStore boundStore,
+            @Nullable Executor backgroundExecutor,
+            TaggedMetricRegistry metricRegistry,
+            LongSupplier nanoClock) {
         this.store = boundStore;
+        this.backgroundExecutor = backgroundExecutor;
+        this.nanoClock = nanoClock;
+        this.extensionTimer = metricRegistry.timer(metricName("boundExtension"));
+        this.blockedRequests = metricRegistry.meter(metricName("blockedOnBoundExtension"));
         this.currentLimit = boundStore.getUpperLimit();
+        this.lastExtensionTimestamp = currentLimit;
+        this.lastExtensionNanos = nanoClock.getAsLong();
+    }
+
+    public static PersistentUpperLimit extendingInBackground(
+            TimestampBoundStore boundStore,
+            Executor backgroundExecutor,
+            TaggedMetricRegistry metricRegistry) {
+        return new PersistentUpperLimit(boundStore, backgroundExecutor, metricRegistry, System::nanoTime);
     }
 
     public long get() {
@@ -39,8 +108,14 @@ public class PersistentUpperLimit {
     }
 
     public void increaseToAtLeast(long newLimit) {
-        if (newLimit > currentLimit) {
+        long limit = currentLimit;
+        if (newLimit > limit) {
+            if (backgroundExecutor != null) {
+                blockedRequests.mark();
+            }
             updateLimit(newLimit);
+        } else if (backgroundExecutor != null && limit - newLimit < buffer / 2) {
+            scheduleBackgroundExtension(newLimit);
         }
     }
 
@@ -49,15 +124,89 @@ public class PersistentUpperLimit {
             return;
         }
 
-        long newLimitWithBuffer = Math.addExact(newLimit, BUFFER);
+        storeLimitWithBuffer(newLimit);
+    }
+
+    private void scheduleBackgroundExtension(long handedOutUpTo) {
+        if (!backgroundExtensionScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            backgroundExecutor.execute(() -> extendInBackground(handedOutUpTo));
+        } catch (RejectedExecutionException e) {
+            // callers will extend the limit themselves once they run out
+            backgroundExtensionScheduled.set(false);
+            log.warn("Could not schedule an extension of the timestamp upper limit", e);
+        }
+    }
+
+    private void extendInBackground(long handedOutUpTo) {
+        try {
+            synchronized (this) {
+                // a caller may have extended the limit since this extension was scheduled
+                if (currentLimit - handedOutUpTo >= buffer / 2) {
+                    return;
+                }
+                storeLimitWithBuffer(handedOutUpTo);
+            }
+        } catch (RuntimeException e) {
+            // callers will retry, and see the failure, once they run out
+            log.warn("Failed to extend the timestamp upper limit in the background", e);
+        } finally {
+            backgroundExtensionScheduled.set(false);
+        }
+    }
+
+    @GuardedBy("this")
+    private void storeLimitWithBuffer(long handedOutUpTo) {
+        long nanos = nanoClock.getAsLong();
+        if (backgroundExecutor != null) {
+            buffer = adaptBuffer(handedOutUpTo, nanos);
+        }
+        long newLimitWithBuffer = Math.addExact(handedOutUpTo, buffer);
+        if (newLimitWithBuffer <= currentLimit) {
+            // the buffer shrank, and the limit stored with the previous, larger buffer is still high enough
+            return;
+        }
         storeUpperLimit(newLimitWithBuffer);
         currentLimit = newLimitWithBuffer;
+        lastExtensionTimestamp = handedOutUpTo;
+        lastExtensionNanos = nanos;
+    }
+
+    /**
+     * Returns a buffer that would last {@link #TARGET_BUFFER_DURATION_SECONDS} at the rate at which timestamps were
+     * handed out since the last extension.
+     */
+    @GuardedBy("this")
+    private long adaptBuffer(long handedOutUpTo, long nanos) {
+        long elapsedNanos = nanos - lastExtensionNanos;
+        long handedOut = handedOutUpTo - lastExtensionTimestamp;
+        if (elapsedNanos <= 0 || handedOut <= 0) {
+            return buffer;
+        }
+        double timestampsPerSecond = handedOut * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        long targetBuffer = (long) Math.min(timestampsPerSecond * TARGET_BUFFER_DURATION_SECONDS, MAX_BUFFER);
+        long newBuffer = Math.max(BUFFER, targetBuffer);
+        if (newBuffer != buffer) {
+            log.debug("Changing the timestamp upper limit buffer to {}, based on {} timestamps per second",
+                    SafeArg.of("buffer", newBuffer),
+                    SafeArg.of("timestampsPerSecond", (long) timestampsPerSecond));
+        }
+        return newBuffer;
     }
 
     private void storeUpperLimit(long upperLimit) {
         DebugLogger.willStoreNewUpperLimit(upperLimit);
-        store.storeUpperLimit(upperLimit);
+        try (Timer.Context ignored = extensionTimer.time()) {
+            store.storeUpperLimit(upperLimit);
+        }
         DebugLogger.didStoreNewUpperLimit(upperLimit);
     }
 
+    private static MetricName metricName(String name) {
+        return MetricName.builder()
+                .safeName(MetricRegistry.name(PersistentUpperLimit.class, name))
+                .build();
+    }
 }
@@ -21,15 +21,27 @@ import static org.hamcrest.core.Is.is;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import com.codahale.metrics.MetricRegistry;
+import com.palantir.tritium.metrics.registry.DefaultTaggedMetricRegistry;
+import com.palantir.tritium.metrics.registry.MetricName;
+import com.palantir.tritium.metrics.registry.TaggedMetricRegistry;
+
 public class PersistentUpperLimitTest {
     private static final long TIMESTAMP = 12345L;
     private static final long INITIAL_UPPER_LIMIT = 10L;
@@ -41,6 +53,9 @@ public class PersistentUpperLimitTest {
     @Rule
     public ExpectedException exception = ExpectedException.none();
     private final TimestampAllocationFailures allocationFailures = mock(TimestampAllocationFailures.class);
+    private final TaggedMetricRegistry metricRegistry = new DefaultTaggedMetricRegistry();
+    private final AtomicLong nanos = new AtomicLong();
+    private final List<Runnable> scheduledExtensions = new ArrayList<>();
 
     @Before
     public void setup() {
@@ -119,4 +134,125 @@ public class PersistentUpperLimitTest {
         assertThat(upperLimit.get(), is(INITIAL_UPPER_LIMIT));
     }
 
+    @Test
+    public void shouldExtendInTheBackgroundOnceHalfOfTheBufferIsUsed() {
+        PersistentUpperLimit backgroundUpperLimit = createExtendingInBackground(Runnable::run);
+        backgroundUpperLimit.increaseToAtLeast(TIMESTAMP);
+
+        long handedOutUpTo = TIMESTAMP + BUFFER / 2 + 1;
+        backgroundUpperLimit.increaseToAtLeast(handedOutUpTo);
+
+        verify(boundStore).storeUpperLimit(handedOutUpTo + BUFFER);
+        assertThat(backgroundUpperLimit.get(), is(handedOutUpTo + BUFFER));
+        assertThat(blockedRequests(), is(1L));
+    }
+
+    @Test
+    public void shouldNotExtendInTheBackgroundWhileMoreThanHalfOfTheBufferRemains() {
+        PersistentUpperLimit backgroundUpperLimit = createExtendingInBackground(scheduledExtensions::add);
+        backgroundUpperLimit.increaseToAtLeast(TIMESTAMP);
+
+        backgroundUpperLimit.increaseToAtLeast(TIMESTAMP + BUFFER / 2);
+
+        assertThat(scheduledExtensions.isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldBlockIfTheBackgroundExtensionFallsBehind() {
+        PersistentUpperLimit backgroundUpperLimit = createExtendingInBackground(scheduledExtensions::add);
+        backgroundUpperLimit.increaseToAtLeast(INITIAL_UPPER_LIMIT - 1);
+        assertThat(scheduledExtensions.size(), is(1));
+
+        backgroundUpperLimit.increaseToAtLeast(TIMESTAMP);
+        scheduledExtensions.forEach(Runnable::run);
+
+        verify(boundStore, times(1)).storeUpperLimit(anyLong());
+        assertThat(backgroundUpperLimit.get(), is(TIMESTAMP + BUFFER));
+        assertThat(blockedRequests(), is(1L));
+    }
+
+    @Test
+    public void shouldSizeTheBufferForTheObservedRate() {
+        PersistentUpperLimit backgroundUpperLimit = createExtendingInBackground(Runnable::run);
+        backgroundUpperLimit.increaseToAtLeast(TIMESTAMP);
+
+        // 200,000 timestamps per second
+        long handedOutUpTo = TIMESTAMP + 600_000;
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(3));
+        backgroundUpperLimit.increaseToAtLeast(handedOutUpTo);
+
+        long expectedBuffer = 200_000 * PersistentUpperLimit.TARGET_BUFFER_DURATION_SECONDS;
+        assertThat(backgroundUpperLimit.get(), is(handedOutUpTo + expectedBuffer));
+    }
+
+    @Test
+    public void shouldNotShrinkTheBufferBelowTheDefault() {
+        PersistentUpperLimit backgroundUpperLimit = createExtendingInBackground(Runnable::run);
+        backgroundUpperLimit.increaseToAtLeast(TIMESTAMP);
+
+        long handedOutUpTo = TIMESTAMP + BUFFER / 2 + 1;
+        nanos.addAndGet(TimeUnit.DAYS.toNanos(1));
+        backgroundUpperLimit.increaseToAtLeast(handedOutUpTo);
+
+        assertThat(backgroundUpperLimit.get(), is(handedOutUpTo + BUFFER));
+    }
+
+    @Test
+    public void shouldNotLowerTheLimitWhenTheBufferShrinks() {
+        PersistentUpperLimit backgroundUpperLimit = createExtendingInBackground(Runnable::run);
+        backgroundUpperLimit.increaseToAtLeast(TIMESTAMP);
+
+        // 500,001 timestamps per second
+        long busyHandedOutUpTo = TIMESTAMP + BUFFER / 2 + 1;
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        backgroundUpperLimit.increaseToAtLeast(busyHandedOutUpTo);
+        long busyLimit = busyHandedOutUpTo + 500_001 * PersistentUpperLimit.TARGET_BUFFER_DURATION_SECONDS;
+        assertThat(backgroundUpperLimit.get(), is(busyLimit));
+
+        // the buffer shrinks to the default, which would put the limit below the stored one
+        long quietHandedOutUpTo = busyLimit - BUFFER * 2;
+        nanos.addAndGet(TimeUnit.DAYS.toNanos(1));
+        backgroundUpperLimit.increaseToAtLeast(quietHandedOutUpTo);
+
+        verify(boundStore, times(2)).storeUpperLimit(anyLong());
+        assertThat(backgroundUpperLimit.get(), is(busyLimit));
+    }
+
+    @Test
+    public void shouldNotCountBlockedRequestsWhenExtendingSynchronously() {
+        PersistentUpperLimit synchronousUpperLimit = new PersistentUpperLimit(
+                boundStore, null, metricRegistry, nanos::get);
+
+        synchronousUpperLimit.increaseToAtLeast(TIMESTAMP);
+
+        assertThat(blockedRequests(), is(0L));
+    }
+
+    @Test
+    public void shouldNotThrowIfTheBackgroundExtensionFails() {
+        PersistentUpperLimit backgroundUpperLimit = createExtendingInBackground(Runnable::run);
+        doThrow(RuntimeException.class).when(boundStore).storeUpperLimit(anyLong());
+
+        backgroundUpperLimit.increaseToAtLeast(INITIAL_UPPER_LIMIT - 1);
+
+        assertThat(backgroundUpperLimit.get(), is(INITIAL_UPPER_LIMIT));
+    }
+
+    @Test
+    public void shouldNotExtendInTheBackgroundByDefault() {
+        upperLimit.increaseToAtLeast(INITIAL_UPPER_LIMIT - 1);
+
+        verify(boundStore, never()).storeUpperLimit(anyLong());
+    }
+
+    private PersistentUpperLimit createExtendingInBackground(Executor executor) {
+        return new PersistentUpperLimit(boundStore, executor, metricRegistry, nanos::get);
+    }
+
+    private long blockedRequests() {
+        return metricRegistry.meter(MetricName.builder()
+                .safeName(MetricRegistry.name(PersistentUpperLimit.class, "blockedOnBoundExtension"))
+                .build())
+                .getCount();
+    }
 }